@@ -0,0 +1,22 @@
+package com.lucia.memoria.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "dictionary.cache")
+public class DictionaryCacheConfig {
+    private boolean enabled = true;
+    // Directory holding the append-only cache log, survives restarts
+    private String directory = "cache/dictionary";
+    // Number of words kept in the in-memory LRU tier
+    private int maxEntries = 10_000;
+    private Duration ttl = Duration.ofDays(7);
+    // "Word not found" answers are cached too, but expire sooner in case the dictionary adds them
+    private Duration notFoundTtl = Duration.ofHours(6);
+}
@@ -0,0 +1,40 @@
+package com.lucia.memoria.config;
+
+import com.lucia.memoria.helper.DictionaryMode;
+import com.lucia.memoria.helper.DictionaryStrategy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "dictionary")
+public class DictionaryConfig {
+    // Shorthand for the provider list, only used when "providers" is empty
+    private DictionaryMode mode = DictionaryMode.REMOTE_ONLY;
+    // Ordered provider names, e.g. free-dictionary,offline-dictionary,stub
+    private List<String> providers = new ArrayList<>();
+    private DictionaryStrategy strategy = DictionaryStrategy.FALLBACK;
+
+    // Hedge delay used until a provider has enough latency samples
+    private Duration hedgeDelay = Duration.ofMillis(300);
+    // Latency percentile of the running provider after which the next one is fired
+    private double hedgePercentile = 0.9;
+    private Duration minHedgeDelay = Duration.ofMillis(20);
+    private Duration maxHedgeDelay = Duration.ofSeconds(2);
+
+    // JSON lines dump, one ResponseDTO per line. Re-ingested when newer than the built index
+    private String offlineSource;
+    // Where the compact index and data files of the offline dictionary are kept
+    private String offlineDirectory = "cache/offline-dictionary";
+
+    // Fixed answers for tests and local development, same format as the offline dump.
+    // The stub provider is only created when this is set
+    private String stubSource;
+    private Duration stubLatency = Duration.ZERO;
+}
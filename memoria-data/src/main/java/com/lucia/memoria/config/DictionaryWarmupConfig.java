@@ -0,0 +1,24 @@
+package com.lucia.memoria.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "dictionary.warmup")
+public class DictionaryWarmupConfig {
+    private boolean enabled = false;
+    // Word frequency list, one word per line, most frequent first. Extra columns are ignored
+    private String source;
+    // Kept low on purpose, the warm-up must never crowd out live lookups
+    private double wordsPerSecond = 2;
+    private int concurrency = 2;
+    // Words saved, and progress recorded, per transaction
+    private int batchSize = 25;
+    // Precomputed cards older than this are skipped by lookups and rebuilt by the next run
+    private Duration maxAge = Duration.ofDays(30);
+}
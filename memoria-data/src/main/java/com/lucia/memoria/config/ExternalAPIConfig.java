@@ -1,5 +1,6 @@
 package com.lucia.memoria.config;
 
+import java.time.Duration;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -12,4 +13,21 @@ import org.springframework.stereotype.Component;
 public class ExternalAPIConfig {
     private  String freeDictionary;
     private  String googleTranslate;
+    // Upper bound of dictionary calls in flight before new lookups are rejected
+    private int freeDictionaryMaxConcurrency = 32;
+    // Calls per second actually sent to the dictionary, cache hits are not counted
+    private double freeDictionaryRatePerSecond = 20;
+    // Longest a dictionary call may queue for its rate slot before it is rejected as busy
+    private Duration freeDictionaryMaxQueueWait = Duration.ofSeconds(2);
+    // Words of one batch request looked up at the same time
+    private int freeDictionaryBatchConcurrency = 8;
+    private int freeDictionaryBatchMaxWords = 500;
+    // Translation gets its own connection pool and permits, so it cannot starve dictionary lookups
+    private int googleTranslateMaxConcurrency = 16;
+    private Duration googleTranslateTimeout = Duration.ofSeconds(3);
+    private int googleTranslateCacheSize = 5_000;
+    private Duration googleTranslateCacheTtl = Duration.ofDays(1);
+    // Consecutive upstream failures before the circuit opens, and how long it stays open
+    private int googleTranslateFailureThreshold = 5;
+    private Duration googleTranslateOpenDuration = Duration.ofSeconds(30);
 }
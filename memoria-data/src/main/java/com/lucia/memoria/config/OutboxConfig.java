@@ -0,0 +1,26 @@
+package com.lucia.memoria.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxConfig {
+    private boolean enabled = true;
+    // Base url of memoria-training, events are posted to its internal change endpoint
+    private String trainingUrl = "http://localhost:8083";
+    private Duration pollInterval = Duration.ofSeconds(1);
+    private int batchSize = 200;
+    private Duration timeout = Duration.ofSeconds(5);
+    // Longest wait between attempts while memoria-training keeps failing
+    private Duration maxBackoff = Duration.ofMinutes(1);
+    // Rejections of one event before it is parked and left for someone to look at
+    private int maxAttempts = 10;
+    // How long published events are kept before they are deleted
+    private Duration retention = Duration.ofDays(7);
+}
@@ -1,9 +1,13 @@
 package com.lucia.memoria.controller;
 
+import com.lucia.memoria.dto.local.CardBatchRequestDTO;
 import com.lucia.memoria.dto.local.CardRequestDTO;
 import com.lucia.memoria.dto.local.CardResponseDTO;
 import com.lucia.memoria.dto.local.GeneralResponseDTO;
+import com.lucia.memoria.helper.ConditionalResponses;
 import com.lucia.memoria.service.local.CardService;
+import com.lucia.memoria.service.local.DataVersionService;
+import java.util.List;
 import java.util.UUID;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,15 +20,18 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/data/cards")
 public class CardController {
 
   private final CardService cardService;
+  private final DataVersionService dataVersionService;
 
-  public CardController(CardService cardService) {
+  public CardController(CardService cardService, DataVersionService dataVersionService) {
     this.cardService = cardService;
+    this.dataVersionService = dataVersionService;
   }
 
   @PostMapping
@@ -37,8 +44,17 @@ public class CardController {
     return ResponseEntity.status(HttpStatus.CREATED).body(cardService.updateCard(cardId, cardDTO, saveDuplicate));
   }
   @GetMapping("/{cardId}")
-  public ResponseEntity<CardResponseDTO> getCardById(@PathVariable("cardId") UUID cardId) {
-    return ResponseEntity.ok().body(cardService.getCardById(cardId));
+  public ResponseEntity<CardResponseDTO> getCardById(@PathVariable("cardId") UUID cardId,
+      WebRequest request) {
+    return ConditionalResponses.ok(request, dataVersionService.cardETag(cardId),
+        () -> cardService.getCardById(cardId));
+  }
+
+  // Lets other services load many cards in one call instead of one request per card
+  @PostMapping("/batch")
+  public ResponseEntity<List<CardResponseDTO>> getCardsByIds(
+      @RequestBody CardBatchRequestDTO cardBatchRequestDTO) {
+    return ResponseEntity.ok().body(cardService.getCardsByIds(cardBatchRequestDTO.cardIds()));
   }
 
   @DeleteMapping("/{cardId}")
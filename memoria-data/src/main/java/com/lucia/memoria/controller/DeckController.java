@@ -5,7 +5,9 @@ import com.lucia.memoria.dto.local.DeckResponseDTO;
 import com.lucia.memoria.dto.local.GeneralResponseDTO;
 import com.lucia.memoria.dto.local.RenameRequestDTO;
 import com.lucia.memoria.dto.local.ResponseDeckWithCardsDTO;
+import com.lucia.memoria.helper.ConditionalResponses;
 import com.lucia.memoria.service.local.CardService;
+import com.lucia.memoria.service.local.DataVersionService;
 import com.lucia.memoria.service.local.DeckService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +22,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import java.util.UUID;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/data/decks")
@@ -27,10 +30,13 @@ public class DeckController {
 
   private final DeckService deckService;
   private final CardService cardService;
+  private final DataVersionService dataVersionService;
 
-  public DeckController(DeckService deckService, CardService cardService) {
+  public DeckController(DeckService deckService, CardService cardService,
+      DataVersionService dataVersionService) {
     this.deckService = deckService;
     this.cardService = cardService;
+    this.dataVersionService = dataVersionService;
   }
 
   @PostMapping
@@ -39,13 +45,17 @@ public class DeckController {
   }
 
   @GetMapping("/{deckId}/cards")
-  public ResponseEntity<ResponseDeckWithCardsDTO> getDeckWithCards(@PathVariable("deckId") UUID deckId) {
-    return ResponseEntity.ok().body(cardService.getDeckWithCards(deckId));
+  public ResponseEntity<ResponseDeckWithCardsDTO> getDeckWithCards(@PathVariable("deckId") UUID deckId,
+      WebRequest request) {
+    return ConditionalResponses.ok(request, dataVersionService.deckETag(deckId),
+        () -> cardService.getDeckWithCards(deckId));
   }
 
   @GetMapping("/{deckId}")
-  public ResponseEntity<DeckResponseDTO> getDeckById(@PathVariable("deckId") UUID deckId) {
-    return ResponseEntity.ok().body(deckService.getDeckById(deckId));
+  public ResponseEntity<DeckResponseDTO> getDeckById(@PathVariable("deckId") UUID deckId,
+      WebRequest request) {
+    return ConditionalResponses.ok(request, dataVersionService.deckETag(deckId),
+        () -> deckService.getDeckById(deckId));
   }
 
   @DeleteMapping("/{deckId}")
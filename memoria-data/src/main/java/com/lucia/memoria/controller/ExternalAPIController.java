@@ -1,14 +1,26 @@
 package com.lucia.memoria.controller;
 
+import com.lucia.memoria.dto.local.BatchLookupRequestDTO;
 import com.lucia.memoria.dto.local.CardResponseDTO;
+import com.lucia.memoria.dto.local.ProviderStatsDTO;
+import com.lucia.memoria.dto.local.UpstreamStatsDTO;
+import com.lucia.memoria.dto.local.WarmupStatusDTO;
+import com.lucia.memoria.service.external.DictionaryLookupService;
+import com.lucia.memoria.service.external.DictionaryWarmupJob;
+import com.lucia.memoria.service.external.FreeDictionaryAPIService;
 import com.lucia.memoria.service.external.FreeDictionaryCardService;
 import com.lucia.memoria.service.external.GoogleAPIService;
+import com.lucia.memoria.service.helper.SingleFlight;
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -20,11 +32,24 @@ public class ExternalAPIController {
 
   private final FreeDictionaryCardService freeDictionaryCardService;
   private final GoogleAPIService googleAPIService;
+  private final FreeDictionaryAPIService freeDictionaryAPIService;
+  private final DictionaryLookupService dictionaryLookupService;
+  private final DictionaryWarmupJob dictionaryWarmupJob;
 
 
   @GetMapping("/meaning/{word}")
-  public ResponseEntity<List<CardResponseDTO>> getWordDefinition(@PathVariable("word") String word) {
-    return ResponseEntity.ok().body(freeDictionaryCardService.generateCards(word));
+  public Mono<ResponseEntity<List<CardResponseDTO>>> getWordDefinition(
+      @PathVariable("word") String word) {
+    // Returned as Mono so the servlet thread is released while the dictionary answers
+    return freeDictionaryCardService.generateCards(word)
+        .map(cards -> ResponseEntity.ok().body(cards));
+  }
+
+  // Cards are streamed one per line (or per event) in completion order, not request order
+  @PostMapping(value = "/meaning/batch",
+      produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+  public Flux<CardResponseDTO> getWordDefinitions(@RequestBody BatchLookupRequestDTO request) {
+    return freeDictionaryCardService.generateCards(request.words());
   }
 
   @GetMapping("/translation/{source}/{target}/{word}")
@@ -32,4 +57,26 @@ public class ExternalAPIController {
       @PathVariable("target") String target, @PathVariable("word") String word) {
     return googleAPIService.callExternalApi(source, target, word);
   }
+
+  @GetMapping("/stats")
+  public ResponseEntity<List<UpstreamStatsDTO>> getUpstreamStats() {
+    return ResponseEntity.ok().body(List.of(
+        toStats(freeDictionaryAPIService.getSingleFlight(), null),
+        toStats(googleAPIService.getSingleFlight(), googleAPIService.getCircuitState().name())));
+  }
+
+  @GetMapping("/stats/providers")
+  public ResponseEntity<List<ProviderStatsDTO>> getProviderStats() {
+    return ResponseEntity.ok().body(dictionaryLookupService.getProviderStats());
+  }
+
+  @GetMapping("/stats/warmup")
+  public ResponseEntity<WarmupStatusDTO> getWarmupStatus() {
+    return ResponseEntity.ok().body(dictionaryWarmupJob.getStatus());
+  }
+
+  private static UpstreamStatsDTO toStats(SingleFlight<?> singleFlight, String circuitState) {
+    return new UpstreamStatsDTO(singleFlight.getProvider(), singleFlight.getUpstreamCalls(),
+        singleFlight.getCoalescedCalls(), singleFlight.getInFlight(), circuitState);
+  }
 }
@@ -0,0 +1,27 @@
+package com.lucia.memoria.controller;
+
+import com.lucia.memoria.dto.local.LeechTagDTO;
+import com.lucia.memoria.service.local.TagService;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Called by memoria-training only, the gateway routes /api/data/** and never reaches this path
+@RestController
+@RequestMapping("/internal/leeches")
+@AllArgsConstructor
+public class LeechController {
+
+  private final TagService tagService;
+
+  // Answers only once every card is tagged, memoria-training sends the batch again otherwise
+  @PostMapping
+  public ResponseEntity<Void> tagLeeches(@RequestBody List<LeechTagDTO> leeches) {
+    tagService.tagLeeches(leeches);
+    return ResponseEntity.noContent().build();
+  }
+}
@@ -0,0 +1,33 @@
+package com.lucia.memoria.controller;
+
+import com.lucia.memoria.model.Deck;
+import com.lucia.memoria.service.local.DeckService;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// Called by memoria-training only, the gateway routes /api/data/** and never reaches this path
+@RestController
+@RequestMapping("/internal/decks")
+@AllArgsConstructor
+public class SubtreeCardController {
+
+  private final DeckService deckService;
+
+  // The deck is checked before streaming starts, so a missing deck still answers 404
+  @GetMapping(value = "/{deckId}/subtree-cards", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamSubtreeCards(@PathVariable UUID deckId,
+      @RequestParam String userId) {
+    Deck root = deckService.getOwnedDeck(userId, deckId);
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+        .body(out -> deckService.writeSubtreeCards(root, out));
+  }
+}
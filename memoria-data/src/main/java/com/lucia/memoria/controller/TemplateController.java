@@ -2,6 +2,8 @@ package com.lucia.memoria.controller;
 
 import com.lucia.memoria.dto.local.GeneralResponseDTO;
 import com.lucia.memoria.dto.local.TemplateDTO;
+import com.lucia.memoria.helper.ConditionalResponses;
+import com.lucia.memoria.service.local.DataVersionService;
 import com.lucia.memoria.service.local.TemplateService;
 import java.util.UUID;
 import org.springframework.http.HttpStatus;
@@ -13,15 +15,19 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/data/templates")
 public class TemplateController {
 
   private final TemplateService templateService;
+  private final DataVersionService dataVersionService;
 
-  public TemplateController(TemplateService templateService) {
+  public TemplateController(TemplateService templateService,
+      DataVersionService dataVersionService) {
     this.templateService = templateService;
+    this.dataVersionService = dataVersionService;
   }
 
   @PostMapping
@@ -31,8 +37,10 @@ public class TemplateController {
   }
 
   @GetMapping("/{templateId}")
-  public ResponseEntity<TemplateDTO> getTemplateById(@PathVariable("templateId") UUID templateId) {
-    return ResponseEntity.ok().body(templateService.getTemplateById(templateId));
+  public ResponseEntity<TemplateDTO> getTemplateById(@PathVariable("templateId") UUID templateId,
+      WebRequest request) {
+    return ConditionalResponses.ok(request, dataVersionService.templateETag(templateId),
+        () -> templateService.getTemplateById(templateId));
   }
 
   @DeleteMapping("/{templateId}")
@@ -3,6 +3,8 @@ package com.lucia.memoria.controller;
 import com.lucia.memoria.dto.local.DeckResponseDTO;
 import com.lucia.memoria.dto.local.TemplateDTO;
 import com.lucia.memoria.dto.local.UserDTO;
+import com.lucia.memoria.helper.ConditionalResponses;
+import com.lucia.memoria.service.local.DataVersionService;
 import com.lucia.memoria.service.local.DeckService;
 import com.lucia.memoria.service.local.TemplateService;
 import com.lucia.memoria.service.local.UserService;
@@ -23,6 +25,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import java.util.List;
 import java.util.UUID;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/data/users")
@@ -31,12 +34,14 @@ public class UserController {
   private final UserService userService;
   private final DeckService deckService;
   private final TemplateService templateService;
+  private final DataVersionService dataVersionService;
 
   public UserController(UserService userService, DeckService deckService,
-      TemplateService templateService) {
+      TemplateService templateService, DataVersionService dataVersionService) {
     this.userService = userService;
     this.deckService = deckService;
     this.templateService = templateService;
+    this.dataVersionService = dataVersionService;
   }
 
   @Operation(summary = "Create new user")
@@ -69,12 +74,16 @@ public class UserController {
   }
 
   @GetMapping("/{userId}/templates")
-  public ResponseEntity<List<TemplateDTO>> getUserTemplates(@PathVariable("userId") UUID userId) {
-    return ResponseEntity.ok().body(templateService.getTemplatesByUserId(userId));
+  public ResponseEntity<List<TemplateDTO>> getUserTemplates(@PathVariable("userId") UUID userId,
+      WebRequest request) {
+    return ConditionalResponses.ok(request, dataVersionService.userETag(userId),
+        () -> templateService.getTemplatesByUserId(userId));
   }
 
   @GetMapping("/{userId}/decks")
-  public ResponseEntity<List<DeckResponseDTO>> getUserDecks(@PathVariable("userId") UUID userId) {
-    return ResponseEntity.ok().body(deckService.getDecksByUserId(userId));
+  public ResponseEntity<List<DeckResponseDTO>> getUserDecks(@PathVariable("userId") UUID userId,
+      WebRequest request) {
+    return ConditionalResponses.ok(request, dataVersionService.userETag(userId),
+        () -> deckService.getDecksByUserId(userId));
   }
 }
@@ -0,0 +1,70 @@
+package com.lucia.memoria.dto.externalapi;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import java.io.IOException;
+
+/**
+ * Translated text from the Google translate endpoint.
+ * The upstream answers with nested untyped arrays, e.g.
+ * {@code [[["hola","hello",null,null,10]],null,"en",...]}, so the payload is walked token by
+ * token and only the translated segments are kept. No intermediate lists or maps are built.
+ */
+@JsonDeserialize(using = TranslationDTO.Deserializer.class)
+public record TranslationDTO(String text) {
+
+  static class Deserializer extends JsonDeserializer<TranslationDTO> {
+
+    @Override
+    public TranslationDTO deserialize(JsonParser parser, DeserializationContext context)
+        throws IOException {
+      expect(parser, parser.currentToken(), JsonToken.START_ARRAY, context);
+      JsonToken sentences = parser.nextToken();
+      if (sentences != JsonToken.START_ARRAY) {
+        // "null" sentences means there was nothing to translate
+        parser.skipChildren();
+        skipRest(parser);
+        return new TranslationDTO("");
+      }
+
+      StringBuilder text = new StringBuilder();
+      // Long texts come back split into sentences, the first element of each is the translation
+      while (parser.nextToken() == JsonToken.START_ARRAY) {
+        if (parser.nextToken() == JsonToken.VALUE_STRING) {
+          text.append(parser.getText());
+        }
+        skipRestOfArray(parser);
+      }
+      skipRest(parser);
+      return new TranslationDTO(text.toString());
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected,
+        DeserializationContext context) throws IOException {
+      if (actual != expected) {
+        context.reportInputMismatch(TranslationDTO.class,
+            "Unexpected translation payload, expected %s but got %s", expected, actual);
+      }
+    }
+
+    // Skips the remaining elements of the array the parser is currently inside
+    private static void skipRestOfArray(JsonParser parser) throws IOException {
+      JsonToken token = parser.currentToken();
+      while (token != JsonToken.END_ARRAY) {
+        parser.skipChildren();
+        token = parser.nextToken();
+      }
+    }
+
+    // Skips everything after the sentences until the closing bracket of the root array
+    private static void skipRest(JsonParser parser) throws IOException {
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+        parser.skipChildren();
+      }
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package com.lucia.memoria.dto.local;
+
+import java.util.List;
+
+public record BatchLookupRequestDTO(List<String> words) {
+
+}
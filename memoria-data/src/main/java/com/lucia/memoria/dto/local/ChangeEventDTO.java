@@ -0,0 +1,15 @@
+package com.lucia.memoria.dto.local;
+
+import com.lucia.memoria.helper.ChangeEventType;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An outbox event as memoria-training receives it. {@code sequence} grows with every change of
+ * the user in commit order and is 0 for changes without a user, {@code userId} is the username.
+ */
+public record ChangeEventDTO(UUID eventId, long sequence, ChangeEventType type, String userId,
+                             UUID cardId, UUID deckId, UUID parentDeckId, UUID templateId,
+                             String path, Instant occurredAt) {
+
+}
@@ -0,0 +1,10 @@
+package com.lucia.memoria.dto.local;
+
+import java.util.UUID;
+
+/**
+ * A card memoria-training found to be a leech. {@code userId} is the username.
+ */
+public record LeechTagDTO(String eventId, String userId, UUID cardId, String tagName) {
+
+}
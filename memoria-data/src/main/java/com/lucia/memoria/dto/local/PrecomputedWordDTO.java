@@ -0,0 +1,10 @@
+package com.lucia.memoria.dto.local;
+
+import java.time.Instant;
+
+/**
+ * A precomputed word without its cards, enough to tell whether the cards are still fresh.
+ */
+public record PrecomputedWordDTO(String word, String templateVersion, Instant createdAt) {
+
+}
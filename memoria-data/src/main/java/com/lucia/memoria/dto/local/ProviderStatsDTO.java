@@ -0,0 +1,6 @@
+package com.lucia.memoria.dto.local;
+
+public record ProviderStatsDTO(String provider, long samples, long p50Millis, long p90Millis,
+                               long p99Millis, long hedgeDelayMillis) {
+
+}
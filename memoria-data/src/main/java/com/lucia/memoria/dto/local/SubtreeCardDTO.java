@@ -0,0 +1,10 @@
+package com.lucia.memoria.dto.local;
+
+import java.util.UUID;
+
+/**
+ * A card of a deck subtree, as streamed to memoria-training.
+ */
+public record SubtreeCardDTO(UUID deckId, UUID cardId) {
+
+}
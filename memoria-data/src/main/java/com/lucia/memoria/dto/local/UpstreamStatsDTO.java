@@ -0,0 +1,6 @@
+package com.lucia.memoria.dto.local;
+
+public record UpstreamStatsDTO(String provider, long upstreamCalls, long coalescedCalls,
+                               int inFlight, String circuitState) {
+
+}
@@ -0,0 +1,8 @@
+package com.lucia.memoria.dto.local;
+
+public record WarmupStatusDTO(String source, boolean running, int totalWords, int processedWords,
+                              int wordsWithCards, int wordsNotFound, int wordsFailed,
+                              double coveragePercent, double wordsPerSecond,
+                              int precomputedWords, long precomputedHits) {
+
+}
@@ -0,0 +1,5 @@
+package com.lucia.memoria.exception;
+
+public class CircuitOpenException extends UpstreamBusyException {
+  public CircuitOpenException(String message) { super(message); }
+}
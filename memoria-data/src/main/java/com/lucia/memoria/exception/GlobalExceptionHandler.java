@@ -39,6 +39,14 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
   }
 
+//  Used when an external provider already has as many calls in flight as it is allowed
+  @ExceptionHandler(UpstreamBusyException.class)
+  public ResponseEntity<GeneralResponseDTO<Void>> handleUpstreamBusyException(
+      UpstreamBusyException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .body(new GeneralResponseDTO<>(ex.getMessage()));
+  }
+
   @ExceptionHandler(MethodArgumentTypeMismatchException.class)
   public ResponseEntity<GeneralResponseDTO<Object>> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
     String message = String.format(
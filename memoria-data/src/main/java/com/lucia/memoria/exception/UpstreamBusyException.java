@@ -0,0 +1,5 @@
+package com.lucia.memoria.exception;
+
+public class UpstreamBusyException extends RuntimeException {
+  public UpstreamBusyException(String message) { super(message); }
+}
@@ -0,0 +1,5 @@
+package com.lucia.memoria.exception;
+
+public class WordNotFoundException extends ClientApiException {
+  public WordNotFoundException(String message) { super(message); }
+}
@@ -0,0 +1,12 @@
+package com.lucia.memoria.helper;
+
+public enum ChangeEventType {
+  CARD_CREATED,
+  CARD_UPDATED,
+  CARD_DELETED,
+  DECK_CREATED,
+  DECK_UPDATED,
+  DECK_DELETED,
+  TEMPLATE_CREATED,
+  TEMPLATE_DELETED
+}
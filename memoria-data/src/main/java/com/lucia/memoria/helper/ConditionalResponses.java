@@ -0,0 +1,31 @@
+package com.lucia.memoria.helper;
+
+import java.util.function.Supplier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Conditional GET on top of the ETags of DataVersionService. The ETag is read before the body,
+ * so a change committed in between leaves the body newer than its ETag, which costs the
+ * client one extra full response and never serves it stale data.
+ */
+public final class ConditionalResponses {
+
+  private ConditionalResponses() {
+  }
+
+  /**
+   * 304 when the request's If-None-Match holds the ETag, without calling {@code body}; the
+   * body with its ETag otherwise. A null ETag always loads the body.
+   */
+  public static <T> ResponseEntity<T> ok(WebRequest request, String eTag, Supplier<T> body) {
+    if (eTag == null) {
+      return ResponseEntity.ok().body(body.get());
+    }
+    if (request.checkNotModified(eTag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+    return ResponseEntity.ok().eTag(eTag).body(body.get());
+  }
+}
@@ -0,0 +1,21 @@
+package com.lucia.memoria.helper;
+
+/**
+ * Where word definitions are looked up.
+ */
+public enum DictionaryMode {
+  /**
+   * Only the external dictionary API.
+   */
+  REMOTE_ONLY,
+
+  /**
+   * Only the local offline index, no network at all.
+   */
+  LOCAL_ONLY,
+
+  /**
+   * The local index first, the external API for words it does not know.
+   */
+  LOCAL_FIRST
+}
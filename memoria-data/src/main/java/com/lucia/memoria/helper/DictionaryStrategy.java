@@ -0,0 +1,21 @@
+package com.lucia.memoria.helper;
+
+/**
+ * How the configured dictionary providers are combined for one lookup.
+ */
+public enum DictionaryStrategy {
+  /**
+   * Ask the providers one after another, move on only when one fails or does not know the word.
+   */
+  FALLBACK,
+
+  /**
+   * Ask the first provider, fire the next one when the answer takes longer than the hedge delay.
+   */
+  HEDGED,
+
+  /**
+   * Ask all providers at once and take the first answer.
+   */
+  RACE
+}
@@ -0,0 +1,62 @@
+package com.lucia.memoria.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * How far the dictionary warm-up job got through one word list, so it can resume after a
+ * restart instead of starting over.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "dictionary_warmup_progress")
+public class DictionaryWarmupProgress {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "source", nullable = false, unique = true)
+  private String source;
+
+  @Column(name = "total_words", nullable = false)
+  private int totalWords;
+
+  // Position in the de-duplicated word list of the first word not yet processed
+  @Column(name = "next_position", nullable = false)
+  private int nextPosition;
+
+  @Column(name = "words_with_cards", nullable = false)
+  private int wordsWithCards;
+
+  @Column(name = "words_not_found", nullable = false)
+  private int wordsNotFound;
+
+  @Column(name = "words_failed", nullable = false)
+  private int wordsFailed;
+
+  // Words before nextPosition whose lookup failed, one per line, retried by the next run
+  @Column(name = "failed_words", columnDefinition = "TEXT")
+  private String failedWords;
+
+  @Column(name = "updated_at", nullable = false)
+  private Instant updatedAt;
+
+  public DictionaryWarmupProgress(String source, int totalWords) {
+    this.source = source;
+    this.totalWords = totalWords;
+    this.updatedAt = Instant.now();
+  }
+}
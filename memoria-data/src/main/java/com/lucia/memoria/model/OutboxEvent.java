@@ -0,0 +1,95 @@
+package com.lucia.memoria.model;
+
+import com.lucia.memoria.helper.ChangeEventType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A change to a card, deck or template, written in the transaction that made it and published
+ * to memoria-training afterwards. The id only identifies the event: identity values are taken
+ * before commit, so concurrent transactions commit them out of order. {@code userSequence}
+ * numbers a user's changes in commit order, see {@link com.lucia.memoria.service.local.OutboxService}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "event_id", nullable = false, unique = true, updatable = false)
+  private UUID eventId = UUID.randomUUID();
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "event_type", nullable = false)
+  private ChangeEventType eventType;
+
+  // The username, which is the user id the other services know
+  @Column(name = "username")
+  private String username;
+
+  @Column(name = "card_id")
+  private UUID cardId;
+
+  @Column(name = "deck_id")
+  private UUID deckId;
+
+  @Column(name = "parent_deck_id")
+  private UUID parentDeckId;
+
+  @Column(name = "template_id")
+  private UUID templateId;
+
+  @Column(name = "path")
+  private String path;
+
+  // Null for changes without a user, memoria-training ignores those
+  @Column(name = "user_sequence")
+  private Long userSequence;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt = Instant.now();
+
+  @Column(name = "published_at")
+  private Instant publishedAt;
+
+  // Set while a publisher posts the event, another one may take it over once claimedUntil passed
+  @Column(name = "claim_id")
+  private UUID claimId;
+
+  @Column(name = "claimed_until")
+  private Instant claimedUntil;
+
+  // Times memoria-training rejected the event, it is parked once this reaches outbox.max-attempts
+  @Column(name = "attempts", nullable = false)
+  private int attempts;
+
+  @Column(name = "next_attempt_at")
+  private Instant nextAttemptAt;
+
+  @Column(name = "parked_at")
+  private Instant parkedAt;
+
+  @Column(name = "last_error")
+  private String lastError;
+
+  public OutboxEvent(ChangeEventType eventType, String username) {
+    this.eventType = eventType;
+    this.username = username;
+  }
+}
@@ -0,0 +1,57 @@
+package com.lucia.memoria.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Dictionary cards generated ahead of time for a frequent word, stored as the JSON the
+ * meaning endpoint would return.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "precomputed_cards")
+public class PrecomputedCard {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "word", nullable = false, unique = true)
+  private String word;
+
+  @Column(name = "template_id", nullable = false)
+  private UUID templateId;
+
+  // Fingerprint of the template fields the cards were built from, see
+  // PrecomputedCardService.templateVersion
+  @Column(name = "template_version", length = 36)
+  private String templateVersion;
+
+  @Column(name = "cards", nullable = false, columnDefinition = "TEXT")
+  private String cards;
+
+  // Time the cards were last built, they are rebuilt once older than dictionary.warmup.max-age
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  public PrecomputedCard(String word, UUID templateId, String templateVersion, String cards) {
+    this.word = word;
+    this.templateId = templateId;
+    this.templateVersion = templateVersion;
+    this.cards = cards;
+    this.createdAt = Instant.now();
+  }
+}
@@ -1,15 +1,21 @@
 package com.lucia.memoria.repository;
 
+import com.lucia.memoria.dto.local.SubtreeCardDTO;
 import com.lucia.memoria.model.Card;
 import com.lucia.memoria.model.Deck;
 import com.lucia.memoria.model.Tag;
 import com.lucia.memoria.model.Template;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface CardRepository extends JpaRepository<Card, Long> {
@@ -22,6 +28,17 @@ public interface CardRepository extends JpaRepository<Card, Long> {
       "WHERE c.cardId = :cardId")
   Optional<Card> findByCardIdWithFieldsAndFieldTemplates(@Param("cardId") UUID cardId);
 
+  // Template fields come separately, see TemplateRepository.findAllWithFields
+  @Query("SELECT DISTINCT c FROM Card c " +
+      "LEFT JOIN FETCH c.fields f " +
+      "LEFT JOIN FETCH f.templateField tf " +
+      "LEFT JOIN FETCH c.deck d " +
+      "LEFT JOIN FETCH d.user " +
+      "LEFT JOIN FETCH c.template t " +
+      "WHERE c.cardId IN :cardIds")
+  List<Card> findAllByCardIdInWithFieldsAndFieldTemplates(
+      @Param("cardIds") Collection<UUID> cardIds);
+
   @Query("SELECT c.cardId FROM Card c " +
       "JOIN c.fields f " +
       "WHERE f.content = :content")
@@ -29,5 +46,22 @@ public interface CardRepository extends JpaRepository<Card, Long> {
 
   Optional<Card> findByCardId(UUID cardId);
 
+  // A card's version is the one of its deck
+  @Query(value = "SELECT d.data_version FROM cards c JOIN decks d ON d.id = c.deck_id " +
+      "WHERE c.card_id = :cardId", nativeQuery = true)
+  Optional<Long> findDeckDataVersion(@Param("cardId") UUID cardId);
+
+  // Pages through the rows with a cursor instead of loading the whole subtree; the caller closes
+  // the stream inside a transaction. pathPrefix is the root path plus "::", LIKE-escaped with '!'
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query("SELECT new com.lucia.memoria.dto.local.SubtreeCardDTO(d.deckId, c.cardId) " +
+      "FROM Card c " +
+      "JOIN c.deck d " +
+      "WHERE d.user.id = :userId " +
+      "AND (d.id = :rootId OR d.path LIKE :pathPrefix ESCAPE '!') " +
+      "ORDER BY d.path, d.id, c.id")
+  Stream<SubtreeCardDTO> streamSubtreeCards(@Param("userId") Long userId,
+      @Param("rootId") Long rootId, @Param("pathPrefix") String pathPrefix);
+
   List<Card> findByTemplate(Template template);
 }
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -25,4 +26,18 @@ public interface DeckRepository extends JpaRepository<Deck, Long> {
   Optional<Deck> findByDeckIdWithCards(@Param("deckId") UUID deckId);
 
   List<Deck> findAllByParentDeck(Deck parentDeck);
+
+  // data_version is left out of the entity, so flushing a deck never writes back a stale value
+  @Modifying
+  @Query(value = "UPDATE decks SET data_version = data_version + 1 WHERE id = :id",
+      nativeQuery = true)
+  int incrementDataVersion(@Param("id") Long id);
+
+  @Modifying
+  @Query(value = "UPDATE decks SET data_version = data_version + 1 WHERE user_id = :userId",
+      nativeQuery = true)
+  int incrementDataVersionsOfUser(@Param("userId") Long userId);
+
+  @Query(value = "SELECT data_version FROM decks WHERE deck_id = :deckId", nativeQuery = true)
+  Optional<Long> findDataVersion(@Param("deckId") UUID deckId);
 }
@@ -0,0 +1,11 @@
+package com.lucia.memoria.repository;
+
+import com.lucia.memoria.model.DictionaryWarmupProgress;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface DictionaryWarmupProgressRepository extends
+    JpaRepository<DictionaryWarmupProgress, Long> {
+
+  Optional<DictionaryWarmupProgress> findBySource(String source);
+}
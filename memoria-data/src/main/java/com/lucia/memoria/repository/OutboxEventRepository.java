@@ -0,0 +1,64 @@
+package com.lucia.memoria.repository;
+
+import com.lucia.memoria.model.OutboxEvent;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+  // Publishers claiming at the same time skip each other's rows and claim different events
+  @Modifying
+  @Query(value = """
+      UPDATE outbox_events SET claim_id = :claimId, claimed_until = :claimedUntil
+      WHERE id IN (SELECT id FROM outbox_events
+          WHERE published_at IS NULL AND parked_at IS NULL
+            AND (claimed_until IS NULL OR claimed_until < :now)
+            AND (next_attempt_at IS NULL OR next_attempt_at <= :now)
+          ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED)
+      """, nativeQuery = true)
+  int claim(UUID claimId, Instant claimedUntil, Instant now, int limit);
+
+  List<OutboxEvent> findAllByClaimIdOrderById(UUID claimId);
+
+  @Modifying
+  @Query("UPDATE OutboxEvent e SET e.claimedUntil = :claimedUntil WHERE e.claimId = :claimId")
+  int renewClaim(UUID claimId, Instant claimedUntil);
+
+  @Modifying
+  @Query("UPDATE OutboxEvent e SET e.claimId = null, e.claimedUntil = null"
+      + " WHERE e.claimId = :claimId AND e.publishedAt IS NULL")
+  int releaseClaim(UUID claimId);
+
+  @Query(value = "SELECT count(*) FROM outbox_events WHERE published_at IS NULL"
+      + " AND parked_at IS NULL", nativeQuery = true)
+  long countUnpublished();
+
+  @Query(value = "SELECT count(*) FROM outbox_events WHERE parked_at IS NOT NULL",
+      nativeQuery = true)
+  long countParked();
+
+  // Locks the user's counter until the transaction ends
+  @Modifying
+  @Query(value = """
+      INSERT INTO outbox_sequences (username, last_sequence) VALUES (:username, 1)
+      ON CONFLICT (username) DO UPDATE SET last_sequence = outbox_sequences.last_sequence + 1
+      """, nativeQuery = true)
+  void incrementUserSequence(String username);
+
+  @Query(value = "SELECT last_sequence FROM outbox_sequences WHERE username = :username",
+      nativeQuery = true)
+  long findUserSequence(String username);
+
+  @Modifying
+  @Query("UPDATE OutboxEvent e SET e.publishedAt = :publishedAt WHERE e.id IN :ids")
+  int markPublished(Collection<Long> ids, Instant publishedAt);
+
+  @Modifying
+  @Query("DELETE FROM OutboxEvent e WHERE e.publishedAt < :before")
+  int deletePublishedBefore(Instant before);
+}
@@ -0,0 +1,20 @@
+package com.lucia.memoria.repository;
+
+import com.lucia.memoria.dto.local.PrecomputedWordDTO;
+import com.lucia.memoria.model.PrecomputedCard;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface PrecomputedCardRepository extends JpaRepository<PrecomputedCard, Long> {
+
+  Optional<PrecomputedCard> findByWord(String word);
+
+  List<PrecomputedCard> findAllByWordIn(Collection<String> words);
+
+  @Query("SELECT new com.lucia.memoria.dto.local.PrecomputedWordDTO(p.word, p.templateVersion, "
+      + "p.createdAt) FROM PrecomputedCard p")
+  List<PrecomputedWordDTO> findAllWords();
+}
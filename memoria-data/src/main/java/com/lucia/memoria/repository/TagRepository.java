@@ -1,6 +1,7 @@
 package com.lucia.memoria.repository;
 
 import com.lucia.memoria.model.Tag;
+import com.lucia.memoria.model.User;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,4 +11,6 @@ public interface TagRepository extends JpaRepository<Tag, Long> {
   Optional<Tag> findByName(String name);
 
   Optional<Tag> findByTagId(UUID tagId);
+
+  Optional<Tag> findByUserAndNameIgnoreCase(User user, String name);
 }
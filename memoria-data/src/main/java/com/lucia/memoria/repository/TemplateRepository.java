@@ -2,6 +2,7 @@ package com.lucia.memoria.repository;
 
 import com.lucia.memoria.model.Template;
 import com.lucia.memoria.model.User;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -30,4 +31,17 @@ public interface TemplateRepository extends JpaRepository<Template, Long> {
           WHERE t.name = :name
       """)
   Optional<Template> findTemplateByTemplateNameWithFields(@Param("name") String name);
+
+  // Initializes the fields of templates already loaded in the same transaction
+  @Query("""
+          SELECT DISTINCT t FROM Template t
+          LEFT JOIN FETCH t.fields
+          WHERE t IN :templates
+      """)
+  List<Template> findAllWithFields(@Param("templates") Collection<Template> templates);
+
+  // A template's version is the one of its owner, empty for templates nobody owns
+  @Query(value = "SELECT u.data_version FROM templates t JOIN users u ON u.id = t.user_id " +
+      "WHERE t.template_id = :templateId", nativeQuery = true)
+  Optional<Long> findOwnerDataVersion(@Param("templateId") UUID templateId);
 }
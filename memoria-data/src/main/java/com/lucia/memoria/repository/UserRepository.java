@@ -5,8 +5,20 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
   Optional<User> findByUserId(UUID uuid);
+
+  // data_version is left out of the entity, so flushing a user never writes back a stale value
+  @Modifying
+  @Query(value = "UPDATE users SET data_version = data_version + 1 WHERE id = :id",
+      nativeQuery = true)
+  int incrementDataVersion(@Param("id") Long id);
+
+  @Query(value = "SELECT data_version FROM users WHERE user_id = :userId", nativeQuery = true)
+  Optional<Long> findDataVersion(@Param("userId") UUID userId);
 }
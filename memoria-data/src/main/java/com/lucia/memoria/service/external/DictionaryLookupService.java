@@ -0,0 +1,199 @@
+package com.lucia.memoria.service.external;
+
+import com.lucia.memoria.config.DictionaryConfig;
+import com.lucia.memoria.dto.externalapi.ResponseDTO;
+import com.lucia.memoria.dto.local.ProviderStatsDTO;
+import com.lucia.memoria.exception.WordNotFoundException;
+import com.lucia.memoria.service.helper.LatencyHistogram;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.Context;
+
+/**
+ * Entry point for word lookups across every configured {@link DictionaryProvider}.
+ * <p>
+ * Providers are combined by {@code dictionary.strategy}:
+ * FALLBACK asks them in order, RACE asks all at once, HEDGED starts the next provider once the
+ * running one has been slower than its own recent latency percentile (or has failed).
+ * Whatever the strategy, the first non-empty answer wins and the other calls are cancelled.
+ * When nobody answers, "word not found" is preferred over other errors, so a miss still reads
+ * as a miss.
+ */
+@Service
+@Slf4j
+public class DictionaryLookupService {
+
+  // Hedge delays switch from the configured default to measured latencies after this many samples
+  private static final long MIN_SAMPLES = 20;
+  private static final long LATENCY_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  private final DictionaryConfig config;
+  private final Map<String, DictionaryProvider> providersByName = new LinkedHashMap<>();
+  private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+  private final List<DictionaryProvider> chain;
+
+  public DictionaryLookupService(List<DictionaryProvider> providers, DictionaryConfig config) {
+    this.config = config;
+    for (DictionaryProvider provider : providers) {
+      providersByName.put(provider.getName(), provider);
+      latencies.put(provider.getName(), new LatencyHistogram(LATENCY_WINDOW_MILLIS));
+    }
+    this.chain = resolveChain();
+    log.info("Dictionary lookups use {} with strategy {}",
+        chain.stream().map(DictionaryProvider::getName).toList(), config.getStrategy());
+  }
+
+  public Mono<List<ResponseDTO>> lookup(String word) {
+    return Mono.defer(() -> {
+      Outcome outcome = new Outcome();
+      Mono<List<ResponseDTO>> first = switch (config.getStrategy()) {
+        case FALLBACK -> Flux.fromIterable(chain)
+            .concatMap(provider -> attempt(provider, word, outcome))
+            .next();
+        case RACE -> Mono.firstWithValue(chain.stream()
+            .map(provider -> attempt(provider, word, outcome))
+            .toList());
+        case HEDGED -> hedged(word, outcome);
+      };
+      return first
+          // firstWithValue signals "nobody answered" this way, the outcome knows why
+          .onErrorResume(NoSuchElementException.class, ex -> Mono.empty())
+          .switchIfEmpty(Mono.defer(() -> outcome.resolve(word)));
+    });
+  }
+
+  public List<ProviderStatsDTO> getProviderStats() {
+    return providersByName.keySet().stream()
+        .map(name -> {
+          LatencyHistogram histogram = latencies.get(name);
+          return new ProviderStatsDTO(name, histogram.count(), histogram.percentile(0.5),
+              histogram.percentile(0.9), histogram.percentile(0.99),
+              hedgeDelay(providersByName.get(name)).toMillis());
+        })
+        .toList();
+  }
+
+  /**
+   * Provider i + 1 starts when provider i has started and then either failed or stayed
+   * silent for its hedge delay. Earlier calls keep running, the first answer wins.
+   */
+  private Mono<List<ResponseDTO>> hedged(String word, Outcome outcome) {
+    List<Mono<List<ResponseDTO>>> attempts = new ArrayList<>(chain.size());
+    Mono<Void> started = Mono.empty();
+    for (DictionaryProvider provider : chain) {
+      Sinks.Empty<Void> gaveUp = Sinks.empty();
+      attempts.add(started.then(attempt(provider, word, outcome)
+          .switchIfEmpty(Mono.defer(() -> {
+            gaveUp.tryEmitEmpty();
+            return Mono.empty();
+          }))));
+      started = started
+          .then(Mono.firstWithSignal(Mono.delay(hedgeDelay(provider)).then(), gaveUp.asMono()))
+          .cache();
+    }
+    return Mono.firstWithValue(attempts);
+  }
+
+  // Never errors: failures and empty answers are noted in the outcome and complete empty
+  private Mono<List<ResponseDTO>> attempt(DictionaryProvider provider, String word,
+      Outcome outcome) {
+    return Mono.defer(() -> {
+      AtomicBoolean upstreamCall = new AtomicBoolean();
+      long startedAt = System.nanoTime();
+      return provider.lookup(word)
+          .flatMap(responses -> {
+            if (responses.isEmpty()) {
+              outcome.sawEmpty = true;
+              return Mono.<List<ResponseDTO>>empty();
+            }
+            // Only the winning answer of a call that really reached the provider's source is
+            // recorded. Cache hits, coalesced callers and cancelled losers would each skew the
+            // percentile the hedge delay is taken from
+            if (upstreamCall.get() && outcome.won.compareAndSet(false, true)) {
+              record(provider, startedAt);
+            }
+            return Mono.just(responses);
+          })
+          .onErrorResume(ex -> {
+            log.debug("Provider {} gave no answer for '{}': {}", provider.getName(), word,
+                ex.getMessage());
+            outcome.errors.add(ex);
+            return Mono.empty();
+          })
+          .contextWrite(Context.of(DictionaryProvider.UPSTREAM_CALL, upstreamCall));
+    });
+  }
+
+  private void record(DictionaryProvider provider, long startedAt) {
+    latencies.get(provider.getName())
+        .record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+  }
+
+  private Duration hedgeDelay(DictionaryProvider provider) {
+    LatencyHistogram histogram = latencies.get(provider.getName());
+    if (histogram.count() < MIN_SAMPLES) {
+      return config.getHedgeDelay();
+    }
+    long millis = histogram.percentile(config.getHedgePercentile());
+    long clamped = Math.max(config.getMinHedgeDelay().toMillis(),
+        Math.min(config.getMaxHedgeDelay().toMillis(), millis));
+    return Duration.ofMillis(clamped);
+  }
+
+  private List<DictionaryProvider> resolveChain() {
+    List<String> names = !config.getProviders().isEmpty() ? config.getProviders()
+        : switch (config.getMode()) {
+          case REMOTE_ONLY -> List.of("free-dictionary");
+          case LOCAL_ONLY -> List.of("offline-dictionary");
+          case LOCAL_FIRST -> List.of("offline-dictionary", "free-dictionary");
+        };
+    List<DictionaryProvider> resolved = new ArrayList<>(names.size());
+    for (String name : names) {
+      DictionaryProvider provider = providersByName.get(name.trim());
+      if (provider == null) {
+        throw new IllegalStateException("Unknown dictionary provider '" + name
+            + "', available: " + providersByName.keySet());
+      }
+      resolved.add(provider);
+    }
+    return Collections.unmodifiableList(resolved);
+  }
+
+  private static final class Outcome {
+
+    private final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean won = new AtomicBoolean();
+    private volatile boolean sawEmpty;
+
+    private Mono<List<ResponseDTO>> resolve(String word) {
+      // An empty list is how a provider degrades on server errors, keep that behaviour
+      if (sawEmpty) {
+        return Mono.just(Collections.emptyList());
+      }
+      Throwable chosen = errors.stream()
+          .filter(WordNotFoundException.class::isInstance)
+          .findFirst()
+          .orElse(errors.peek());
+      if (chosen == null) {
+        chosen = new WordNotFoundException("Client Error: " + HttpStatus.NOT_FOUND
+            + ", Body: No definitions found for '" + word + "'");
+      }
+      return Mono.error(chosen);
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.lucia.memoria.service.external;
+
+import com.lucia.memoria.dto.externalapi.ResponseDTO;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import reactor.core.publisher.Mono;
+
+/**
+ * A source of word definitions in the free dictionary response shape.
+ * A word the provider does not know is reported as
+ * {@link com.lucia.memoria.exception.WordNotFoundException}.
+ */
+public interface DictionaryProvider {
+
+  // Reactor context key of the flag upstreamCall sets, see DictionaryLookupService
+  String UPSTREAM_CALL = "dictionary.upstream-call";
+
+  String getName();
+
+  Mono<List<ResponseDTO>> lookup(String word);
+
+  /**
+   * Marks the current lookup as answered by the provider's own source, not by a cache or by
+   * joining a call another lookup already started. Only such lookups feed the latency
+   * statistics the hedge delay is derived from.
+   */
+  static <T> Mono<T> upstreamCall(Mono<T> call) {
+    return Mono.deferContextual(context -> {
+      context.<AtomicBoolean>getOrEmpty(UPSTREAM_CALL).ifPresent(flag -> flag.set(true));
+      return call;
+    });
+  }
+
+  static String normalize(String word) {
+    return word.trim().toLowerCase(Locale.ROOT);
+  }
+}
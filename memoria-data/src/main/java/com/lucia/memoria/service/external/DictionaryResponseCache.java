@@ -0,0 +1,307 @@
+package com.lucia.memoria.service.external;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucia.memoria.config.DictionaryCacheConfig;
+import com.lucia.memoria.dto.externalapi.ResponseDTO;
+import com.lucia.memoria.service.helper.ExpiringLruCache;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Two-tier cache for free dictionary responses.
+ * <p>
+ * Tier one is a bounded in-memory LRU. Tier two is an append-only JSON lines log on local disk
+ * with an in-memory index of word -> (offset, length), so only keys live on the heap and values
+ * are read back on demand. The log is re-indexed on a background thread after startup, so
+ * readiness never waits for it; until then disk lookups simply miss.
+ * <p>
+ * "Word not found" answers are stored as negative entries with their own, shorter TTL.
+ */
+@Component
+@Slf4j
+public class DictionaryResponseCache {
+
+  private static final String LOG_FILE = "dictionary-cache.log";
+  // Compact the log on startup once less than half of it is live data
+  private static final double COMPACTION_RATIO = 2.0;
+
+  private final DictionaryCacheConfig config;
+  private final ObjectMapper objectMapper;
+  private final ExpiringLruCache<Entry> memory;
+  private final Map<String, DiskPointer> diskIndex = new ConcurrentHashMap<>();
+  private final Object diskLock = new Object();
+
+  private Path logPath;
+  private volatile FileChannel channel;
+  private volatile boolean diskReady;
+
+  public DictionaryResponseCache(DictionaryCacheConfig config, ObjectMapper objectMapper) {
+    this.config = config;
+    this.objectMapper = objectMapper;
+    this.memory = new ExpiringLruCache<>(config.getMaxEntries());
+  }
+
+  public record Entry(String word, long expiresAt, boolean notFound, List<ResponseDTO> responses) {
+
+    boolean isExpired(long now) {
+      return expiresAt <= now;
+    }
+  }
+
+  private record DiskPointer(long offset, int length, long expiresAt) {
+
+  }
+
+  public boolean isEnabled() {
+    return config.isEnabled();
+  }
+
+  @PostConstruct
+  void open() {
+    if (!config.isEnabled()) {
+      return;
+    }
+    try {
+      Path directory = Path.of(config.getDirectory());
+      Files.createDirectories(directory);
+      logPath = directory.resolve(LOG_FILE);
+      FileChannel opened = FileChannel.open(logPath, StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE);
+      try {
+        endTornLine(opened);
+      } catch (IOException e) {
+        opened.close();
+        throw e;
+      }
+      channel = opened;
+    } catch (IOException e) {
+      // The memory tier keeps working, we just lose persistence
+      log.warn("Dictionary disk cache disabled, cannot open {}: {}", config.getDirectory(),
+          e.getMessage());
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUpInBackground() {
+    if (channel == null) {
+      return;
+    }
+    Thread warmUp = new Thread(this::rebuildIndex, "dictionary-cache-warmup");
+    warmUp.setDaemon(true);
+    warmUp.start();
+  }
+
+  @PreDestroy
+  void close() throws IOException {
+    synchronized (diskLock) {
+      if (channel != null) {
+        channel.close();
+      }
+    }
+  }
+
+  /**
+   * Looks the word up in memory only. Safe to call on event loop threads.
+   */
+  public Optional<Entry> getFromMemory(String key) {
+    return memory.get(key);
+  }
+
+  /**
+   * Looks the word up on disk and promotes a hit into memory. Performs blocking file IO.
+   */
+  public Optional<Entry> getFromDisk(String key) {
+    if (!diskReady) {
+      return Optional.empty();
+    }
+    DiskPointer pointer = diskIndex.get(key);
+    if (pointer == null) {
+      return Optional.empty();
+    }
+    if (pointer.expiresAt() <= System.currentTimeMillis()) {
+      diskIndex.remove(key, pointer);
+      return Optional.empty();
+    }
+    try {
+      Entry entry = read(pointer);
+      putInMemory(key, entry);
+      return Optional.of(entry);
+    } catch (IOException e) {
+      log.warn("Failed to read cached dictionary entry for '{}': {}", key, e.getMessage());
+      diskIndex.remove(key, pointer);
+      return Optional.empty();
+    }
+  }
+
+  public void put(String key, List<ResponseDTO> responses) {
+    store(new Entry(key, System.currentTimeMillis() + config.getTtl().toMillis(), false,
+        responses));
+  }
+
+  public void putNotFound(String key) {
+    store(new Entry(key, System.currentTimeMillis() + config.getNotFoundTtl().toMillis(), true,
+        List.of()));
+  }
+
+  public void putInMemory(String key, Entry entry) {
+    memory.put(key, entry, entry.expiresAt());
+  }
+
+  private void store(Entry entry) {
+    putInMemory(entry.word(), entry);
+    if (channel == null) {
+      return;
+    }
+    try {
+      append(entry);
+    } catch (IOException e) {
+      log.warn("Failed to persist dictionary entry for '{}': {}", entry.word(), e.getMessage());
+    }
+  }
+
+  private void append(Entry entry) throws IOException {
+    byte[] line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+    synchronized (diskLock) {
+      long offset = channel.size();
+      ByteBuffer buffer = ByteBuffer.wrap(line);
+      try {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer, offset + buffer.position());
+        }
+      } catch (IOException e) {
+        // Cut the partial line off, the next line would be glued to it otherwise
+        try {
+          channel.truncate(offset);
+        } catch (IOException truncateFailure) {
+          e.addSuppressed(truncateFailure);
+        }
+        throw e;
+      }
+      indexNewer(entry.word(), new DiskPointer(offset, line.length - 1, entry.expiresAt()));
+    }
+  }
+
+  /**
+   * Ends a line torn by a crash before anything is appended, so the next entry starts on a line
+   * of its own. The scan then skips the torn line as unreadable.
+   */
+  private static void endTornLine(FileChannel file) throws IOException {
+    long size = file.size();
+    if (size == 0) {
+      return;
+    }
+    ByteBuffer last = ByteBuffer.allocate(1);
+    file.read(last, size - 1);
+    if (last.get(0) != '\n') {
+      file.write(ByteBuffer.wrap(new byte[]{'\n'}), size);
+    }
+  }
+
+  private Entry read(DiskPointer pointer) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(pointer.length());
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, pointer.offset() + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of dictionary cache log");
+      }
+    }
+    return objectMapper.readValue(buffer.array(), Entry.class);
+  }
+
+  // Keeps the pointer to the latest line when a live write races the startup scan
+  private void indexNewer(String key, DiskPointer pointer) {
+    diskIndex.merge(key, pointer,
+        (existing, candidate) -> candidate.offset() > existing.offset() ? candidate : existing);
+  }
+
+  private void rebuildIndex() {
+    long started = System.currentTimeMillis();
+    try {
+      long liveBytes = scan();
+      diskReady = true;
+      log.info("Dictionary cache indexed {} words in {} ms", diskIndex.size(),
+          System.currentTimeMillis() - started);
+      if (channel.size() > liveBytes * COMPACTION_RATIO) {
+        compact();
+      }
+    } catch (IOException | UncheckedIOException e) {
+      log.warn("Dictionary cache warm-up failed, disk tier stays cold: {}", e.getMessage());
+    }
+  }
+
+  private long scan() throws IOException {
+    long now = System.currentTimeMillis();
+    long offset = 0;
+    try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        int length = line.getBytes(StandardCharsets.UTF_8).length;
+        try {
+          Entry entry = objectMapper.readValue(line, Entry.class);
+          if (!entry.isExpired(now)) {
+            indexNewer(entry.word(), new DiskPointer(offset, length, entry.expiresAt()));
+          }
+        } catch (IOException e) {
+          // A torn last line after a crash is expected, skip anything unreadable
+          log.debug("Skipping unreadable dictionary cache line at offset {}", offset);
+        }
+        offset += length + 1;
+      }
+    }
+    return diskIndex.values().stream().mapToLong(pointer -> pointer.length() + 1L).sum();
+  }
+
+  /**
+   * Rewrites the log with only the live entries and swaps it in. Writes are held off meanwhile.
+   */
+  private void compact() throws IOException {
+    synchronized (diskLock) {
+      Path compacted = logPath.resolveSibling(LOG_FILE + ".compact");
+      Map<String, DiskPointer> newIndex = new ConcurrentHashMap<>();
+      try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        long offset = 0;
+        for (Map.Entry<String, DiskPointer> item : diskIndex.entrySet()) {
+          DiskPointer pointer = item.getValue();
+          ByteBuffer buffer = ByteBuffer.allocate(pointer.length() + 1);
+          while (buffer.hasRemaining()
+              && channel.read(buffer, pointer.offset() + buffer.position()) >= 0) {
+            // keep reading until the whole line is in the buffer
+          }
+          buffer.flip();
+          while (buffer.hasRemaining()) {
+            out.write(buffer);
+          }
+          newIndex.put(item.getKey(), new DiskPointer(offset, pointer.length(),
+              pointer.expiresAt()));
+          offset += pointer.length() + 1;
+        }
+        out.force(true);
+      }
+      channel.close();
+      Files.move(compacted, logPath, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      diskIndex.clear();
+      diskIndex.putAll(newIndex);
+      log.info("Dictionary cache log compacted to {} words", newIndex.size());
+    }
+  }
+}
@@ -0,0 +1,235 @@
+package com.lucia.memoria.service.external;
+
+import com.lucia.memoria.config.DictionaryWarmupConfig;
+import com.lucia.memoria.dto.local.CardResponseDTO;
+import com.lucia.memoria.dto.local.WarmupStatusDTO;
+import com.lucia.memoria.exception.UpstreamBusyException;
+import com.lucia.memoria.exception.WordNotFoundException;
+import com.lucia.memoria.model.DictionaryWarmupProgress;
+import com.lucia.memoria.model.Template;
+import com.lucia.memoria.service.helper.UpstreamRateLimiter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+/**
+ * Walks a word frequency list in the background and stores the cards of every word, so the
+ * most common lookups are answered without touching the dictionary providers. Progress is
+ * saved with each batch of cards and the job resumes where it stopped after a restart.
+ * Every run first retries the words that failed before and rebuilds the stale ones, then
+ * goes on with the rest of the list.
+ */
+@Component
+@Slf4j
+public class DictionaryWarmupJob {
+
+  private final DictionaryWarmupConfig config;
+  private final FreeDictionaryCardService freeDictionaryCardService;
+  private final PrecomputedCardService precomputedCardService;
+  private final AtomicInteger processedThisRun = new AtomicInteger();
+  // Only touched by run() and save(), which never overlap
+  private final Set<String> failedWords = new LinkedHashSet<>();
+  private volatile DictionaryWarmupProgress progress;
+  private volatile boolean running;
+  private volatile long runStartedAt;
+
+  public DictionaryWarmupJob(DictionaryWarmupConfig config,
+      FreeDictionaryCardService freeDictionaryCardService,
+      PrecomputedCardService precomputedCardService) {
+    this.config = config;
+    this.freeDictionaryCardService = freeDictionaryCardService;
+    this.precomputedCardService = precomputedCardService;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void startInBackground() {
+    if (!config.isEnabled() || StringUtils.isBlank(config.getSource())) {
+      return;
+    }
+    Thread worker = new Thread(this::run, "dictionary-warmup");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  private void run() {
+    try {
+      List<String> words = readWordList(Path.of(config.getSource()));
+      progress = precomputedCardService.getProgress(config.getSource(), words.size());
+      Template template = freeDictionaryCardService.loadDefaultTemplate().block();
+      String templateVersion = PrecomputedCardService.templateVersion(template);
+
+      if (StringUtils.isNotEmpty(progress.getFailedWords())) {
+        failedWords.addAll(List.of(progress.getFailedWords().split("\n")));
+      }
+      List<String> staleWords = precomputedCardService
+          .findStale(words.subList(0, progress.getNextPosition()), templateVersion).stream()
+          .filter(word -> !failedWords.contains(word))
+          .toList();
+      if (progress.getNextPosition() >= words.size() && failedWords.isEmpty()
+          && staleWords.isEmpty()) {
+        log.info("Dictionary warm-up of {} already complete", config.getSource());
+        return;
+      }
+      log.info("Dictionary warm-up of {} resuming at word {} of {}, retrying {} failed and "
+              + "rebuilding {} stale words", config.getSource(), progress.getNextPosition(),
+          words.size(), failedWords.size(), staleWords.size());
+
+      running = true;
+      runStartedAt = System.currentTimeMillis();
+      // At most concurrency words wait for a slot at once, so the cap is never reached here
+      UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter("dictionary warm-up",
+          config.getWordsPerSecond(), Duration.ofHours(1));
+
+      // Words behind nextPosition go first. flatMapSequential keeps that order, so
+      // nextPosition always marks a clean prefix of the words seen for the first time
+      Flux<PendingWord> pending = Flux.concat(
+          Flux.fromIterable(List.copyOf(failedWords))
+              .map(word -> new PendingWord(word, WarmupOutcome.FAILED)),
+          Flux.fromIterable(staleWords)
+              .map(word -> new PendingWord(word, WarmupOutcome.FOUND)),
+          Flux.fromIterable(words.subList(progress.getNextPosition(), words.size()))
+              .map(word -> new PendingWord(word, null)));
+      pending
+          .flatMapSequential(word -> warmUp(word, template, templateVersion, rateLimiter),
+              Math.max(1, config.getConcurrency()))
+          .buffer(Math.max(1, config.getBatchSize()))
+          .concatMap(batch -> Mono.fromRunnable(() -> save(batch, templateVersion))
+              .subscribeOn(Schedulers.boundedElastic()))
+          .blockLast();
+
+      log.info("Dictionary warm-up of {} finished: {} words with cards, {} not found, {} failed",
+          config.getSource(), progress.getWordsWithCards(), progress.getWordsNotFound(),
+          progress.getWordsFailed());
+    } catch (RuntimeException e) {
+      log.error("Dictionary warm-up of {} stopped", config.getSource(), e);
+    } finally {
+      running = false;
+    }
+  }
+
+  private Mono<WarmupResult> warmUp(PendingWord pending, Template template,
+      String templateVersion, UpstreamRateLimiter rateLimiter) {
+    String word = pending.word();
+    WarmupOutcome previous = pending.previous();
+    if (precomputedCardService.isFresh(word, templateVersion)) {
+      return Mono.just(new WarmupResult(word, previous, WarmupOutcome.ALREADY_PRESENT,
+          List.of()));
+    }
+    return rateLimiter.execute(Mono.defer(() -> freeDictionaryCardService
+            .lookupCards(word, template)))
+        // A busy upstream is not the word's fault, wait and try again before giving up
+        .retryWhen(Retry.backoff(3, Duration.ofSeconds(1))
+            .filter(UpstreamBusyException.class::isInstance))
+        .map(cards -> cards.isEmpty()
+            ? new WarmupResult(word, previous, WarmupOutcome.FAILED, List.of())
+            : new WarmupResult(word, previous, WarmupOutcome.FOUND, cards))
+        .onErrorResume(WordNotFoundException.class, e -> Mono.just(
+            new WarmupResult(word, previous, WarmupOutcome.NOT_FOUND, List.of())))
+        .onErrorResume(e -> {
+          log.debug("Dictionary warm-up failed for '{}': {}", word, e.getMessage());
+          return Mono.just(new WarmupResult(word, previous, WarmupOutcome.FAILED, List.of()));
+        });
+  }
+
+  private void save(List<WarmupResult> batch, String templateVersion) {
+    Map<String, List<CardResponseDTO>> cardsByWord = new LinkedHashMap<>();
+    int firstSeen = 0;
+    for (WarmupResult result : batch) {
+      if (result.previous() == null) {
+        firstSeen++;
+      } else {
+        // A retried word moves from the counter of its last outcome to the new one
+        count(result.previous(), -1);
+      }
+      count(result.outcome(), 1);
+      if (result.outcome() == WarmupOutcome.FOUND) {
+        cardsByWord.put(result.word(), result.cards());
+      }
+      if (result.outcome() == WarmupOutcome.FAILED) {
+        failedWords.add(result.word());
+      } else {
+        failedWords.remove(result.word());
+      }
+    }
+    progress.setNextPosition(progress.getNextPosition() + firstSeen);
+    progress.setFailedWords(failedWords.isEmpty() ? null : String.join("\n", failedWords));
+    progress = precomputedCardService.saveBatch(cardsByWord, templateVersion, progress);
+    processedThisRun.addAndGet(batch.size());
+  }
+
+  private void count(WarmupOutcome outcome, int delta) {
+    switch (outcome) {
+      case FOUND, ALREADY_PRESENT ->
+          progress.setWordsWithCards(progress.getWordsWithCards() + delta);
+      case NOT_FOUND -> progress.setWordsNotFound(progress.getWordsNotFound() + delta);
+      case FAILED -> progress.setWordsFailed(progress.getWordsFailed() + delta);
+    }
+  }
+
+  public WarmupStatusDTO getStatus() {
+    DictionaryWarmupProgress current = progress;
+    long hits = precomputedCardService.getHits();
+    int precomputedWords = precomputedCardService.getWordCount();
+    if (current == null) {
+      return new WarmupStatusDTO(config.getSource(), running, 0, 0, 0, 0, 0, 0, 0,
+          precomputedWords, hits);
+    }
+    double coverage = current.getTotalWords() == 0 ? 0
+        : 100.0 * current.getWordsWithCards() / current.getTotalWords();
+    long elapsed = System.currentTimeMillis() - runStartedAt;
+    double wordsPerSecond = !running || elapsed <= 0 ? 0
+        : processedThisRun.get() * 1000.0 / elapsed;
+    return new WarmupStatusDTO(current.getSource(), running, current.getTotalWords(),
+        current.getNextPosition(), current.getWordsWithCards(), current.getWordsNotFound(),
+        current.getWordsFailed(), coverage, wordsPerSecond, precomputedWords, hits);
+  }
+
+  // First column of every line, normalized and de-duplicated, keeping the list order
+  private static List<String> readWordList(Path source) {
+    try (Stream<String> lines = Files.lines(source, StandardCharsets.UTF_8)) {
+      Set<String> words = new LinkedHashSet<>();
+      lines.map(String::trim)
+          .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+          .map(line -> line.split("[\\s,;]+", 2)[0])
+          .map(DictionaryProvider::normalize)
+          .filter(StringUtils::isNotBlank)
+          .forEach(words::add);
+      return List.copyOf(words);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read word list " + source, e);
+    }
+  }
+
+  private enum WarmupOutcome {
+    FOUND, ALREADY_PRESENT, NOT_FOUND, FAILED
+  }
+
+  // previous is the outcome of an earlier run for a retried or stale word, null otherwise
+  private record PendingWord(String word, WarmupOutcome previous) {
+
+  }
+
+  private record WarmupResult(String word, WarmupOutcome previous, WarmupOutcome outcome,
+      List<CardResponseDTO> cards) {
+
+  }
+}
@@ -4,33 +4,121 @@ import com.lucia.memoria.config.ExternalAPIConfig;
 import com.lucia.memoria.dto.externalapi.ResponseDTO;
 import com.lucia.memoria.exception.ClientApiException;
 import com.lucia.memoria.exception.ServerApiException;
+import com.lucia.memoria.exception.WordNotFoundException;
+import com.lucia.memoria.service.helper.SingleFlight;
+import com.lucia.memoria.service.helper.UpstreamBulkhead;
+import com.lucia.memoria.service.helper.UpstreamRateLimiter;
 import java.time.Duration;
 import java.util.Collections;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
 @Service
 @Slf4j
-public class FreeDictionaryAPIService {
+public class FreeDictionaryAPIService implements DictionaryProvider {
 
   private final WebClient webClient;
+  private final UpstreamBulkhead bulkhead;
+  private final UpstreamRateLimiter rateLimiter;
+  private final SingleFlight<List<ResponseDTO>> singleFlight = new SingleFlight<>(
+      "free-dictionary");
+  private final DictionaryResponseCache responseCache;
 
   public FreeDictionaryAPIService(WebClient.Builder webClientBuilder,
-      ExternalAPIConfig externalAPIConfig) {
+      ExternalAPIConfig externalAPIConfig, DictionaryResponseCache responseCache) {
     this.webClient = webClientBuilder.baseUrl(externalAPIConfig.getFreeDictionary()).build();
+    this.bulkhead = new UpstreamBulkhead("free-dictionary",
+        externalAPIConfig.getFreeDictionaryMaxConcurrency());
+    this.rateLimiter = new UpstreamRateLimiter("free-dictionary",
+        externalAPIConfig.getFreeDictionaryRatePerSecond(),
+        externalAPIConfig.getFreeDictionaryMaxQueueWait());
+    this.responseCache = responseCache;
+  }
+
+  @Override
+  public String getName() {
+    return "free-dictionary";
+  }
+
+  @Override
+  public Mono<List<ResponseDTO>> lookup(String word) {
+    return callExternalApi(word);
   }
 
   public Mono<List<ResponseDTO>> callExternalApi(String word) {
+    String key = DictionaryProvider.normalize(word);
+    if (!responseCache.isEnabled()) {
+      return singleFlight.execute(key, () -> fetchWithFallback(word));
+    }
+    return Mono.defer(() -> responseCache.getFromMemory(key)
+        .map(entry -> fromCache(entry, word))
+        // The disk tier does file IO, keep it off the event loop
+        .orElseGet(() -> Mono.fromCallable(() -> responseCache.getFromDisk(key))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(hit -> hit
+                .map(entry -> fromCache(entry, word))
+                // Identical misses arriving together share one upstream call
+                .orElseGet(() -> singleFlight.execute(key, () -> fetchAndCache(key, word))))));
+  }
+
+  public SingleFlight<List<ResponseDTO>> getSingleFlight() {
+    return singleFlight;
+  }
+
+  private Mono<List<ResponseDTO>> fromCache(DictionaryResponseCache.Entry entry, String word) {
+    if (entry.notFound()) {
+      return Mono.error(new WordNotFoundException("Client Error: " + HttpStatus.NOT_FOUND
+          + ", Body: No definitions found for '" + word + "'"));
+    }
+    return Mono.just(entry.responses());
+  }
+
+  private Mono<List<ResponseDTO>> fetchAndCache(String key, String word) {
+    // Cache before the server error fallback, so an empty fallback list is never stored
+    Mono<List<ResponseDTO>> cached = fetch(word)
+        .doOnNext(responses -> Schedulers.boundedElastic()
+            .schedule(() -> responseCache.put(key, responses)))
+        .doOnError(WordNotFoundException.class, ex -> Schedulers.boundedElastic()
+            .schedule(() -> responseCache.putNotFound(key)));
+    return withFallback(cached, word);
+  }
+
+  private Mono<List<ResponseDTO>> fetchWithFallback(String word) {
+    return withFallback(fetch(word), word);
+  }
+
+  private Mono<List<ResponseDTO>> fetch(String word) {
+    // The rate slot is taken before the permit, so a call waiting for its slot holds no permit.
+    // Every retry resubscribes to both and queues for a slot of its own
+    // Only this path reaches the dictionary, cache hits and coalesced callers never get here
+    return DictionaryProvider.upstreamCall(rateLimiter.execute(bulkhead.execute(request(word))))
+        // Retry on server errors with exponential backoff
+        .retryWhen(Retry.backoff(3, Duration.ofSeconds(2))
+            .maxBackoff(Duration.ofSeconds(10))
+            .filter(throwable -> throwable instanceof ServerApiException)
+            .onRetryExhaustedThrow((spec, signal) ->
+                new ServerApiException("Retries exhausted for word: " + word, signal.failure())));
+  }
+
+  private Mono<List<ResponseDTO>> request(String word) {
     return webClient.get()
         .uri("/{word}", word)
         .retrieve()
+        // 404 means the dictionary has no entry for the word, which is worth caching
+        .onStatus(status -> status.value() == HttpStatus.NOT_FOUND.value(), response ->
+            response.bodyToMono(String.class)
+                .defaultIfEmpty("Client error without body")
+                .flatMap(body -> Mono.error(new WordNotFoundException(
+                    "Client Error: " + response.statusCode() + ", Body: " + body))))
         // Handle 4xx client errors
         .onStatus(HttpStatusCode::is4xxClientError, response ->
             response.bodyToMono(String.class)
@@ -45,17 +133,15 @@ public class FreeDictionaryAPIService {
                     "Server Error: " + response.statusCode() + ", Body: " + body))))
         .bodyToMono(new ParameterizedTypeReference<List<ResponseDTO>>() {
         })
-        .timeout(Duration.ofSeconds(5))
-        // Retry on server errors with exponential backoff
-        .retryWhen(Retry.backoff(3, Duration.ofSeconds(2))
-            .maxBackoff(Duration.ofSeconds(10))
-            .filter(throwable -> throwable instanceof ServerApiException)
-            .onRetryExhaustedThrow((spec, signal) ->
-                new ServerApiException("Retries exhausted for word: " + word, signal.failure())))
+        .timeout(Duration.ofSeconds(5));
+  }
+
+  private Mono<List<ResponseDTO>> withFallback(Mono<List<ResponseDTO>> call, String word) {
+    return call
         // Optional: fallback to empty list if server error persists
         .onErrorResume(ServerApiException.class, ex -> {
           log.warn("Falling back due to server error for word '{}': {}", word, ex.getMessage());
-          return Mono.just(Collections.emptyList());
+          return Mono.just(Collections.<ResponseDTO>emptyList());
         })
         .doOnError(throwable ->
             log.error("Error calling external API for word '{}'", word, throwable));
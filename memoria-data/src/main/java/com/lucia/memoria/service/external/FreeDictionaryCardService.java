@@ -1,42 +1,129 @@
 package com.lucia.memoria.service.external;
 
+import com.lucia.memoria.config.ExternalAPIConfig;
 import com.lucia.memoria.dto.externalapi.DefinitionDTO;
 import com.lucia.memoria.dto.externalapi.MeaningDTO;
 import com.lucia.memoria.dto.externalapi.ResponseDTO;
 import com.lucia.memoria.dto.local.CardResponseDTO;
 import com.lucia.memoria.dto.local.FieldDTO;
 import com.lucia.memoria.dto.local.TemplateFieldDTO;
+import com.lucia.memoria.exception.UpstreamBusyException;
 import com.lucia.memoria.helper.FieldRole;
 import com.lucia.memoria.model.Template;
 import com.lucia.memoria.model.TemplateField;
 import com.lucia.memoria.service.local.TemplateService;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
 
 @AllArgsConstructor
 @Service
+@Slf4j
 public class FreeDictionaryCardService {
 
-  private final FreeDictionaryAPIService freeDictionaryAPIService;
+  private final DictionaryLookupService dictionaryLookupService;
   private final TemplateService templateService;
+  private final ExternalAPIConfig externalAPIConfig;
+  private final PrecomputedCardService precomputedCardService;
 
+  /**
+   * Cards for the word, served from the precomputed store when the warm-up job already
+   * covered it and the cards are still fresh, and built from a dictionary lookup otherwise.
+   */
+  public Mono<List<CardResponseDTO>> generateCards(String word) {
+    if (!precomputedCardService.contains(word)) {
+      return lookupCards(word);
+    }
+    return loadDefaultTemplate().flatMap(template -> precomputedCardService.find(word, template)
+        .switchIfEmpty(Mono.defer(() -> lookupCards(word, template))));
+  }
 
-  public List<CardResponseDTO> generateCards(String word) {
-    Template template = templateService.getTemplateByName("default");
-    List<TemplateField> templateFields = template.getFields();
+  /**
+   * Builds dictionary cards for the word without blocking the calling thread, bypassing the
+   * precomputed store. The template lookup is a JPA call, so it runs on the bounded elastic
+   * scheduler while the external request is already in flight.
+   */
+  public Mono<List<CardResponseDTO>> lookupCards(String word) {
+    return Mono.zip(loadDefaultTemplate(), dictionaryLookupService.lookup(word))
+        .map(tuple -> toCards(tuple.getT2(), tuple.getT1()));
+  }
+
+  /**
+   * Same as {@link #lookupCards(String)}, with the template already loaded.
+   */
+  public Mono<List<CardResponseDTO>> lookupCards(String word, Template template) {
+    return dictionaryLookupService.lookup(word)
+        .map(externalList -> toCards(externalList, template));
+  }
+
+  /**
+   * Builds cards for a whole word list and emits them as soon as each word is resolved,
+   * so one slow word does not hold back the rest. At most
+   * {@code api.free-dictionary-batch-concurrency} words are looked up at the same time.
+   * A word that fails is logged and skipped instead of failing the whole batch, except when
+   * the upstream is busy. Those words are retried a few times and, if the upstream stays
+   * busy, fail the batch with {@link UpstreamBusyException}, so the caller learns that the
+   * result is incomplete and can resend the request later.
+   */
+  public Flux<CardResponseDTO> generateCards(List<String> words) {
+    List<String> distinctWords = validateBatch(words);
+
+    return loadDefaultTemplate().flatMapMany(template -> Flux.fromIterable(distinctWords)
+        .flatMap(word -> precomputedCardService.find(word, template)
+                .switchIfEmpty(Mono.defer(() -> lookupCards(word, template)))
+                // A busy upstream is not the word's fault, wait and try again before giving up
+                .retryWhen(Retry.backoff(3, Duration.ofSeconds(1))
+                    .filter(UpstreamBusyException.class::isInstance)
+                    .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .flatMapIterable(cards -> cards)
+                .onErrorResume(ex -> !(ex instanceof UpstreamBusyException), ex -> {
+                  log.warn("Skipping word '{}' in batch lookup: {}", word, ex.getMessage());
+                  return Flux.empty();
+                }),
+            externalAPIConfig.getFreeDictionaryBatchConcurrency()));
+  }
+
+  private List<String> validateBatch(List<String> words) {
+    if (words == null || words.isEmpty()) {
+      throw new IllegalArgumentException("Word list cannot be empty");
+    }
+    List<String> distinctWords = words.stream()
+        .filter(Objects::nonNull)
+        .map(String::trim)
+        .filter(StringUtils::isNotBlank)
+        .distinct()
+        .toList();
+    int maxWords = externalAPIConfig.getFreeDictionaryBatchMaxWords();
+    if (distinctWords.size() > maxWords) {
+      throw new IllegalArgumentException("A batch can contain at most " + maxWords + " words");
+    }
+    return distinctWords;
+  }
+
+  // JPA lookup, kept on the bounded elastic scheduler so it never runs on an event loop.
+  // There is no open session on that thread, so the template comes back fully initialized.
+  Mono<Template> loadDefaultTemplate() {
+    return Mono.fromCallable(() -> templateService.getDetachedTemplateByName("default"))
+        .subscribeOn(Schedulers.boundedElastic());
+  }
 
-    return freeDictionaryAPIService.callExternalApi(word)
-        .map(externalList -> externalList.stream()
-            .flatMap(
-                resp -> constructCardDTOs(resp, template, templateFields).stream()) // flatten here
-            .toList()
-        )
-        .block();
+  private List<CardResponseDTO> toCards(List<ResponseDTO> externalList, Template template) {
+    List<TemplateField> templateFields = template.getFields();
+    return externalList.stream()
+        .flatMap(resp -> constructCardDTOs(resp, template, templateFields).stream()) // flatten here
+        .toList();
   }
 
   private List<CardResponseDTO> constructCardDTOs(ResponseDTO resp, Template template,
@@ -1,23 +1,91 @@
 package com.lucia.memoria.service.external;
 
 import com.lucia.memoria.config.ExternalAPIConfig;
+import com.lucia.memoria.dto.externalapi.TranslationDTO;
+import com.lucia.memoria.exception.ClientApiException;
+import com.lucia.memoria.exception.ServerApiException;
+import com.lucia.memoria.service.helper.ExpiringLruCache;
+import com.lucia.memoria.service.helper.SingleFlight;
+import com.lucia.memoria.service.helper.UpstreamBulkhead;
+import com.lucia.memoria.service.helper.UpstreamCircuitBreaker;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
 
-import java.util.List;
-
-
+/**
+ * Translation client. A call goes through, in order: the (source, target, text) cache,
+ * coalescing of identical in-flight calls, the translation bulkhead, the circuit breaker and
+ * finally the upstream request with its timeout and retries.
+ */
 @Service
+@Slf4j
 public class GoogleAPIService {
 
+  private static final String PROVIDER = "google-translate";
+
   private final WebClient webClient;
+  private final Duration timeout;
+  private final long cacheTtlMillis;
+  private final ExpiringLruCache<String> cache;
+  private final SingleFlight<String> singleFlight = new SingleFlight<>(PROVIDER);
+  private final UpstreamBulkhead bulkhead;
+  private final UpstreamCircuitBreaker circuitBreaker;
 
   public GoogleAPIService(WebClient.Builder webClientBuilder, ExternalAPIConfig externalAPIConfig) {
-    this.webClient = webClientBuilder.baseUrl(externalAPIConfig.getGoogleTranslate()).build();
+    int maxConcurrency = externalAPIConfig.getGoogleTranslateMaxConcurrency();
+    this.timeout = externalAPIConfig.getGoogleTranslateTimeout();
+    // Dedicated pool: a hanging translation upstream cannot hold connections dictionary calls need
+    ConnectionProvider connections = ConnectionProvider.builder(PROVIDER)
+        .maxConnections(maxConcurrency)
+        .pendingAcquireTimeout(timeout)
+        .build();
+    this.webClient = webClientBuilder
+        .baseUrl(externalAPIConfig.getGoogleTranslate())
+        .clientConnector(new ReactorClientHttpConnector(
+            HttpClient.create(connections).responseTimeout(timeout)))
+        .build();
+    this.cacheTtlMillis = externalAPIConfig.getGoogleTranslateCacheTtl().toMillis();
+    this.cache = new ExpiringLruCache<>(externalAPIConfig.getGoogleTranslateCacheSize());
+    this.bulkhead = new UpstreamBulkhead(PROVIDER, maxConcurrency);
+    // A 4xx answer (e.g. an unknown language) means the upstream is alive, it is not a failure
+    this.circuitBreaker = new UpstreamCircuitBreaker(PROVIDER,
+        externalAPIConfig.getGoogleTranslateFailureThreshold(),
+        externalAPIConfig.getGoogleTranslateOpenDuration(),
+        ex -> !(ex instanceof ClientApiException));
   }
 
   public Mono<String> callExternalApi(String source, String target, String word) {
+    // Case is kept in the key on purpose, translations of "Turkey" and "turkey" differ
+    String key = source.toLowerCase(Locale.ROOT) + "->" + target.toLowerCase(Locale.ROOT)
+        + ":" + word.strip();
+    return Mono.defer(() -> cache.get(key)
+        .map(Mono::just)
+        .orElseGet(() -> singleFlight.execute(key, () ->
+            // Bulkhead outside the breaker, so rejected calls never count as upstream failures
+            bulkhead.execute(circuitBreaker.execute(translate(source, target, word)))
+                .doOnNext(text ->
+                    cache.put(key, text, System.currentTimeMillis() + cacheTtlMillis)))));
+  }
+
+  public SingleFlight<String> getSingleFlight() {
+    return singleFlight;
+  }
+
+  public UpstreamCircuitBreaker.State getCircuitState() {
+    return circuitBreaker.getState();
+  }
+
+  private Mono<String> translate(String source, String target, String word) {
     return webClient.get()
         .uri(uriBuilder -> uriBuilder
             .path("/translate_a/single")
@@ -28,7 +96,27 @@ public class GoogleAPIService {
             .queryParam("q", word)
             .build())
         .retrieve()
-        .bodyToMono(List.class)
-        .map(response -> ((List<List<String>>) (response.get(0))).get(0).get(0));
+        .onStatus(HttpStatusCode::is4xxClientError, response ->
+            response.bodyToMono(String.class)
+                .defaultIfEmpty("Client error without body")
+                .flatMap(body -> Mono.error(new ClientApiException(
+                    "Client Error: " + response.statusCode() + ", Body: " + body))))
+        .onStatus(HttpStatusCode::is5xxServerError, response ->
+            response.bodyToMono(String.class)
+                .defaultIfEmpty("Server error without body")
+                .flatMap(body -> Mono.error(new ServerApiException(
+                    "Server Error: " + response.statusCode() + ", Body: " + body))))
+        .bodyToMono(TranslationDTO.class)
+        .map(TranslationDTO::text)
+        .timeout(timeout)
+        .retryWhen(Retry.backoff(2, Duration.ofMillis(300))
+            .filter(throwable -> throwable instanceof ServerApiException
+                || throwable instanceof TimeoutException
+                || throwable instanceof WebClientRequestException)
+            .onRetryExhaustedThrow((spec, signal) ->
+                new ServerApiException("Retries exhausted for translation of: " + word,
+                    signal.failure())))
+        .doOnError(throwable ->
+            log.error("Error calling translation API for '{}'", word, throwable));
   }
 }
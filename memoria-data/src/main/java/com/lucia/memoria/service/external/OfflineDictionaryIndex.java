@@ -0,0 +1,322 @@
+package com.lucia.memoria.service.external;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucia.memoria.dto.externalapi.ResponseDTO;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read-only, memory-mapped word index built from a JSON lines dictionary dump.
+ * <p>
+ * Every build writes two files into a new version directory:
+ * <ul>
+ *   <li>{@code dictionary.dat} - the raw JSON of every {@link ResponseDTO}, back to back</li>
+ *   <li>{@code dictionary.idx} - header, a table of fixed-width slots sorted by key, then the
+ *   UTF-8 key bytes. A slot is (keyOffset int, keyLength int, dataOffset long, dataLength int).
+ *   The header records the size of the data file it was built with.
+ *   </li>
+ * </ul>
+ * The {@code CURRENT} file names the version in use and is replaced with one atomic rename
+ * once both files are complete, so the index and the data always come from the same build.
+ * Opening still checks the data size against the header and refuses a mismatch.
+ * A word with several entries in the dump gets several adjacent slots. Lookups binary-search
+ * the slot table directly in the mapped file and only deserialize the records of the word
+ * asked for, so the dataset itself never lands on the heap.
+ */
+@Slf4j
+public class OfflineDictionaryIndex implements Closeable {
+
+  static final String INDEX_FILE = "dictionary.idx";
+  static final String DATA_FILE = "dictionary.dat";
+  static final String CURRENT_FILE = "CURRENT";
+
+  private static final int MAGIC = 0x4D454D44; // "MEMD"
+  private static final int VERSION = 2;
+  private static final int HEADER_SIZE = 24;
+  private static final int SLOT_SIZE = 20;
+  // Data is mapped in regions, a single mapping cannot exceed 2GB
+  private static final long REGION_SIZE = 1L << 30;
+
+  private final FileChannel indexChannel;
+  private final FileChannel dataChannel;
+  private final MappedByteBuffer index;
+  private final MappedByteBuffer[] dataRegions;
+  private final int count;
+  private final int keysStart;
+
+  private OfflineDictionaryIndex(FileChannel indexChannel, FileChannel dataChannel)
+      throws IOException {
+    this.indexChannel = indexChannel;
+    this.dataChannel = dataChannel;
+    this.index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+    if (index.getInt(0) != MAGIC || index.getInt(4) != VERSION) {
+      throw new IOException("Not a version " + VERSION + " offline dictionary index");
+    }
+    this.count = index.getInt(8);
+    this.keysStart = HEADER_SIZE + count * SLOT_SIZE;
+
+    long dataSize = dataChannel.size();
+    if (index.getLong(16) != dataSize) {
+      throw new IOException("Offline dictionary data does not belong to its index, expected "
+          + index.getLong(16) + " bytes but found " + dataSize);
+    }
+    int regions = (int) ((dataSize + REGION_SIZE - 1) / REGION_SIZE);
+    this.dataRegions = new MappedByteBuffer[regions];
+    for (int i = 0; i < regions; i++) {
+      long start = i * REGION_SIZE;
+      dataRegions[i] = dataChannel.map(FileChannel.MapMode.READ_ONLY, start,
+          Math.min(REGION_SIZE, dataSize - start));
+    }
+  }
+
+  public static OfflineDictionaryIndex open(Path directory) throws IOException {
+    Path version = currentVersion(directory);
+    if (version == null) {
+      throw new NoSuchFileException(directory.resolve(CURRENT_FILE).toString());
+    }
+    FileChannel indexChannel = FileChannel.open(version.resolve(INDEX_FILE),
+        StandardOpenOption.READ);
+    try {
+      FileChannel dataChannel = FileChannel.open(version.resolve(DATA_FILE),
+          StandardOpenOption.READ);
+      try {
+        return new OfflineDictionaryIndex(indexChannel, dataChannel);
+      } catch (IOException e) {
+        dataChannel.close();
+        throw e;
+      }
+    } catch (IOException e) {
+      indexChannel.close();
+      throw e;
+    }
+  }
+
+  public static boolean exists(Path directory) throws IOException {
+    Path version = currentVersion(directory);
+    return version != null && Files.isRegularFile(version.resolve(INDEX_FILE))
+        && Files.isRegularFile(version.resolve(DATA_FILE));
+  }
+
+  // The version directory CURRENT names, null before the first build
+  private static Path currentVersion(Path directory) throws IOException {
+    Path pointer = directory.resolve(CURRENT_FILE);
+    if (!Files.isRegularFile(pointer)) {
+      return null;
+    }
+    String name = Files.readString(pointer, StandardCharsets.UTF_8).trim();
+    return name.isEmpty() ? null : directory.resolve(name);
+  }
+
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Returns the raw JSON of every entry stored for the normalized word, empty if unknown.
+   */
+  public List<byte[]> find(String normalizedWord) {
+    byte[] key = normalizedWord.getBytes(StandardCharsets.UTF_8);
+    int slot = lowerBound(key);
+    List<byte[]> records = new ArrayList<>(1);
+    while (slot < count && compareKey(slot, key) == 0) {
+      int base = HEADER_SIZE + slot * SLOT_SIZE;
+      records.add(readData(index.getLong(base + 8), index.getInt(base + 16)));
+      slot++;
+    }
+    return records;
+  }
+
+  // First slot whose key is >= the searched key
+  private int lowerBound(byte[] key) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (compareKey(mid, key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  // Unsigned byte comparison straight against the mapped key bytes, nothing is copied
+  private int compareKey(int slot, byte[] key) {
+    int base = HEADER_SIZE + slot * SLOT_SIZE;
+    int offset = keysStart + index.getInt(base);
+    int length = index.getInt(base + 4);
+    int common = Math.min(length, key.length);
+    for (int i = 0; i < common; i++) {
+      int diff = (index.get(offset + i) & 0xFF) - (key[i] & 0xFF);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return length - key.length;
+  }
+
+  private byte[] readData(long offset, int length) {
+    byte[] record = new byte[length];
+    int copied = 0;
+    while (copied < length) {
+      long position = offset + copied;
+      MappedByteBuffer region = dataRegions[(int) (position / REGION_SIZE)];
+      int inRegion = (int) (position % REGION_SIZE);
+      int chunk = Math.min(length - copied, region.capacity() - inRegion);
+      region.get(inRegion, record, copied, chunk);
+      copied += chunk;
+    }
+    return record;
+  }
+
+  @Override
+  public void close() throws IOException {
+    indexChannel.close();
+    dataChannel.close();
+  }
+
+  private record Slot(byte[] key, long dataOffset, int dataLength) {
+
+  }
+
+  /**
+   * Ingests a JSON lines dump into {@code directory}. Every line is validated as a
+   * {@link ResponseDTO} and copied as-is into the data file; only keys and offsets are kept
+   * in memory while the slot table is sorted. The new version only becomes current once both
+   * files are complete, older versions are removed after that.
+   *
+   * @return number of entries written
+   */
+  public static int build(Path source, Path directory, ObjectMapper objectMapper)
+      throws IOException {
+    Files.createDirectories(directory);
+    Path version = Files.createTempDirectory(directory, "v");
+    try {
+      int entries = write(source, version, objectMapper);
+      Path pointerTmp = directory.resolve(CURRENT_FILE + ".tmp");
+      Files.writeString(pointerTmp, version.getFileName().toString(), StandardCharsets.UTF_8);
+      Files.move(pointerTmp, directory.resolve(CURRENT_FILE),
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      removeVersionsExcept(directory, version);
+      return entries;
+    } catch (IOException | RuntimeException e) {
+      deleteVersion(version);
+      throw e;
+    }
+  }
+
+  private static int write(Path source, Path version, ObjectMapper objectMapper)
+      throws IOException {
+    List<Slot> slots = new ArrayList<>();
+    long offset = 0;
+    try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8);
+        FileOutputStream dataFile = new FileOutputStream(version.resolve(DATA_FILE).toFile());
+        OutputStream data = new BufferedOutputStream(dataFile)) {
+      String line;
+      int lineNumber = 0;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (line.isBlank()) {
+          continue;
+        }
+        ResponseDTO entry;
+        try {
+          entry = objectMapper.readValue(line, ResponseDTO.class);
+        } catch (IOException e) {
+          log.warn("Skipping malformed dictionary line {}: {}", lineNumber, e.getMessage());
+          continue;
+        }
+        if (entry.word() == null || entry.word().isBlank()) {
+          continue;
+        }
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        data.write(bytes);
+        slots.add(new Slot(DictionaryProvider.normalize(entry.word())
+            .getBytes(StandardCharsets.UTF_8), offset, bytes.length));
+        offset += bytes.length;
+      }
+      // On disk before CURRENT can point at it
+      data.flush();
+      dataFile.getFD().sync();
+    }
+
+    // Same order as compareKey, so binary search agrees with the sort
+    slots.sort(Comparator.comparing(Slot::key, Arrays::compareUnsigned));
+    writeIndex(version.resolve(INDEX_FILE), slots, offset);
+    return slots.size();
+  }
+
+  private static void writeIndex(Path target, List<Slot> slots, long dataSize)
+      throws IOException {
+    try (FileOutputStream file = new FileOutputStream(target.toFile());
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+      int keyBytes = slots.stream().mapToInt(slot -> slot.key().length).sum();
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(slots.size());
+      out.writeInt(keyBytes);
+      out.writeLong(dataSize);
+
+      int keyOffset = 0;
+      for (Slot slot : slots) {
+        out.writeInt(keyOffset);
+        out.writeInt(slot.key().length);
+        out.writeLong(slot.dataOffset());
+        out.writeInt(slot.dataLength());
+        keyOffset += slot.key().length;
+      }
+      for (Slot slot : slots) {
+        out.write(slot.key());
+      }
+      out.flush();
+      file.getFD().sync();
+    }
+  }
+
+  // Also clears the files of the flat layout used before versions, nothing has them open
+  private static void removeVersionsExcept(Path directory, Path current) {
+    try (Stream<Path> entries = Files.list(directory)) {
+      entries.filter(entry -> !entry.equals(current))
+          .filter(entry -> Files.isDirectory(entry)
+              ? entry.getFileName().toString().startsWith("v")
+              : entry.getFileName().toString().startsWith("dictionary."))
+          .forEach(OfflineDictionaryIndex::deleteVersion);
+    } catch (IOException e) {
+      log.warn("Could not list old offline dictionary versions in {}", directory, e);
+    }
+  }
+
+  private static void deleteVersion(Path version) {
+    try (Stream<Path> files = Files.walk(version)) {
+      files.sorted(Comparator.reverseOrder()).forEach(file -> {
+        try {
+          Files.deleteIfExists(file);
+        } catch (IOException e) {
+          log.warn("Could not delete {}", file, e);
+        }
+      });
+    } catch (IOException e) {
+      log.warn("Could not delete offline dictionary version {}", version, e);
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package com.lucia.memoria.service.external;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucia.memoria.config.DictionaryConfig;
+import com.lucia.memoria.dto.externalapi.ResponseDTO;
+import com.lucia.memoria.exception.UpstreamBusyException;
+import com.lucia.memoria.exception.WordNotFoundException;
+import com.lucia.memoria.helper.DictionaryMode;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Dictionary provider answering from a local, memory-mapped {@link OfflineDictionaryIndex}.
+ * The index is (re)built from {@code dictionary.offline-source} in the background after startup
+ * when the dump is newer than the index; until it is open the provider reports itself not ready.
+ */
+@Service
+@Slf4j
+public class OfflineDictionaryService implements DictionaryProvider {
+
+  private final DictionaryConfig config;
+  private final ObjectMapper objectMapper;
+  private volatile OfflineDictionaryIndex index;
+
+  public OfflineDictionaryService(DictionaryConfig config, ObjectMapper objectMapper) {
+    this.config = config;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public String getName() {
+    return "offline-dictionary";
+  }
+
+  public boolean isReady() {
+    return index != null;
+  }
+
+  /**
+   * Looks the word up synchronously. The mapped pages are usually resident, so this is cheap
+   * enough to run on the calling thread.
+   */
+  @Override
+  public Mono<List<ResponseDTO>> lookup(String word) {
+    return DictionaryProvider.upstreamCall(Mono.defer(() -> {
+      OfflineDictionaryIndex current = index;
+      if (current == null) {
+        return Mono.error(new UpstreamBusyException("Offline dictionary is still loading"));
+      }
+      List<byte[]> records = current.find(DictionaryProvider.normalize(word));
+      if (records.isEmpty()) {
+        return Mono.error(new WordNotFoundException("Client Error: " + HttpStatus.NOT_FOUND
+            + ", Body: No definitions found for '" + word + "'"));
+      }
+      return Mono.just(deserialize(records));
+    }));
+  }
+
+  private List<ResponseDTO> deserialize(List<byte[]> records) {
+    List<ResponseDTO> responses = new ArrayList<>(records.size());
+    for (byte[] record : records) {
+      try {
+        responses.add(objectMapper.readValue(record, ResponseDTO.class));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Corrupt offline dictionary record", e);
+      }
+    }
+    return responses;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadInBackground() {
+    boolean listed = config.getProviders().stream().anyMatch(getName()::equals);
+    if (config.getMode() == DictionaryMode.REMOTE_ONLY && !listed) {
+      return;
+    }
+    Thread loader = new Thread(this::load, "offline-dictionary-loader");
+    loader.setDaemon(true);
+    loader.start();
+  }
+
+  private void load() {
+    Path directory = Path.of(config.getOfflineDirectory());
+    try {
+      if (needsIngestion(directory)) {
+        long started = System.currentTimeMillis();
+        int entries = OfflineDictionaryIndex.build(Path.of(config.getOfflineSource()), directory,
+            objectMapper);
+        log.info("Offline dictionary ingested {} entries in {} ms", entries,
+            System.currentTimeMillis() - started);
+      }
+      if (!OfflineDictionaryIndex.exists(directory)) {
+        log.warn("Offline dictionary mode is {} but no index found in {}", config.getMode(),
+            directory);
+        return;
+      }
+      index = OfflineDictionaryIndex.open(directory);
+      log.info("Offline dictionary ready with {} entries", index.size());
+    } catch (IOException e) {
+      log.error("Failed to load offline dictionary from {}", directory, e);
+    }
+  }
+
+  private boolean needsIngestion(Path directory) throws IOException {
+    if (StringUtils.isBlank(config.getOfflineSource())) {
+      return false;
+    }
+    Path source = Path.of(config.getOfflineSource());
+    if (!Files.isRegularFile(source)) {
+      log.warn("Offline dictionary source {} does not exist", source);
+      return false;
+    }
+    // CURRENT is written last by every build, so its time is the one of the current version
+    Path current = directory.resolve(OfflineDictionaryIndex.CURRENT_FILE);
+    return !OfflineDictionaryIndex.exists(directory)
+        || Files.getLastModifiedTime(source).compareTo(Files.getLastModifiedTime(current)) > 0;
+  }
+
+  @PreDestroy
+  void close() throws IOException {
+    if (index != null) {
+      index.close();
+    }
+  }
+}
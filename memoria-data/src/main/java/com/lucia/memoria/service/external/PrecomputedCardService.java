@@ -0,0 +1,212 @@
+package com.lucia.memoria.service.external;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucia.memoria.config.DictionaryWarmupConfig;
+import com.lucia.memoria.dto.local.CardResponseDTO;
+import com.lucia.memoria.dto.local.PrecomputedWordDTO;
+import com.lucia.memoria.model.DictionaryWarmupProgress;
+import com.lucia.memoria.model.PrecomputedCard;
+import com.lucia.memoria.model.Template;
+import com.lucia.memoria.model.TemplateField;
+import com.lucia.memoria.repository.DictionaryWarmupProgressRepository;
+import com.lucia.memoria.repository.PrecomputedCardRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Store of dictionary cards generated ahead of time by {@link DictionaryWarmupJob}.
+ * The set of stored words is kept in memory, so a word that was never precomputed costs no
+ * database round trip on the lookup path. Cards built from another version of the template,
+ * or older than {@code dictionary.warmup.max-age}, are stale: lookups skip them and the next
+ * warm-up run rebuilds them.
+ */
+@Service
+@Slf4j
+public class PrecomputedCardService {
+
+  private static final TypeReference<List<CardResponseDTO>> CARD_LIST = new TypeReference<>() {
+  };
+
+  private final PrecomputedCardRepository precomputedCardRepository;
+  private final DictionaryWarmupProgressRepository progressRepository;
+  private final ObjectMapper objectMapper;
+  private final DictionaryWarmupConfig config;
+  private final Map<String, PrecomputedWordDTO> words = new ConcurrentHashMap<>();
+  private final AtomicLong hits = new AtomicLong();
+
+  public PrecomputedCardService(PrecomputedCardRepository precomputedCardRepository,
+      DictionaryWarmupProgressRepository progressRepository, ObjectMapper objectMapper,
+      DictionaryWarmupConfig config) {
+    this.precomputedCardRepository = precomputedCardRepository;
+    this.progressRepository = progressRepository;
+    this.objectMapper = objectMapper;
+    this.config = config;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadWordsInBackground() {
+    Thread loader = new Thread(() -> {
+      precomputedCardRepository.findAllWords().forEach(word -> words.put(word.word(), word));
+      log.info("{} precomputed dictionary words available", words.size());
+    }, "precomputed-cards-loader");
+    loader.setDaemon(true);
+    loader.start();
+  }
+
+  /**
+   * Whether the word was ever precomputed, fresh or not.
+   */
+  public boolean contains(String word) {
+    return words.containsKey(DictionaryProvider.normalize(word));
+  }
+
+  /**
+   * Whether the word has cards built from this template version that are not too old yet.
+   */
+  public boolean isFresh(String word, String templateVersion) {
+    return isFresh(words.get(DictionaryProvider.normalize(word)), templateVersion);
+  }
+
+  /**
+   * The words of the list that were precomputed but are stale by now, in list order.
+   */
+  public List<String> findStale(List<String> wordList, String templateVersion) {
+    return wordList.stream()
+        .filter(word -> {
+          PrecomputedWordDTO precomputed = words.get(word);
+          return precomputed != null && !isFresh(precomputed, templateVersion);
+        })
+        .toList();
+  }
+
+  /**
+   * Precomputed cards for the word, or an empty Mono when it was never precomputed or the
+   * cards are stale for this template.
+   */
+  public Mono<List<CardResponseDTO>> find(String word, Template template) {
+    String key = DictionaryProvider.normalize(word);
+    if (!isFresh(words.get(key), templateVersion(template))) {
+      return Mono.empty();
+    }
+    return Mono.fromCallable(() -> precomputedCardRepository.findByWord(key)
+            .map(this::read)
+            .orElse(null))
+        .subscribeOn(Schedulers.boundedElastic())
+        .doOnNext(cards -> hits.incrementAndGet());
+  }
+
+  @Transactional(readOnly = true)
+  public DictionaryWarmupProgress getProgress(String source, int totalWords) {
+    return progressRepository.findBySource(source)
+        // A different list under the same name starts over
+        .filter(progress -> progress.getTotalWords() == totalWords)
+        .orElseGet(() -> progressRepository.findBySource(source)
+            .map(stale -> {
+              stale.setTotalWords(totalWords);
+              stale.setNextPosition(0);
+              stale.setWordsWithCards(0);
+              stale.setWordsNotFound(0);
+              stale.setWordsFailed(0);
+              stale.setFailedWords(null);
+              return stale;
+            })
+            .orElseGet(() -> new DictionaryWarmupProgress(source, totalWords)));
+  }
+
+  /**
+   * Stores one batch of cards together with the progress that covers it, so a restart never
+   * sees cards without progress or the other way round.
+   *
+   * @return the saved progress, to be passed in with the next batch
+   */
+  @Transactional
+  public DictionaryWarmupProgress saveBatch(Map<String, List<CardResponseDTO>> cardsByWord,
+      String templateVersion, DictionaryWarmupProgress progress) {
+    Map<String, PrecomputedCard> existing = precomputedCardRepository
+        .findAllByWordIn(cardsByWord.keySet()).stream()
+        .collect(Collectors.toMap(PrecomputedCard::getWord, Function.identity()));
+
+    List<PrecomputedCard> toSave = cardsByWord.entrySet().stream()
+        .map(entry -> {
+          List<CardResponseDTO> cards = entry.getValue();
+          PrecomputedCard card = existing.getOrDefault(entry.getKey(),
+              new PrecomputedCard(entry.getKey(), cards.get(0).getTemplateId(), null, null));
+          card.setTemplateId(cards.get(0).getTemplateId());
+          card.setTemplateVersion(templateVersion);
+          card.setCards(write(cards));
+          card.setCreatedAt(Instant.now());
+          return card;
+        })
+        .toList();
+    precomputedCardRepository.saveAll(toSave);
+
+    progress.setUpdatedAt(Instant.now());
+    DictionaryWarmupProgress saved = progressRepository.save(progress);
+    toSave.forEach(card -> words.put(card.getWord(),
+        new PrecomputedWordDTO(card.getWord(), card.getTemplateVersion(), card.getCreatedAt())));
+    return saved;
+  }
+
+  /**
+   * Fingerprint of everything the cards copy from the template: its id and the id, name,
+   * role and type of every field. Deleting and recreating the template, or changing any of
+   * its fields, gives a new version.
+   */
+  public static String templateVersion(Template template) {
+    StringBuilder fingerprint = new StringBuilder(template.getTemplateId().toString());
+    for (TemplateField field : template.getFields()) {
+      fingerprint.append('|').append(field.getTemplateFieldId())
+          .append('|').append(field.getName())
+          .append('|').append(field.getFieldRole())
+          .append('|').append(field.getTemplateFieldType());
+    }
+    return UUID.nameUUIDFromBytes(fingerprint.toString().getBytes(StandardCharsets.UTF_8))
+        .toString();
+  }
+
+  private boolean isFresh(PrecomputedWordDTO word, String templateVersion) {
+    return word != null
+        && templateVersion.equals(word.templateVersion())
+        && word.createdAt().isAfter(Instant.now().minus(config.getMaxAge()));
+  }
+
+  public int getWordCount() {
+    return words.size();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  private List<CardResponseDTO> read(PrecomputedCard card) {
+    try {
+      return objectMapper.readValue(card.getCards(), CARD_LIST);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Corrupt precomputed cards for " + card.getWord(), e);
+    }
+  }
+
+  private String write(List<CardResponseDTO> cards) {
+    try {
+      return objectMapper.writeValueAsString(cards);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Cannot serialize precomputed cards", e);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package com.lucia.memoria.service.external;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucia.memoria.config.DictionaryConfig;
+import com.lucia.memoria.dto.externalapi.ResponseDTO;
+import com.lucia.memoria.exception.WordNotFoundException;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory provider with fixed answers, meant for tests and local development.
+ * Entries come from {@code dictionary.stub-source} (the offline dump format) and every answer
+ * can be slowed down by {@code dictionary.stub-latency} to exercise hedging.
+ * The provider only exists when a stub source is configured, so it can never answer real
+ * lookups by accident.
+ */
+@Service
+@ConditionalOnProperty(prefix = "dictionary", name = "stub-source")
+@Slf4j
+public class StubDictionaryProvider implements DictionaryProvider {
+
+  private final DictionaryConfig config;
+  private final ObjectMapper objectMapper;
+  private final Map<String, List<ResponseDTO>> entries = new HashMap<>();
+
+  public StubDictionaryProvider(DictionaryConfig config, ObjectMapper objectMapper) {
+    this.config = config;
+    this.objectMapper = objectMapper;
+  }
+
+  @PostConstruct
+  void load() {
+    if (StringUtils.isBlank(config.getStubSource())) {
+      return;
+    }
+    try (Stream<String> lines = Files.lines(Path.of(config.getStubSource()),
+        StandardCharsets.UTF_8)) {
+      lines.filter(StringUtils::isNotBlank).forEach(line -> {
+        try {
+          ResponseDTO entry = objectMapper.readValue(line, ResponseDTO.class);
+          entries.computeIfAbsent(DictionaryProvider.normalize(entry.word()),
+              key -> new ArrayList<>()).add(entry);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      log.info("Stub dictionary loaded {} words", entries.size());
+    } catch (IOException | UncheckedIOException e) {
+      log.warn("Stub dictionary could not load {}: {}", config.getStubSource(), e.getMessage());
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "stub";
+  }
+
+  @Override
+  public Mono<List<ResponseDTO>> lookup(String word) {
+    Mono<List<ResponseDTO>> answer = Mono.defer(() -> {
+      List<ResponseDTO> found = entries.get(DictionaryProvider.normalize(word));
+      return found != null ? Mono.just(found) : Mono.error(new WordNotFoundException(
+          "Client Error: " + HttpStatus.NOT_FOUND + ", Body: No definitions found for '" + word
+              + "'"));
+    });
+    Duration latency = config.getStubLatency();
+    return DictionaryProvider.upstreamCall(
+        latency.isZero() ? answer : Mono.delay(latency).then(answer));
+  }
+}
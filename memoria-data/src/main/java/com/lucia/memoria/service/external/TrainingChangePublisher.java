@@ -0,0 +1,220 @@
+package com.lucia.memoria.service.external;
+
+import com.lucia.memoria.config.OutboxConfig;
+import com.lucia.memoria.dto.local.ChangeEventDTO;
+import com.lucia.memoria.model.OutboxEvent;
+import com.lucia.memoria.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * Publishes the outbox to memoria-training. A batch of unpublished events is claimed in a short
+ * transaction, posted with no transaction or connection held, and marked published only once
+ * memoria-training accepted it. Instances claim different events, and a claim left behind by a
+ * crashed instance expires after twice the post timeout. Id order is not commit order, an event
+ * committed late is published after events with higher ids. A batch that fails is posted again
+ * later, so delivery is at least once; memoria-training keeps the highest user sequence applied
+ * per card and deck and ignores anything older, which makes repeated, late or reordered events
+ * harmless.
+ * <p>
+ * While memoria-training cannot be reached or fails the publisher backs off as a whole. When it
+ * rejects a batch, the events are posted one by one and each rejected one is retried with its
+ * own backoff, then parked after {@code outbox.max-attempts} so it cannot hold up the others.
+ */
+@Service
+@Slf4j
+public class TrainingChangePublisher {
+
+  private static final String CHANGES_PATH = "/internal/changes";
+  private static final int MAX_ERROR_LENGTH = 1000;
+  private static final long CLEANUP_INTERVAL_MILLIS = 3_600_000;
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final OutboxConfig config;
+  private final TransactionTemplate transactionTemplate;
+  private final WebClient webClient;
+  private final ScheduledExecutorService poller;
+  private long backoffMillis;
+  private long nextAttemptAt;
+  private long lastCleanupAt;
+
+  public TrainingChangePublisher(OutboxEventRepository outboxEventRepository,
+      OutboxConfig config, PlatformTransactionManager transactionManager,
+      WebClient.Builder webClientBuilder) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.config = config;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.webClient = webClientBuilder.baseUrl(config.getTrainingUrl()).build();
+    this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "outbox-publisher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (config.isEnabled()) {
+      long interval = config.getPollInterval().toMillis();
+      poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public long getPendingEvents() {
+    return outboxEventRepository.countUnpublished();
+  }
+
+  private void poll() {
+    long now = System.currentTimeMillis();
+    if (now < nextAttemptAt) {
+      return;
+    }
+    try {
+      // Keep going while batches come back full, a backlog drains without waiting for ticks
+      int published;
+      do {
+        published = publishBatch();
+      } while (published == config.getBatchSize());
+      backoffMillis = 0;
+    } catch (RuntimeException e) {
+      backoffMillis = backoffMillis == 0
+          ? config.getPollInterval().toMillis()
+          : Math.min(backoffMillis * 2, config.getMaxBackoff().toMillis());
+      nextAttemptAt = System.currentTimeMillis() + backoffMillis;
+      log.warn("Publishing changes to memoria-training failed, retrying in {} ms: {}",
+          backoffMillis, e.getMessage());
+    }
+    if (now - lastCleanupAt >= CLEANUP_INTERVAL_MILLIS) {
+      lastCleanupAt = now;
+      deletePublished();
+    }
+  }
+
+  private int publishBatch() {
+    UUID claimId = UUID.randomUUID();
+    List<OutboxEvent> events = transactionTemplate.execute(status -> {
+      Instant now = Instant.now();
+      if (outboxEventRepository.claim(claimId, now.plus(claimDuration()), now,
+          config.getBatchSize()) == 0) {
+        return List.of();
+      }
+      return outboxEventRepository.findAllByClaimIdOrderById(claimId);
+    });
+    if (events == null || events.isEmpty()) {
+      return 0;
+    }
+
+    try {
+      try {
+        post(events);
+        markPublished(events);
+      } catch (WebClientResponseException e) {
+        if (!e.getStatusCode().is4xxClientError()) {
+          throw e;
+        }
+        publishOneByOne(claimId, events);
+      }
+    } catch (RuntimeException e) {
+      // Left for the next attempt right away instead of waiting for the claim to expire
+      transactionTemplate.execute(status -> outboxEventRepository.releaseClaim(claimId));
+      throw e;
+    }
+    return events.size();
+  }
+
+  // Finds the events memoria-training rejects, the others are published
+  private void publishOneByOne(UUID claimId, List<OutboxEvent> events) {
+    for (OutboxEvent event : events) {
+      transactionTemplate.execute(status -> outboxEventRepository.renewClaim(claimId,
+          Instant.now().plus(claimDuration())));
+      try {
+        post(List.of(event));
+        markPublished(List.of(event));
+      } catch (WebClientResponseException e) {
+        if (!e.getStatusCode().is4xxClientError()) {
+          throw e;
+        }
+        reject(event.getId(), e);
+      }
+    }
+  }
+
+  private void post(List<OutboxEvent> events) {
+    webClient.post()
+        .uri(CHANGES_PATH)
+        .bodyValue(events.stream().map(TrainingChangePublisher::toDTO).toList())
+        .retrieve()
+        .toBodilessEntity()
+        .block(config.getTimeout());
+  }
+
+  private void markPublished(List<OutboxEvent> events) {
+    transactionTemplate.execute(status -> outboxEventRepository.markPublished(
+        events.stream().map(OutboxEvent::getId).toList(), Instant.now()));
+  }
+
+  private void reject(long id, WebClientResponseException error) {
+    transactionTemplate.executeWithoutResult(status ->
+        outboxEventRepository.findById(id).ifPresent(event -> {
+          Instant now = Instant.now();
+          String message = error.getStatusCode() + " " + error.getResponseBodyAsString();
+          event.setAttempts(event.getAttempts() + 1);
+          event.setLastError(message.length() > MAX_ERROR_LENGTH
+              ? message.substring(0, MAX_ERROR_LENGTH) : message);
+          event.setClaimId(null);
+          event.setClaimedUntil(null);
+          if (event.getAttempts() >= config.getMaxAttempts()) {
+            event.setParkedAt(now);
+            log.error("Parked outbox event {} after {} rejections: {}", event.getEventId(),
+                event.getAttempts(), event.getLastError());
+          } else {
+            event.setNextAttemptAt(now.plus(retryDelay(event.getAttempts())));
+            log.warn("memoria-training rejected outbox event {}, attempt {}: {}",
+                event.getEventId(), event.getAttempts(), event.getLastError());
+          }
+        }));
+  }
+
+  private Duration claimDuration() {
+    return config.getTimeout().multipliedBy(2);
+  }
+
+  // Doubles from the poll interval with every rejection, up to max-backoff
+  private Duration retryDelay(int attempts) {
+    Duration delay = config.getPollInterval().multipliedBy(1L << Math.min(attempts - 1, 20));
+    return delay.compareTo(config.getMaxBackoff()) > 0 ? config.getMaxBackoff() : delay;
+  }
+
+  private void deletePublished() {
+    try {
+      Instant before = Instant.now().minus(config.getRetention());
+      Integer deleted = transactionTemplate.execute(
+          status -> outboxEventRepository.deletePublishedBefore(before));
+      if (deleted != null && deleted > 0) {
+        log.debug("Deleted {} published outbox events", deleted);
+      }
+    } catch (RuntimeException e) {
+      log.warn("Could not delete published outbox events", e);
+    }
+  }
+
+  private static ChangeEventDTO toDTO(OutboxEvent event) {
+    long sequence = event.getUserSequence() == null ? 0 : event.getUserSequence();
+    return new ChangeEventDTO(event.getEventId(), sequence, event.getEventType(),
+        event.getUsername(), event.getCardId(), event.getDeckId(), event.getParentDeckId(),
+        event.getTemplateId(), event.getPath(), event.getCreatedAt());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    poller.shutdownNow();
+  }
+}
@@ -0,0 +1,50 @@
+package com.lucia.memoria.service.helper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Small bounded LRU map where every entry carries its own expiry time.
+ * Expired entries are dropped lazily when they are read or pushed out by newer ones.
+ */
+public class ExpiringLruCache<V> {
+
+  private final Map<String, Expiring<V>> entries;
+
+  private record Expiring<V>(V value, long expiresAt) {
+
+  }
+
+  public ExpiringLruCache(int maxEntries) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive");
+    }
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Expiring<V>> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  public synchronized Optional<V> get(String key) {
+    Expiring<V> entry = entries.get(key);
+    if (entry == null) {
+      return Optional.empty();
+    }
+    if (entry.expiresAt() <= System.currentTimeMillis()) {
+      entries.remove(key);
+      return Optional.empty();
+    }
+    return Optional.of(entry.value());
+  }
+
+  public synchronized void put(String key, V value, long expiresAt) {
+    entries.put(key, new Expiring<>(value, expiresAt));
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+}
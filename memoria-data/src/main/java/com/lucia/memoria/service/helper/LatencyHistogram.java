@@ -0,0 +1,103 @@
+package com.lucia.memoria.service.helper;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets (four per power of two, so about 19%
+ * resolution) covering 1 ms to a little over two minutes.
+ * <p>
+ * Samples are kept for two rolling windows: percentiles are computed over the current and the
+ * previous window, so old latencies age out and the histogram follows the provider's health.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKETS = 4;
+  private static final int BUCKETS = SUB_BUCKETS * 17;
+
+  private final long windowMillis;
+  private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+  private volatile long[] previous = new long[BUCKETS];
+  private volatile long windowStart = System.currentTimeMillis();
+
+  public LatencyHistogram(long windowMillis) {
+    this.windowMillis = windowMillis;
+  }
+
+  public void record(long millis) {
+    rotateIfNeeded();
+    current.incrementAndGet(bucketOf(millis));
+  }
+
+  public long count() {
+    rotateIfNeeded();
+    long total = 0;
+    AtomicLongArray live = current;
+    long[] old = previous;
+    for (int i = 0; i < BUCKETS; i++) {
+      total += live.get(i) + old[i];
+    }
+    return total;
+  }
+
+  /**
+   * Upper bound in milliseconds of the bucket holding the given quantile, -1 without samples.
+   */
+  public long percentile(double quantile) {
+    rotateIfNeeded();
+    AtomicLongArray live = current;
+    long[] old = previous;
+    long[] merged = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      merged[i] = live.get(i) + old[i];
+      total += merged[i];
+    }
+    if (total == 0) {
+      return -1;
+    }
+    long rank = (long) Math.ceil(quantile * total);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += merged[i];
+      if (seen >= rank) {
+        return upperBound(i);
+      }
+    }
+    return upperBound(BUCKETS - 1);
+  }
+
+  private static int bucketOf(long millis) {
+    if (millis <= 1) {
+      return 0;
+    }
+    int bucket = (int) (SUB_BUCKETS * (Math.log(millis) / Math.log(2)));
+    return Math.min(bucket, BUCKETS - 1);
+  }
+
+  private static long upperBound(int bucket) {
+    return (long) Math.ceil(Math.pow(2, (bucket + 1) / (double) SUB_BUCKETS));
+  }
+
+  private void rotateIfNeeded() {
+    long now = System.currentTimeMillis();
+    if (now - windowStart < windowMillis) {
+      return;
+    }
+    synchronized (this) {
+      if (now - windowStart < windowMillis) {
+        return;
+      }
+      AtomicLongArray finished = current;
+      current = new AtomicLongArray(BUCKETS);
+      long[] snapshot = new long[BUCKETS];
+      // A window with no traffic at all leaves nothing behind
+      if (now - windowStart < 2 * windowMillis) {
+        for (int i = 0; i < BUCKETS; i++) {
+          snapshot[i] = finished.get(i);
+        }
+      }
+      previous = snapshot;
+      windowStart = now;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.lucia.memoria.service.helper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Collapses concurrent identical upstream calls into one.
+ * <p>
+ * The first caller for a key starts the call, every caller arriving while it is in flight
+ * subscribes to the same shared result. Values and errors are delivered to all of them.
+ * A single caller cancelling only detaches itself; the upstream call is cancelled once the
+ * last subscriber is gone. The key is released as soon as the call terminates, so results
+ * are not cached for later callers. A caller that picked up the call just before it finished
+ * and subscribes just after is replayed its result rather than starting the call again.
+ */
+@Slf4j
+public class SingleFlight<T> {
+
+  private final String provider;
+  private final Map<String, Mono<T>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong upstreamCalls = new AtomicLong();
+  private final AtomicLong coalescedCalls = new AtomicLong();
+
+  public SingleFlight(String provider) {
+    this.provider = provider;
+  }
+
+  public Mono<T> execute(String key, Supplier<Mono<T>> call) {
+    return Mono.defer(() -> {
+      boolean[] leader = new boolean[1];
+      Mono<T> shared = inFlight.computeIfAbsent(key, k -> {
+        leader[0] = true;
+        return share(k, call);
+      });
+      if (leader[0]) {
+        upstreamCalls.incrementAndGet();
+      } else {
+        coalescedCalls.incrementAndGet();
+        log.debug("Coalesced {} call for '{}'", provider, key);
+      }
+      return shared;
+    });
+  }
+
+  private Mono<T> share(String key, Supplier<Mono<T>> call) {
+    AtomicReference<Mono<T>> self = new AtomicReference<>();
+    self.set(Mono.defer(call)
+        .doFinally(signal -> inFlight.remove(key, self.get()))
+        .flux()
+        // refCount(1): connect on the first subscriber, cancel upstream when the last one leaves.
+        // replay(1) keeps the terminal signal, publish would run the call again for a late
+        // subscriber
+        .replay(1)
+        .refCount(1)
+        .singleOrEmpty());
+    return self.get();
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  public long getUpstreamCalls() {
+    return upstreamCalls.get();
+  }
+
+  public long getCoalescedCalls() {
+    return coalescedCalls.get();
+  }
+
+  public int getInFlight() {
+    return inFlight.size();
+  }
+}
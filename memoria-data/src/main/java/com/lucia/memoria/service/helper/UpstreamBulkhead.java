@@ -0,0 +1,41 @@
+package com.lucia.memoria.service.helper;
+
+import com.lucia.memoria.exception.UpstreamBusyException;
+import java.util.concurrent.Semaphore;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caps the number of outstanding calls to a single external provider.
+ * A permit is taken on subscription and given back on completion, error or cancellation,
+ * so a slow upstream can only ever hold {@code maxConcurrentCalls} calls at once.
+ * Callers over the limit fail fast with {@link UpstreamBusyException} instead of queueing.
+ */
+public class UpstreamBulkhead {
+
+  private final String name;
+  private final int maxConcurrentCalls;
+  private final Semaphore permits;
+
+  public UpstreamBulkhead(String name, int maxConcurrentCalls) {
+    if (maxConcurrentCalls <= 0) {
+      throw new IllegalArgumentException("Bulkhead '" + name + "' needs at least one permit");
+    }
+    this.name = name;
+    this.maxConcurrentCalls = maxConcurrentCalls;
+    this.permits = new Semaphore(maxConcurrentCalls);
+  }
+
+  public <T> Mono<T> execute(Mono<T> call) {
+    return Mono.defer(() -> {
+      if (!permits.tryAcquire()) {
+        return Mono.error(new UpstreamBusyException(
+            "Too many concurrent requests to " + name + ", try again later"));
+      }
+      return call.doFinally(signal -> permits.release());
+    });
+  }
+
+  public int getInFlight() {
+    return maxConcurrentCalls - permits.availablePermits();
+  }
+}
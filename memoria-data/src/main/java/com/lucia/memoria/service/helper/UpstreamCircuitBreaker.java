@@ -0,0 +1,105 @@
+package com.lucia.memoria.service.helper;
+
+import com.lucia.memoria.exception.CircuitOpenException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Fails fast while an external provider is unhealthy.
+ * <p>
+ * CLOSED: calls pass, consecutive failures are counted.
+ * OPEN: after {@code failureThreshold} failures in a row every call is rejected with
+ * {@link CircuitOpenException} until {@code openDuration} has passed.
+ * HALF_OPEN: a single trial call is let through, its outcome closes or re-opens the circuit.
+ * <p>
+ * Only errors matching {@code isFailure} count against the provider; a 4xx answer, for
+ * example, proves the provider is up.
+ */
+@Slf4j
+public class UpstreamCircuitBreaker {
+
+  public enum State { CLOSED, OPEN, HALF_OPEN }
+
+  private final String name;
+  private final int failureThreshold;
+  private final long openDurationMillis;
+  private final Predicate<Throwable> isFailure;
+  private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+  private volatile long openedAt;
+
+  public UpstreamCircuitBreaker(String name, int failureThreshold, Duration openDuration,
+      Predicate<Throwable> isFailure) {
+    this.name = name;
+    this.failureThreshold = failureThreshold;
+    this.openDurationMillis = openDuration.toMillis();
+    this.isFailure = isFailure;
+  }
+
+  public <T> Mono<T> execute(Mono<T> call) {
+    return Mono.defer(() -> {
+      if (!tryAcquire()) {
+        return Mono.error(new CircuitOpenException(
+            name + " is temporarily unavailable, try again later"));
+      }
+      return call
+          .doOnSuccess(value -> onSuccess())
+          .doOnError(ex -> {
+            if (isFailure.test(ex)) {
+              onFailure();
+            } else {
+              onSuccess();
+            }
+          })
+          .doOnCancel(this::onCancel);
+    });
+  }
+
+  public State getState() {
+    return state.get();
+  }
+
+  private boolean tryAcquire() {
+    State current = state.get();
+    if (current == State.CLOSED) {
+      return true;
+    }
+    if (current == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMillis) {
+      // Only the caller winning this transition gets to run the trial call
+      return state.compareAndSet(State.OPEN, State.HALF_OPEN);
+    }
+    return false;
+  }
+
+  private void onSuccess() {
+    consecutiveFailures.set(0);
+    if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+      log.info("Circuit for {} closed again", name);
+    }
+  }
+
+  private void onFailure() {
+    if (state.get() == State.HALF_OPEN) {
+      open();
+    } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+      open();
+    }
+  }
+
+  private void onCancel() {
+    // A cancelled trial proves nothing, let the next caller try again right away
+    state.compareAndSet(State.HALF_OPEN, State.OPEN);
+  }
+
+  private void open() {
+    openedAt = System.currentTimeMillis();
+    if (state.getAndSet(State.OPEN) != State.OPEN) {
+      log.warn("Circuit for {} opened after {} consecutive failures", name,
+          consecutiveFailures.get());
+    }
+  }
+}
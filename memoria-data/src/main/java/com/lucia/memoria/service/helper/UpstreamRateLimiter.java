@@ -0,0 +1,61 @@
+package com.lucia.memoria.service.helper;
+
+import com.lucia.memoria.exception.UpstreamBusyException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spaces calls to an external provider evenly at a fixed rate.
+ * Every call reserves the next free slot and is delayed until it comes up, so a burst turns
+ * into a steady stream instead of a wall of requests. The wait happens on a timer, no thread
+ * is parked while a call is queued.
+ * Slots are never reserved more than {@code maxWait} ahead. A call that would have to wait
+ * longer fails fast with {@link UpstreamBusyException}, so a long burst cannot push every
+ * later call further and further into the future.
+ * Each subscription reserves its own slot, so a retried call queues again like any other.
+ */
+public class UpstreamRateLimiter {
+
+  private final String name;
+  private final long intervalNanos;
+  private final long maxWaitNanos;
+  private final AtomicLong nextFreeSlot = new AtomicLong(System.nanoTime());
+
+  public UpstreamRateLimiter(String name, double permitsPerSecond, Duration maxWait) {
+    if (permitsPerSecond <= 0) {
+      throw new IllegalArgumentException("Rate limit of '" + name + "' must be positive");
+    }
+    this.name = name;
+    this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    this.maxWaitNanos = maxWait.toNanos();
+  }
+
+  public <T> Mono<T> execute(Mono<T> call) {
+    return Mono.defer(() -> {
+      long waitNanos = reserve();
+      if (waitNanos < 0) {
+        return Mono.error(new UpstreamBusyException(
+            "Too many queued requests to " + name + ", try again later"));
+      }
+      return waitNanos == 0 ? call : Mono.delay(Duration.ofNanos(waitNanos)).then(call);
+    });
+  }
+
+  // Wait before the reserved slot comes up, or -1 when the queue is already maxWait long
+  private long reserve() {
+    while (true) {
+      long now = System.nanoTime();
+      long slot = nextFreeSlot.get();
+      // An idle limiter does not bank unused slots, so there is no burst after a quiet period
+      long granted = Math.max(slot, now);
+      if (granted - now > maxWaitNanos) {
+        return -1;
+      }
+      if (nextFreeSlot.compareAndSet(slot, granted + intervalNanos)) {
+        return granted - now;
+      }
+    }
+  }
+}
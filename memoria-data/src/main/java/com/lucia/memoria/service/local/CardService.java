@@ -5,6 +5,7 @@ import com.lucia.memoria.dto.local.CardResponseDTO;
 import com.lucia.memoria.dto.local.FieldDTO;
 import com.lucia.memoria.dto.local.ResponseDeckWithCardsDTO;
 import com.lucia.memoria.exception.NotFoundException;
+import com.lucia.memoria.helper.ChangeEventType;
 import com.lucia.memoria.mapper.CardMapper;
 import com.lucia.memoria.mapper.DeckWithCardsMapper;
 import com.lucia.memoria.mapper.FieldMapper;
@@ -19,6 +20,7 @@ import com.lucia.memoria.service.helper.CardValidator;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Function;
@@ -33,6 +35,8 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 public class CardService {
 
+  private static final int MAX_BATCH_CARDS = 500;
+
   private final CardRepository cardRepository;
   private final DeckService deckService;
   private final TemplateService templateService;
@@ -41,6 +45,8 @@ public class CardService {
   private final TemplateFieldMapper templateFieldMapper;
   private final DeckWithCardsMapper deckWithCardsMapper;
   private final CardValidator cardValidator;
+  private final OutboxService outboxService;
+  private final DataVersionService dataVersionService;
 
 
   @Transactional
@@ -71,7 +77,10 @@ public class CardService {
 
     // 4. Validation & Save
     cardValidator.validateCardStructure(card);
-    return cardMapper.toMinimalDTO(cardRepository.save(card));
+    Card savedCard = cardRepository.save(card);
+    outboxService.recordCard(ChangeEventType.CARD_CREATED, savedCard);
+    dataVersionService.deckChanged(savedCard.getDeck());
+    return cardMapper.toMinimalDTO(savedCard);
   }
 
   @Transactional
@@ -93,7 +102,10 @@ public class CardService {
 
     // 5. Business Rules & save
     cardValidator.validateCardStructure(card);
-    return cardMapper.toMinimalDTO(cardRepository.save(card));
+    Card savedCard = cardRepository.save(card);
+    outboxService.recordCard(ChangeEventType.CARD_UPDATED, savedCard);
+    dataVersionService.deckChanged(savedCard.getDeck());
+    return cardMapper.toMinimalDTO(savedCard);
   }
 
 
@@ -101,18 +113,41 @@ public class CardService {
   public CardResponseDTO getCardById(UUID cardId) {
     Card card = cardRepository.findByCardIdWithFieldsAndFieldTemplates(cardId)
         .orElseThrow(() -> new NotFoundException("Invalid card ID provided."));
+    return toFullDTO(card);
+  }
 
-    // 1. Map basic info (cardId, deckId, templateId)
-    CardResponseDTO cardResponseDTO = cardMapper.toDTO(card);
-
-    // 2. Build the "Full" list (Existing fields + Blank fields from template)
-    List<TemplateField> allPossibleFields = card.getTemplate().getFields();
-    List<FieldDTO> fullFields = buildFullFields(card, allPossibleFields);
-
-    // 3. Manually set it
-    cardResponseDTO.setFieldDTOList(fullFields);
-
-    return cardResponseDTO;
+  /**
+   * Full cards for a list of ids, in the order requested. The cards come with their fields,
+   * deck and template in one query, the template fields with one more, so the number of
+   * queries does not grow with the number of cards. Ids that no longer exist are left out, so
+   * a caller holding stale ids still gets the rest.
+   */
+  @Transactional(readOnly = true)
+  public List<CardResponseDTO> getCardsByIds(List<UUID> cardIds) {
+    if (cardIds == null || cardIds.isEmpty()) {
+      throw new IllegalArgumentException("Card id list cannot be empty");
+    }
+    List<UUID> distinctIds = cardIds.stream()
+        .filter(Objects::nonNull)
+        .distinct()
+        .toList();
+    if (distinctIds.size() > MAX_BATCH_CARDS) {
+      throw new IllegalArgumentException(
+          "A batch can contain at most " + MAX_BATCH_CARDS + " cards");
+    }
+
+    Map<UUID, Card> cards = cardRepository.findAllByCardIdInWithFieldsAndFieldTemplates(distinctIds)
+        .stream()
+        .collect(Collectors.toMap(Card::getCardId, Function.identity()));
+    templateService.initializeFields(cards.values().stream()
+        .map(Card::getTemplate)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet()));
+    return distinctIds.stream()
+        .map(cards::get)
+        .filter(Objects::nonNull)
+        .map(this::toFullDTO)
+        .toList();
   }
 
   @Transactional(readOnly = true)
@@ -127,9 +162,25 @@ public class CardService {
   public void deleteCard(UUID cardId) {
     Card card = cardRepository.findByCardId(cardId)
         .orElseThrow(() -> new NotFoundException("The card not found"));
+    outboxService.recordCard(ChangeEventType.CARD_DELETED, card);
+    dataVersionService.deckChanged(card.getDeck());
     cardRepository.delete(card);
   }
 
+  private CardResponseDTO toFullDTO(Card card) {
+    // 1. Map basic info (cardId, deckId, templateId)
+    CardResponseDTO cardResponseDTO = cardMapper.toDTO(card);
+
+    // 2. Build the "Full" list (Existing fields + Blank fields from template)
+    List<TemplateField> allPossibleFields = card.getTemplate().getFields();
+    List<FieldDTO> fullFields = buildFullFields(card, allPossibleFields);
+
+    // 3. Manually set it
+    cardResponseDTO.setFieldDTOList(fullFields);
+
+    return cardResponseDTO;
+  }
+
   private List<FieldDTO> buildFullFields(Card card, List<TemplateField> templateFields) {
     return templateFields.stream()
         .map(templateField -> {
@@ -0,0 +1,85 @@
+package com.lucia.memoria.service.local;
+
+import com.lucia.memoria.model.Deck;
+import com.lucia.memoria.model.User;
+import com.lucia.memoria.repository.CardRepository;
+import com.lucia.memoria.repository.DeckRepository;
+import com.lucia.memoria.repository.TemplateRepository;
+import com.lucia.memoria.repository.UserRepository;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Version counters behind the ETags of deck, card and template reads. Every user and every deck
+ * has one, bumped in the transaction of each change to what a read of it returns: a deck's
+ * covers the deck and its cards, a user's everything they own. An unchanged counter means an
+ * unchanged response, so a conditional request is answered from the counter alone. The user's
+ * counter is always bumped first, so concurrent changes of one user queue on its row instead
+ * of locking decks in different orders.
+ */
+@Service
+@RequiredArgsConstructor
+public class DataVersionService {
+
+  // Part of every ETag, bump it when a response format changes so clients load it again
+  private static final int FORMAT = 1;
+
+  private final UserRepository userRepository;
+  private final DeckRepository deckRepository;
+  private final CardRepository cardRepository;
+  private final TemplateRepository templateRepository;
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void deckChanged(Deck deck) {
+    userRepository.incrementDataVersion(deck.getUser().getId());
+    deckRepository.incrementDataVersion(deck.getId());
+  }
+
+  /**
+   * For changes showing in any of the user's decks, such as a renamed tag.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void allDecksChanged(User user) {
+    userRepository.incrementDataVersion(user.getId());
+    deckRepository.incrementDataVersionsOfUser(user.getId());
+  }
+
+  /**
+   * For changes to what the user owns that no deck shows, such as a new template or a
+   * deleted deck.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void userChanged(User user) {
+    userRepository.incrementDataVersion(user.getId());
+  }
+
+  // Each returns null when there is nothing to version, the read then answers as usual
+
+  @Transactional(readOnly = true)
+  public String userETag(UUID userId) {
+    return eTag("u", userRepository.findDataVersion(userId));
+  }
+
+  @Transactional(readOnly = true)
+  public String deckETag(UUID deckId) {
+    return eTag("d", deckRepository.findDataVersion(deckId));
+  }
+
+  @Transactional(readOnly = true)
+  public String cardETag(UUID cardId) {
+    return eTag("c", cardRepository.findDeckDataVersion(cardId));
+  }
+
+  @Transactional(readOnly = true)
+  public String templateETag(UUID templateId) {
+    return eTag("t", templateRepository.findOwnerDataVersion(templateId));
+  }
+
+  private static String eTag(String scope, Optional<Long> version) {
+    return version.map(value -> "\"" + FORMAT + "-" + scope + "-" + value + "\"").orElse(null);
+  }
+}
@@ -2,23 +2,32 @@ package com.lucia.memoria.service.local;
 
 import com.lucia.memoria.dto.local.DeckRequestDTO;
 import com.lucia.memoria.dto.local.DeckResponseDTO;
+import com.lucia.memoria.dto.local.SubtreeCardDTO;
 import com.lucia.memoria.exception.ConflictWithDataException;
 import com.lucia.memoria.exception.NotFoundException;
 import com.lucia.memoria.helper.AccessLevel;
+import com.lucia.memoria.helper.ChangeEventType;
 import com.lucia.memoria.mapper.DeckMapper;
 import com.lucia.memoria.model.Deck;
 import com.lucia.memoria.model.User;
+import com.lucia.memoria.repository.CardRepository;
 import com.lucia.memoria.repository.DeckRepository;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -37,9 +46,16 @@ import org.springframework.transaction.annotation.Transactional;
 @Slf4j
 public class DeckService {
 
+  // Record tags of the subtree card stream, each followed by a 16 byte id
+  public static final byte SUBTREE_DECK = 1;
+  public static final byte SUBTREE_CARD = 2;
+
   private final DeckRepository deckRepository;
+  private final CardRepository cardRepository;
   private final UserService userService;
   private final DeckMapper deckMapper;
+  private final OutboxService outboxService;
+  private final DataVersionService dataVersionService;
 
   @Transactional
   public DeckResponseDTO createDeck(DeckRequestDTO dto) {
@@ -65,7 +81,10 @@ public class DeckService {
 
     // Save the deck
     Deck deck = new Deck(user, dtoName, accessLevel, parent, newPath);
-    return deckMapper.toDTO(deckRepository.save(deck));
+    Deck savedDeck = deckRepository.save(deck);
+    outboxService.recordDeck(ChangeEventType.DECK_CREATED, savedDeck);
+    dataVersionService.deckChanged(savedDeck);
+    return deckMapper.toDTO(savedDeck);
   }
 
   @Transactional(readOnly = true)
@@ -74,6 +93,44 @@ public class DeckService {
   }
 
 
+  /**
+   * The deck, if it belongs to the user with the given username. memoria-training knows users
+   * by username only.
+   */
+  @Transactional(readOnly = true)
+  public Deck getOwnedDeck(String username, UUID deckId) {
+    Deck deck = findDeckOrThrow(deckId);
+    if (!deck.getUser().getUsername().equals(username)) {
+      throw new NotFoundException("Deck not found.");
+    }
+    return deck;
+  }
+
+  /**
+   * Writes the ids of every card in the deck and its subdecks, found by path prefix instead of
+   * walking the tree. Cards come grouped by deck: an {@link #SUBTREE_DECK} record with the deck
+   * id, then an {@link #SUBTREE_CARD} record per card, 17 bytes each. Rows are read through a
+   * cursor, so neither side holds the whole subtree.
+   */
+  @Transactional(readOnly = true)
+  public void writeSubtreeCards(Deck root, OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+    String pathPrefix = escapeLike(root.getPath()) + "::%";
+    try (Stream<SubtreeCardDTO> cards = cardRepository.streamSubtreeCards(
+        root.getUser().getId(), root.getId(), pathPrefix)) {
+      UUID currentDeck = null;
+      for (Iterator<SubtreeCardDTO> iterator = cards.iterator(); iterator.hasNext(); ) {
+        SubtreeCardDTO card = iterator.next();
+        if (!card.deckId().equals(currentDeck)) {
+          currentDeck = card.deckId();
+          writeRecord(data, SUBTREE_DECK, currentDeck);
+        }
+        writeRecord(data, SUBTREE_CARD, card.cardId());
+      }
+    }
+    data.flush();
+  }
+
   @Transactional(readOnly = true)
   public List<DeckResponseDTO> getDecksByUserId(UUID userId) {
     User user = userService.getUserEntityById(userId);
@@ -120,6 +177,12 @@ public class DeckService {
     if (!force) {
       validateEmptySubtree(subtree);
     }
+    //  announce the cards and decks going away, cards first so no card outlives its deck
+    subtree.forEach(deck -> deck.getCards()
+        .forEach(card -> outboxService.recordCard(ChangeEventType.CARD_DELETED, card)));
+    subtree.forEach(deck -> outboxService.recordDeck(ChangeEventType.DECK_DELETED, deck));
+    dataVersionService.userChanged(rootDeck.getUser());
+
     //  delete decks
     deckRepository.deleteAll(subtree);
   }
@@ -137,6 +200,8 @@ public class DeckService {
     // Update name and path
     deck.setName(name);
     deck.setPath(newPath);
+    outboxService.recordDeck(ChangeEventType.DECK_UPDATED, deck);
+    dataVersionService.deckChanged(deck);
 
     // update all child paths
     updateChildPaths(deck);
@@ -158,6 +223,8 @@ public class DeckService {
       for (Deck child : children) {
         // Update path based on parent
         child.setPath(current.getPath() + "::" + child.getName());
+        outboxService.recordDeck(ChangeEventType.DECK_UPDATED, child);
+        dataVersionService.deckChanged(child);
         updatedChildren.add(child);
         stack.push(child);
       }
@@ -195,6 +262,17 @@ public class DeckService {
     return decksToDelete;
   }
 
+  private static void writeRecord(DataOutputStream data, byte tag, UUID id) throws IOException {
+    data.writeByte(tag);
+    data.writeLong(id.getMostSignificantBits());
+    data.writeLong(id.getLeastSignificantBits());
+  }
+
+  // Deck names may contain the LIKE wildcards
+  private static String escapeLike(String value) {
+    return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+  }
+
   private String validateAndTrimName(String name) {
     if (StringUtils.isBlank(name)) {
       throw new IllegalArgumentException("Deck name cannot be empty");
@@ -0,0 +1,61 @@
+package com.lucia.memoria.service.local;
+
+import com.lucia.memoria.helper.ChangeEventType;
+import com.lucia.memoria.model.Card;
+import com.lucia.memoria.model.Deck;
+import com.lucia.memoria.model.OutboxEvent;
+import com.lucia.memoria.model.Template;
+import com.lucia.memoria.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records changes in the outbox. Every method joins the caller's transaction and refuses to
+ * run without one, so an event is stored exactly when the change it describes is committed.
+ * Each event takes the next number of its user's counter, whose row stays locked until the
+ * transaction ends: a concurrent change of the same user waits and commits with a higher
+ * number, so the numbers follow commit order however the events are published.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+  private final OutboxEventRepository outboxEventRepository;
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordCard(ChangeEventType type, Card card) {
+    Deck deck = card.getDeck();
+    OutboxEvent event = new OutboxEvent(type, deck.getUser().getUsername());
+    event.setCardId(card.getCardId());
+    event.setDeckId(deck.getDeckId());
+    event.setTemplateId(card.getTemplate().getTemplateId());
+    save(event);
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordDeck(ChangeEventType type, Deck deck) {
+    OutboxEvent event = new OutboxEvent(type, deck.getUser().getUsername());
+    event.setDeckId(deck.getDeckId());
+    event.setParentDeckId(deck.getParentDeck() == null ? null : deck.getParentDeck().getDeckId());
+    event.setPath(deck.getPath());
+    save(event);
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordTemplate(ChangeEventType type, Template template) {
+    OutboxEvent event = new OutboxEvent(type,
+        template.getOwner() == null ? null : template.getOwner().getUsername());
+    event.setTemplateId(template.getTemplateId());
+    save(event);
+  }
+
+  private void save(OutboxEvent event) {
+    if (event.getUsername() != null) {
+      outboxEventRepository.incrementUserSequence(event.getUsername());
+      event.setUserSequence(outboxEventRepository.findUserSequence(event.getUsername()));
+    }
+    outboxEventRepository.save(event);
+  }
+}
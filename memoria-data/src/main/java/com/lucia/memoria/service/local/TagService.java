@@ -1,16 +1,21 @@
 package com.lucia.memoria.service.local;
 
+import com.lucia.memoria.dto.local.LeechTagDTO;
 import com.lucia.memoria.dto.local.TagDTO;
 import com.lucia.memoria.exception.ConflictWithDataException;
 import com.lucia.memoria.exception.DuplicateException;
 import com.lucia.memoria.exception.NotFoundException;
 import com.lucia.memoria.mapper.TagMapper;
 import com.lucia.memoria.model.Card;
+import com.lucia.memoria.model.Deck;
 import com.lucia.memoria.model.Tag;
 import com.lucia.memoria.model.User;
 import com.lucia.memoria.repository.CardRepository;
 import com.lucia.memoria.repository.TagRepository;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -26,8 +31,10 @@ import org.springframework.transaction.annotation.Transactional;
 public class TagService {
 
   private final TagRepository tagRepository;
+  private final CardRepository cardRepository;
   private final TagMapper tagMapper;
   private final UserService userService;
+  private final DataVersionService dataVersionService;
 
   @Transactional
   public TagDTO createTag(UUID userId, String name) {
@@ -40,7 +47,9 @@ public class TagService {
     tag.setUser(user);
     tag.setName(normalizedName);
 
-    return tagMapper.toDTO(tagRepository.save(tag));
+    TagDTO created = tagMapper.toDTO(tagRepository.save(tag));
+    dataVersionService.userChanged(user);
+    return created;
   }
 
   @Transactional(readOnly = true)
@@ -64,6 +73,8 @@ public class TagService {
     }
 
     tagRepository.delete(tag);
+    // Cards show their tags, so any deck may have changed
+    dataVersionService.allDecksChanged(tag.getUser());
   }
 
   @Transactional
@@ -77,7 +88,56 @@ public class TagService {
       return tagMapper.toDTO(tag);
     }
     tag.setName(normalizedName);
-    return tagMapper.toDTO(tagRepository.save(tag));
+    TagDTO renamed = tagMapper.toDTO(tagRepository.save(tag));
+    dataVersionService.allDecksChanged(tag.getUser());
+    return renamed;
+  }
+
+  /**
+   * Tags the cards memoria-training found to be leeches, creating the tag for a user who does
+   * not have it yet. Cards already tagged, deleted since or owned by someone else are skipped,
+   * so the same events can be applied again.
+   */
+  @Transactional
+  public int tagLeeches(List<LeechTagDTO> leeches) {
+    Map<String, Tag> tags = new HashMap<>();
+    Map<Long, Deck> changedDecks = new HashMap<>();
+    int tagged = 0;
+    for (LeechTagDTO leech : leeches) {
+      if (leech.cardId() == null || leech.tagName() == null || leech.tagName().isBlank()) {
+        continue;
+      }
+      Optional<Card> card = cardRepository.findByCardId(leech.cardId());
+      if (card.isEmpty()) {
+        continue;
+      }
+      User user = card.get().getDeck().getUser();
+      if (!user.getUsername().equals(leech.userId())) {
+        log.warn("Leech event {} names {} but card {} belongs to someone else", leech.eventId(),
+            leech.userId(), leech.cardId());
+        continue;
+      }
+      String name = leech.tagName().trim();
+      Tag tag = tags.computeIfAbsent(user.getId() + ":" + name.toLowerCase(),
+          key -> tagRepository.findByUserAndNameIgnoreCase(user, name)
+              .orElseGet(() -> {
+                Tag created = new Tag();
+                created.setTagId(UUID.randomUUID());
+                created.setUser(user);
+                created.setName(name);
+                return tagRepository.save(created);
+              }));
+      if (card.get().getTags() == null) {
+        card.get().setTags(new HashSet<>());
+      }
+      if (card.get().getTags().add(tag)) {
+        changedDecks.putIfAbsent(card.get().getDeck().getId(), card.get().getDeck());
+        tagged++;
+      }
+    }
+    changedDecks.values().forEach(dataVersionService::deckChanged);
+    log.debug("Tagged {} of {} leech cards", tagged, leeches.size());
+    return tagged;
   }
 
   private void checkForDuplicates(String name) {
@@ -4,6 +4,7 @@ import com.lucia.memoria.dto.local.TemplateFieldDTO;
 import com.lucia.memoria.dto.local.TemplateDTO;
 import com.lucia.memoria.exception.ConflictWithDataException;
 import com.lucia.memoria.exception.NotFoundException;
+import com.lucia.memoria.helper.ChangeEventType;
 import com.lucia.memoria.helper.FieldRole;
 import com.lucia.memoria.helper.FieldType;
 import com.lucia.memoria.helper.TemplateFieldType;
@@ -16,10 +17,13 @@ import com.lucia.memoria.model.Template;
 import com.lucia.memoria.model.User;
 import com.lucia.memoria.repository.CardRepository;
 import com.lucia.memoria.repository.TemplateRepository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -39,6 +43,8 @@ public class TemplateService {
   private final TemplateFieldMapper templateFieldMapper;
   private final TemplateMapper templateMapper;
   private final CardMapper cardMapper;
+  private final OutboxService outboxService;
+  private final DataVersionService dataVersionService;
 
   @Transactional(propagation = Propagation.REQUIRED)
   public TemplateDTO createTemplate(TemplateDTO templateDTO) {
@@ -67,7 +73,10 @@ public class TemplateService {
       addPartOfSpeechFieldIfNeeded(templateDTO, template);
     }
 
-    return templateMapper.toDTO(templateRepository.save(template));
+    Template savedTemplate = templateRepository.save(template);
+    outboxService.recordTemplate(ChangeEventType.TEMPLATE_CREATED, savedTemplate);
+    dataVersionService.userChanged(owner);
+    return templateMapper.toDTO(savedTemplate);
   }
 
   @Transactional(readOnly = true)
@@ -87,6 +96,36 @@ public class TemplateService {
         .orElseThrow(() -> new NotFoundException("Template not found exception"));
   }
 
+  /**
+   * Same as {@link #getTemplateByName(String)}, with the field options loaded too, so the
+   * template stays usable once the transaction is over, e.g. off the request thread.
+   */
+  @Transactional(readOnly = true)
+  public Template getDetachedTemplateByName(String name) {
+    Template template = getTemplateByName(name);
+    template.getFields().stream()
+        .map(TemplateField::getTemplateFieldType)
+        .filter(Objects::nonNull)
+        .forEach(type -> Hibernate.initialize(type.getOptions()));
+    return template;
+  }
+
+  /**
+   * Loads the fields and field options of templates attached to the current transaction, with
+   * one query for the fields of all of them and one per field for its options.
+   */
+  @Transactional(readOnly = true)
+  public void initializeFields(Collection<Template> templates) {
+    if (templates.isEmpty()) {
+      return;
+    }
+    templateRepository.findAllWithFields(templates).stream()
+        .flatMap(template -> template.getFields().stream())
+        .map(TemplateField::getTemplateFieldType)
+        .filter(Objects::nonNull)
+        .forEach(type -> Hibernate.initialize(type.getOptions()));
+  }
+
   @Transactional(readOnly = true)
   public List<TemplateDTO> getTemplatesByUserId(UUID userId) {
     User owner = userService.getUserEntityById(userId);
@@ -106,6 +145,10 @@ public class TemplateService {
           "Template cannot be deleted. There are still cards that use that template.",
           cardMapper.toMinimalDTOList(templateCards));
     }
+    outboxService.recordTemplate(ChangeEventType.TEMPLATE_DELETED, template);
+    if (template.getOwner() != null) {
+      dataVersionService.userChanged(template.getOwner());
+    }
     templateRepository.delete(template);
   }
 
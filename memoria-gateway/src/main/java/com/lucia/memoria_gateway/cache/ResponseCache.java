@@ -0,0 +1,204 @@
+package com.lucia.memoria_gateway.cache;
+
+import com.lucia.memoria_gateway.config.ResponseCacheConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+/**
+ * Responses of cached GET requests, keyed by route, user, path and query and held within a
+ * memory budget, least recently used first out. Entries are candidates only, the filter
+ * revalidates each one with the origin before serving it. Mutations invalidate through generation
+ * counters instead of walking the entries: every entry remembers the generation of its user
+ * and of its resource prefix on the route when its request started, and bumping either
+ * counter makes all matching entries stale at once. Stale entries are dropped when next
+ * looked up or when the budget evicts them. Counters are striped over a fixed number of
+ * slots, so a collision only invalidates a little more than needed.
+ */
+@Component
+public class ResponseCache {
+
+  private static final int GENERATION_SLOTS = 4096;
+  // Rough per entry overhead of the map, the key and the entry object
+  private static final int ENTRY_OVERHEAD_BYTES = 200;
+
+  private final ResponseCacheConfig config;
+  private final long maxBytes;
+  private final long maxEntryBytes;
+  // Guarded by synchronizing on the instance
+  private final LinkedHashMap<String, CachedResponse> entries =
+      new LinkedHashMap<>(256, 0.75f, true);
+  private long bytes;
+  private final AtomicLongArray userGenerations = new AtomicLongArray(GENERATION_SLOTS);
+  private final AtomicLongArray prefixGenerations = new AtomicLongArray(GENERATION_SLOTS);
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+  private final Counter invalidations;
+
+  public ResponseCache(ResponseCacheConfig config, MeterRegistry meterRegistry) {
+    this.config = config;
+    this.maxBytes = config.getMaxSize().toBytes();
+    this.maxEntryBytes = config.getMaxEntrySize().toBytes();
+    this.hits = Counter.builder("gateway.response.cache.requests")
+        .tag("result", "hit")
+        .register(meterRegistry);
+    this.misses = Counter.builder("gateway.response.cache.requests")
+        .tag("result", "miss")
+        .register(meterRegistry);
+    this.evictions = Counter.builder("gateway.response.cache.evictions")
+        .register(meterRegistry);
+    this.invalidations = Counter.builder("gateway.response.cache.invalidations")
+        .register(meterRegistry);
+    Gauge.builder("gateway.response.cache.hit.ratio", this, ResponseCache::hitRatio)
+        .register(meterRegistry);
+    Gauge.builder("gateway.response.cache.size", this, ResponseCache::getBytes)
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("gateway.response.cache.entries", this, ResponseCache::getEntries)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Key of a request, carrying the generations current when the request started.
+   */
+  public CacheKey keyFor(String routeId, String userId, String path, String query) {
+    int userSlot = slot(routeId, userId);
+    int prefixSlot = slot(routeId, resourcePrefix(path));
+    String value = routeId + '\n' + userId + '\n' + path + (query == null ? "" : '?' + query);
+    return new CacheKey(value, userSlot, prefixSlot, userGenerations.get(userSlot),
+        prefixGenerations.get(prefixSlot));
+  }
+
+  /**
+   * The cached response for the key, null when there is none still fresh.
+   */
+  public CachedResponse get(CacheKey key) {
+    long now = System.currentTimeMillis();
+    synchronized (this) {
+      CachedResponse cached = entries.get(key.value());
+      if (cached != null && (cached.expiresAt() <= now || !isCurrent(cached.key()))) {
+        remove(key.value());
+        cached = null;
+      }
+      return cached;
+    }
+  }
+
+  /**
+   * Counts a cacheable request, as a hit when it was answered with a cached body.
+   */
+  public void countRequest(boolean hit) {
+    (hit ? hits : misses).increment();
+  }
+
+  /**
+   * Caches a response. Nothing is stored when a mutation invalidated the key while the request
+   * ran, the response may predate it.
+   */
+  public void put(CacheKey key, HttpStatusCode status, HttpHeaders headers, byte[] body,
+      Duration ttl) {
+    long size = ENTRY_OVERHEAD_BYTES + 2L * key.value().length() + body.length
+        + headerBytes(headers);
+    if (size > maxEntryBytes || !isCurrent(key)) {
+      return;
+    }
+    CachedResponse cached = new CachedResponse(key, status, headers, body, size,
+        System.currentTimeMillis() + ttl.toMillis());
+    synchronized (this) {
+      remove(key.value());
+      entries.put(key.value(), cached);
+      bytes += size;
+      for (Iterator<CachedResponse> eldest = entries.values().iterator();
+          bytes > maxBytes && eldest.hasNext(); ) {
+        bytes -= eldest.next().size();
+        eldest.remove();
+        evictions.increment();
+      }
+    }
+  }
+
+  /**
+   * Makes stale every response cached on the route for the user, and for anyone under the
+   * resource prefix of {@code path}.
+   */
+  public void invalidate(String routeId, String userId, String path) {
+    if (userId != null) {
+      userGenerations.incrementAndGet(slot(routeId, userId));
+    }
+    prefixGenerations.incrementAndGet(slot(routeId, resourcePrefix(path)));
+    invalidations.increment();
+  }
+
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  public synchronized int getEntries() {
+    return entries.size();
+  }
+
+  private double hitRatio() {
+    double lookups = hits.count() + misses.count();
+    return lookups == 0 ? 0 : hits.count() / lookups;
+  }
+
+  private boolean isCurrent(CacheKey key) {
+    return userGenerations.get(key.userSlot()) == key.userGeneration()
+        && prefixGenerations.get(key.prefixSlot()) == key.prefixGeneration();
+  }
+
+  private void remove(String key) {
+    CachedResponse removed = entries.remove(key);
+    if (removed != null) {
+      bytes -= removed.size();
+    }
+  }
+
+  // The first resource-segments segments of the path, the whole path when it is shorter
+  private String resourcePrefix(String path) {
+    int end = 0;
+    for (int segment = 0; segment < config.getResourceSegments(); segment++) {
+      end = path.indexOf('/', end + 1);
+      if (end < 0) {
+        return path;
+      }
+    }
+    return path.substring(0, end);
+  }
+
+  private static int slot(String routeId, String value) {
+    int hash = (routeId + '\n' + value).hashCode();
+    return (hash ^ (hash >>> 16)) & (GENERATION_SLOTS - 1);
+  }
+
+  private static long headerBytes(HttpHeaders headers) {
+    long size = 0;
+    for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+      size += header.getKey().length();
+      for (String value : header.getValue()) {
+        size += value.length();
+      }
+    }
+    return 2 * size;
+  }
+
+  public record CacheKey(String value, int userSlot, int prefixSlot, long userGeneration,
+                         long prefixGeneration) {
+
+  }
+
+  public record CachedResponse(CacheKey key, HttpStatusCode status, HttpHeaders headers,
+                               byte[] body, long size, long expiresAt) {
+
+  }
+}
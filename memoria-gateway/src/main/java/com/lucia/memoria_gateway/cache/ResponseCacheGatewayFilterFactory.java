@@ -0,0 +1,225 @@
+package com.lucia.memoria_gateway.cache;
+
+import com.lucia.memoria_gateway.cache.ResponseCache.CacheKey;
+import com.lucia.memoria_gateway.cache.ResponseCache.CachedResponse;
+import com.lucia.memoria_gateway.config.JwtHeaderForwardingFilter;
+import com.lucia.memoria_gateway.config.ResponseCacheConfig;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caches the GET responses of the routes it is added to, as {@code ResponseCache} or
+ * {@code ResponseCache=<ttl>}. Only responses carrying an ETag are cached, and a cached one is
+ * never served on trust: the request is forwarded with the cached ETag in If-None-Match and
+ * the cached body is only used when the origin answers 304. Writes that bypass the gateway
+ * therefore never leave a stale answer behind, and the origin still skips building the body.
+ * Any other method on such a route invalidates what was cached for the caller on it and for
+ * everyone under the same resource prefix, both before the request is forwarded and once it is
+ * done, which only frees the memory early. Responses are copied while they pass through, never
+ * held back; event streams, errors and responses over the entry limit are not cached.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+  private static final String CACHE_HEADER = "X-Cache";
+  // Recomputed for every response, or meaningless once stored
+  private static final List<String> UNCACHED_HEADERS = List.of(HttpHeaders.CONTENT_LENGTH,
+      HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION, HttpHeaders.DATE, CACHE_HEADER);
+
+  private final ResponseCache cache;
+  private final ResponseCacheConfig cacheConfig;
+
+  public ResponseCacheGatewayFilterFactory(ResponseCache cache, ResponseCacheConfig cacheConfig) {
+    super(Config.class);
+    this.cache = cache;
+    this.cacheConfig = cacheConfig;
+  }
+
+  @Override
+  public List<String> shortcutFieldOrder() {
+    return List.of("ttl");
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+    Duration ttl = config.getTtl() != null ? config.getTtl() : cacheConfig.getTtl();
+    // Wraps the response before NettyWriteResponseFilter writes the proxied body into it
+    return new OrderedGatewayFilter((exchange, chain) -> filter(exchange, chain, ttl),
+        NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+  }
+
+  private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, Duration ttl) {
+    Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+    if (route == null) {
+      return chain.filter(exchange);
+    }
+    String userId = exchange.getAttribute(JwtHeaderForwardingFilter.USER_ID_ATTRIBUTE);
+    ServerHttpRequest request = exchange.getRequest();
+    String path = request.getURI().getRawPath();
+
+    HttpMethod method = request.getMethod();
+    if (method != HttpMethod.GET) {
+      if (method == HttpMethod.HEAD || method == HttpMethod.OPTIONS) {
+        return chain.filter(exchange);
+      }
+      cache.invalidate(route.getId(), userId, path);
+      return chain.filter(exchange)
+          .doFinally(signal -> cache.invalidate(route.getId(), userId, path));
+    }
+    // Responses differ by caller, requests nobody is known for are not cached
+    if (userId == null) {
+      return chain.filter(exchange);
+    }
+
+    CacheKey key = cache.keyFor(route.getId(), userId, path, request.getURI().getRawQuery());
+    boolean refresh = request.getHeaders().getCacheControl() != null
+        && request.getHeaders().getCacheControl().contains("no-cache");
+    CachedResponse cached = refresh ? null : cache.get(key);
+    ServerWebExchange forwarded = exchange;
+    if (cached != null) {
+      forwarded = exchange.mutate()
+          .request(request.mutate()
+              .headers(headers -> headers.setIfNoneMatch(cached.headers().getETag()))
+              .build())
+          .build();
+    }
+    ServerHttpResponse recording = new RecordingResponse(exchange.getResponse(), key, ttl,
+        cached, request.getHeaders().getIfNoneMatch());
+    return chain.filter(forwarded.mutate().response(recording).build());
+  }
+
+  /**
+   * Passes the body through unchanged while copying it, and caches the copy once the body is
+   * complete. Gives up copying as soon as it would exceed the entry limit. When the request
+   * revalidated a cached response and the origin answered 304, writes the cached one instead.
+   */
+  private final class RecordingResponse extends ServerHttpResponseDecorator {
+
+    private final CacheKey key;
+    private final Duration ttl;
+    private final CachedResponse cached;
+    private final List<String> clientETags;
+    private final long maxEntryBytes = cacheConfig.getMaxEntrySize().toBytes();
+
+    private RecordingResponse(ServerHttpResponse delegate, CacheKey key, Duration ttl,
+        CachedResponse cached, List<String> clientETags) {
+      super(delegate);
+      this.key = key;
+      this.ttl = ttl;
+      this.cached = cached;
+      this.clientETags = clientETags;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+      if (cached != null && getStatusCode() != null
+          && getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+        cache.countRequest(true);
+        return Flux.from(body)
+            .doOnNext(DataBufferUtils::release)
+            .then(Mono.defer(this::writeCached));
+      }
+      cache.countRequest(false);
+      if (!isCacheable()) {
+        return super.writeWith(body);
+      }
+      getHeaders().set(CACHE_HEADER, "MISS");
+      ByteArrayOutputStream copy = new ByteArrayOutputStream();
+      boolean[] overflow = new boolean[1];
+      Flux<? extends DataBuffer> recorded = Flux.from(body)
+          .doOnNext(buffer -> {
+            if (overflow[0] || copy.size() + buffer.readableByteCount() > maxEntryBytes) {
+              overflow[0] = true;
+              return;
+            }
+            try (DataBuffer.ByteBufferIterator views = buffer.readableByteBuffers()) {
+              while (views.hasNext()) {
+                ByteBuffer view = views.next();
+                byte[] bytes = new byte[view.remaining()];
+                view.get(bytes);
+                copy.writeBytes(bytes);
+              }
+            }
+          })
+          .doOnComplete(() -> {
+            if (!overflow[0]) {
+              HttpHeaders headers = new HttpHeaders();
+              headers.putAll(getHeaders());
+              UNCACHED_HEADERS.forEach(headers::remove);
+              cache.put(key, getStatusCode(), HttpHeaders.readOnlyHttpHeaders(headers),
+                  copy.toByteArray(), ttl);
+            }
+          });
+      return super.writeWith(recorded);
+    }
+
+    // The origin confirmed the cached response, which is kept for another ttl
+    private Mono<Void> writeCached() {
+      cache.put(key, cached.status(), cached.headers(), cached.body(), ttl);
+      getHeaders().set(CACHE_HEADER, "HIT");
+      // The client already holds this version, the origin's 304 goes through as it is
+      if (clientETags.contains(cached.headers().getETag())) {
+        return super.writeWith(Flux.empty());
+      }
+      setStatusCode(cached.status());
+      getHeaders().putAll(cached.headers());
+      getHeaders().setContentLength(cached.body().length);
+      return super.writeWith(Mono.fromSupplier(() -> bufferFactory().wrap(cached.body())));
+    }
+
+    private boolean isCacheable() {
+      HttpHeaders headers = getHeaders();
+      if (getStatusCode() == null || getStatusCode().value() != HttpStatus.OK.value()) {
+        return false;
+      }
+      // Without a version nothing could be revalidated, searches and stats always go through
+      if (headers.getETag() == null) {
+        return false;
+      }
+      if (headers.getContentLength() > maxEntryBytes
+          || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+        return false;
+      }
+      MediaType contentType = headers.getContentType();
+      if (contentType != null && MediaType.TEXT_EVENT_STREAM.isCompatibleWith(contentType)) {
+        return false;
+      }
+      String cacheControl = headers.getCacheControl();
+      return cacheControl == null || !cacheControl.contains("no-store");
+    }
+  }
+
+  @Getter
+  @Setter
+  public static class Config {
+
+    // Falls back to gateway.response-cache.ttl
+    private Duration ttl;
+  }
+}
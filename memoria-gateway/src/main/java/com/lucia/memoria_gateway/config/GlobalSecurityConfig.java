@@ -8,11 +8,16 @@ import org.springframework.security.config.Customizer;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.web.server.authentication.ServerBearerTokenAuthenticationConverter;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
 
 @Configuration
 public class GlobalSecurityConfig {
 
+  // Browsers' EventSource cannot send headers, so streams may pass the token as access_token
+  private static final String STREAM_PATH = "/api/training/due/stream";
+
   @Bean
   public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) throws Exception {
     return http
@@ -23,6 +28,7 @@ public class GlobalSecurityConfig {
             .anyExchange().authenticated()
         )
         .oauth2ResourceServer(oauth2 -> oauth2
+            .bearerTokenConverter(bearerTokenConverter())
             .jwt(Customizer.withDefaults())
         )
         .build();
@@ -32,4 +38,15 @@ public class GlobalSecurityConfig {
   public ReactiveJwtDecoder jwtDecoder(@Value("${jwt.public-key}") RSAPublicKey publicKey) {
     return NimbusReactiveJwtDecoder.withPublicKey(publicKey).build();
   }
+
+  private static ServerAuthenticationConverter bearerTokenConverter() {
+    ServerBearerTokenAuthenticationConverter headerOnly =
+        new ServerBearerTokenAuthenticationConverter();
+    ServerBearerTokenAuthenticationConverter headerOrQuery =
+        new ServerBearerTokenAuthenticationConverter();
+    headerOrQuery.setAllowUriQueryParameter(true);
+    return exchange -> STREAM_PATH.equals(exchange.getRequest().getPath().value())
+        ? headerOrQuery.convert(exchange)
+        : headerOnly.convert(exchange);
+  }
 }
@@ -12,6 +12,9 @@ import reactor.core.publisher.Mono;
 @Component
 public class JwtHeaderForwardingFilter implements WebFilter {
 
+  // The JWT subject, also kept on the exchange for routing by user
+  public static final String USER_ID_ATTRIBUTE = "memoria.userId";
+
   @Override
   public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
     return ReactiveSecurityContextHolder.getContext()
@@ -22,6 +25,7 @@ public class JwtHeaderForwardingFilter implements WebFilter {
             ServerHttpRequest mutatedRequest = exchange.getRequest().mutate()
                 .header("X-User-Id", userId)
                 .build();
+            exchange.getAttributes().put(USER_ID_ATTRIBUTE, userId);
             return exchange.mutate().request(mutatedRequest).build();
           }
           return exchange;
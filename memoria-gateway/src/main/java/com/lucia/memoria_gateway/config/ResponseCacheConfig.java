@@ -0,0 +1,24 @@
+package com.lucia.memoria_gateway.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheConfig {
+    // Memory all cached responses may take together, the least recently used go first
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+    // Larger responses are passed through without being cached
+    private DataSize maxEntrySize = DataSize.ofKilobytes(512);
+    // How long an entry unused or unconfirmed by the origin is kept, every use is revalidated.
+    // Routes may set their own with ResponseCache=<ttl>
+    private Duration ttl = Duration.ofMinutes(5);
+    // Leading path segments naming the resource a mutation invalidates, /api/data/decks for 3
+    private int resourceSegments = 3;
+}
@@ -0,0 +1,26 @@
+package com.lucia.memoria_gateway.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "gateway.training-shards")
+public class TrainingShardConfig {
+    // Base URLs of the training instances, empty sends every request to the route's own uri.
+    // Must be the same on every gateway, the ring cannot be changed at runtime
+    private List<String> instances = new ArrayList<>();
+    // Ring positions per instance, more spread users more evenly
+    private int virtualNodes = 160;
+    // How often every instance is told the current assignment, which also covers restarts
+    private Duration syncInterval = Duration.ofMinutes(1);
+    private Duration handoffTimeout = Duration.ofSeconds(30);
+    // Tries per instance and phase, a release still failing after them aborts the handoff
+    private int handoffAttempts = 3;
+}
@@ -0,0 +1,24 @@
+package com.lucia.memoria_gateway.controller;
+
+import com.lucia.memoria_gateway.dto.TrainingShardsDTO;
+import com.lucia.memoria_gateway.routing.TrainingShardRouter;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Under /admin, so only admins reach it. Read only, the ring comes from configuration
+@RestController
+@RequestMapping("/admin/training-shards")
+public class TrainingShardController {
+
+  private final TrainingShardRouter router;
+
+  public TrainingShardController(TrainingShardRouter router) {
+    this.router = router;
+  }
+
+  @GetMapping
+  public TrainingShardsDTO getShards() {
+    return router.getShards();
+  }
+}
@@ -0,0 +1,9 @@
+package com.lucia.memoria_gateway.dto;
+
+import java.util.List;
+
+// Sent to every training instance, self is the URL the instance is listed under
+public record ShardAssignmentDTO(String version, String self, List<String> instances,
+                                 int virtualNodes) {
+
+}
@@ -0,0 +1,7 @@
+package com.lucia.memoria_gateway.dto;
+
+import java.util.List;
+
+public record TrainingShardsDTO(String version, List<String> instances, int virtualNodes) {
+
+}
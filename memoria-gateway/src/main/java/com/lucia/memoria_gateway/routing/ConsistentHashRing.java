@@ -0,0 +1,99 @@
+package com.lucia.memoria_gateway.routing;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Consistent hash ring over the training instances. Every instance takes
+ * {@code virtualNodes} positions on a 32-bit ring and a key belongs to the instance at the
+ * first position at or after the key's own, so adding or removing an instance only moves the
+ * keys of the arcs it gains or loses. memoria-training rebuilds the same ring from the same
+ * instance list, both sides must place positions identically. ConsistentHashRingTest and
+ * memoria-training's ShardRingTest pin both to the same assignments.
+ */
+public final class ConsistentHashRing {
+
+  private static final int OWNER_BITS = 20;
+
+  private final List<String> instances;
+  private final int virtualNodes;
+  private final long[] positions;
+  private final int[] owners;
+  private final String version;
+
+  public ConsistentHashRing(List<String> instances, int virtualNodes) {
+    if (instances.isEmpty()) {
+      throw new IllegalArgumentException("At least one instance is required");
+    }
+    if (virtualNodes < 1) {
+      throw new IllegalArgumentException("Virtual nodes must be positive");
+    }
+    // Sorted, so the ring does not depend on the order instances were listed in
+    this.instances = instances.stream().distinct().sorted().toList();
+    this.virtualNodes = virtualNodes;
+
+    int size = this.instances.size() * virtualNodes;
+    long[] nodes = new long[size];
+    for (int instance = 0; instance < this.instances.size(); instance++) {
+      for (int node = 0; node < virtualNodes; node++) {
+        // Position above the owner's index and below the sign bit, equal positions order by owner
+        nodes[instance * virtualNodes + node] =
+            positionOf(this.instances.get(instance) + "#" + node) << OWNER_BITS | instance;
+      }
+    }
+    Arrays.sort(nodes);
+    this.positions = new long[size];
+    this.owners = new int[size];
+    for (int i = 0; i < size; i++) {
+      positions[i] = nodes[i] >>> OWNER_BITS;
+      owners[i] = (int) (nodes[i] & ((1L << OWNER_BITS) - 1));
+    }
+    this.version = HexFormat.of().formatHex(
+        md5(String.join(",", this.instances) + "#" + virtualNodes), 0, 8);
+  }
+
+  public String instanceFor(String key) {
+    long position = positionOf(key == null ? "" : key);
+    int index = Arrays.binarySearch(positions, position);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    // Walk back over equal positions so the lowest owner wins, as in the sort
+    while (index > 0 && index < positions.length && positions[index - 1] == position) {
+      index--;
+    }
+    return instances.get(owners[index == positions.length ? 0 : index]);
+  }
+
+  public List<String> getInstances() {
+    return instances;
+  }
+
+  public int getVirtualNodes() {
+    return virtualNodes;
+  }
+
+  // Identifies the ring, equal instance lists and node counts give equal versions
+  public String getVersion() {
+    return version;
+  }
+
+  // First four bytes of the MD5 digest, unsigned
+  public static long positionOf(String key) {
+    byte[] digest = md5(key);
+    return ((digest[0] & 0xffL) << 24) | ((digest[1] & 0xffL) << 16)
+        | ((digest[2] & 0xffL) << 8) | (digest[3] & 0xffL);
+  }
+
+  private static byte[] md5(String value) {
+    try {
+      return MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package com.lucia.memoria_gateway.routing;
+
+import com.lucia.memoria_gateway.config.TrainingShardConfig;
+import com.lucia.memoria_gateway.dto.ShardAssignmentDTO;
+import com.lucia.memoria_gateway.dto.TrainingShardsDTO;
+import jakarta.annotation.PreDestroy;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Owns the ring training requests are routed by and hands users over when it changes. The
+ * handoff runs in two phases over every instance:
+ * <ol>
+ *   <li>release: the instance stores every review it accepted, then snapshots and drops
+ *   the in-memory state of users it no longer owns and closes their streams;</li>
+ *   <li>acquire: once all releases are done, the instance drops whatever it loaded for its
+ *   new users while the previous owner was still taking their reviews, and warms their due
+ *   indexes from Mongo.</li>
+ * </ol>
+ * Acquire only starts once every instance confirmed its release, an instance that cannot
+ * release (one still storing reviews refuses) aborts the handoff and the users stay with their
+ * previous owners. Both phases are idempotent per ring version and are repeated every
+ * {@code sync-interval}, which also brings restarted instances up to date.
+ * <p>
+ * The ring is configuration only and every gateway must run with the same
+ * {@code gateway.training-shards.instances}. The gateways share no state, so a ring changed on
+ * one of them at runtime would have the others hand the users straight back on their next
+ * sync. A new instance list is rolled out to all gateways instead. Each one routes by it from
+ * startup and hands the users over on its first sync, and instances stop flipping once no
+ * gateway runs the old list anymore.
+ */
+@Component
+@Slf4j
+public class TrainingShardRouter {
+
+  private static final String RELEASE_PATH = "/internal/shards/release";
+  private static final String ACQUIRE_PATH = "/internal/shards/acquire";
+  private static final Duration RETRY_BACKOFF = Duration.ofSeconds(1);
+
+  private final TrainingShardConfig config;
+  private final WebClient webClient;
+  private final Map<String, URI> instanceUris = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService syncer;
+  private final ConsistentHashRing ring;
+
+  public TrainingShardRouter(TrainingShardConfig config, WebClient.Builder webClientBuilder) {
+    this.config = config;
+    this.webClient = webClientBuilder.build();
+    this.ring = config.getInstances().isEmpty()
+        ? null
+        : new ConsistentHashRing(validate(config.getInstances()), config.getVirtualNodes());
+    this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "training-shard-sync");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long interval = config.getSyncInterval().toMillis();
+    syncer.scheduleWithFixedDelay(this::sync, 0, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Instance owning the user, null while no shards are configured.
+   */
+  public URI instanceFor(String userId) {
+    ConsistentHashRing current = ring;
+    if (current == null) {
+      return null;
+    }
+    return instanceUris.computeIfAbsent(current.instanceFor(userId), URI::create);
+  }
+
+  public TrainingShardsDTO getShards() {
+    ConsistentHashRing current = ring;
+    return current == null
+        ? new TrainingShardsDTO(null, List.of(), config.getVirtualNodes())
+        : new TrainingShardsDTO(current.getVersion(), current.getInstances(),
+            current.getVirtualNodes());
+  }
+
+  private void sync() {
+    ConsistentHashRing current = ring;
+    if (current == null) {
+      return;
+    }
+    try {
+      handoff(current).block();
+    } catch (RuntimeException e) {
+      log.warn("Training shard handoff to {} aborted, retried on the next sync: {}",
+          current.getVersion(), e.getMessage());
+    }
+  }
+
+  // Every instance is asked even when one fails, each failure ends the phase with an error
+  private Mono<Void> handoff(ConsistentHashRing target) {
+    return Flux.fromIterable(target.getInstances())
+        .flatMapDelayError(instance -> post(instance, RELEASE_PATH, new ShardAssignmentDTO(
+            target.getVersion(), instance, target.getInstances(), target.getVirtualNodes())),
+            target.getInstances().size(), 1)
+        .then(Flux.fromIterable(target.getInstances())
+            .flatMapDelayError(instance -> post(instance, ACQUIRE_PATH, new ShardAssignmentDTO(
+                target.getVersion(), instance, target.getInstances(),
+                target.getVirtualNodes())), target.getInstances().size(), 1)
+            .then());
+  }
+
+  private Mono<Void> post(String instance, String path, ShardAssignmentDTO assignment) {
+    return webClient.post()
+        .uri(instance + path)
+        .bodyValue(assignment)
+        .retrieve()
+        .toBodilessEntity()
+        .timeout(config.getHandoffTimeout())
+        .retryWhen(Retry.backoff(config.getHandoffAttempts() - 1, RETRY_BACKOFF))
+        .doOnError(e -> log.warn("Shard handoff {} to {} failed: {}", path, instance,
+            e.getMessage()))
+        .then();
+  }
+
+  private static List<String> validate(List<String> instances) {
+    if (instances == null || instances.isEmpty()) {
+      throw new IllegalArgumentException("At least one training instance is required");
+    }
+    return instances.stream()
+        .map(instance -> {
+          URI uri = URI.create(instance.trim());
+          if (uri.getScheme() == null || uri.getHost() == null) {
+            throw new IllegalArgumentException("Not an absolute URL: " + instance);
+          }
+          // No trailing slash, the instance is used as a prefix
+          return instance.trim().replaceAll("/+$", "");
+        })
+        .toList();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    syncer.shutdownNow();
+  }
+}
@@ -0,0 +1,58 @@
+package com.lucia.memoria_gateway.routing;
+
+import com.lucia.memoria_gateway.config.JwtHeaderForwardingFilter;
+import java.net.URI;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends requests of the training routes to the instance owning the caller, so every request
+ * of one user reaches the instance holding their in-memory state. Runs right after the
+ * request URL was built from the route's uri and only swaps scheme, host and port.
+ */
+@Component
+public class TrainingShardRoutingFilter implements GlobalFilter, Ordered {
+
+  private static final String TRAINING_ROUTE_PREFIX = "memoria-training";
+
+  private final TrainingShardRouter router;
+
+  public TrainingShardRoutingFilter(TrainingShardRouter router) {
+    this.router = router;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+    Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+    URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+    if (route == null || url == null || !route.getId().startsWith(TRAINING_ROUTE_PREFIX)) {
+      return chain.filter(exchange);
+    }
+    String userId = exchange.getAttribute(JwtHeaderForwardingFilter.USER_ID_ATTRIBUTE);
+    URI instance = router.instanceFor(userId);
+    if (instance == null) {
+      return chain.filter(exchange);
+    }
+    URI routed = UriComponentsBuilder.fromUri(url)
+        .scheme(instance.getScheme())
+        .host(instance.getHost())
+        .port(instance.getPort())
+        .build(true)
+        .toUri();
+    exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, routed);
+    return chain.filter(exchange);
+  }
+
+  @Override
+  public int getOrder() {
+    return RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1;
+  }
+}
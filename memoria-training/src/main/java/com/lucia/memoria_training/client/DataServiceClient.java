@@ -0,0 +1,134 @@
+package com.lucia.memoria_training.client;
+
+import com.lucia.memoria_training.config.DataServiceConfig;
+import com.lucia.memoria_training.dto.dataservice.CardBatchRequestDTO;
+import com.lucia.memoria_training.dto.dataservice.CardContentDTO;
+import com.lucia.memoria_training.dto.dataservice.LeechTagDTO;
+import com.lucia.memoria_training.exception.DataServiceException;
+import com.lucia.memoria_training.exception.NotFoundException;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Calls to memoria-data. Card content is always loaded through the batch endpoint, one request
+ * per {@code training.data-service.batch-size} cards.
+ */
+@Component
+public class DataServiceClient {
+
+  // Record tags of the subtree card stream, each followed by a 16 byte id
+  private static final int SUBTREE_DECK = 1;
+  private static final int SUBTREE_CARD = 2;
+
+  private static final ParameterizedTypeReference<List<CardContentDTO>> CARD_LIST =
+      new ParameterizedTypeReference<>() {
+      };
+
+  private final RestClient restClient;
+  private final int batchSize;
+
+  public DataServiceClient(RestClient.Builder restClientBuilder, DataServiceConfig config) {
+    SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+    requestFactory.setConnectTimeout(config.getConnectTimeout());
+    requestFactory.setReadTimeout(config.getReadTimeout());
+    this.restClient = restClientBuilder
+        .baseUrl(config.getUrl())
+        .requestFactory(requestFactory)
+        .build();
+    this.batchSize = config.getBatchSize();
+  }
+
+  /**
+   * Cards for the given ids in the order requested. Cards deleted in memoria-data are missing
+   * from the result.
+   */
+  public List<CardContentDTO> getCards(List<UUID> cardIds) {
+    List<CardContentDTO> cards = new ArrayList<>(cardIds.size());
+    for (int from = 0; from < cardIds.size(); from += batchSize) {
+      List<UUID> batch = cardIds.subList(from, Math.min(from + batchSize, cardIds.size()));
+      try {
+        List<CardContentDTO> loaded = restClient.post()
+            .uri("/api/data/cards/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(new CardBatchRequestDTO(batch))
+            .retrieve()
+            .body(CARD_LIST);
+        if (loaded != null) {
+          cards.addAll(loaded);
+        }
+      } catch (RestClientException e) {
+        throw new DataServiceException("Could not load cards from memoria-data", e);
+      }
+    }
+    return cards;
+  }
+
+  /**
+   * Tags leech cards in memoria-data. Tagging a card that already has the tag changes nothing,
+   * so a batch may be sent again.
+   */
+  public void tagLeeches(List<LeechTagDTO> leeches) {
+    try {
+      restClient.post()
+          .uri("/internal/leeches")
+          .contentType(MediaType.APPLICATION_JSON)
+          .body(leeches)
+          .retrieve()
+          .toBodilessEntity();
+    } catch (RestClientException e) {
+      throw new DataServiceException("Could not tag leeches in memoria-data", e);
+    }
+  }
+
+  /**
+   * Streams the ids of the cards in a deck and its subdecks, grouped by deck, to
+   * {@code consumer} as (deck id, card id). The stream is read as it arrives, never held whole.
+   *
+   * @throws NotFoundException when the deck does not exist or belongs to someone else
+   */
+  public void streamSubtreeCards(String userId, UUID deckId, BiConsumer<UUID, UUID> consumer) {
+    try {
+      restClient.get()
+          .uri(uri -> uri.path("/internal/decks/{deckId}/subtree-cards")
+              .queryParam("userId", userId)
+              .build(deckId))
+          .accept(MediaType.APPLICATION_OCTET_STREAM)
+          .exchange((request, response) -> {
+            if (response.getStatusCode().value() == 404) {
+              throw new NotFoundException("Deck not found");
+            }
+            if (response.getStatusCode().isError()) {
+              throw new DataServiceException("memoria-data answered "
+                  + response.getStatusCode().value() + " for the cards of deck " + deckId, null);
+            }
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(response.getBody(), 64 * 1024));
+            UUID currentDeck = null;
+            for (int tag = in.read(); tag != -1; tag = in.read()) {
+              UUID id = new UUID(in.readLong(), in.readLong());
+              if (tag == SUBTREE_DECK) {
+                currentDeck = id;
+              } else if (tag == SUBTREE_CARD && currentDeck != null) {
+                consumer.accept(currentDeck, id);
+              } else {
+                throw new DataServiceException("Malformed card stream from memoria-data", null);
+              }
+            }
+            return null;
+          });
+    } catch (RestClientException e) {
+      throw new DataServiceException("Could not load the cards of deck " + deckId
+          + " from memoria-data", e);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.lucia.memoria_training.client;
+
+import com.lucia.memoria_training.config.ShardConfig;
+import com.lucia.memoria_training.exception.PeerUnavailableException;
+import java.util.Collection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Calls to the other training instances of the ring.
+ */
+@Component
+@Slf4j
+public class TrainingPeerClient {
+
+  private final RestClient restClient;
+  private final int attempts;
+
+  public TrainingPeerClient(RestClient.Builder restClientBuilder, ShardConfig config) {
+    SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+    requestFactory.setConnectTimeout(config.getPeerConnectTimeout());
+    requestFactory.setReadTimeout(config.getPeerReadTimeout());
+    this.restClient = restClientBuilder
+        .requestFactory(requestFactory)
+        .build();
+    this.attempts = Math.max(1, config.getPeerAttempts());
+  }
+
+  /**
+   * Tells the instance owning the users to reload their in-memory state. Reloading is
+   * idempotent, so the call is tried up to {@code training.shard.peer-attempts} times.
+   *
+   * @throws PeerUnavailableException when every try failed, the owner would otherwise keep
+   *                                  serving the stale state
+   */
+  public void invalidate(String instance, Collection<String> userIds) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        restClient.post()
+            .uri(instance + "/internal/shards/invalidate")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(userIds)
+            .retrieve()
+            .toBodilessEntity();
+        return;
+      } catch (RestClientException e) {
+        if (attempt >= attempts) {
+          throw new PeerUnavailableException("Could not invalidate " + userIds.size()
+              + " users on " + instance, e);
+        }
+        log.warn("Could not invalidate {} users on {}, trying again: {}", userIds.size(),
+            instance, e.getMessage());
+      }
+    }
+  }
+}
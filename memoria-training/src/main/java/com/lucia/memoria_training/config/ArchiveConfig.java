@@ -0,0 +1,21 @@
+package com.lucia.memoria_training.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "training.archive")
+public class ArchiveConfig {
+    private boolean enabled = true;
+    // Review logs of months at least this many months before the current one are compacted
+    private int olderThanMonths = 12;
+    // Reviews per archive block, a user's month is split over several blocks beyond it
+    private int blockSize = 50000;
+    private Duration initialDelay = Duration.ofMinutes(30);
+    private Duration interval = Duration.ofHours(24);
+}
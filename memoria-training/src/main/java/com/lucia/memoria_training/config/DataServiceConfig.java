@@ -0,0 +1,20 @@
+package com.lucia.memoria_training.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "training.data-service")
+public class DataServiceConfig {
+    // Base URL of memoria-data, called directly and not through the gateway
+    private String url = "http://localhost:8082";
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration readTimeout = Duration.ofSeconds(5);
+    // Cards per batch request, memoria-data accepts up to 500
+    private int batchSize = 100;
+}
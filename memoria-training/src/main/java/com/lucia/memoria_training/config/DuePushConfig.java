@@ -0,0 +1,24 @@
+package com.lucia.memoria_training.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "training.due-push")
+public class DuePushConfig {
+    // Changes of one user within this window go out as one event
+    private Duration coalesceWindow = Duration.ofMillis(500);
+    // Recounts every connected user, for cards that became due as time passed, and keeps idle
+    // connections alive through proxies
+    private Duration refreshInterval = Duration.ofMinutes(1);
+    // Streams are closed after this long and the client reconnects
+    private Duration connectionTimeout = Duration.ofMinutes(30);
+    // Opening one more closes the oldest
+    private int maxConnectionsPerUser = 5;
+    private int sendThreads = 4;
+}
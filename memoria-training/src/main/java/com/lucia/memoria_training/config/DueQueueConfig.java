@@ -0,0 +1,22 @@
+package com.lucia.memoria_training.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "training.due")
+public class DueQueueConfig {
+    // Users whose due index is kept in memory, the least recently active are evicted first
+    private int maxUsers = 10000;
+    private Duration idleTimeout = Duration.ofMinutes(30);
+    // How often a changed due index is written back as a snapshot
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+    private Duration sweepInterval = Duration.ofSeconds(30);
+    private int defaultLimit = 50;
+    private int maxLimit = 1000;
+}
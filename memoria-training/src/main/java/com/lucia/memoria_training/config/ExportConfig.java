@@ -0,0 +1,17 @@
+package com.lucia.memoria_training.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "training.export")
+public class ExportConfig {
+    // Review logs fetched per cursor round trip, the most an export holds in memory
+    private int cursorBatchSize = 1000;
+    // Exports running at once on this instance, further ones are turned away
+    private int maxConcurrentExports = 4;
+}
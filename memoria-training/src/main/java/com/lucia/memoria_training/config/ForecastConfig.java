@@ -0,0 +1,27 @@
+package com.lucia.memoria_training.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "training.forecast")
+public class ForecastConfig {
+    private int defaultDays = 90;
+    private int maxDays = 365;
+    // Simulated futures per forecast, fewer when the time budget runs out first
+    private int runs = 1000;
+    private Duration timeBudget = Duration.ofSeconds(2);
+    // Threads simulating one forecast, 0 for one per core
+    private int threads = 0;
+    // Planned new cards a forecast may add on top of the existing ones
+    private int maxNewCards = 100000;
+    // Chance a new card is recalled on its first review
+    private double firstReviewRecall = 0.75;
+    // Recall chance under SM-2, which has no memory model to predict it
+    private double sm2Retention = 0.9;
+}
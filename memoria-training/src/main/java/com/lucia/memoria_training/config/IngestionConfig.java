@@ -0,0 +1,25 @@
+package com.lucia.memoria_training.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "training.ingestion")
+public class IngestionConfig {
+    // Write-ahead log of accepted reviews, must survive restarts
+    private String directory = "data/review-wal";
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+    // A Mongo batch is written once it holds batch-size reviews or flush-interval has passed
+    private int batchSize = 500;
+    private Duration flushInterval = Duration.ofMillis(200);
+    // Reviews accepted but not yet in Mongo, new reviews wait once this many are pending
+    private int maxPendingReviews = 100000;
+    private Duration backpressureTimeout = Duration.ofSeconds(2);
+    private Duration appendTimeout = Duration.ofSeconds(5);
+}
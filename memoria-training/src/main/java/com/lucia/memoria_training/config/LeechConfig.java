@@ -0,0 +1,26 @@
+package com.lucia.memoria_training.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "training.leech")
+public class LeechConfig {
+    private boolean enabled = true;
+    // A card becomes a leech once it reaches either count, 0 turns that count off
+    private int lapseThreshold = 8;
+    private int consecutiveLapseThreshold = 4;
+    // Tag memoria-data puts on leech cards, created for the user when missing
+    private String tagName = "leech";
+    private Duration publishInterval = Duration.ofSeconds(5);
+    private int publishBatchSize = 200;
+    // Longest wait between attempts while memoria-data keeps failing
+    private Duration maxBackoff = Duration.ofMinutes(5);
+    // How long published leech events are kept before they are deleted
+    private Duration retention = Duration.ofDays(7);
+}
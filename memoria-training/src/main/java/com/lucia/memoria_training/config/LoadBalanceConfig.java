@@ -0,0 +1,21 @@
+package com.lucia.memoria_training.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "training.load-balance")
+public class LoadBalanceConfig {
+    // Moves due dates within the fuzz window to the day with the fewest reviews due
+    private boolean enabled = true;
+    // Days ahead the per-user due counts cover, due dates further out stay where they are
+    private int horizonDays = 365;
+    // Due counts of users idle this long are dropped and reloaded on their next review
+    private Duration idleTimeout = Duration.ofMinutes(30);
+    private Duration sweepInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,29 @@
+package com.lucia.memoria_training.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "training.optimizer")
+public class OptimizerConfig {
+    private boolean enabled = true;
+    private Duration initialDelay = Duration.ofMinutes(10);
+    private Duration interval = Duration.ofHours(24);
+    // Users fitted at the same time, each holds up to max-reviews-per-user reviews in memory
+    private int parallelism = 2;
+    // Newest reviews loaded per user, about 9 bytes each once loaded
+    private int maxReviewsPerUser = 200000;
+    // Reviews a user needs before getting their own weights
+    private int minReviews = 1000;
+    // New reviews since the last fit before a user is fitted again
+    private int minNewReviews = 500;
+    private int iterations = 300;
+    private double learningRate = 0.04;
+    // How often fitted weights are picked up from Mongo, also from other instances
+    private Duration refreshInterval = Duration.ofMinutes(5);
+}
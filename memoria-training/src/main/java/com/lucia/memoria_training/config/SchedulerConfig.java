@@ -0,0 +1,22 @@
+package com.lucia.memoria_training.config;
+
+import com.lucia.memoria_training.helper.SchedulerAlgorithm;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "training.scheduler")
+public class SchedulerConfig {
+    private SchedulerAlgorithm algorithm = SchedulerAlgorithm.FSRS;
+    // Recall probability FSRS schedules the next review at
+    private double desiredRetention = 0.9;
+    private int maximumIntervalDays = 36500;
+    // FSRS 4.5 parameters, empty means the published defaults
+    private double[] weights = new double[0];
+    // Ease factor new cards start with under SM-2
+    private double initialEaseFactor = 2.5;
+}
@@ -0,0 +1,27 @@
+package com.lucia.memoria_training.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "training.session")
+public class SessionConfig {
+    // Cards loaded per request to memoria-data, the next chunk is prefetched while one is studied
+    private int chunkSize = 20;
+    private int maxCards = 200;
+    private Duration idleTimeout = Duration.ofMinutes(30);
+    // Open sessions kept before the least recently used ones are dropped, per user and overall
+    private int maxSessionsPerUser = 3;
+    private int maxSessions = 10000;
+    private int prefetchThreads = 4;
+    // Limits per subdeck of a session over a deck tree, a request may ask for others
+    private int newCardsPerDeck = 20;
+    private int reviewsPerDeck = 200;
+    // Streamed cards checked for an existing card state per query
+    private int newCardBatchSize = 500;
+}
@@ -0,0 +1,24 @@
+package com.lucia.memoria_training.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "training.shard")
+public class ShardConfig {
+    // How long a release waits for accepted reviews to reach Mongo
+    private Duration flushTimeout = Duration.ofSeconds(10);
+    // Calls to other training instances
+    private Duration peerConnectTimeout = Duration.ofSeconds(2);
+    private Duration peerReadTimeout = Duration.ofSeconds(5);
+    // Tries of a call to another instance before the request that needed it fails
+    private int peerAttempts = 3;
+    // Users gained in a handoff get their due index loaded ahead of their first request when
+    // it was snapshotted this recently
+    private Duration warmUpWindow = Duration.ofHours(1);
+}
@@ -0,0 +1,21 @@
+package com.lucia.memoria_training.config;
+
+import java.time.ZoneId;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "training.stats")
+public class StatsConfig {
+    // Where a statistics day starts and ends
+    private ZoneId zone = ZoneId.of("UTC");
+    private int maxRangeDays = 366;
+    // Interval from which a card counts as mature
+    private int matureIntervalDays = 21;
+    // Recomputes every rollup from the review logs on startup, for after counting changes
+    private boolean rebuildOnStartup = false;
+}
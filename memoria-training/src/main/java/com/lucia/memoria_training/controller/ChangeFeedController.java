@@ -0,0 +1,29 @@
+package com.lucia.memoria_training.controller;
+
+import com.lucia.memoria_training.dto.ChangeEventDTO;
+import com.lucia.memoria_training.service.changefeed.ChangeFeedService;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Called by memoria-data only, the gateway routes /api/training/** and never reaches this path
+@RestController
+@RequestMapping("/internal/changes")
+public class ChangeFeedController {
+
+  private final ChangeFeedService changeFeedService;
+
+  public ChangeFeedController(ChangeFeedService changeFeedService) {
+    this.changeFeedService = changeFeedService;
+  }
+
+  // Answers only once the whole batch is applied, so memoria-data marks it published after that
+  @PostMapping
+  public ResponseEntity<Void> apply(@RequestBody List<ChangeEventDTO> events) {
+    changeFeedService.apply(events);
+    return ResponseEntity.noContent().build();
+  }
+}
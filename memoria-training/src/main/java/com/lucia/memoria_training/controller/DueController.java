@@ -0,0 +1,44 @@
+package com.lucia.memoria_training.controller;
+
+import com.lucia.memoria_training.dto.DueCardDTO;
+import com.lucia.memoria_training.service.due.DueCountPushService;
+import com.lucia.memoria_training.service.due.DueQueueService;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/training/due")
+public class DueController {
+
+  private final DueQueueService dueQueueService;
+  private final DueCountPushService dueCountPushService;
+
+  public DueController(DueQueueService dueQueueService,
+      DueCountPushService dueCountPushService) {
+    this.dueQueueService = dueQueueService;
+    this.dueCountPushService = dueCountPushService;
+  }
+
+  // deckId may be repeated to cover several decks, without it every deck of the user is included
+  @GetMapping
+  public ResponseEntity<List<DueCardDTO>> getDueCards(@RequestHeader("X-User-Id") String userId,
+      @RequestParam(name = "deckId", required = false) List<UUID> deckIds,
+      @RequestParam(name = "limit", required = false) Integer limit) {
+    return ResponseEntity.ok().body(dueQueueService.getDueCards(userId, deckIds, limit));
+  }
+
+  // Server-sent "due-counts" events: every deck's due count first, then the decks that changed.
+  // The stream closes after training.due-push.connection-timeout and clients reconnect.
+  @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamDueCounts(@RequestHeader("X-User-Id") String userId) {
+    return dueCountPushService.subscribe(userId);
+  }
+}
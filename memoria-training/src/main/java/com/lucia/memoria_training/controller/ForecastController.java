@@ -0,0 +1,34 @@
+package com.lucia.memoria_training.controller;
+
+import com.lucia.memoria_training.dto.ForecastDTO;
+import com.lucia.memoria_training.service.forecast.ForecastService;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/training/forecast")
+public class ForecastController {
+
+  private final ForecastService forecastService;
+
+  public ForecastController(ForecastService forecastService) {
+    this.forecastService = forecastService;
+  }
+
+  // newCards and newCardsPerDay describe planned study, such as a deck about to be imported
+  @GetMapping
+  public ResponseEntity<ForecastDTO> getForecast(@RequestHeader("X-User-Id") String userId,
+      @RequestParam(name = "deckId", required = false) List<UUID> deckIds,
+      @RequestParam(name = "days", required = false) Integer days,
+      @RequestParam(name = "newCards", required = false) Integer newCards,
+      @RequestParam(name = "newCardsPerDay", required = false) Integer newCardsPerDay) {
+    return ResponseEntity.ok()
+        .body(forecastService.forecast(userId, deckIds, days, newCards, newCardsPerDay));
+  }
+}
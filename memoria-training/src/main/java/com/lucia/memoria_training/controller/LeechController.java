@@ -0,0 +1,37 @@
+package com.lucia.memoria_training.controller;
+
+import com.lucia.memoria_training.dto.LeechDTO;
+import com.lucia.memoria_training.service.leech.LeechService;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/training/leeches")
+public class LeechController {
+
+  private final LeechService leechService;
+
+  public LeechController(LeechService leechService) {
+    this.leechService = leechService;
+  }
+
+  @GetMapping
+  public ResponseEntity<List<LeechDTO>> getLeeches(@RequestHeader("X-User-Id") String userId) {
+    return ResponseEntity.ok().body(leechService.getLeeches(userId));
+  }
+
+  // Unsuspends the card, the tag in memoria-data stays until the user removes it
+  @DeleteMapping("/{cardId}")
+  public ResponseEntity<Void> unsuspend(@RequestHeader("X-User-Id") String userId,
+      @PathVariable("cardId") UUID cardId) {
+    leechService.unsuspend(userId, cardId);
+    return ResponseEntity.noContent().build();
+  }
+}
@@ -0,0 +1,69 @@
+package com.lucia.memoria_training.controller;
+
+import com.lucia.memoria_training.dto.ReviewAcceptedDTO;
+import com.lucia.memoria_training.dto.ReviewRequestDTO;
+import com.lucia.memoria_training.service.export.ReviewExportService;
+import com.lucia.memoria_training.service.export.ReviewExportService.Format;
+import com.lucia.memoria_training.service.export.ReviewExportService.ReviewExport;
+import com.lucia.memoria_training.service.ingestion.ReviewIngestionService;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/training/reviews")
+public class ReviewController {
+
+  private final ReviewIngestionService reviewIngestionService;
+  private final ReviewExportService reviewExportService;
+
+  public ReviewController(ReviewIngestionService reviewIngestionService,
+      ReviewExportService reviewExportService) {
+    this.reviewIngestionService = reviewIngestionService;
+    this.reviewExportService = reviewExportService;
+  }
+
+  // The gateway forwards the JWT subject as X-User-Id. The review is durable once accepted and
+  // reaches the card's schedule shortly after.
+  @PostMapping
+  public ResponseEntity<ReviewAcceptedDTO> review(@RequestHeader("X-User-Id") String userId,
+      @RequestBody ReviewRequestDTO reviewRequestDTO) {
+    return ResponseEntity.status(HttpStatus.ACCEPTED)
+        .body(reviewIngestionService.submit(userId, reviewRequestDTO));
+  }
+
+  // The caller's review history as csv (default) or ndjson, streamed as it is read. Reviews
+  // accepted in the last moments may still be on their way to Mongo and missing.
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> export(@RequestHeader("X-User-Id") String userId,
+      @RequestParam(name = "format", required = false) String format,
+      @RequestParam(name = "deckId", required = false) List<UUID> deckIds,
+      @RequestParam(name = "from", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+      @RequestParam(name = "to", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
+    if (userId == null || userId.isBlank()) {
+      throw new IllegalArgumentException("User is required");
+    }
+    return stream(reviewExportService.prepare(userId, deckIds, from, to, Format.of(format)));
+  }
+
+  static ResponseEntity<StreamingResponseBody> stream(ReviewExport export) {
+    return ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_TYPE, export.getFormat().getContentType())
+        .header(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"reviews." + export.getFormat().getExtension() + "\"")
+        .body(export::writeTo);
+  }
+}
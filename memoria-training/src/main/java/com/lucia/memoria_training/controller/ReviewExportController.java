@@ -0,0 +1,41 @@
+package com.lucia.memoria_training.controller;
+
+import com.lucia.memoria_training.service.export.ReviewExportService;
+import com.lucia.memoria_training.service.export.ReviewExportService.Format;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// For analytics inside the network, the gateway routes /api/training/** and never reaches this
+// path. Review logs are in the shared database, so any instance exports every user.
+@RestController
+@RequestMapping("/internal/reviews/export")
+public class ReviewExportController {
+
+  private final ReviewExportService reviewExportService;
+
+  public ReviewExportController(ReviewExportService reviewExportService) {
+    this.reviewExportService = reviewExportService;
+  }
+
+  // Without userId the reviews of every user, ordered by user and then review time
+  @GetMapping
+  public ResponseEntity<StreamingResponseBody> export(
+      @RequestParam(name = "userId", required = false) String userId,
+      @RequestParam(name = "format", required = false) String format,
+      @RequestParam(name = "deckId", required = false) List<UUID> deckIds,
+      @RequestParam(name = "from", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+      @RequestParam(name = "to", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
+    String user = userId == null || userId.isBlank() ? null : userId;
+    return ReviewController.stream(
+        reviewExportService.prepare(user, deckIds, from, to, Format.of(format)));
+  }
+}
@@ -0,0 +1,40 @@
+package com.lucia.memoria_training.controller;
+
+import com.lucia.memoria_training.dto.SchedulingPreferencesDTO;
+import com.lucia.memoria_training.service.balance.DueLoadBalancer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/training/preferences")
+public class SchedulingPreferencesController {
+
+  private final DueLoadBalancer dueLoadBalancer;
+
+  public SchedulingPreferencesController(DueLoadBalancer dueLoadBalancer) {
+    this.dueLoadBalancer = dueLoadBalancer;
+  }
+
+  @GetMapping
+  public ResponseEntity<SchedulingPreferencesDTO> getPreferences(
+      @RequestHeader("X-User-Id") String userId) {
+    return ResponseEntity.ok()
+        .body(new SchedulingPreferencesDTO(dueLoadBalancer.isLoadBalancing(userId)));
+  }
+
+  // Fields left out keep their current value
+  @PutMapping
+  public ResponseEntity<SchedulingPreferencesDTO> updatePreferences(
+      @RequestHeader("X-User-Id") String userId,
+      @RequestBody SchedulingPreferencesDTO preferences) {
+    if (preferences.loadBalancing() != null) {
+      dueLoadBalancer.setLoadBalancing(userId, preferences.loadBalancing());
+    }
+    return getPreferences(userId);
+  }
+}
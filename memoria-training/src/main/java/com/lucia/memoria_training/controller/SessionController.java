@@ -0,0 +1,41 @@
+package com.lucia.memoria_training.controller;
+
+import com.lucia.memoria_training.dto.SessionChunkDTO;
+import com.lucia.memoria_training.dto.SessionRequestDTO;
+import com.lucia.memoria_training.service.session.SessionService;
+import java.util.UUID;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/training/sessions")
+public class SessionController {
+
+  private final SessionService sessionService;
+
+  public SessionController(SessionService sessionService) {
+    this.sessionService = sessionService;
+  }
+
+  @PostMapping
+  public ResponseEntity<SessionChunkDTO> createSession(@RequestHeader("X-User-Id") String userId,
+      @RequestBody(required = false) SessionRequestDTO sessionRequestDTO) {
+    return ResponseEntity.status(HttpStatus.CREATED)
+        .body(sessionService.createSession(userId, sessionRequestDTO));
+  }
+
+  @GetMapping("/{sessionId}/cards")
+  public ResponseEntity<SessionChunkDTO> getCards(@RequestHeader("X-User-Id") String userId,
+      @PathVariable("sessionId") UUID sessionId,
+      @RequestParam(name = "offset", defaultValue = "0") int offset) {
+    return ResponseEntity.ok().body(sessionService.getChunk(userId, sessionId, offset));
+  }
+}
@@ -0,0 +1,40 @@
+package com.lucia.memoria_training.controller;
+
+import com.lucia.memoria_training.dto.ShardAssignmentDTO;
+import com.lucia.memoria_training.service.shard.ShardHandoffService;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Called by the gateway and the other training instances, never routed from outside
+@RestController
+@RequestMapping("/internal/shards")
+public class ShardController {
+
+  private final ShardHandoffService shardHandoffService;
+
+  public ShardController(ShardHandoffService shardHandoffService) {
+    this.shardHandoffService = shardHandoffService;
+  }
+
+  @PostMapping("/release")
+  public ResponseEntity<Void> release(@RequestBody ShardAssignmentDTO assignment) {
+    shardHandoffService.release(assignment);
+    return ResponseEntity.noContent().build();
+  }
+
+  @PostMapping("/acquire")
+  public ResponseEntity<Void> acquire(@RequestBody ShardAssignmentDTO assignment) {
+    shardHandoffService.acquire(assignment);
+    return ResponseEntity.noContent().build();
+  }
+
+  @PostMapping("/invalidate")
+  public ResponseEntity<Void> invalidate(@RequestBody List<String> userIds) {
+    shardHandoffService.invalidate(userIds);
+    return ResponseEntity.noContent().build();
+  }
+}
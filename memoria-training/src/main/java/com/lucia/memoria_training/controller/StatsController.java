@@ -0,0 +1,53 @@
+package com.lucia.memoria_training.controller;
+
+import com.lucia.memoria_training.dto.DailyStatsDTO;
+import com.lucia.memoria_training.dto.DeckMaturityDTO;
+import com.lucia.memoria_training.dto.RetentionPointDTO;
+import com.lucia.memoria_training.service.stats.StatsService;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/training/stats")
+public class StatsController {
+
+  private final StatsService statsService;
+
+  public StatsController(StatsService statsService) {
+    this.statsService = statsService;
+  }
+
+  // Without deckId the totals over every deck, without a range the last year
+  @GetMapping("/daily")
+  public ResponseEntity<List<DailyStatsDTO>> getDailyStats(
+      @RequestHeader("X-User-Id") String userId,
+      @RequestParam(name = "deckId", required = false) UUID deckId,
+      @RequestParam(name = "from", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+      @RequestParam(name = "to", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
+    return ResponseEntity.ok().body(statsService.getDailyStats(userId, deckId, from, to));
+  }
+
+  @GetMapping("/retention")
+  public ResponseEntity<List<RetentionPointDTO>> getRetention(
+      @RequestHeader("X-User-Id") String userId,
+      @RequestParam(name = "deckId", required = false) UUID deckId,
+      @RequestParam(name = "from", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+      @RequestParam(name = "to", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
+    return ResponseEntity.ok().body(statsService.getRetention(userId, deckId, from, to));
+  }
+
+  @GetMapping("/maturity")
+  public ResponseEntity<List<DeckMaturityDTO>> getMaturity(
+      @RequestHeader("X-User-Id") String userId) {
+    return ResponseEntity.ok().body(statsService.getMaturity(userId));
+  }
+}
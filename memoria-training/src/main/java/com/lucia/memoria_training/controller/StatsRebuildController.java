@@ -0,0 +1,41 @@
+package com.lucia.memoria_training.controller;
+
+import com.lucia.memoria_training.dto.GeneralResponseDTO;
+import com.lucia.memoria_training.service.stats.StatsService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Operator endpoints, never routed from outside. Rebuilds run in the background
+@RestController
+@RequestMapping("/internal/stats")
+public class StatsRebuildController {
+
+  private final StatsService statsService;
+
+  public StatsRebuildController(StatsService statsService) {
+    this.statsService = statsService;
+  }
+
+  @PostMapping("/rebuild")
+  public ResponseEntity<GeneralResponseDTO<Void>> rebuildAll() {
+    if (!statsService.rebuildAll()) {
+      return ResponseEntity.status(HttpStatus.CONFLICT)
+          .body(new GeneralResponseDTO<>("A statistics rebuild is already running."));
+    }
+    return ResponseEntity.status(HttpStatus.ACCEPTED)
+        .body(new GeneralResponseDTO<>("Statistics rebuild started."));
+  }
+
+  // Recomputes one user's statistics from their review history
+  @PostMapping("/rebuild/{userId}")
+  public ResponseEntity<GeneralResponseDTO<Void>> rebuildUser(
+      @PathVariable("userId") String userId) {
+    statsService.rebuildUserInBackground(userId);
+    return ResponseEntity.status(HttpStatus.ACCEPTED)
+        .body(new GeneralResponseDTO<>("Statistics rebuild started."));
+  }
+}
@@ -0,0 +1,15 @@
+package com.lucia.memoria_training.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A change published by memoria-data. {@code sequence} grows with every change of the user in
+ * the order memoria-data committed them, events may arrive in another order. {@code type} is
+ * kept as text so event types added later are skipped instead of rejected.
+ */
+public record ChangeEventDTO(UUID eventId, long sequence, String type, String userId,
+                             UUID cardId, UUID deckId, UUID parentDeckId, UUID templateId,
+                             String path, Instant occurredAt) {
+
+}
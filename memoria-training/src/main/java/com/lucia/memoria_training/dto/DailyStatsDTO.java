@@ -0,0 +1,8 @@
+package com.lucia.memoria_training.dto;
+
+import java.time.LocalDate;
+
+public record DailyStatsDTO(LocalDate date, long reviews, long again, long hard, long good,
+                            long easy, long newCards, long lapses) {
+
+}
@@ -0,0 +1,8 @@
+package com.lucia.memoria_training.dto;
+
+import java.util.UUID;
+
+// delta is the change since the previous event of the stream, the whole count on a full event
+public record DeckDueCountDTO(UUID deckId, int count, int delta) {
+
+}
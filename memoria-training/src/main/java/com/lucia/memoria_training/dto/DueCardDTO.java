@@ -0,0 +1,8 @@
+package com.lucia.memoria_training.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record DueCardDTO(UUID cardId, UUID deckId, Instant due) {
+
+}
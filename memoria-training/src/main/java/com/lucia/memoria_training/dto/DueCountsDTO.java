@@ -0,0 +1,8 @@
+package com.lucia.memoria_training.dto;
+
+import java.util.List;
+
+// A full event lists every deck with due cards, any other only the decks whose count changed
+public record DueCountsDTO(boolean full, int total, List<DeckDueCountDTO> decks) {
+
+}
@@ -0,0 +1,11 @@
+package com.lucia.memoria_training.dto;
+
+import java.util.List;
+
+/**
+ * A review load forecast, {@code complete} being false when the time budget ran out before
+ * every requested run finished.
+ */
+public record ForecastDTO(int runs, boolean complete, List<ForecastDayDTO> days) {
+
+}
@@ -0,0 +1,10 @@
+package com.lucia.memoria_training.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Simulated reviews on one day: the mean and the 10th, 50th and 90th percentile over all runs.
+ */
+public record ForecastDayDTO(LocalDate date, double mean, int p10, int p50, int p90) {
+
+}
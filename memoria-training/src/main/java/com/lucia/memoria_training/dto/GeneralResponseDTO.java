@@ -0,0 +1,17 @@
+package com.lucia.memoria_training.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@AllArgsConstructor
+@Getter
+@Setter
+public class GeneralResponseDTO<T> {
+  private String message;
+  private T data;
+
+  public GeneralResponseDTO(String message) {
+    this.message = message;
+  }
+}
@@ -0,0 +1,7 @@
+package com.lucia.memoria_training.dto;
+
+import java.util.UUID;
+
+public record LeechDTO(UUID cardId, UUID deckId, int lapses, int consecutiveLapses) {
+
+}
@@ -0,0 +1,10 @@
+package com.lucia.memoria_training.dto;
+
+/**
+ * Share of reviews recalled among those made {@code fromDays} up to {@code toDays} after the
+ * previous review, {@code toDays} being null for the last, open ended bucket.
+ */
+public record RetentionPointDTO(double fromDays, Double toDays, long reviews, long recalled,
+                                Double retention) {
+
+}
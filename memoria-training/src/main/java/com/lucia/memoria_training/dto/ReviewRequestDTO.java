@@ -0,0 +1,14 @@
+package com.lucia.memoria_training.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A graded review. {@code grade} runs from 1 (again) to 4 (easy); {@code reviewedAt} is optional
+ * and defaults to the time the request arrives. {@code reviewId} is chosen by the client so a
+ * retried submission is stored once, one is generated when it is missing.
+ */
+public record ReviewRequestDTO(UUID reviewId, UUID cardId, UUID deckId, int grade,
+                               Instant reviewedAt) {
+
+}
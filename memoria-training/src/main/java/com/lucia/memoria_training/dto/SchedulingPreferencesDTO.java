@@ -0,0 +1,5 @@
+package com.lucia.memoria_training.dto;
+
+public record SchedulingPreferencesDTO(Boolean loadBalancing) {
+
+}
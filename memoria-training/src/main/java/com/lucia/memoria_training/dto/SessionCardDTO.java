@@ -0,0 +1,13 @@
+package com.lucia.memoria_training.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A card of a study session with its fields already joined per role, ready to show. New cards
+ * have no due time.
+ */
+public record SessionCardDTO(UUID cardId, UUID deckId, Instant due, String front, String back,
+                             String auxiliary) {
+
+}
@@ -0,0 +1,9 @@
+package com.lucia.memoria_training.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+public record SessionChunkDTO(UUID sessionId, int offset, int totalCards,
+                              List<SessionCardDTO> cards) {
+
+}
@@ -0,0 +1,14 @@
+package com.lucia.memoria_training.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Decks to study, all decks when empty, and the most cards the session may hold. Decks include
+ * their subdecks and new cards unless {@code subdecks} is false; the per deck limits default to
+ * the configured ones.
+ */
+public record SessionRequestDTO(List<UUID> deckIds, Integer limit, Boolean subdecks,
+    Integer newCardsPerDeck, Integer reviewsPerDeck) {
+
+}
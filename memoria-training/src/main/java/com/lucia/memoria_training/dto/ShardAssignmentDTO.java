@@ -0,0 +1,9 @@
+package com.lucia.memoria_training.dto;
+
+import java.util.List;
+
+// Sent by the gateway, self is the URL this instance is listed under
+public record ShardAssignmentDTO(String version, String self, List<String> instances,
+                                 int virtualNodes) {
+
+}
@@ -0,0 +1,8 @@
+package com.lucia.memoria_training.dto.dataservice;
+
+import java.util.List;
+import java.util.UUID;
+
+public record CardBatchRequestDTO(List<UUID> cardIds) {
+
+}
@@ -0,0 +1,19 @@
+package com.lucia.memoria_training.dto.dataservice;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A card as memoria-data returns it, reduced to what a study session shows.
+ */
+public record CardContentDTO(UUID cardId, UUID deckId, UUID templateId,
+                             List<CardFieldDTO> fieldDTOList) {
+
+  public record CardFieldDTO(FieldTemplateDTO fieldTemplate, UUID fieldId, String content) {
+
+  }
+
+  public record FieldTemplateDTO(UUID templateFieldId, String name, String fieldRole) {
+
+  }
+}
@@ -0,0 +1,10 @@
+package com.lucia.memoria_training.dto.dataservice;
+
+import java.util.UUID;
+
+/**
+ * Asks memoria-data to tag a leech card. {@code userId} is the username.
+ */
+public record LeechTagDTO(String eventId, String userId, UUID cardId, String tagName) {
+
+}
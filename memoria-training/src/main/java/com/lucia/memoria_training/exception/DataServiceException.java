@@ -0,0 +1,11 @@
+package com.lucia.memoria_training.exception;
+
+/**
+ * Thrown when memoria-data cannot be reached or answers with an error.
+ */
+public class DataServiceException extends RuntimeException {
+
+  public DataServiceException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,11 @@
+package com.lucia.memoria_training.exception;
+
+/**
+ * Thrown when as many review exports as allowed are already running.
+ */
+public class ExportLimitException extends RuntimeException {
+
+  public ExportLimitException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,87 @@
+package com.lucia.memoria_training.exception;
+
+import com.lucia.memoria_training.dto.GeneralResponseDTO;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+//  Used when reviews arrive faster than they can be stored
+  @ExceptionHandler(IngestionBackpressureException.class)
+  public ResponseEntity<GeneralResponseDTO<Void>> handleIngestionBackpressureException(
+      IngestionBackpressureException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header("Retry-After", "1")
+        .body(new GeneralResponseDTO<>(ex.getMessage()));
+  }
+
+//  Used when too many review exports run at once
+  @ExceptionHandler(ExportLimitException.class)
+  public ResponseEntity<GeneralResponseDTO<Void>> handleExportLimitException(
+      ExportLimitException ex) {
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header("Retry-After", "30")
+        .body(new GeneralResponseDTO<>(ex.getMessage()));
+  }
+
+//  Used when memoria-data cannot be reached or answers with an error
+  @ExceptionHandler(DataServiceException.class)
+  public ResponseEntity<GeneralResponseDTO<Void>> handleDataServiceException(
+      DataServiceException ex) {
+    return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+        .body(new GeneralResponseDTO<>(ex.getMessage()));
+  }
+
+//  Used when another training instance cannot be reached, the caller retries the whole request
+  @ExceptionHandler(PeerUnavailableException.class)
+  public ResponseEntity<GeneralResponseDTO<Void>> handlePeerUnavailableException(
+      PeerUnavailableException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header("Retry-After", "1")
+        .body(new GeneralResponseDTO<>(ex.getMessage()));
+  }
+
+//  Used when a shard release is refused, the gateway keeps the previous owners and retries
+  @ExceptionHandler(HandoffNotReadyException.class)
+  public ResponseEntity<GeneralResponseDTO<Void>> handleHandoffNotReadyException(
+      HandoffNotReadyException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header("Retry-After", "1")
+        .body(new GeneralResponseDTO<>(ex.getMessage()));
+  }
+
+//  Used when a card state kept changing while a request tried to update it
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public ResponseEntity<GeneralResponseDTO<Void>> handleOptimisticLockingFailureException(
+      OptimisticLockingFailureException ex) {
+    return ResponseEntity.status(HttpStatus.CONFLICT)
+        .body(new GeneralResponseDTO<>(ex.getMessage()));
+  }
+
+  @ExceptionHandler(NotFoundException.class)
+  public ResponseEntity<GeneralResponseDTO<Void>> handleNotFoundException(NotFoundException ex) {
+    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+        .body(new GeneralResponseDTO<>(ex.getMessage()));
+  }
+
+  @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+  public ResponseEntity<GeneralResponseDTO<Object>> handleTypeMismatch(
+      MethodArgumentTypeMismatchException ex) {
+    String message = String.format(
+        "Invalid value for parameter '%s'",
+        ex.getName()
+    );
+    return ResponseEntity.badRequest().body(new GeneralResponseDTO<>(message, ex.getValue()));
+  }
+
+  @ExceptionHandler(IllegalArgumentException.class)
+  public ResponseEntity<GeneralResponseDTO<Void>> handleIllegalArgumentException(
+      IllegalArgumentException ex) {
+    return ResponseEntity.badRequest().body(new GeneralResponseDTO<>(ex.getMessage()));
+  }
+}
@@ -0,0 +1,12 @@
+package com.lucia.memoria_training.exception;
+
+/**
+ * Thrown when this instance cannot release users yet because reviews it accepted for them are
+ * not stored in Mongo.
+ */
+public class HandoffNotReadyException extends RuntimeException {
+
+  public HandoffNotReadyException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,12 @@
+package com.lucia.memoria_training.exception;
+
+/**
+ * Thrown when reviews arrive faster than they can be written to Mongo and the backlog of
+ * accepted reviews is full.
+ */
+public class IngestionBackpressureException extends RuntimeException {
+
+  public IngestionBackpressureException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,8 @@
+package com.lucia.memoria_training.exception;
+
+public class NotFoundException extends RuntimeException {
+
+  public NotFoundException(String message) {
+    super(message);
+  }
+}
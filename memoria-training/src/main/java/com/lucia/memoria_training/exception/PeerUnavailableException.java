@@ -0,0 +1,11 @@
+package com.lucia.memoria_training.exception;
+
+/**
+ * Thrown when another training instance of the ring cannot be reached or answers with an error.
+ */
+public class PeerUnavailableException extends RuntimeException {
+
+  public PeerUnavailableException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
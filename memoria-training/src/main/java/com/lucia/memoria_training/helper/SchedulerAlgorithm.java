@@ -0,0 +1,18 @@
+package com.lucia.memoria_training.helper;
+
+/**
+ * Algorithm used to compute the next review of a card.
+ */
+public enum SchedulerAlgorithm {
+  /**
+   * Classic SuperMemo 2: an ease factor per card and intervals of 1 day, 6 days, then interval
+   * times ease factor.
+   */
+  SM2,
+
+  /**
+   * Free Spaced Repetition Scheduler (FSRS 4.5): stability and difficulty per card, the interval
+   * is the time until recall probability drops to the desired retention.
+   */
+  FSRS
+}
@@ -0,0 +1,46 @@
+package com.lucia.memoria_training.model;
+
+import java.util.UUID;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Which deck a card of memoria-data is in, kept from its change feed. A deleted card stays as
+ * a tombstone, so a late event about it cannot bring it back.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Document(collection = "card_replicas")
+@CompoundIndex(name = "user_deck", def = "{'userId': 1, 'deckId': 1}")
+public class CardReplica {
+
+  // The card id
+  @Id
+  private String id;
+
+  private String userId;
+
+  private UUID cardId;
+
+  private UUID deckId;
+
+  private UUID templateId;
+
+  private boolean deleted;
+
+  // Sequence of the last change applied, changes at or below it are skipped
+  private long version;
+
+  private long updatedAt;
+
+  public CardReplica(String userId, UUID cardId) {
+    this.id = cardId.toString();
+    this.userId = userId;
+    this.cardId = cardId;
+  }
+}
@@ -0,0 +1,100 @@
+package com.lucia.memoria_training.model;
+
+import com.lucia.memoria_training.service.scheduler.MemoryState;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Scheduling state of one card for one user. The id is derived from user and card, so writing
+ * the same review twice lands on the same document.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "card_states")
+@CompoundIndex(name = "user_due", def = "{'userId': 1, 'due': 1}")
+@CompoundIndex(name = "user_updated", def = "{'userId': 1, 'updatedAt': 1}")
+public class CardState {
+
+  @Id
+  private String id;
+
+  private String userId;
+
+  private UUID cardId;
+
+  private UUID deckId;
+
+  private double stability;
+
+  private double difficulty;
+
+  // Epoch millis, kept as longs so range queries and the scheduler share one representation
+  private long lastReview;
+
+  private long due;
+
+  private int reps;
+
+  private int lapses;
+
+  // Lapses since the last successful review, reset by any grade above again
+  private int consecutiveLapses;
+
+  // Leeches are suspended: kept and counted in statistics but never due
+  private boolean suspended;
+
+  // Reviews applied to this state, a logged review numbered at or below it is already contained
+  private long appliedReviews;
+
+  // Server time of the last write, used to replay changes on top of a due index snapshot
+  private long updatedAt;
+
+  // Bumped by every write, a state read before is only written back while this is unchanged
+  private long version;
+
+  public CardState(String userId, UUID cardId, UUID deckId) {
+    this.id = idOf(userId, cardId);
+    this.userId = userId;
+    this.cardId = cardId;
+    this.deckId = deckId;
+  }
+
+  public static String idOf(String userId, UUID cardId) {
+    return userId + ":" + cardId;
+  }
+
+  // Matches the state while it still has the version it was read with, states written before
+  // versions existed have none and count as version 0
+  public static Query unchanged(String id, long version) {
+    return Query.query(Criteria.where("_id").is(id)
+        .and("version").in(version == 0 ? new Object[]{0L, null} : new Object[]{version}));
+  }
+
+  public void copyTo(MemoryState state) {
+    state.stability = stability;
+    state.difficulty = difficulty;
+    state.lastReview = lastReview;
+    state.due = due;
+    state.reps = reps;
+    state.lapses = lapses;
+  }
+
+  public void copyFrom(MemoryState state) {
+    this.stability = state.stability;
+    this.difficulty = state.difficulty;
+    this.lastReview = state.lastReview;
+    this.due = state.due;
+    this.reps = state.reps;
+    this.lapses = state.lapses;
+  }
+}
@@ -0,0 +1,77 @@
+package com.lucia.memoria_training.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Review counters of one user for one day, for one deck or, with no deck, for all of them.
+ * Kept up to date with {@code $inc} as reviews are applied, so statistics never read the raw
+ * review logs.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Document(collection = "daily_stats")
+@CompoundIndex(name = "user_deck_generation_day",
+    def = "{'userId': 1, 'deckId': 1, 'generation': 1, 'day': 1}")
+public class DailyStats {
+
+  @Id
+  private String id;
+
+  private String userId;
+
+  // Null for the totals over every deck
+  private UUID deckId;
+
+  // See StatsGeneration
+  private long generation;
+
+  // Days since the epoch in the statistics time zone
+  private long day;
+
+  private long reviews;
+
+  private long again;
+
+  private long hard;
+
+  private long good;
+
+  private long easy;
+
+  // First reviews of a card
+  private long newCards;
+
+  // Reviews graded again after at least one earlier review
+  private long lapses;
+
+  // Reviews and recalls keyed by the interval bucket they were reviewed at, for retention curves
+  private Map<String, Long> reviewsByInterval = new HashMap<>();
+
+  private Map<String, Long> recalledByInterval = new HashMap<>();
+
+  public DailyStats(String userId, UUID deckId, long day) {
+    this.id = idOf(userId, deckId, day);
+    this.userId = userId;
+    this.deckId = deckId;
+    this.day = day;
+  }
+
+  public static String idOf(String userId, UUID deckId, long day) {
+    return userId + ":" + (deckId == null ? "" : deckId) + ":" + day;
+  }
+
+  // Generation 0 keeps the ids rollups had before generations existed
+  public static String idOf(String userId, long generation, UUID deckId, long day) {
+    String id = idOf(userId, deckId, day);
+    return generation == 0 ? id : id + ":" + generation;
+  }
+}
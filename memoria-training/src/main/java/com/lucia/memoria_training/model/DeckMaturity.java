@@ -0,0 +1,51 @@
+package com.lucia.memoria_training.model;
+
+import java.util.UUID;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * How many reviewed cards of a deck are young or mature, moved with {@code $inc} whenever a
+ * review takes a card from one group to the other.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Document(collection = "deck_maturity")
+public class DeckMaturity {
+
+  @Id
+  private String id;
+
+  @Indexed
+  private String userId;
+
+  private UUID deckId;
+
+  // See StatsGeneration
+  private long generation;
+
+  private long young;
+
+  private long mature;
+
+  public DeckMaturity(String userId, UUID deckId) {
+    this.id = idOf(userId, deckId);
+    this.userId = userId;
+    this.deckId = deckId;
+  }
+
+  public static String idOf(String userId, UUID deckId) {
+    return userId + ":" + deckId;
+  }
+
+  // Generation 0 keeps the ids rollups had before generations existed
+  public static String idOf(String userId, long generation, UUID deckId) {
+    String id = idOf(userId, deckId);
+    return generation == 0 ? id : id + ":" + generation;
+  }
+}
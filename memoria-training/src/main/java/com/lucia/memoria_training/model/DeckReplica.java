@@ -0,0 +1,47 @@
+package com.lucia.memoria_training.model;
+
+import java.util.UUID;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A deck of memoria-data with its place in the deck tree, kept from its change feed. A deleted
+ * deck stays as a tombstone.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Document(collection = "deck_replicas")
+@CompoundIndex(name = "user_path", def = "{'userId': 1, 'path': 1}")
+public class DeckReplica {
+
+  // The deck id
+  @Id
+  private String id;
+
+  private String userId;
+
+  private UUID deckId;
+
+  private UUID parentDeckId;
+
+  // Names from the root deck down, separated by "::"
+  private String path;
+
+  private boolean deleted;
+
+  // Sequence of the last change applied, changes at or below it are skipped
+  private long version;
+
+  private long updatedAt;
+
+  public DeckReplica(String userId, UUID deckId) {
+    this.id = deckId.toString();
+    this.userId = userId;
+    this.deckId = deckId;
+  }
+}
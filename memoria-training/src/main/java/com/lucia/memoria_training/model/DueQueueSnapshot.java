@@ -0,0 +1,30 @@
+package com.lucia.memoria_training.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Serialized due index of one user, so a restart reads one document instead of every card
+ * state. Card states written after {@code takenAt} are replayed on top when it is loaded.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "due_queue_snapshots")
+public class DueQueueSnapshot {
+
+  // The user id
+  @Id
+  private String id;
+
+  private long takenAt;
+
+  private int cardCount;
+
+  private byte[] data;
+}
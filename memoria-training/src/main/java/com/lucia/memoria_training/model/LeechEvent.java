@@ -0,0 +1,46 @@
+package com.lucia.memoria_training.model;
+
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A card that became a leech, waiting for memoria-data to tag it. Written with the review that
+ * made it one and keyed by that review's position among the card's reviews, so a replayed review
+ * writes the same event again instead of a second one.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "leech_events")
+@CompoundIndex(name = "published_detected", def = "{'publishedAt': 1, 'detectedAt': 1}")
+public class LeechEvent {
+
+  @Id
+  private String id;
+
+  private String userId;
+
+  private UUID cardId;
+
+  private UUID deckId;
+
+  private int lapses;
+
+  private int consecutiveLapses;
+
+  private long detectedAt;
+
+  // Null until memoria-data accepted the event
+  private Long publishedAt;
+
+  public static String idOf(String stateId, long cardReview) {
+    return stateId + ":" + cardReview;
+  }
+}
@@ -0,0 +1,39 @@
+package com.lucia.memoria_training.model;
+
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A logged review that could not be applied for a reason retrying does not fix, parked so the
+ * reviews behind it are not held up. Kept with the error until someone resubmits or drops it.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "review_dead_letters")
+public class ReviewDeadLetter {
+
+  // The review id, parking the same review again overwrites it
+  @Id
+  private String id;
+
+  private String userId;
+
+  private UUID cardId;
+
+  private UUID deckId;
+
+  private int grade;
+
+  private long reviewedAt;
+
+  private String error;
+
+  private long failedAt;
+}
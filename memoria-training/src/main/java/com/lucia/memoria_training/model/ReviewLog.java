@@ -0,0 +1,61 @@
+package com.lucia.memoria_training.model;
+
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * One graded review, kept as history for statistics and for fitting scheduler parameters.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "review_logs")
+// _id breaks ties between reviews of the same millisecond, see ReviewLogStore
+@CompoundIndex(name = "user_reviewed_id", def = "{'userId': 1, 'reviewedAt': 1, '_id': 1}")
+public class ReviewLog {
+
+  // The review id, so storing the same review again overwrites it
+  @Id
+  private String id;
+
+  private String userId;
+
+  private UUID cardId;
+
+  private UUID deckId;
+
+  private int grade;
+
+  private long reviewedAt;
+
+  // Days since the previous review of the card, 0 for its first review
+  private double elapsedDays;
+
+  // Interval the scheduler chose with this review
+  private double scheduledDays;
+
+  private double stability;
+
+  private double difficulty;
+
+  // Position of this review among the reviews of its card, see CardState.appliedReviews
+  private long cardReview;
+
+  // Set until the review is added to the statistics rollups, a replay of a review already
+  // applied but still uncounted adds it from the fields below
+  private boolean uncounted;
+
+  // Deck and maturity group of the card before and after the review, see StatsRollup.moveCard
+  private UUID previousDeckId;
+
+  private int previousMaturity;
+
+  private int maturity;
+}
@@ -0,0 +1,54 @@
+package com.lucia.memoria_training.model;
+
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Review logs of one user and month, compacted into one compressed columnar block. A month
+ * with more reviews than a block holds is split into parts, ordered by review time.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "review_log_archives")
+@CompoundIndex(name = "user_first_reviewed_part",
+    def = "{'userId': 1, 'firstReviewedAt': 1, 'part': 1}")
+@CompoundIndex(name = "user_month", def = "{'userId': 1, 'month': 1}")
+public class ReviewLogArchive {
+
+  // User, month and part, so compacting a month again overwrites its blocks
+  @Id
+  private String id;
+
+  private String userId;
+
+  // yyyy-MM in the statistics zone
+  private String month;
+
+  private int part;
+
+  private long firstReviewedAt;
+
+  private long lastReviewedAt;
+
+  private int count;
+
+  // Decks with reviews in the block, lets deck filters skip it without decoding
+  private List<UUID> deckIds;
+
+  private byte[] data;
+
+  private long compactedAt;
+
+  public static String idOf(String userId, String month, int part) {
+    return userId + ":" + month + ":" + part;
+  }
+}
@@ -0,0 +1,40 @@
+package com.lucia.memoria_training.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * FSRS weights fitted to one user's review history.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "scheduler_parameters")
+public class SchedulerParameters {
+
+  // The user id
+  @Id
+  private String id;
+
+  private double[] weights;
+
+  // Reviews the weights were fitted on
+  private int reviewCount;
+
+  // Newest review included, later reviews count towards the next refit
+  private long lastReviewedAt;
+
+  // Mean log loss on the fitted reviews with the fitted and with the default weights
+  private double logLoss;
+
+  private double defaultLogLoss;
+
+  @Indexed
+  private long fittedAt;
+}
@@ -0,0 +1,26 @@
+package com.lucia.memoria_training.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Scheduling choices of one user. Users without a document get the defaults.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "scheduling_preferences")
+public class SchedulingPreferences {
+
+  // The user id
+  @Id
+  private String id;
+
+  // False opts the user out of load-balanced due dates
+  private boolean loadBalancing = true;
+}
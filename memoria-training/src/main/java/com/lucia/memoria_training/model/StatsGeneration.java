@@ -0,0 +1,33 @@
+package com.lucia.memoria_training.model;
+
+import java.util.Arrays;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * The generation of a user's statistics rollups that reads and review ingestion use. A rebuild
+ * writes the next generation next to the current one and then switches this single document
+ * over, so statistics never show a half rebuilt state. Users without one are on generation 0.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "stats_generations")
+public class StatsGeneration {
+
+  @Id
+  private String userId;
+
+  private long generation;
+
+  // Rollups written before generations existed have no generation field and belong to 0
+  public static List<Long> matching(long generation) {
+    return generation == 0 ? Arrays.asList(0L, null) : List.of(generation);
+  }
+}
@@ -0,0 +1,23 @@
+package com.lucia.memoria_training.repository;
+
+import com.lucia.memoria_training.model.CardState;
+import java.util.List;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CardStateRepository extends MongoRepository<CardState, String> {
+
+  @Query(value = "{ 'userId': ?0, 'suspended': { $ne: true } }",
+      fields = "{ 'cardId': 1, 'deckId': 1, 'due': 1 }")
+  List<CardState> findDueEntriesByUserId(String userId);
+
+  // Suspended cards included, replaying them removes them from a snapshot
+  @Query(value = "{ 'userId': ?0, 'updatedAt': { $gte: ?1 } }",
+      fields = "{ 'cardId': 1, 'deckId': 1, 'due': 1, 'suspended': 1 }")
+  List<CardState> findDueEntriesByUserIdUpdatedSince(String userId, long updatedAt);
+
+  @Query(value = "{ 'userId': ?0, 'suspended': true }")
+  List<CardState> findSuspendedByUserId(String userId);
+}
@@ -0,0 +1,22 @@
+package com.lucia.memoria_training.repository;
+
+import com.lucia.memoria_training.model.DailyStats;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DailyStatsRepository extends MongoRepository<DailyStats, String> {
+
+  // A null deck id selects the totals over every deck, see StatsGeneration.matching
+  @Query(value = "{ 'userId': ?0, 'deckId': ?1, 'generation': { $in: ?2 }, "
+      + "'day': { $gte: ?3, $lte: ?4 } }", sort = "{ 'day': 1 }")
+  List<DailyStats> findRange(String userId, UUID deckId, List<Long> generations, long fromDay,
+      long toDay);
+
+  void deleteAllByUserIdAndGeneration(String userId, long generation);
+
+  void deleteAllByUserIdAndGenerationNot(String userId, long generation);
+}
@@ -0,0 +1,17 @@
+package com.lucia.memoria_training.repository;
+
+import com.lucia.memoria_training.model.DeckMaturity;
+import java.util.List;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DeckMaturityRepository extends MongoRepository<DeckMaturity, String> {
+
+  // See StatsGeneration.matching
+  List<DeckMaturity> findAllByUserIdAndGenerationIn(String userId, List<Long> generations);
+
+  void deleteAllByUserIdAndGeneration(String userId, long generation);
+
+  void deleteAllByUserIdAndGenerationNot(String userId, long generation);
+}
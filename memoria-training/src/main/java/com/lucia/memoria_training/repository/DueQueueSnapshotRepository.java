@@ -0,0 +1,15 @@
+package com.lucia.memoria_training.repository;
+
+import com.lucia.memoria_training.model.DueQueueSnapshot;
+import java.util.List;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DueQueueSnapshotRepository extends MongoRepository<DueQueueSnapshot, String> {
+
+  // Ids only, the snapshot data is not read
+  @Query(value = "{ 'takenAt': { $gte: ?0 } }", fields = "{ '_id': 1 }")
+  List<DueQueueSnapshot> findIdsTakenSince(long takenAt);
+}
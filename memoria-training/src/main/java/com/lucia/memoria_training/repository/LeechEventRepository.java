@@ -0,0 +1,18 @@
+package com.lucia.memoria_training.repository;
+
+import com.lucia.memoria_training.model.LeechEvent;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LeechEventRepository extends MongoRepository<LeechEvent, String> {
+
+  @Query(value = "{ 'publishedAt': null }", sort = "{ 'detectedAt': 1 }")
+  List<LeechEvent> findUnpublished(Pageable pageable);
+
+  @Query(value = "{ 'publishedAt': { $lt: ?0 } }", delete = true)
+  long deletePublishedBefore(long publishedAt);
+}
@@ -0,0 +1,12 @@
+package com.lucia.memoria_training.repository;
+
+import com.lucia.memoria_training.model.ReviewLogArchive;
+import java.util.List;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReviewLogArchiveRepository extends MongoRepository<ReviewLogArchive, String> {
+
+  List<ReviewLogArchive> findAllByUserIdAndMonth(String userId, String month);
+}
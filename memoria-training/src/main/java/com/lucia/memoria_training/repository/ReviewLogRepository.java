@@ -0,0 +1,10 @@
+package com.lucia.memoria_training.repository;
+
+import com.lucia.memoria_training.model.ReviewLog;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReviewLogRepository extends MongoRepository<ReviewLog, String> {
+
+}
@@ -0,0 +1,13 @@
+package com.lucia.memoria_training.repository;
+
+import com.lucia.memoria_training.model.SchedulerParameters;
+import java.util.List;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SchedulerParametersRepository extends
+    MongoRepository<SchedulerParameters, String> {
+
+  List<SchedulerParameters> findAllByFittedAtGreaterThan(long fittedAt);
+}
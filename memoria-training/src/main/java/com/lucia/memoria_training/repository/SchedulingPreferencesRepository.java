@@ -0,0 +1,11 @@
+package com.lucia.memoria_training.repository;
+
+import com.lucia.memoria_training.model.SchedulingPreferences;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SchedulingPreferencesRepository extends
+    MongoRepository<SchedulingPreferences, String> {
+
+}
@@ -0,0 +1,311 @@
+package com.lucia.memoria_training.service;
+
+import com.lucia.memoria_training.dto.ReviewRequestDTO;
+import com.lucia.memoria_training.model.CardReplica;
+import com.lucia.memoria_training.model.CardState;
+import com.lucia.memoria_training.model.LeechEvent;
+import com.lucia.memoria_training.model.ReviewDeadLetter;
+import com.lucia.memoria_training.model.ReviewLog;
+import com.lucia.memoria_training.repository.CardStateRepository;
+import com.lucia.memoria_training.repository.ReviewLogRepository;
+import com.lucia.memoria_training.service.balance.DueLoadBalancer;
+import com.lucia.memoria_training.service.changefeed.ChangeFeedService;
+import com.lucia.memoria_training.service.due.DueQueueService;
+import com.lucia.memoria_training.service.ingestion.ReviewEvent;
+import com.lucia.memoria_training.service.leech.LeechDetector;
+import com.lucia.memoria_training.service.scheduler.MemoryState;
+import com.lucia.memoria_training.service.scheduler.ReviewScheduler;
+import com.lucia.memoria_training.service.scheduler.SchedulerRegistry;
+import com.lucia.memoria_training.service.stats.StatsRollup;
+import com.lucia.memoria_training.service.stats.StatsService;
+import com.mongodb.bulk.BulkWriteResult;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+public class ReviewService {
+
+  private final CardStateRepository cardStateRepository;
+  private final ReviewLogRepository reviewLogRepository;
+  private final MongoTemplate mongoTemplate;
+  private final DueQueueService dueQueueService;
+  private final SchedulerRegistry schedulerRegistry;
+  private final StatsService statsService;
+  private final ChangeFeedService changeFeedService;
+  private final DueLoadBalancer dueLoadBalancer;
+  private final LeechDetector leechDetector;
+
+  public ReviewService(CardStateRepository cardStateRepository,
+      ReviewLogRepository reviewLogRepository, MongoTemplate mongoTemplate,
+      DueQueueService dueQueueService, SchedulerRegistry schedulerRegistry,
+      StatsService statsService, ChangeFeedService changeFeedService,
+      DueLoadBalancer dueLoadBalancer, LeechDetector leechDetector) {
+    this.cardStateRepository = cardStateRepository;
+    this.reviewLogRepository = reviewLogRepository;
+    this.mongoTemplate = mongoTemplate;
+    this.dueQueueService = dueQueueService;
+    this.schedulerRegistry = schedulerRegistry;
+    this.statsService = statsService;
+    this.changeFeedService = changeFeedService;
+    this.dueLoadBalancer = dueLoadBalancer;
+    this.leechDetector = leechDetector;
+  }
+
+  /**
+   * Applies a batch of logged reviews in log order with two bulk writes, review logs first and
+   * card states second. Both are idempotent without relying on the log's own sequence, which
+   * starts over with a fresh log directory: a card state counts the reviews it contains and each
+   * review log records its number among them, so a review whose log is at or below the state's
+   * count is already applied and skipped, whether it is replayed after a crash or retried by the
+   * client. A review id seen twice in a batch is applied once, and a review of a card
+   * memoria-data reported deleted is dropped. A card that becomes a leech is suspended and its
+   * leech event written before the card states, so a crash in between replays the review into
+   * the same event. A card state is only written back while its version is the one read, a
+   * state the change feed moved or removed meanwhile fails the batch for a retry that reads it
+   * again. The due load counts are updated while placing the reviews, so when a write fails
+   * they are dropped for the batch's users and reloaded from Mongo on their next review, a
+   * replay would count the same cards again otherwise.
+   * <p>
+   * The statistics rollups are incremented last, and each review log stays marked uncounted
+   * until they are. A replay of a review that is already applied but still uncounted adds its
+   * counts from the log and notifies the due queue again, so a batch that failed after its
+   * card states were written loses neither. Only a failure between incrementing the rollups
+   * and clearing the marks counts a batch twice.
+   */
+  public void applyBatch(List<ReviewEvent> events) {
+    Set<String> stateIds = new HashSet<>();
+    Set<String> reviewIds = new HashSet<>();
+    Set<UUID> cardIds = new HashSet<>();
+    for (ReviewEvent event : events) {
+      stateIds.add(CardState.idOf(event.userId(), event.cardId()));
+      reviewIds.add(event.reviewId().toString());
+      cardIds.add(event.cardId());
+    }
+    Map<UUID, CardReplica> replicas = changeFeedService.findCards(cardIds);
+    Map<String, CardState> states = new HashMap<>();
+    Map<String, Long> readVersions = new HashMap<>();
+    cardStateRepository.findAllById(stateIds).forEach(state -> {
+      states.put(state.getId(), state);
+      readVersions.put(state.getId(), state.getVersion());
+    });
+    Map<String, ReviewLog> loggedReviews = new HashMap<>();
+    reviewLogRepository.findAllById(reviewIds)
+        .forEach(logged -> loggedReviews.put(logged.getId(), logged));
+
+    long now = System.currentTimeMillis();
+    MemoryState state = new MemoryState();
+    Map<String, CardState> changed = new LinkedHashMap<>();
+    // Applied by an earlier attempt that failed before counting them
+    Map<String, CardState> unfinished = new LinkedHashMap<>();
+    List<String> uncounted = new ArrayList<>();
+    List<ReviewLog> logs = new ArrayList<>();
+    List<LeechEvent> leeches = new ArrayList<>();
+    StatsRollup rollup = statsService.newRollup();
+    Set<String> batchReviewIds = new HashSet<>();
+    for (ReviewEvent event : events) {
+      String reviewId = event.reviewId().toString();
+      if (!batchReviewIds.add(reviewId)) {
+        continue;
+      }
+      CardReplica replica = replicas.get(event.cardId());
+      if (replica != null && replica.isDeleted()) {
+        continue;
+      }
+      // The replica knows about moves the client may not have seen yet
+      UUID deckId = replica != null ? replica.getDeckId() : event.deckId();
+      String stateId = CardState.idOf(event.userId(), event.cardId());
+      CardState cardState = states.computeIfAbsent(stateId,
+          id -> new CardState(event.userId(), event.cardId(), deckId));
+      ReviewLog logged = loggedReviews.get(reviewId);
+      if (logged != null && logged.getCardReview() <= cardState.getAppliedReviews()) {
+        if (logged.isUncounted()) {
+          rollup.addReview(logged.getUserId(), logged.getDeckId(), logged.getGrade(),
+              logged.getReviewedAt(), logged.getElapsedDays(), logged.getElapsedDays() == 0);
+          rollup.moveCard(logged.getUserId(), logged.getPreviousDeckId(),
+              logged.getPreviousMaturity(), logged.getDeckId(), logged.getMaturity());
+          uncounted.add(reviewId);
+          unfinished.put(stateId, cardState);
+        }
+        continue;
+      }
+      long cardReview = cardState.getAppliedReviews() + 1;
+      UUID previousDeckId = cardState.getDeckId();
+      int previousMaturity = rollup.maturityOf(cardState.getLastReview(), cardState.getDue());
+      if (deckId != null) {
+        cardState.setDeckId(deckId);
+      }
+
+      cardState.copyTo(state);
+      long previousReview = state.lastReview;
+      int previousLapses = state.lapses;
+      boolean wasSuspended = cardState.isSuspended();
+      schedulerRegistry.schedulerFor(event.userId())
+          .review(state, event.grade(), event.reviewedAt());
+      if (leechDetector.onReview(cardState, state, previousLapses, previousReview == 0)) {
+        leeches.add(new LeechEvent(LeechEvent.idOf(stateId, cardReview),
+            event.userId(), event.cardId(), cardState.getDeckId(), state.lapses,
+            cardState.getConsecutiveLapses(), now, null));
+      }
+      // Suspended cards are not counted, one suspended just now stops counting on its old day
+      if (!cardState.isSuspended()) {
+        dueLoadBalancer.place(event.userId(), cardState.getDue(), state);
+      } else if (!wasSuspended) {
+        dueLoadBalancer.remove(event.userId(), cardState.getDue());
+      }
+      cardState.copyFrom(state);
+      cardState.setAppliedReviews(cardReview);
+      cardState.setUpdatedAt(now);
+      changed.put(stateId, cardState);
+
+      double elapsedDays = previousReview == 0 ? 0
+          : Math.max(0, (event.reviewedAt() - previousReview) / (double) ReviewScheduler.DAY_MILLIS);
+      double scheduledDays = (state.due - event.reviewedAt()) / (double) ReviewScheduler.DAY_MILLIS;
+      int maturity = rollup.maturityOf(state.lastReview, state.due);
+      logs.add(new ReviewLog(reviewId, event.userId(), event.cardId(), cardState.getDeckId(),
+          event.grade(), event.reviewedAt(), elapsedDays, scheduledDays, state.stability,
+          state.difficulty, cardReview, true, previousDeckId, previousMaturity, maturity));
+      uncounted.add(reviewId);
+      rollup.addReview(event.userId(), cardState.getDeckId(), event.grade(), event.reviewedAt(),
+          elapsedDays, previousReview == 0);
+      rollup.moveCard(event.userId(), previousDeckId, previousMaturity, cardState.getDeckId(),
+          maturity);
+    }
+    if (changed.isEmpty()) {
+      notifyDueQueues(unfinished.values());
+      countReviews(rollup, uncounted);
+      return;
+    }
+
+    try {
+      BulkOperations logWrites = mongoTemplate.bulkOps(BulkMode.UNORDERED, ReviewLog.class);
+      logs.forEach(entry -> logWrites.replaceOne(byId(entry.getId()), entry,
+          FindAndReplaceOptions.options().upsert()));
+      logWrites.execute();
+
+      if (!leeches.isEmpty()) {
+        BulkOperations leechWrites = mongoTemplate.bulkOps(BulkMode.UNORDERED, LeechEvent.class);
+        leeches.forEach(leech -> leechWrites.replaceOne(byId(leech.getId()), leech,
+            FindAndReplaceOptions.options().upsert()));
+        leechWrites.execute();
+      }
+
+      BulkOperations stateWrites = mongoTemplate.bulkOps(BulkMode.UNORDERED, CardState.class);
+      for (CardState cardState : changed.values()) {
+        Long readVersion = readVersions.get(cardState.getId());
+        cardState.setVersion(readVersion == null ? 1 : readVersion + 1);
+        if (readVersion == null) {
+          stateWrites.replaceOne(byId(cardState.getId()), cardState,
+              FindAndReplaceOptions.options().upsert());
+        } else {
+          stateWrites.replaceOne(CardState.unchanged(cardState.getId(), readVersion), cardState);
+        }
+      }
+      BulkWriteResult written = stateWrites.execute();
+      // Moved or removed by the change feed meanwhile, the retry reads them again
+      if (written.getMatchedCount() + written.getUpserts().size() < changed.size()) {
+        throw new OptimisticLockingFailureException(
+            "Card states changed while their reviews were applied");
+      }
+    } catch (RuntimeException e) {
+      Set<String> userIds = new HashSet<>();
+      changed.values().forEach(cardState -> userIds.add(cardState.getUserId()));
+      dueLoadBalancer.discardIf(userIds::contains);
+      throw e;
+    }
+    notifyDueQueues(unfinished.values());
+    notifyDueQueues(changed.values());
+
+    // A card deleted or moved after its replica was read above had its state written anyway,
+    // the change feed writes replicas before states so reading them again catches it
+    List<CardReplica> stale = new ArrayList<>();
+    changeFeedService.findCards(changed.values().stream().map(CardState::getCardId).toList())
+        .values()
+        .forEach(replica -> {
+          CardState cardState = changed.get(CardState.idOf(replica.getUserId(),
+              replica.getCardId()));
+          if (cardState != null && (replica.isDeleted()
+              || !Objects.equals(replica.getDeckId(), cardState.getDeckId()))) {
+            stale.add(replica);
+          }
+        });
+    if (!stale.isEmpty()) {
+      changeFeedService.reconcile(stale);
+    }
+    countReviews(rollup, uncounted);
+  }
+
+  private void notifyDueQueues(Collection<CardState> cardStates) {
+    for (CardState cardState : cardStates) {
+      if (cardState.isSuspended()) {
+        dueQueueService.onCardsSuspended(cardState.getUserId(), List.of(cardState.getCardId()));
+      } else {
+        dueQueueService.onReview(cardState.getUserId(), cardState.getCardId(),
+            cardState.getDeckId(), cardState.getDue());
+      }
+    }
+  }
+
+  private void countReviews(StatsRollup rollup, List<String> reviewIds) {
+    if (reviewIds.isEmpty()) {
+      return;
+    }
+    statsService.apply(rollup);
+    mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(reviewIds)),
+        new Update().unset("uncounted"), ReviewLog.class);
+  }
+
+  /**
+   * Parks a review {@link #applyBatch} keeps rejecting. A review log it left without its card
+   * state is removed too, it would mark the review as applied otherwise.
+   */
+  public void deadLetter(ReviewEvent event, RuntimeException error) {
+    String reviewId = event.reviewId().toString();
+    mongoTemplate.save(new ReviewDeadLetter(reviewId, event.userId(), event.cardId(),
+        event.deckId(), event.grade(), event.reviewedAt(), String.valueOf(error),
+        System.currentTimeMillis()));
+    reviewLogRepository.findById(reviewId).ifPresent(logged -> {
+      long applied = cardStateRepository.findById(
+              CardState.idOf(event.userId(), event.cardId()))
+          .map(CardState::getAppliedReviews)
+          .orElse(0L);
+      if (logged.getCardReview() > applied) {
+        reviewLogRepository.deleteById(reviewId);
+      }
+    });
+  }
+
+  public static void validate(String userId, ReviewRequestDTO request) {
+    if (userId == null || userId.isBlank()) {
+      throw new IllegalArgumentException("User is required");
+    }
+    if (request == null || request.cardId() == null) {
+      throw new IllegalArgumentException("Card id is required");
+    }
+    if (!ReviewScheduler.isValidGrade(request.grade())) {
+      throw new IllegalArgumentException("Grade must be between 1 (again) and 4 (easy)");
+    }
+  }
+
+  private static Query byId(String id) {
+    return Query.query(Criteria.where("_id").is(id));
+  }
+}
@@ -0,0 +1,221 @@
+package com.lucia.memoria_training.service.archive;
+
+import com.lucia.memoria_training.model.ReviewLog;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Columnar encoding of a block of review logs, oldest first. Each field is stored as one
+ * column so similar values sit together before the block is deflated:
+ * <ul>
+ *   <li>card and deck ids once each in a dictionary, reviews refer to them by varint index</li>
+ *   <li>review times as the first time and then varint deltas</li>
+ *   <li>grades packed four to a byte</li>
+ *   <li>intervals, stability and difficulty as 32-bit floats</li>
+ * </ul>
+ * Review ids are kept as raw UUIDs; the card review number is not kept, only ingestion of recent
+ * reviews reads it.
+ */
+final class ReviewLogBlockCodec {
+
+  private static final int FORMAT_VERSION = 1;
+
+  private ReviewLogBlockCodec() {
+  }
+
+  /**
+   * Encodes logs sorted by review time.
+   *
+   * @throws IllegalArgumentException when a review id is not a UUID or a grade is out of range
+   */
+  static byte[] encode(List<ReviewLog> logs) {
+    int count = logs.size();
+    Map<UUID, Integer> cards = new HashMap<>();
+    List<UUID> cardDictionary = new ArrayList<>();
+    // Index 0 stands for no deck
+    Map<UUID, Integer> decks = new HashMap<>();
+    List<UUID> deckDictionary = new ArrayList<>();
+    int[] cardIndexes = new int[count];
+    int[] deckIndexes = new int[count];
+    for (int i = 0; i < count; i++) {
+      ReviewLog entry = logs.get(i);
+      cardIndexes[i] = cards.computeIfAbsent(entry.getCardId(), id -> {
+        cardDictionary.add(id);
+        return cardDictionary.size() - 1;
+      });
+      deckIndexes[i] = entry.getDeckId() == null ? 0
+          : decks.computeIfAbsent(entry.getDeckId(), id -> {
+            deckDictionary.add(id);
+            return deckDictionary.size();
+          });
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(count * 24 + 64);
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    try (DataOutputStream out = new DataOutputStream(
+        new DeflaterOutputStream(bytes, deflater, 8192))) {
+      out.writeByte(FORMAT_VERSION);
+      writeVarLong(out, count);
+      writeUuids(out, cardDictionary);
+      writeUuids(out, deckDictionary);
+      for (ReviewLog entry : logs) {
+        UUID reviewId = UUID.fromString(entry.getId());
+        out.writeLong(reviewId.getMostSignificantBits());
+        out.writeLong(reviewId.getLeastSignificantBits());
+      }
+      long previous = 0;
+      for (ReviewLog entry : logs) {
+        long delta = entry.getReviewedAt() - previous;
+        if (delta < 0) {
+          throw new IllegalArgumentException("Review logs must be sorted by review time");
+        }
+        writeVarLong(out, delta);
+        previous = entry.getReviewedAt();
+      }
+      int packed = 0;
+      for (int i = 0; i < count; i++) {
+        int grade = logs.get(i).getGrade();
+        if (grade < 1 || grade > 4) {
+          throw new IllegalArgumentException("Grade out of range: " + grade);
+        }
+        packed |= (grade - 1) << ((i & 3) * 2);
+        if ((i & 3) == 3 || i == count - 1) {
+          out.writeByte(packed);
+          packed = 0;
+        }
+      }
+      for (int index : cardIndexes) {
+        writeVarLong(out, index);
+      }
+      for (int index : deckIndexes) {
+        writeVarLong(out, index);
+      }
+      for (ReviewLog entry : logs) {
+        out.writeFloat((float) entry.getElapsedDays());
+      }
+      for (ReviewLog entry : logs) {
+        out.writeFloat((float) entry.getScheduledDays());
+      }
+      for (ReviewLog entry : logs) {
+        out.writeFloat((float) entry.getStability());
+      }
+      for (ReviewLog entry : logs) {
+        out.writeFloat((float) entry.getDifficulty());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot encode review logs", e);
+    } finally {
+      // A deflater passed in is not released by the stream
+      deflater.end();
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Decodes a block back into review logs of the user, oldest first.
+   */
+  static List<ReviewLog> decode(String userId, byte[] data) {
+    Inflater inflater = new Inflater();
+    try (DataInputStream in = new DataInputStream(
+        new InflaterInputStream(new ByteArrayInputStream(data), inflater, 8192))) {
+      int version = in.readUnsignedByte();
+      if (version != FORMAT_VERSION) {
+        throw new IllegalStateException("Unknown review log block format " + version);
+      }
+      int count = (int) readVarLong(in);
+      UUID[] cards = readUuids(in);
+      UUID[] decks = readUuids(in);
+      List<ReviewLog> logs = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        ReviewLog entry = new ReviewLog();
+        entry.setId(new UUID(in.readLong(), in.readLong()).toString());
+        entry.setUserId(userId);
+        logs.add(entry);
+      }
+      long reviewedAt = 0;
+      for (ReviewLog entry : logs) {
+        reviewedAt += readVarLong(in);
+        entry.setReviewedAt(reviewedAt);
+      }
+      int packed = 0;
+      for (int i = 0; i < count; i++) {
+        if ((i & 3) == 0) {
+          packed = in.readUnsignedByte();
+        }
+        logs.get(i).setGrade(((packed >>> ((i & 3) * 2)) & 3) + 1);
+      }
+      for (ReviewLog entry : logs) {
+        entry.setCardId(cards[(int) readVarLong(in)]);
+      }
+      for (ReviewLog entry : logs) {
+        int deck = (int) readVarLong(in);
+        entry.setDeckId(deck == 0 ? null : decks[deck - 1]);
+      }
+      for (ReviewLog entry : logs) {
+        entry.setElapsedDays(in.readFloat());
+      }
+      for (ReviewLog entry : logs) {
+        entry.setScheduledDays(in.readFloat());
+      }
+      for (ReviewLog entry : logs) {
+        entry.setStability(in.readFloat());
+      }
+      for (ReviewLog entry : logs) {
+        entry.setDifficulty(in.readFloat());
+      }
+      return logs;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot decode review logs", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static void writeUuids(DataOutputStream out, List<UUID> uuids) throws IOException {
+    writeVarLong(out, uuids.size());
+    for (UUID uuid : uuids) {
+      out.writeLong(uuid.getMostSignificantBits());
+      out.writeLong(uuid.getLeastSignificantBits());
+    }
+  }
+
+  private static UUID[] readUuids(DataInputStream in) throws IOException {
+    UUID[] uuids = new UUID[(int) readVarLong(in)];
+    for (int i = 0; i < uuids.length; i++) {
+      uuids[i] = new UUID(in.readLong(), in.readLong());
+    }
+    return uuids;
+  }
+
+  private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private static long readVarLong(DataInputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; ; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package com.lucia.memoria_training.service.archive;
+
+import com.lucia.memoria_training.config.ArchiveConfig;
+import com.lucia.memoria_training.config.StatsConfig;
+import com.lucia.memoria_training.model.ReviewLog;
+import com.lucia.memoria_training.model.ReviewLogArchive;
+import com.lucia.memoria_training.repository.ReviewLogArchiveRepository;
+import com.lucia.memoria_training.service.shard.ShardOwnership;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+/**
+ * Periodically compacts old review logs into archive blocks, one user and month at a time.
+ * The month's logs are merged with the blocks it already has, written as blocks and only then
+ * deleted, deduplicated by review id, so a run cut short leaves some logs in both places until
+ * the next run and nothing lost. Each instance compacts the users it owns.
+ */
+@Service
+@Slf4j
+public class ReviewLogCompactor {
+
+  private static final int DELETE_BATCH_SIZE = 1000;
+
+  private final MongoTemplate mongoTemplate;
+  private final ReviewLogArchiveRepository archiveRepository;
+  private final ShardOwnership shardOwnership;
+  private final ArchiveConfig config;
+  private final ZoneId zone;
+  private final ScheduledExecutorService timer;
+
+  public ReviewLogCompactor(MongoTemplate mongoTemplate,
+      ReviewLogArchiveRepository archiveRepository, ShardOwnership shardOwnership,
+      ArchiveConfig config, StatsConfig statsConfig) {
+    this.mongoTemplate = mongoTemplate;
+    this.archiveRepository = archiveRepository;
+    this.shardOwnership = shardOwnership;
+    this.config = config;
+    this.zone = statsConfig.getZone();
+    this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "review-log-compactor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (config.isEnabled()) {
+      timer.scheduleWithFixedDelay(this::compactAll, config.getInitialDelay().toMillis(),
+          config.getInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Compacts the old review logs of every user this instance owns.
+   *
+   * @return how many review logs were moved into archive blocks
+   */
+  public long compactAll() {
+    long startedAt = System.currentTimeMillis();
+    long compacted = 0;
+    try {
+      long cutoff = YearMonth.now(zone).minusMonths(config.getOlderThanMonths()).plusMonths(1)
+          .atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+      List<String> userIds = mongoTemplate.findDistinct(
+          Query.query(Criteria.where("reviewedAt").lt(cutoff)), "userId", ReviewLog.class,
+          String.class);
+      for (String userId : userIds) {
+        if (!shardOwnership.owns(userId)) {
+          continue;
+        }
+        try {
+          compacted += compactUser(userId, cutoff);
+        } catch (RuntimeException e) {
+          log.warn("Could not compact the review logs of user {}", userId, e);
+        }
+      }
+      log.info("Compacted {} review logs of {} users in {} ms", compacted, userIds.size(),
+          System.currentTimeMillis() - startedAt);
+    } catch (RuntimeException e) {
+      log.error("Review log compaction failed", e);
+    }
+    return compacted;
+  }
+
+  // Reads the user's old logs month by month, oldest first
+  private long compactUser(String userId, long cutoff) {
+    Query query = Query.query(Criteria.where("userId").is(userId).and("reviewedAt").lt(cutoff))
+        .with(Sort.by("reviewedAt"))
+        .cursorBatchSize(1000);
+    query.fields().exclude("cardReview", "uncounted", "previousDeckId", "previousMaturity",
+        "maturity");
+    long compacted = 0;
+    List<ReviewLog> month = new ArrayList<>();
+    String monthKey = null;
+    try (Stream<ReviewLog> logs = mongoTemplate.stream(query, ReviewLog.class)) {
+      for (ReviewLog entry : (Iterable<ReviewLog>) logs::iterator) {
+        String key = monthOf(entry.getReviewedAt());
+        if (!key.equals(monthKey) && !month.isEmpty()) {
+          compacted += compactMonth(userId, monthKey, month);
+          month.clear();
+        }
+        monthKey = key;
+        month.add(entry);
+      }
+    }
+    if (!month.isEmpty()) {
+      compacted += compactMonth(userId, monthKey, month);
+    }
+    return compacted;
+  }
+
+  private int compactMonth(String userId, String month, List<ReviewLog> logs) {
+    List<ReviewLogArchive> existing = archiveRepository.findAllByUserIdAndMonth(userId, month);
+    Map<String, ReviewLog> merged = new LinkedHashMap<>();
+    for (ReviewLogArchive archive : existing) {
+      ReviewLogBlockCodec.decode(userId, archive.getData())
+          .forEach(entry -> merged.put(entry.getId(), entry));
+    }
+    logs.forEach(entry -> merged.put(entry.getId(), entry));
+    List<ReviewLog> sorted = new ArrayList<>(merged.values());
+    sorted.sort(Comparator.comparingLong(ReviewLog::getReviewedAt)
+        .thenComparing(ReviewLog::getId));
+
+    List<ReviewLogArchive> blocks = new ArrayList<>();
+    long now = System.currentTimeMillis();
+    try {
+      for (int from = 0; from < sorted.size(); from += config.getBlockSize()) {
+        List<ReviewLog> block = sorted.subList(from,
+            Math.min(from + config.getBlockSize(), sorted.size()));
+        blocks.add(new ReviewLogArchive(
+            ReviewLogArchive.idOf(userId, month, blocks.size()), userId, month, blocks.size(),
+            block.get(0).getReviewedAt(), block.get(block.size() - 1).getReviewedAt(),
+            block.size(), block.stream().map(ReviewLog::getDeckId).filter(Objects::nonNull)
+            .distinct().toList(), ReviewLogBlockCodec.encode(block), now));
+      }
+    } catch (IllegalArgumentException e) {
+      log.warn("Leaving the review logs of user {} for {} uncompacted: {}", userId, month,
+          e.getMessage());
+      return 0;
+    }
+
+    BulkOperations writes = mongoTemplate.bulkOps(BulkMode.UNORDERED, ReviewLogArchive.class);
+    blocks.forEach(block -> writes.replaceOne(
+        Query.query(Criteria.where("_id").is(block.getId())), block,
+        FindAndReplaceOptions.options().upsert()));
+    writes.execute();
+    // Fewer parts than before once the block size was raised
+    List<String> stale = existing.stream()
+        .filter(archive -> archive.getPart() >= blocks.size())
+        .map(ReviewLogArchive::getId)
+        .toList();
+    if (!stale.isEmpty()) {
+      archiveRepository.deleteAllById(stale);
+    }
+
+    List<String> ids = logs.stream().map(ReviewLog::getId).toList();
+    for (int from = 0; from < ids.size(); from += DELETE_BATCH_SIZE) {
+      mongoTemplate.remove(Query.query(Criteria.where("_id")
+              .in(ids.subList(from, Math.min(from + DELETE_BATCH_SIZE, ids.size())))),
+          ReviewLog.class);
+    }
+    return logs.size();
+  }
+
+  private String monthOf(long epochMillis) {
+    return YearMonth.from(Instant.ofEpochMilli(epochMillis).atZone(zone)).toString();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    timer.shutdownNow();
+  }
+}
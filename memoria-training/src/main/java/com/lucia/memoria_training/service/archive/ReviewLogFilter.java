@@ -0,0 +1,27 @@
+package com.lucia.memoria_training.service.archive;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Which review logs to read.
+ *
+ * @param userId  null for every user
+ * @param deckIds null or empty for every deck
+ * @param from    first review time included, epoch millis
+ * @param to      first review time excluded, epoch millis
+ */
+public record ReviewLogFilter(String userId, Collection<UUID> deckIds, long from, long to) {
+
+  public static ReviewLogFilter ofUser(String userId) {
+    return new ReviewLogFilter(userId, null, 0, Long.MAX_VALUE);
+  }
+
+  boolean hasDecks() {
+    return deckIds != null && !deckIds.isEmpty();
+  }
+
+  boolean matches(UUID deckId, long reviewedAt) {
+    return reviewedAt >= from && reviewedAt < to && (!hasDecks() || deckIds.contains(deckId));
+  }
+}
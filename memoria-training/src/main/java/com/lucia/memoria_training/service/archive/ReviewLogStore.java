@@ -0,0 +1,243 @@
+package com.lucia.memoria_training.service.archive;
+
+import com.lucia.memoria_training.model.ReviewLog;
+import com.lucia.memoria_training.model.ReviewLogArchive;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads review logs wherever they are kept: recent ones as documents, old ones compacted into
+ * archive blocks. Both are read through cursors in user and review time order and merged, one
+ * decoded block at a time, so callers see a single history and memory stays bounded. A log the
+ * compactor already archived but not yet deleted is in both, the merge hands it out once.
+ */
+@Service
+public class ReviewLogStore {
+
+  // Blocks are large, a few per round trip are plenty
+  private static final int ARCHIVE_BATCH_SIZE = 4;
+
+  // Same order as the queries below and the blocks, so a log in both inputs meets itself
+  private static final Comparator<ReviewLog> ASCENDING = Comparator
+      .comparing(ReviewLog::getUserId)
+      .thenComparingLong(ReviewLog::getReviewedAt)
+      .thenComparing(ReviewLog::getId);
+
+  private final MongoTemplate mongoTemplate;
+
+  public ReviewLogStore(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Streams the matching review logs ordered by user and review time. The stream must be
+   * closed. Logs read from archive blocks have every field set whatever {@code fields} asks for
+   * and no card review number.
+   *
+   * @param limit  most logs returned, 0 for all
+   * @param fields fields read from review log documents, none for all; user and review time
+   *               are always read
+   */
+  public Stream<ReviewLog> stream(ReviewLogFilter filter, Direction direction, int limit,
+      int batchSize, String... fields) {
+    Criteria criteria = Criteria.where("reviewedAt").gte(filter.from()).lt(filter.to());
+    if (filter.userId() != null) {
+      criteria = criteria.and("userId").is(filter.userId());
+    }
+    if (filter.hasDecks()) {
+      criteria = criteria.and("deckId").in(filter.deckIds());
+    }
+    Query rawQuery = Query.query(criteria)
+        .with(Sort.by(direction, "userId", "reviewedAt", "_id"))
+        .cursorBatchSize(batchSize);
+    if (limit > 0) {
+      rawQuery.limit(limit);
+    }
+    if (fields.length > 0) {
+      rawQuery.fields().include(fields).include("userId", "reviewedAt");
+    }
+
+    Criteria blocks = Criteria.where("firstReviewedAt").lt(filter.to())
+        .and("lastReviewedAt").gte(filter.from());
+    if (filter.userId() != null) {
+      blocks = blocks.and("userId").is(filter.userId());
+    }
+    if (filter.hasDecks()) {
+      blocks = blocks.and("deckIds").in(filter.deckIds());
+    }
+    Query archiveQuery = Query.query(blocks)
+        .with(Sort.by(direction, "userId", "firstReviewedAt", "part"))
+        .cursorBatchSize(ARCHIVE_BATCH_SIZE);
+
+    Stream<ReviewLog> raw = mongoTemplate.stream(rawQuery, ReviewLog.class);
+    Stream<ReviewLogArchive> archives;
+    try {
+      archives = mongoTemplate.stream(archiveQuery, ReviewLogArchive.class);
+    } catch (RuntimeException e) {
+      raw.close();
+      throw e;
+    }
+    Comparator<ReviewLog> order = direction == Direction.ASC ? ASCENDING : ASCENDING.reversed();
+    Iterator<ReviewLog> merged = new MergingIterator(raw.iterator(),
+        new BlockIterator(archives.iterator(), filter, direction), order);
+    Stream<ReviewLog> logs = StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL),
+            false)
+        .onClose(() -> {
+          try {
+            raw.close();
+          } finally {
+            archives.close();
+          }
+        });
+    return limit > 0 ? logs.limit(limit) : logs;
+  }
+
+  /**
+   * Counts the user's reviews after the given time, stopping once {@code limit} are found.
+   * Archive blocks only count when every review in them is after it.
+   */
+  public long count(String userId, long after, long limit) {
+    Criteria criteria = Criteria.where("userId").is(userId).and("reviewedAt").gt(after);
+    long count = mongoTemplate.count(Query.query(criteria).limit((int) limit), ReviewLog.class);
+    if (count >= limit) {
+      return count;
+    }
+    Query blocks = Query.query(Criteria.where("userId").is(userId)
+        .and("firstReviewedAt").gt(after));
+    blocks.fields().include("count");
+    for (ReviewLogArchive archive : mongoTemplate.find(blocks, ReviewLogArchive.class)) {
+      count += archive.getCount();
+      if (count >= limit) {
+        break;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Every user with reviews, recent or archived.
+   */
+  public List<String> findUserIds() {
+    Set<String> userIds = new TreeSet<>(mongoTemplate.findDistinct(new Query(), "userId",
+        ReviewLog.class, String.class));
+    userIds.addAll(mongoTemplate.findDistinct(new Query(), "userId", ReviewLogArchive.class,
+        String.class));
+    return new ArrayList<>(userIds);
+  }
+
+  // Decodes one block at a time and hands out its logs that match the filter
+  private static final class BlockIterator implements Iterator<ReviewLog> {
+
+    private final Iterator<ReviewLogArchive> archives;
+    private final ReviewLogFilter filter;
+    private final Direction direction;
+    private Iterator<ReviewLog> current = Collections.emptyIterator();
+    private ReviewLog next;
+
+    private BlockIterator(Iterator<ReviewLogArchive> archives, ReviewLogFilter filter,
+        Direction direction) {
+      this.archives = archives;
+      this.filter = filter;
+      this.direction = direction;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null) {
+        if (current.hasNext()) {
+          ReviewLog candidate = current.next();
+          if (filter.matches(candidate.getDeckId(), candidate.getReviewedAt())) {
+            next = candidate;
+          }
+        } else if (archives.hasNext()) {
+          ReviewLogArchive archive = archives.next();
+          List<ReviewLog> logs = ReviewLogBlockCodec.decode(archive.getUserId(),
+              archive.getData());
+          if (direction == Direction.DESC) {
+            Collections.reverse(logs);
+          }
+          current = logs.iterator();
+        } else {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public ReviewLog next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      ReviewLog result = next;
+      next = null;
+      return result;
+    }
+  }
+
+  // Both inputs are in the same strict order, a log found in both is taken from the first
+  private static final class MergingIterator implements Iterator<ReviewLog> {
+
+    private final Iterator<ReviewLog> first;
+    private final Iterator<ReviewLog> second;
+    private final Comparator<ReviewLog> order;
+    private ReviewLog firstHead;
+    private ReviewLog secondHead;
+
+    private MergingIterator(Iterator<ReviewLog> first, Iterator<ReviewLog> second,
+        Comparator<ReviewLog> order) {
+      this.first = first;
+      this.second = second;
+      this.order = order;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (firstHead == null && first.hasNext()) {
+        firstHead = first.next();
+      }
+      if (secondHead == null && second.hasNext()) {
+        secondHead = second.next();
+      }
+      return firstHead != null || secondHead != null;
+    }
+
+    @Override
+    public ReviewLog next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      ReviewLog result;
+      int comparison = firstHead == null ? 1 : secondHead == null ? -1
+          : order.compare(firstHead, secondHead);
+      if (comparison <= 0) {
+        result = firstHead;
+        firstHead = null;
+        if (comparison == 0) {
+          secondHead = null;
+        }
+      } else {
+        result = secondHead;
+        secondHead = null;
+      }
+      return result;
+    }
+  }
+}
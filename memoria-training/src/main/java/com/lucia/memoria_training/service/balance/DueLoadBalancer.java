@@ -0,0 +1,222 @@
+package com.lucia.memoria_training.service.balance;
+
+import com.lucia.memoria_training.config.LoadBalanceConfig;
+import com.lucia.memoria_training.config.SchedulerConfig;
+import com.lucia.memoria_training.config.StatsConfig;
+import com.lucia.memoria_training.model.CardState;
+import com.lucia.memoria_training.model.SchedulingPreferences;
+import com.lucia.memoria_training.repository.SchedulingPreferencesRepository;
+import com.lucia.memoria_training.service.scheduler.MemoryState;
+import com.lucia.memoria_training.service.scheduler.ReviewScheduler;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+/**
+ * Spreads reviews evenly over the days: a due date the scheduler picked moves, within the fuzz
+ * window of its interval, to the day the user has the fewest cards due. Each user's daily due
+ * counts are loaded once from their card states and then kept current by every review, so a
+ * placement only looks at the days of the window. Users can opt out, their due dates are left
+ * as scheduled but still counted.
+ */
+@Service
+@Slf4j
+public class DueLoadBalancer {
+
+  // Shorter intervals have no room to move
+  private static final double MIN_FUZZ_INTERVAL_DAYS = 2.5;
+
+  private final MongoTemplate mongoTemplate;
+  private final SchedulingPreferencesRepository preferencesRepository;
+  private final LoadBalanceConfig config;
+  private final ZoneId zone;
+  private final int maximumIntervalDays;
+  private final Map<String, UserDueLoad> loads = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService sweeper;
+
+  public DueLoadBalancer(MongoTemplate mongoTemplate,
+      SchedulingPreferencesRepository preferencesRepository, LoadBalanceConfig config,
+      SchedulerConfig schedulerConfig, StatsConfig statsConfig) {
+    this.mongoTemplate = mongoTemplate;
+    this.preferencesRepository = preferencesRepository;
+    this.config = config;
+    this.zone = statsConfig.getZone();
+    this.maximumIntervalDays = schedulerConfig.getMaximumIntervalDays();
+    this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "due-load-sweeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long interval = config.getSweepInterval().toMillis();
+    sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Moves the due date the scheduler just set to the least loaded day of its fuzz window and
+   * counts the card there instead of on its previous due day.
+   */
+  public void place(String userId, long previousDue, MemoryState state) {
+    if (!config.isEnabled()) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    UserDueLoad load = loadFor(userId, now);
+    synchronized (load) {
+      load.advanceTo(dayOf(now));
+      if (load.isEnabled()) {
+        state.due = balance(load, state);
+      }
+      load.add(dayOf(previousDue), -1);
+      load.add(dayOf(state.due), 1);
+    }
+  }
+
+  /**
+   * Counts a card again that was not counted, e.g. a leech put back into the due queue. Users
+   * without loaded counts are left alone, loading them reads the card from its state.
+   */
+  public void add(String userId, long due) {
+    UserDueLoad load = loads.get(userId);
+    if (load != null) {
+      synchronized (load) {
+        load.add(dayOf(due), 1);
+      }
+    }
+  }
+
+  /**
+   * Stops counting a card whose state was deleted.
+   */
+  public void remove(String userId, long due) {
+    UserDueLoad load = loads.get(userId);
+    if (load != null) {
+      synchronized (load) {
+        load.add(dayOf(due), -1);
+      }
+    }
+  }
+
+  /**
+   * Drops the due counts of the matching users, they are loaded again on their next review.
+   */
+  public void discardIf(Predicate<String> userFilter) {
+    loads.keySet().removeIf(userFilter);
+  }
+
+  public boolean isLoadBalancing(String userId) {
+    requireUser(userId);
+    return preferencesRepository.findById(userId)
+        .map(SchedulingPreferences::isLoadBalancing)
+        .orElse(true);
+  }
+
+  public void setLoadBalancing(String userId, boolean loadBalancing) {
+    requireUser(userId);
+    preferencesRepository.save(new SchedulingPreferences(userId, loadBalancing));
+    UserDueLoad load = loads.get(userId);
+    if (load != null) {
+      synchronized (load) {
+        load.setEnabled(loadBalancing);
+      }
+    }
+  }
+
+  /**
+   * Half the width of the fuzz window around an interval: a day plus 15% of the interval
+   * between 2.5 and 7 days, 10% of it up to 20 days and 5% of anything beyond.
+   */
+  static double fuzzDelta(double intervalDays) {
+    double delta = 1;
+    delta += 0.15 * (Math.min(intervalDays, 7) - MIN_FUZZ_INTERVAL_DAYS);
+    if (intervalDays > 7) {
+      delta += 0.1 * (Math.min(intervalDays, 20) - 7);
+    }
+    if (intervalDays > 20) {
+      delta += 0.05 * (intervalDays - 20);
+    }
+    return delta;
+  }
+
+  private long balance(UserDueLoad load, MemoryState state) {
+    double intervalDays = (state.due - state.lastReview) / (double) ReviewScheduler.DAY_MILLIS;
+    if (intervalDays < MIN_FUZZ_INTERVAL_DAYS) {
+      return state.due;
+    }
+    double delta = fuzzDelta(intervalDays);
+    long interval = Math.round(intervalDays);
+    long shortest = Math.max(2, Math.round(intervalDays - delta));
+    long longest = Math.max(interval, Math.min(maximumIntervalDays,
+        Math.round(intervalDays + delta)));
+    long dueDay = dayOf(state.due);
+    long chosen = load.leastLoaded(dueDay - (interval - shortest),
+        dueDay + (longest - interval), dueDay);
+    return state.due + (chosen - dueDay) * ReviewScheduler.DAY_MILLIS;
+  }
+
+  private UserDueLoad loadFor(String userId, long now) {
+    UserDueLoad load = loads.get(userId);
+    if (load == null) {
+      UserDueLoad loaded = load(userId, now);
+      load = loads.putIfAbsent(userId, loaded);
+      if (load == null) {
+        load = loaded;
+      }
+    }
+    load.touch(now);
+    return load;
+  }
+
+  private UserDueLoad load(String userId, long now) {
+    long today = dayOf(now);
+    UserDueLoad load = new UserDueLoad(config.getHorizonDays(), today, isLoadBalancing(userId));
+    Query query = Query.query(Criteria.where("userId").is(userId).and("due")
+        .gte(startOf(today)).lt(startOf(today + config.getHorizonDays()))
+        .and("suspended").ne(true));
+    query.fields().include("due");
+    try (Stream<CardState> states = mongoTemplate.stream(query, CardState.class)) {
+      states.forEach(state -> load.add(dayOf(state.getDue()), 1));
+    }
+    return load;
+  }
+
+  private void sweep() {
+    try {
+      long idleBefore = System.currentTimeMillis() - config.getIdleTimeout().toMillis();
+      loads.entrySet().removeIf(entry -> entry.getValue().getLastAccess() < idleBefore);
+    } catch (RuntimeException e) {
+      log.warn("Due load sweep failed", e);
+    }
+  }
+
+  private long dayOf(long epochMillis) {
+    return Instant.ofEpochMilli(epochMillis).atZone(zone).toLocalDate().toEpochDay();
+  }
+
+  private long startOf(long epochDay) {
+    return LocalDate.ofEpochDay(epochDay).atStartOfDay(zone).toInstant().toEpochMilli();
+  }
+
+  private static void requireUser(String userId) {
+    if (userId == null || userId.isBlank()) {
+      throw new IllegalArgumentException("User is required");
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    sweeper.shutdownNow();
+  }
+}
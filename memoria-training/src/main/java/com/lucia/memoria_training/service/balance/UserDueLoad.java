@@ -0,0 +1,88 @@
+package com.lucia.memoria_training.service.balance;
+
+/**
+ * Number of one user's cards due on each of the next days, in a ring of {@code int} counters
+ * indexed by epoch day. Days before the first covered day fall out as it advances, and their
+ * slots are reused for the days coming into range at the far end. Not thread safe, callers
+ * synchronize on the instance.
+ */
+final class UserDueLoad {
+
+  private final int[] counts;
+  private long firstDay;
+  private boolean enabled;
+  private volatile long lastAccess = System.currentTimeMillis();
+
+  UserDueLoad(int days, long today, boolean enabled) {
+    this.counts = new int[days];
+    this.firstDay = today;
+    this.enabled = enabled;
+  }
+
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  void touch(long now) {
+    lastAccess = now;
+  }
+
+  long getLastAccess() {
+    return lastAccess;
+  }
+
+  void advanceTo(long today) {
+    if (today <= firstDay) {
+      return;
+    }
+    long passed = Math.min(today - firstDay, counts.length);
+    for (long day = firstDay; day < firstDay + passed; day++) {
+      counts[slot(day)] = 0;
+    }
+    firstDay = today;
+  }
+
+  boolean covers(long day) {
+    return day >= firstDay && day < firstDay + counts.length;
+  }
+
+  int count(long day) {
+    return covers(day) ? counts[slot(day)] : 0;
+  }
+
+  void add(long day, int delta) {
+    if (covers(day)) {
+      int slot = slot(day);
+      counts[slot] = Math.max(0, counts[slot] + delta);
+    }
+  }
+
+  /**
+   * The day from {@code fromDay} to {@code toDay} with the fewest cards due, the one closest to
+   * {@code preferredDay} among equals. Days outside the covered range are never chosen.
+   */
+  long leastLoaded(long fromDay, long toDay, long preferredDay) {
+    long best = preferredDay;
+    int bestCount = Integer.MAX_VALUE;
+    long bestDistance = Long.MAX_VALUE;
+    for (long day = Math.max(fromDay, firstDay);
+        day <= Math.min(toDay, firstDay + counts.length - 1); day++) {
+      int count = counts[slot(day)];
+      long distance = Math.abs(day - preferredDay);
+      if (count < bestCount || (count == bestCount && distance < bestDistance)) {
+        best = day;
+        bestCount = count;
+        bestDistance = distance;
+      }
+    }
+    return best;
+  }
+
+  private int slot(long day) {
+    return (int) Math.floorMod(day, (long) counts.length);
+  }
+}
@@ -0,0 +1,310 @@
+package com.lucia.memoria_training.service.changefeed;
+
+import com.lucia.memoria_training.client.TrainingPeerClient;
+import com.lucia.memoria_training.dto.ChangeEventDTO;
+import com.lucia.memoria_training.model.CardReplica;
+import com.lucia.memoria_training.model.CardState;
+import com.lucia.memoria_training.model.DeckReplica;
+import com.lucia.memoria_training.repository.CardReplicaRepository;
+import com.lucia.memoria_training.repository.CardStateRepository;
+import com.lucia.memoria_training.repository.DeckReplicaRepository;
+import com.lucia.memoria_training.service.balance.DueLoadBalancer;
+import com.lucia.memoria_training.service.due.DueQueueService;
+import com.lucia.memoria_training.service.shard.ShardOwnership;
+import com.lucia.memoria_training.service.stats.StatsRollup;
+import com.lucia.memoria_training.service.stats.StatsService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Applies the change feed of memoria-data to local replicas of its cards and decks, so which
+ * deck a card is in and where a deck sits in the tree are answered here without calling it.
+ * Delivery is at least once and batches may overlap, so every replica keeps the sequence of the
+ * last change applied and skips anything at or below it. A deleted card loses its schedule, a
+ * card moved to another deck takes its schedule along. Users owned by another instance have
+ * their in-memory state reloaded there.
+ * <p>
+ * The replicas are written first and the card states are then brought in line with them, for
+ * every card of the batch whether its change was new or not, so a redelivered batch finishes
+ * what a failed one started. State writes only go through while the state's version is the one
+ * read; one that lost against a review leaves the state to review ingestion, which reconciles
+ * against the replicas after writing.
+ */
+@Service
+@Slf4j
+public class ChangeFeedService {
+
+  private final MongoTemplate mongoTemplate;
+  private final CardReplicaRepository cardReplicaRepository;
+  private final DeckReplicaRepository deckReplicaRepository;
+  private final CardStateRepository cardStateRepository;
+  private final DueQueueService dueQueueService;
+  private final StatsService statsService;
+  private final DueLoadBalancer dueLoadBalancer;
+  private final ShardOwnership shardOwnership;
+  private final TrainingPeerClient trainingPeerClient;
+
+  public ChangeFeedService(MongoTemplate mongoTemplate,
+      CardReplicaRepository cardReplicaRepository, DeckReplicaRepository deckReplicaRepository,
+      CardStateRepository cardStateRepository, DueQueueService dueQueueService,
+      StatsService statsService, DueLoadBalancer dueLoadBalancer,
+      ShardOwnership shardOwnership, TrainingPeerClient trainingPeerClient) {
+    this.mongoTemplate = mongoTemplate;
+    this.cardReplicaRepository = cardReplicaRepository;
+    this.deckReplicaRepository = deckReplicaRepository;
+    this.cardStateRepository = cardStateRepository;
+    this.dueQueueService = dueQueueService;
+    this.statsService = statsService;
+    this.dueLoadBalancer = dueLoadBalancer;
+    this.shardOwnership = shardOwnership;
+    this.trainingPeerClient = trainingPeerClient;
+  }
+
+  public void apply(List<ChangeEventDTO> batch) {
+    List<ChangeEventDTO> events = batch.stream()
+        .filter(event -> event.userId() != null && event.type() != null)
+        .sorted(Comparator.comparingLong(ChangeEventDTO::sequence))
+        .toList();
+    Set<String> cardIds = new HashSet<>();
+    Set<String> deckIds = new HashSet<>();
+    for (ChangeEventDTO event : events) {
+      if (event.type().startsWith("CARD_") && event.cardId() != null) {
+        cardIds.add(event.cardId().toString());
+      } else if (event.type().startsWith("DECK_") && event.deckId() != null) {
+        deckIds.add(event.deckId().toString());
+      }
+    }
+    Map<String, CardReplica> cards = new HashMap<>();
+    cardReplicaRepository.findAllById(cardIds).forEach(card -> cards.put(card.getId(), card));
+    Map<String, DeckReplica> decks = new HashMap<>();
+    deckReplicaRepository.findAllById(deckIds).forEach(deck -> decks.put(deck.getId(), deck));
+
+    long now = System.currentTimeMillis();
+    Map<String, CardReplica> changedCards = new LinkedHashMap<>();
+    Map<String, DeckReplica> changedDecks = new LinkedHashMap<>();
+    for (ChangeEventDTO event : events) {
+      switch (event.type()) {
+        case "CARD_CREATED", "CARD_UPDATED", "CARD_DELETED" -> {
+          if (event.cardId() == null) {
+            continue;
+          }
+          CardReplica card = cards.computeIfAbsent(event.cardId().toString(),
+              id -> new CardReplica(event.userId(), event.cardId()));
+          if (event.sequence() <= card.getVersion()) {
+            continue;
+          }
+          if (event.type().equals("CARD_DELETED")) {
+            card.setDeleted(true);
+          } else {
+            card.setDeckId(event.deckId());
+            card.setTemplateId(event.templateId());
+            card.setDeleted(false);
+          }
+          card.setVersion(event.sequence());
+          card.setUpdatedAt(now);
+          changedCards.put(card.getId(), card);
+        }
+        case "DECK_CREATED", "DECK_UPDATED", "DECK_DELETED" -> {
+          if (event.deckId() == null) {
+            continue;
+          }
+          DeckReplica deck = decks.computeIfAbsent(event.deckId().toString(),
+              id -> new DeckReplica(event.userId(), event.deckId()));
+          if (event.sequence() <= deck.getVersion()) {
+            continue;
+          }
+          if (event.type().equals("DECK_DELETED")) {
+            deck.setDeleted(true);
+          } else {
+            deck.setParentDeckId(event.parentDeckId());
+            deck.setPath(event.path());
+            deck.setDeleted(false);
+          }
+          deck.setVersion(event.sequence());
+          deck.setUpdatedAt(now);
+          changedDecks.put(deck.getId(), deck);
+        }
+        // Templates carry nothing scheduling depends on
+        default -> log.trace("Ignoring change {} of type {}", event.eventId(), event.type());
+      }
+    }
+
+    if (!changedCards.isEmpty()) {
+      BulkOperations writes = mongoTemplate.bulkOps(BulkMode.UNORDERED, CardReplica.class);
+      changedCards.values().forEach(card -> writes.replaceOne(byId(card.getId()), card,
+          FindAndReplaceOptions.options().upsert()));
+      writes.execute();
+    }
+    if (!changedDecks.isEmpty()) {
+      BulkOperations writes = mongoTemplate.bulkOps(BulkMode.UNORDERED, DeckReplica.class);
+      changedDecks.values().forEach(deck -> writes.replaceOne(byId(deck.getId()), deck,
+          FindAndReplaceOptions.options().upsert()));
+      writes.execute();
+    }
+    reconcile(cards.values());
+  }
+
+  /**
+   * Removes the states of deleted cards and moves states into their card's deck. Users owned by
+   * another instance have their in-memory state reloaded there.
+   */
+  public void reconcile(Collection<CardReplica> cards) {
+    List<CardReplica> removed = new ArrayList<>();
+    List<CardReplica> live = new ArrayList<>();
+    for (CardReplica card : cards) {
+      (card.isDeleted() ? removed : live).add(card);
+    }
+    List<CardState> changed = new ArrayList<>(removeStates(removed));
+    changed.addAll(moveStates(live));
+
+    // memoria-data posts to any instance, the owners of the affected users reload them
+    Map<String, Set<String>> invalidations = new HashMap<>();
+    for (CardState state : changed) {
+      String owner = shardOwnership.ownerOf(state.getUserId());
+      if (owner != null) {
+        invalidations.computeIfAbsent(owner, id -> new HashSet<>()).add(state.getUserId());
+      }
+    }
+    invalidations.forEach(trainingPeerClient::invalidate);
+  }
+
+  /**
+   * Ids of the user's cards in a deck, as far as the change feed has told.
+   */
+  public List<UUID> getCardIds(String userId, UUID deckId) {
+    Query query = Query.query(Criteria.where("userId").is(userId).and("deckId").is(deckId)
+        .and("deleted").is(false));
+    query.fields().include("cardId");
+    return mongoTemplate.find(query, CardReplica.class).stream()
+        .map(CardReplica::getCardId)
+        .toList();
+  }
+
+  /**
+   * Replicas of the given cards, by card id. Cards the feed has not delivered yet are missing.
+   */
+  public Map<UUID, CardReplica> findCards(Collection<UUID> cardIds) {
+    Map<UUID, CardReplica> cards = new HashMap<>();
+    cardReplicaRepository.findAllById(cardIds.stream().map(UUID::toString).toList())
+        .forEach(card -> cards.put(card.getCardId(), card));
+    return cards;
+  }
+
+  // Returns the states removed
+  private List<CardState> removeStates(List<CardReplica> cards) {
+    if (cards.isEmpty()) {
+      return List.of();
+    }
+    List<String> stateIds = cards.stream()
+        .map(card -> CardState.idOf(card.getUserId(), card.getCardId()))
+        .toList();
+    List<CardState> states = new ArrayList<>();
+    cardStateRepository.findAllById(stateIds).forEach(states::add);
+    if (!states.isEmpty()) {
+      BulkOperations writes = mongoTemplate.bulkOps(BulkMode.UNORDERED, CardState.class);
+      states.forEach(state -> writes.remove(CardState.unchanged(state.getId(), state.getVersion())));
+      if (writes.execute().getDeletedCount() < states.size()) {
+        // The others were reviewed meanwhile, ingestion removes them after writing
+        Map<String, CardState> current = findCurrent(stateIds);
+        states = states.stream().filter(state -> !current.containsKey(state.getId())).toList();
+      }
+      StatsRollup rollup = statsService.newRollup();
+      states.forEach(state -> rollup.moveCard(state.getUserId(), state.getDeckId(),
+          rollup.maturityOf(state.getLastReview(), state.getDue()), null, StatsRollup.NONE));
+      statsService.apply(rollup);
+      states.forEach(state -> dueLoadBalancer.remove(state.getUserId(), state.getDue()));
+    }
+
+    Map<String, List<UUID>> removedByUser = new HashMap<>();
+    cards.forEach(card -> removedByUser.computeIfAbsent(card.getUserId(), id -> new ArrayList<>())
+        .add(card.getCardId()));
+    removedByUser.forEach(dueQueueService::onCardsRemoved);
+    return states;
+  }
+
+  // Returns the states moved
+  private List<CardState> moveStates(List<CardReplica> cards) {
+    if (cards.isEmpty()) {
+      return List.of();
+    }
+    Map<String, UUID> targetDecks = new HashMap<>();
+    cards.forEach(card -> targetDecks.put(CardState.idOf(card.getUserId(), card.getCardId()),
+        card.getDeckId()));
+    // Only states outside their card's deck, which also skips those moved by an earlier delivery
+    List<CardState> states = new ArrayList<>();
+    cardStateRepository.findAllById(targetDecks.keySet()).forEach(state -> {
+      if (targetDecks.get(state.getId()) != null
+          && !Objects.equals(state.getDeckId(), targetDecks.get(state.getId()))) {
+        states.add(state);
+      }
+    });
+    if (states.isEmpty()) {
+      return List.of();
+    }
+
+    long now = System.currentTimeMillis();
+    BulkOperations writes = mongoTemplate.bulkOps(BulkMode.UNORDERED, CardState.class);
+    for (CardState state : states) {
+      writes.updateOne(CardState.unchanged(state.getId(), state.getVersion()), new Update()
+          .set("deckId", targetDecks.get(state.getId()))
+          .set("updatedAt", now)
+          .inc("version", 1));
+    }
+    List<CardState> moved = states;
+    if (writes.execute().getModifiedCount() < states.size()) {
+      // The others were reviewed meanwhile, ingestion moves them after writing
+      Map<String, CardState> current = findCurrent(targetDecks.keySet());
+      moved = states.stream()
+          .filter(state -> current.containsKey(state.getId())
+              && current.get(state.getId()).getVersion() == state.getVersion() + 1
+              && Objects.equals(current.get(state.getId()).getDeckId(),
+              targetDecks.get(state.getId())))
+          .toList();
+    }
+
+    StatsRollup rollup = statsService.newRollup();
+    for (CardState state : moved) {
+      UUID targetDeck = targetDecks.get(state.getId());
+      int maturity = rollup.maturityOf(state.getLastReview(), state.getDue());
+      rollup.moveCard(state.getUserId(), state.getDeckId(), maturity, targetDeck, maturity);
+      state.setDeckId(targetDeck);
+      state.setUpdatedAt(now);
+      state.setVersion(state.getVersion() + 1);
+    }
+    statsService.apply(rollup);
+    moved.forEach(state -> dueQueueService.onReview(state.getUserId(), state.getCardId(),
+        state.getDeckId(), state.getDue()));
+    return moved;
+  }
+
+  // Version and deck of the states as stored now, for telling which conditional writes went through
+  private Map<String, CardState> findCurrent(Collection<String> stateIds) {
+    Query query = Query.query(Criteria.where("_id").in(stateIds));
+    query.fields().include("version", "deckId");
+    Map<String, CardState> current = new HashMap<>();
+    mongoTemplate.find(query, CardState.class).forEach(state -> current.put(state.getId(), state));
+    return current;
+  }
+
+  private static Query byId(String id) {
+    return Query.query(Criteria.where("_id").is(id));
+  }
+}
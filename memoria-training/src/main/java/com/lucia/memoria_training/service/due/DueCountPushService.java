@@ -0,0 +1,314 @@
+package com.lucia.memoria_training.service.due;
+
+import com.lucia.memoria_training.config.DuePushConfig;
+import com.lucia.memoria_training.dto.DeckDueCountDTO;
+import com.lucia.memoria_training.dto.DueCountsDTO;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams the due count of every deck to connected clients as server-sent events. A change to
+ * a user's due cards only marks the user; once per coalescing window the marked users are
+ * recounted from their due index and each of their streams gets the decks whose count changed.
+ * Streams are async requests, an open one holds a connection and an emitter but no thread.
+ * Events are decided under the user's lock and sent outside it, one at a time per stream. An
+ * event that finds its stream still busy with an earlier one, or overtaken by a later one, is
+ * skipped and the stream gets a full event with the next push, at the latest on refresh.
+ */
+@Service
+@Slf4j
+public class DueCountPushService {
+
+  private static final String EVENT_NAME = "due-counts";
+
+  private final DueQueueService dueQueueService;
+  private final DuePushConfig config;
+  private final Map<String, UserConnections> users = new ConcurrentHashMap<>();
+  private final Set<String> changedUsers = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger openConnections = new AtomicInteger();
+  private final ScheduledExecutorService timer;
+  private final ExecutorService senders;
+
+  public DueCountPushService(DueQueueService dueQueueService, DuePushConfig config) {
+    this.dueQueueService = dueQueueService;
+    this.config = config;
+    this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "due-push-timer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    AtomicInteger senderCount = new AtomicInteger();
+    this.senders = Executors.newFixedThreadPool(config.getSendThreads(), runnable -> {
+      Thread thread = new Thread(runnable, "due-push-sender-" + senderCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    dueQueueService.addChangeListener(this::onChanged);
+    long window = config.getCoalesceWindow().toMillis();
+    timer.scheduleWithFixedDelay(this::pushChanged, window, window, TimeUnit.MILLISECONDS);
+    long refresh = config.getRefreshInterval().toMillis();
+    timer.scheduleWithFixedDelay(this::refreshAll, refresh, refresh, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Opens a stream of the user's due counts. It starts with a full event, sent right away.
+   */
+  public SseEmitter subscribe(String userId) {
+    if (userId == null || userId.isBlank()) {
+      throw new IllegalArgumentException("User is required");
+    }
+    SseEmitter emitter = new SseEmitter(config.getConnectionTimeout().toMillis());
+    Connection connection = new Connection(emitter);
+    UserConnections user;
+    while (true) {
+      user = users.computeIfAbsent(userId, id -> new UserConnections());
+      synchronized (user) {
+        if (user.closed) {
+          continue;
+        }
+        if (user.connections.size() >= config.getMaxConnectionsPerUser()) {
+          close(user.connections.remove(0));
+        }
+        user.connections.add(connection);
+        break;
+      }
+    }
+    openConnections.incrementAndGet();
+    UserConnections subscribed = user;
+    emitter.onCompletion(() -> unsubscribe(userId, subscribed, connection));
+    emitter.onTimeout(() -> unsubscribe(userId, subscribed, connection));
+    emitter.onError(error -> unsubscribe(userId, subscribed, connection));
+    schedulePush(userId, subscribed);
+    return emitter;
+  }
+
+  /**
+   * Closes the streams of the matching users. Clients reconnect through the gateway, which
+   * sends them to whichever instance owns them now.
+   */
+  public void closeIf(Predicate<String> userFilter) {
+    users.forEach((userId, user) -> {
+      if (userFilter.test(userId)) {
+        List<Connection> closing;
+        synchronized (user) {
+          closing = List.copyOf(user.connections);
+        }
+        closing.forEach(this::close);
+      }
+    });
+  }
+
+  public int getConnections() {
+    return openConnections.get();
+  }
+
+  private void onChanged(String userId) {
+    if (users.containsKey(userId)) {
+      changedUsers.add(userId);
+    }
+  }
+
+  private void pushChanged() {
+    for (Iterator<String> iterator = changedUsers.iterator(); iterator.hasNext(); ) {
+      String userId = iterator.next();
+      iterator.remove();
+      UserConnections user = users.get(userId);
+      if (user != null) {
+        schedulePush(userId, user);
+      }
+    }
+  }
+
+  private void refreshAll() {
+    users.forEach((userId, user) -> {
+      user.keepAlive = true;
+      schedulePush(userId, user);
+    });
+  }
+
+  // At most one push per user is queued, changes arriving meanwhile are part of it
+  private void schedulePush(String userId, UserConnections user) {
+    if (user.pushQueued.compareAndSet(false, true)) {
+      senders.execute(() -> push(userId, user));
+    }
+  }
+
+  private void push(String userId, UserConnections user) {
+    user.pushQueued.set(false);
+    Map<UUID, Integer> counts;
+    try {
+      counts = dueQueueService.countDue(userId);
+    } catch (RuntimeException e) {
+      log.warn("Could not count the due cards of {}", userId, e);
+      return;
+    }
+    int total = counts.values().stream().mapToInt(Integer::intValue).sum();
+
+    List<PendingSend> sends = new ArrayList<>();
+    synchronized (user) {
+      List<DeckDueCountDTO> changes = new ArrayList<>();
+      user.lastCounts.forEach((deckId, previous) -> {
+        if (!counts.containsKey(deckId)) {
+          changes.add(new DeckDueCountDTO(deckId, 0, -previous));
+        }
+      });
+      counts.forEach((deckId, count) -> {
+        int previous = user.lastCounts.getOrDefault(deckId, 0);
+        if (count != previous) {
+          changes.add(new DeckDueCountDTO(deckId, count, count - previous));
+        }
+      });
+      DueCountsDTO delta = changes.isEmpty() ? null : new DueCountsDTO(false, total, changes);
+      DueCountsDTO full = null;
+      boolean keepAlive = user.keepAlive;
+      user.keepAlive = false;
+
+      for (Connection connection : user.connections) {
+        if (connection.needsFull) {
+          if (full == null) {
+            full = new DueCountsDTO(true, total, counts.entrySet().stream()
+                .map(entry -> new DeckDueCountDTO(entry.getKey(), entry.getValue(),
+                    entry.getValue()))
+                .toList());
+          }
+          sends.add(new PendingSend(connection, ++connection.queued,
+              SseEmitter.event().name(EVENT_NAME).data(full, MediaType.APPLICATION_JSON)));
+          // A failed send closes the stream, a skipped one asks for the full event again
+          connection.needsFull = false;
+        } else if (delta != null) {
+          sends.add(new PendingSend(connection, ++connection.queued,
+              SseEmitter.event().name(EVENT_NAME).data(delta, MediaType.APPLICATION_JSON)));
+        } else if (keepAlive) {
+          sends.add(new PendingSend(connection, ++connection.queued,
+              SseEmitter.event().comment("keep-alive")));
+        }
+      }
+      user.lastCounts = counts;
+    }
+
+    // A blocked client only holds up this sender thread, never the user's lock
+    for (PendingSend pending : sends) {
+      Connection connection = pending.connection();
+      // Waiting for a slow client would tie up this sender too, and so would closing its
+      // stream, the emitter stays locked until the write returns
+      if (!connection.sending.compareAndSet(false, true)) {
+        skip(user, connection);
+        continue;
+      }
+      try {
+        if (pending.sequence() < connection.sent) {
+          // A later push got here first, this delta would take its counts back
+          skip(user, connection);
+        } else {
+          connection.emitter.send(pending.event());
+          connection.sent = pending.sequence();
+        }
+      } catch (IOException | IllegalStateException e) {
+        // The client went away, the container reports it through the emitter callbacks
+        drop(user, connection);
+      } finally {
+        connection.sending.set(false);
+      }
+    }
+  }
+
+  private static void skip(UserConnections user, Connection connection) {
+    synchronized (user) {
+      connection.needsFull = true;
+    }
+  }
+
+  private void drop(UserConnections user, Connection connection) {
+    synchronized (user) {
+      user.connections.remove(connection);
+    }
+    close(connection);
+  }
+
+  private void unsubscribe(String userId, UserConnections user, Connection connection) {
+    synchronized (user) {
+      if (!connection.closed) {
+        connection.closed = true;
+        openConnections.decrementAndGet();
+      }
+      user.connections.remove(connection);
+      if (user.connections.isEmpty() && !user.closed) {
+        user.closed = true;
+        users.remove(userId, user);
+      }
+    }
+  }
+
+  private void close(Connection connection) {
+    if (!connection.closed) {
+      connection.closed = true;
+      openConnections.decrementAndGet();
+    }
+    try {
+      connection.emitter.complete();
+    } catch (RuntimeException e) {
+      log.trace("Due count stream already closed", e);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    timer.shutdownNow();
+    senders.shutdownNow();
+    users.values().forEach(user -> {
+      synchronized (user) {
+        user.connections.forEach(this::close);
+      }
+    });
+  }
+
+  // Guarded by synchronizing on the instance, apart from the flags read across threads
+  private static final class UserConnections {
+
+    private final List<Connection> connections = new ArrayList<>(1);
+    private final AtomicBoolean pushQueued = new AtomicBoolean();
+    private Map<UUID, Integer> lastCounts = new HashMap<>();
+    private volatile boolean keepAlive;
+    private boolean closed;
+  }
+
+  private static final class Connection {
+
+    private final SseEmitter emitter;
+    // Set while a sender thread writes to the emitter
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private boolean needsFull = true;
+    private boolean closed;
+    // Last event queued for the stream, and last one written to it while holding sending
+    private long queued;
+    private volatile long sent;
+
+    private Connection(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+  }
+
+  private record PendingSend(Connection connection, long sequence,
+                             SseEmitter.SseEventBuilder event) {
+
+  }
+}
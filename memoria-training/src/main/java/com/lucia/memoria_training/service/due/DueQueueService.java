@@ -0,0 +1,336 @@
+package com.lucia.memoria_training.service.due;
+
+import com.lucia.memoria_training.config.DueQueueConfig;
+import com.lucia.memoria_training.dto.DueCardDTO;
+import com.lucia.memoria_training.model.CardState;
+import com.lucia.memoria_training.model.DueQueueSnapshot;
+import com.lucia.memoria_training.repository.CardStateRepository;
+import com.lucia.memoria_training.repository.DueQueueSnapshotRepository;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers "what is due now" from a per-user in-memory index instead of a Mongo range scan.
+ * A user's index is loaded on first use, from the last snapshot plus the card states written
+ * since, kept current by every review, snapshotted back periodically and dropped once the user
+ * goes idle or too many users are held.
+ */
+@Service
+@Slf4j
+public class DueQueueService {
+
+  // Covers reviews saved just before a snapshot but applied to the index just after it
+  private static final long SNAPSHOT_REPLAY_MARGIN_MILLIS = 60_000;
+  // Stays well below the 16MB Mongo document limit
+  private static final int MAX_SNAPSHOT_BYTES = 8 * 1024 * 1024;
+
+  private final CardStateRepository cardStateRepository;
+  private final DueQueueSnapshotRepository snapshotRepository;
+  private final DueQueueConfig config;
+  private final Map<String, UserDueQueue> queues = new ConcurrentHashMap<>();
+  private final List<Consumer<String>> changeListeners = new CopyOnWriteArrayList<>();
+  private final ScheduledExecutorService sweeper;
+
+  public DueQueueService(CardStateRepository cardStateRepository,
+      DueQueueSnapshotRepository snapshotRepository, DueQueueConfig config) {
+    this.cardStateRepository = cardStateRepository;
+    this.snapshotRepository = snapshotRepository;
+    this.config = config;
+    this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "due-queue-sweeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long interval = config.getSweepInterval().toMillis();
+    sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Cards of the user due now, earliest first.
+   *
+   * @param deckIds decks to include, null or empty for all decks
+   */
+  public List<DueCardDTO> getDueCards(String userId, Collection<UUID> deckIds, Integer limit) {
+    return getDueCards(userId, deckIds, limit, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Cards of the user due now, earliest first, at most {@code perDeckLimit} of them from any one
+   * deck.
+   *
+   * @param deckIds decks to include, null or empty for all decks
+   */
+  public List<DueCardDTO> getDueCards(String userId, Collection<UUID> deckIds, Integer limit,
+      int perDeckLimit) {
+    if (userId == null || userId.isBlank()) {
+      throw new IllegalArgumentException("User is required");
+    }
+    int effectiveLimit = limit == null ? config.getDefaultLimit() : limit;
+    if (effectiveLimit < 1 || effectiveLimit > config.getMaxLimit()) {
+      throw new IllegalArgumentException(
+          "Limit must be between 1 and " + config.getMaxLimit());
+    }
+    Collection<UUID> decks = deckIds == null || deckIds.isEmpty() ? null : deckIds;
+
+    UserDueQueue queue = loadedQueue(userId);
+    List<DueCardDTO> dueCards = new ArrayList<>(Math.min(effectiveLimit, 64));
+    synchronized (queue) {
+      queue.collectDue(System.currentTimeMillis(), decks, effectiveLimit, perDeckLimit,
+          dueCards);
+    }
+    return dueCards;
+  }
+
+  /**
+   * Number of cards due now in each of the user's decks, decks without due cards left out.
+   */
+  public Map<UUID, Integer> countDue(String userId) {
+    UserDueQueue queue = loadedQueue(userId);
+    Map<UUID, Integer> counts = new HashMap<>();
+    synchronized (queue) {
+      queue.countDue(System.currentTimeMillis(), counts);
+    }
+    return counts;
+  }
+
+  /**
+   * Registers a callback told the user id whenever a user's due cards may have changed. It runs
+   * on the thread making the change and must return quickly.
+   */
+  public void addChangeListener(Consumer<String> listener) {
+    changeListeners.add(listener);
+  }
+
+  /**
+   * Applies a review that was already written to Mongo. Users without a loaded index are left
+   * alone, their next load reads the new state.
+   */
+  public void onReview(String userId, UUID cardId, UUID deckId, long due) {
+    UserDueQueue queue = queues.get(userId);
+    if (queue != null) {
+      synchronized (queue) {
+        if (queue.isLoaded()) {
+          queue.upsert(cardId, deckId, due);
+        }
+      }
+    }
+    notifyChanged(userId);
+  }
+
+  /**
+   * Drops cards that were suspended. Users without a loaded index are left alone, replaying the
+   * suspended states on top of their snapshot drops the cards.
+   */
+  public void onCardsSuspended(String userId, Collection<UUID> cardIds) {
+    UserDueQueue queue = queues.get(userId);
+    if (queue != null) {
+      synchronized (queue) {
+        if (queue.isLoaded()) {
+          cardIds.forEach(queue::remove);
+        }
+      }
+    }
+    notifyChanged(userId);
+  }
+
+  /**
+   * Drops cards whose states were deleted. A user without a loaded index loses their snapshot
+   * instead, since replaying the states written after it would not remove the cards.
+   */
+  public void onCardsRemoved(String userId, Collection<UUID> cardIds) {
+    boolean removed = false;
+    UserDueQueue queue = queues.get(userId);
+    if (queue != null) {
+      synchronized (queue) {
+        if (queue.isLoaded()) {
+          cardIds.forEach(queue::remove);
+          removed = true;
+        }
+      }
+    }
+    if (!removed) {
+      snapshotRepository.deleteById(userId);
+    }
+    notifyChanged(userId);
+  }
+
+  /**
+   * Snapshots and drops the indexes of the matching users, for users handed to another
+   * instance.
+   */
+  public int evictIf(Predicate<String> userFilter) {
+    int evicted = 0;
+    for (Map.Entry<String, UserDueQueue> entry : List.copyOf(queues.entrySet())) {
+      if (userFilter.test(entry.getKey())) {
+        evict(entry.getKey(), entry.getValue());
+        evicted++;
+      }
+    }
+    return evicted;
+  }
+
+  /**
+   * Drops the indexes of the matching users without snapshotting them, for indexes that may
+   * have missed changes made elsewhere. Their next use loads them again.
+   */
+  public int discardIf(Predicate<String> userFilter) {
+    int discarded = 0;
+    for (Map.Entry<String, UserDueQueue> entry : List.copyOf(queues.entrySet())) {
+      if (userFilter.test(entry.getKey()) && queues.remove(entry.getKey(), entry.getValue())) {
+        discarded++;
+      }
+    }
+    return discarded;
+  }
+
+  /**
+   * Drops the user's index and snapshot, their next use loads every card state again. For
+   * changes such as deleted cards that replaying states on top of a snapshot would not apply.
+   */
+  public void invalidate(String userId) {
+    queues.remove(userId);
+    snapshotRepository.deleteById(userId);
+    notifyChanged(userId);
+  }
+
+  /**
+   * Loads the indexes of the matching users snapshotted since {@code since}, so recently active
+   * users do not pay for the load on their next request.
+   */
+  public int warmUp(Predicate<String> userFilter, long since) {
+    int loaded = 0;
+    for (DueQueueSnapshot snapshot : snapshotRepository.findIdsTakenSince(since)) {
+      String userId = snapshot.getId();
+      if (userFilter.test(userId) && !queues.containsKey(userId)) {
+        loadedQueue(userId);
+        loaded++;
+      }
+    }
+    return loaded;
+  }
+
+  public int getLoadedUsers() {
+    return queues.size();
+  }
+
+  private void notifyChanged(String userId) {
+    for (Consumer<String> listener : changeListeners) {
+      listener.accept(userId);
+    }
+  }
+
+  private UserDueQueue loadedQueue(String userId) {
+    UserDueQueue queue = queues.computeIfAbsent(userId, id -> new UserDueQueue());
+    queue.touch(System.currentTimeMillis());
+    synchronized (queue) {
+      if (!queue.isLoaded()) {
+        load(userId, queue);
+      }
+    }
+    return queue;
+  }
+
+  private void load(String userId, UserDueQueue queue) {
+    long started = System.currentTimeMillis();
+    Optional<DueQueueSnapshot> snapshot = snapshotRepository.findById(userId);
+    List<CardState> states;
+    if (snapshot.isPresent() && queue.restore(snapshot.get().getData(),
+        snapshot.get().getTakenAt())) {
+      states = cardStateRepository.findDueEntriesByUserIdUpdatedSince(userId,
+          snapshot.get().getTakenAt() - SNAPSHOT_REPLAY_MARGIN_MILLIS);
+    } else {
+      states = cardStateRepository.findDueEntriesByUserId(userId);
+    }
+    for (CardState state : states) {
+      if (state.isSuspended()) {
+        queue.remove(state.getCardId());
+      } else {
+        queue.upsert(state.getCardId(), state.getDeckId(), state.getDue());
+      }
+    }
+    queue.markLoaded();
+    log.debug("Loaded due index of {} with {} cards in {} ms", userId, queue.size(),
+        System.currentTimeMillis() - started);
+  }
+
+  private void sweep() {
+    try {
+      long now = System.currentTimeMillis();
+      long idleBefore = now - config.getIdleTimeout().toMillis();
+      long snapshotBefore = now - config.getSnapshotInterval().toMillis();
+
+      for (Map.Entry<String, UserDueQueue> entry : queues.entrySet()) {
+        UserDueQueue queue = entry.getValue();
+        if (queue.getLastAccess() < idleBefore) {
+          evict(entry.getKey(), queue);
+        } else if (queue.getSnapshotTakenAt() < snapshotBefore) {
+          snapshot(entry.getKey(), queue);
+        }
+      }
+
+      int excess = queues.size() - config.getMaxUsers();
+      if (excess > 0) {
+        queues.entrySet().stream()
+            .sorted(Comparator.comparingLong(entry -> entry.getValue().getLastAccess()))
+            .limit(excess)
+            .toList()
+            .forEach(entry -> evict(entry.getKey(), entry.getValue()));
+      }
+    } catch (RuntimeException e) {
+      log.warn("Due index sweep failed", e);
+    }
+  }
+
+  private void evict(String userId, UserDueQueue queue) {
+    snapshot(userId, queue);
+    queues.remove(userId, queue);
+  }
+
+  private void snapshot(String userId, UserDueQueue queue) {
+    byte[] data;
+    int cardCount;
+    long takenAt = System.currentTimeMillis();
+    synchronized (queue) {
+      if (!queue.isLoaded() || !queue.isDirty()) {
+        return;
+      }
+      data = queue.toSnapshot(takenAt);
+      cardCount = queue.size();
+    }
+    if (data.length > MAX_SNAPSHOT_BYTES) {
+      log.debug("Due index of {} too large for a snapshot, it will load from card states",
+          userId);
+      snapshotRepository.deleteById(userId);
+      return;
+    }
+    snapshotRepository.save(new DueQueueSnapshot(userId, takenAt, cardCount, data));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    sweeper.shutdownNow();
+    queues.forEach((userId, queue) -> {
+      try {
+        snapshot(userId, queue);
+      } catch (RuntimeException e) {
+        log.warn("Could not snapshot the due index of {}", userId, e);
+      }
+    });
+  }
+}
@@ -0,0 +1,527 @@
+package com.lucia.memoria_training.service.due;
+
+import com.lucia.memoria_training.dto.DueCardDTO;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory due index of one user: an indexed min-heap of due times per deck over a card table
+ * held in primitive arrays, so a card costs a few array cells instead of a handful of objects.
+ * Not thread safe, callers synchronize on the instance.
+ */
+final class UserDueQueue {
+
+  private static final int SNAPSHOT_FORMAT = 1;
+  private static final int INITIAL_CAPACITY = 64;
+
+  // Card table, slot i describes one card
+  private long[] cardMsb = new long[INITIAL_CAPACITY];
+  private long[] cardLsb = new long[INITIAL_CAPACITY];
+  private int[] cardDeck = new int[INITIAL_CAPACITY];
+  private int[] heapPosition = new int[INITIAL_CAPACITY];
+  private int cardCount;
+
+  // Open addressing over card ids, a bucket holds slot + 1 and 0 marks it empty
+  private int[] buckets = new int[INITIAL_CAPACITY * 2];
+
+  private final List<UUID> decks = new ArrayList<>();
+  private final Map<UUID, Integer> deckIndex = new HashMap<>();
+  private final List<DeckHeap> heaps = new ArrayList<>();
+
+  private boolean loaded;
+  // Bumped on every change, compared with the version of the last snapshot
+  private long version;
+  private long snapshotVersion;
+  private long snapshotTakenAt;
+  private volatile long lastAccess = System.currentTimeMillis();
+
+  boolean isLoaded() {
+    return loaded;
+  }
+
+  void markLoaded() {
+    loaded = true;
+  }
+
+  void touch(long now) {
+    lastAccess = now;
+  }
+
+  long getLastAccess() {
+    return lastAccess;
+  }
+
+  boolean isDirty() {
+    return version != snapshotVersion;
+  }
+
+  long getSnapshotTakenAt() {
+    return snapshotTakenAt;
+  }
+
+  int size() {
+    return cardCount;
+  }
+
+  void upsert(UUID cardId, UUID deckId, long due) {
+    int deck = deckIndexOf(deckId);
+    int slot = findSlot(cardId.getMostSignificantBits(), cardId.getLeastSignificantBits());
+    if (slot < 0) {
+      slot = addCard(cardId.getMostSignificantBits(), cardId.getLeastSignificantBits(), deck);
+      heaps.get(deck).add(slot, due);
+    } else if (cardDeck[slot] != deck) {
+      heaps.get(cardDeck[slot]).remove(heapPosition[slot]);
+      cardDeck[slot] = deck;
+      heaps.get(deck).add(slot, due);
+    } else {
+      heaps.get(deck).update(heapPosition[slot], due);
+    }
+    version++;
+  }
+
+  boolean remove(UUID cardId) {
+    long msb = cardId.getMostSignificantBits();
+    long lsb = cardId.getLeastSignificantBits();
+    int slot = findSlot(msb, lsb);
+    if (slot < 0) {
+      return false;
+    }
+    heaps.get(cardDeck[slot]).remove(heapPosition[slot]);
+    removeBucket(bucketOf(slot));
+
+    // Keep the table dense by moving the last card into the freed slot
+    int last = --cardCount;
+    if (slot != last) {
+      cardMsb[slot] = cardMsb[last];
+      cardLsb[slot] = cardLsb[last];
+      cardDeck[slot] = cardDeck[last];
+      heapPosition[slot] = heapPosition[last];
+      heaps.get(cardDeck[slot]).slots[heapPosition[slot]] = slot;
+      buckets[bucketOf(last)] = slot + 1;
+    }
+    version++;
+    return true;
+  }
+
+  /**
+   * Adds up to {@code limit} cards due at or before {@code now} to {@code out}, earliest first.
+   * The deck heaps are merged lazily, only the nodes that can still hold the next due card are
+   * visited.
+   *
+   * @param deckIds decks to include, null for all decks
+   */
+  void collectDue(long now, Collection<UUID> deckIds, int limit, List<DueCardDTO> out) {
+    collectDue(now, deckIds, limit, Integer.MAX_VALUE, out);
+  }
+
+  /**
+   * Like {@link #collectDue(long, Collection, int, List)}, taking at most {@code perDeckLimit}
+   * cards from any one deck. A deck that reached it stops feeding the merge, its entries still
+   * in the frontier are dropped as they come up.
+   */
+  void collectDue(long now, Collection<UUID> deckIds, int limit, int perDeckLimit,
+      List<DueCardDTO> out) {
+    int[] taken = perDeckLimit == Integer.MAX_VALUE ? null : new int[heaps.size()];
+    Frontier frontier = new Frontier(Math.min(64, 2 * limit + 2));
+    for (int deck = 0; deck < heaps.size(); deck++) {
+      UUID deckId = decks.get(deck);
+      boolean selected = deckIds == null || (deckId != null && deckIds.contains(deckId));
+      if (selected && heaps.get(deck).size > 0) {
+        frontier.push(deck, 0, heaps.get(deck).dues[0]);
+      }
+    }
+
+    int emitted = 0;
+    while (emitted < limit && frontier.size > 0) {
+      long due = frontier.minDue();
+      if (due > now) {
+        break;
+      }
+      long ref = frontier.pop();
+      int deck = (int) (ref >>> 32);
+      int position = (int) ref;
+      if (taken != null && taken[deck] >= perDeckLimit) {
+        continue;
+      }
+      DeckHeap heap = heaps.get(deck);
+      int slot = heap.slots[position];
+      out.add(new DueCardDTO(new UUID(cardMsb[slot], cardLsb[slot]), decks.get(deck),
+          Instant.ofEpochMilli(due)));
+      emitted++;
+      if (taken != null && ++taken[deck] >= perDeckLimit) {
+        continue;
+      }
+
+      int child = 2 * position + 1;
+      if (child < heap.size) {
+        frontier.push(deck, child, heap.dues[child]);
+      }
+      if (child + 1 < heap.size) {
+        frontier.push(deck, child + 1, heap.dues[child + 1]);
+      }
+    }
+  }
+
+  /**
+   * Puts the number of cards due at or before {@code now} of every deck with any into
+   * {@code out}. Only the heap nodes due by then are visited.
+   */
+  void countDue(long now, Map<UUID, Integer> out) {
+    for (int deck = 0; deck < heaps.size(); deck++) {
+      int count = heaps.get(deck).countDue(now);
+      if (count > 0) {
+        out.put(decks.get(deck), count);
+      }
+    }
+  }
+
+  byte[] toSnapshot(long takenAt) {
+    ByteBuffer buffer = ByteBuffer.allocate(12 + decks.size() * 17 + cardCount * 28);
+    buffer.putInt(SNAPSHOT_FORMAT);
+    buffer.putInt(decks.size());
+    for (UUID deck : decks) {
+      buffer.put((byte) (deck == null ? 0 : 1));
+      buffer.putLong(deck == null ? 0 : deck.getMostSignificantBits());
+      buffer.putLong(deck == null ? 0 : deck.getLeastSignificantBits());
+    }
+    buffer.putInt(cardCount);
+    for (int slot = 0; slot < cardCount; slot++) {
+      buffer.putLong(cardMsb[slot]);
+      buffer.putLong(cardLsb[slot]);
+      buffer.putLong(heaps.get(cardDeck[slot]).dues[heapPosition[slot]]);
+      buffer.putInt(cardDeck[slot]);
+    }
+    snapshotVersion = version;
+    snapshotTakenAt = takenAt;
+    return buffer.array();
+  }
+
+  /**
+   * Replaces the content with a snapshot. Returns false, leaving the queue empty, when the
+   * snapshot was written in a format this version does not read.
+   */
+  boolean restore(byte[] snapshot, long takenAt) {
+    ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+    if (buffer.getInt() != SNAPSHOT_FORMAT) {
+      return false;
+    }
+    int deckCount = buffer.getInt();
+    for (int i = 0; i < deckCount; i++) {
+      boolean present = buffer.get() == 1;
+      long msb = buffer.getLong();
+      long lsb = buffer.getLong();
+      deckIndexOf(present ? new UUID(msb, lsb) : null);
+    }
+    int count = buffer.getInt();
+    ensureCardCapacity(count);
+    for (int i = 0; i < count; i++) {
+      long msb = buffer.getLong();
+      long lsb = buffer.getLong();
+      long due = buffer.getLong();
+      int deck = buffer.getInt();
+      int slot = addCard(msb, lsb, deck);
+      heaps.get(deck).append(slot, due);
+    }
+    for (DeckHeap heap : heaps) {
+      heap.heapify();
+    }
+    snapshotVersion = version;
+    snapshotTakenAt = takenAt;
+    return true;
+  }
+
+  private int deckIndexOf(UUID deckId) {
+    Integer index = deckIndex.get(deckId);
+    if (index != null) {
+      return index;
+    }
+    int created = decks.size();
+    decks.add(deckId);
+    deckIndex.put(deckId, created);
+    heaps.add(new DeckHeap());
+    return created;
+  }
+
+  private int addCard(long msb, long lsb, int deck) {
+    ensureCardCapacity(cardCount + 1);
+    int slot = cardCount++;
+    cardMsb[slot] = msb;
+    cardLsb[slot] = lsb;
+    cardDeck[slot] = deck;
+    insertBucket(slot);
+    return slot;
+  }
+
+  private void ensureCardCapacity(int capacity) {
+    if (capacity > cardMsb.length) {
+      int newLength = Math.max(capacity, cardMsb.length * 2);
+      cardMsb = Arrays.copyOf(cardMsb, newLength);
+      cardLsb = Arrays.copyOf(cardLsb, newLength);
+      cardDeck = Arrays.copyOf(cardDeck, newLength);
+      heapPosition = Arrays.copyOf(heapPosition, newLength);
+    }
+    // Keep the bucket array at most half full so probe sequences stay short
+    if (capacity * 2 > buckets.length) {
+      buckets = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+      for (int slot = 0; slot < cardCount; slot++) {
+        insertBucket(slot);
+      }
+    }
+  }
+
+  private int findSlot(long msb, long lsb) {
+    int mask = buckets.length - 1;
+    for (int i = hash(msb, lsb) & mask; ; i = (i + 1) & mask) {
+      int entry = buckets[i];
+      if (entry == 0) {
+        return -1;
+      }
+      int slot = entry - 1;
+      if (cardMsb[slot] == msb && cardLsb[slot] == lsb) {
+        return slot;
+      }
+    }
+  }
+
+  private int bucketOf(int slot) {
+    int mask = buckets.length - 1;
+    int i = hash(cardMsb[slot], cardLsb[slot]) & mask;
+    while (buckets[i] != slot + 1) {
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+
+  private void insertBucket(int slot) {
+    int mask = buckets.length - 1;
+    int i = hash(cardMsb[slot], cardLsb[slot]) & mask;
+    while (buckets[i] != 0) {
+      i = (i + 1) & mask;
+    }
+    buckets[i] = slot + 1;
+  }
+
+  // Backward shift deletion, so lookups never need tombstones
+  private void removeBucket(int index) {
+    int mask = buckets.length - 1;
+    int hole = index;
+    buckets[hole] = 0;
+    for (int i = (hole + 1) & mask; buckets[i] != 0; i = (i + 1) & mask) {
+      int slot = buckets[i] - 1;
+      int home = hash(cardMsb[slot], cardLsb[slot]) & mask;
+      // The entry may move into the hole unless its home lies cyclically in (hole, i]
+      boolean homeBetween = hole <= i ? (home > hole && home <= i) : (home > hole || home <= i);
+      if (!homeBetween) {
+        buckets[hole] = buckets[i];
+        buckets[i] = 0;
+        hole = i;
+      }
+    }
+  }
+
+  private static int hash(long msb, long lsb) {
+    long h = msb ^ lsb;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+
+  /**
+   * Min-heap of the cards of one deck ordered by due time. Keeps {@code heapPosition} of the
+   * enclosing card table in sync, so a card can be updated or removed in O(log n).
+   */
+  private final class DeckHeap {
+
+    private int[] slots = new int[16];
+    private long[] dues = new long[16];
+    private int size;
+
+    void add(int slot, long due) {
+      append(slot, due);
+      siftUp(size - 1);
+    }
+
+    // Adds without restoring heap order, heapify() must follow
+    void append(int slot, long due) {
+      if (size == slots.length) {
+        slots = Arrays.copyOf(slots, size * 2);
+        dues = Arrays.copyOf(dues, size * 2);
+      }
+      slots[size] = slot;
+      dues[size] = due;
+      heapPosition[slot] = size;
+      size++;
+    }
+
+    void update(int position, long due) {
+      long previous = dues[position];
+      dues[position] = due;
+      if (due < previous) {
+        siftUp(position);
+      } else {
+        siftDown(position);
+      }
+    }
+
+    void remove(int position) {
+      int last = --size;
+      if (position == last) {
+        return;
+      }
+      int slot = slots[last];
+      slots[position] = slot;
+      dues[position] = dues[last];
+      heapPosition[slot] = position;
+      siftDown(position);
+      siftUp(heapPosition[slot]);
+    }
+
+    // Children are never due earlier than their parent, so the walk stops at the first node not due
+    int countDue(long now) {
+      if (size == 0 || dues[0] > now) {
+        return 0;
+      }
+      int[] stack = new int[32];
+      int top = 0;
+      stack[top++] = 0;
+      int count = 0;
+      while (top > 0) {
+        int position = stack[--top];
+        count++;
+        for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+          if (dues[child] <= now) {
+            if (top == stack.length) {
+              stack = Arrays.copyOf(stack, top * 2);
+            }
+            stack[top++] = child;
+          }
+        }
+      }
+      return count;
+    }
+
+    void heapify() {
+      for (int i = (size >>> 1) - 1; i >= 0; i--) {
+        siftDown(i);
+      }
+    }
+
+    private void siftUp(int position) {
+      int slot = slots[position];
+      long due = dues[position];
+      while (position > 0) {
+        int parent = (position - 1) >>> 1;
+        if (dues[parent] <= due) {
+          break;
+        }
+        move(parent, position);
+        position = parent;
+      }
+      place(slot, due, position);
+    }
+
+    private void siftDown(int position) {
+      int slot = slots[position];
+      long due = dues[position];
+      int half = size >>> 1;
+      while (position < half) {
+        int child = 2 * position + 1;
+        if (child + 1 < size && dues[child + 1] < dues[child]) {
+          child++;
+        }
+        if (due <= dues[child]) {
+          break;
+        }
+        move(child, position);
+        position = child;
+      }
+      place(slot, due, position);
+    }
+
+    private void move(int from, int to) {
+      slots[to] = slots[from];
+      dues[to] = dues[from];
+      heapPosition[slots[to]] = to;
+    }
+
+    private void place(int slot, long due, int position) {
+      slots[position] = slot;
+      dues[position] = due;
+      heapPosition[slot] = position;
+    }
+  }
+
+  /**
+   * Heap of (deck, position) references ordered by due time, driving the k-way merge in
+   * {@link #collectDue}.
+   */
+  private static final class Frontier {
+
+    private long[] refs;
+    private long[] dues;
+    private int size;
+
+    Frontier(int capacity) {
+      refs = new long[capacity];
+      dues = new long[capacity];
+    }
+
+    long minDue() {
+      return dues[0];
+    }
+
+    void push(int deck, int position, long due) {
+      if (size == refs.length) {
+        refs = Arrays.copyOf(refs, size * 2);
+        dues = Arrays.copyOf(dues, size * 2);
+      }
+      long ref = ((long) deck << 32) | (position & 0xffffffffL);
+      int i = size++;
+      while (i > 0) {
+        int parent = (i - 1) >>> 1;
+        if (dues[parent] <= due) {
+          break;
+        }
+        refs[i] = refs[parent];
+        dues[i] = dues[parent];
+        i = parent;
+      }
+      refs[i] = ref;
+      dues[i] = due;
+    }
+
+    long pop() {
+      long top = refs[0];
+      int last = --size;
+      if (last > 0) {
+        long ref = refs[last];
+        long due = dues[last];
+        int i = 0;
+        int half = last >>> 1;
+        while (i < half) {
+          int child = 2 * i + 1;
+          if (child + 1 < last && dues[child + 1] < dues[child]) {
+            child++;
+          }
+          if (due <= dues[child]) {
+            break;
+          }
+          refs[i] = refs[child];
+          dues[i] = dues[child];
+          i = child;
+        }
+        refs[i] = ref;
+        dues[i] = due;
+      }
+      return top;
+    }
+  }
+}
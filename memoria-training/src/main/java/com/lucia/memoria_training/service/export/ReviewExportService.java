@@ -0,0 +1,233 @@
+package com.lucia.memoria_training.service.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucia.memoria_training.config.ExportConfig;
+import com.lucia.memoria_training.config.StatsConfig;
+import com.lucia.memoria_training.exception.ExportLimitException;
+import com.lucia.memoria_training.model.ReviewLog;
+import com.lucia.memoria_training.service.archive.ReviewLogFilter;
+import com.lucia.memoria_training.service.archive.ReviewLogStore;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.stereotype.Service;
+
+/**
+ * Exports review logs as CSV or newline-delimited JSON. Every filter is part of the Mongo
+ * queries and the logs, archived ones included, are read through cursors in user and review
+ * time order, each one written out before the next is read, so an export holds one cursor
+ * batch, one archive block and one write buffer however long the history is.
+ */
+@Service
+@Slf4j
+public class ReviewExportService {
+
+  private static final int WRITE_BUFFER_CHARS = 64 * 1024;
+  private static final String CSV_HEADER = "review_id,user_id,card_id,deck_id,grade,reviewed_at,"
+      + "elapsed_days,scheduled_days,stability,difficulty\n";
+
+  private final ReviewLogStore reviewLogStore;
+  private final ObjectMapper objectMapper;
+  private final ExportConfig config;
+  private final ZoneId zone;
+  private final Semaphore running;
+
+  public ReviewExportService(ReviewLogStore reviewLogStore, ObjectMapper objectMapper,
+      ExportConfig config, StatsConfig statsConfig) {
+    this.reviewLogStore = reviewLogStore;
+    this.objectMapper = objectMapper;
+    this.config = config;
+    this.zone = statsConfig.getZone();
+    this.running = new Semaphore(config.getMaxConcurrentExports());
+  }
+
+  public enum Format {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    Format(String contentType, String extension) {
+      this.contentType = contentType;
+      this.extension = extension;
+    }
+
+    public String getContentType() {
+      return contentType;
+    }
+
+    public String getExtension() {
+      return extension;
+    }
+
+    public static Format of(String name) {
+      if (name == null || name.isBlank()) {
+        return CSV;
+      }
+      try {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Format must be csv or ndjson");
+      }
+    }
+  }
+
+  /**
+   * Checks the filters and that an export slot is free. The slot itself is only taken once the
+   * returned export is written, an export that is never written holds none.
+   *
+   * @param userId  user whose reviews are exported, null for every user
+   * @param deckIds decks to include, null or empty for all decks
+   * @param from    first day included, in the statistics zone, null for no lower bound
+   * @param to      last day included, null for no upper bound
+   */
+  public ReviewExport prepare(String userId, Collection<UUID> deckIds, LocalDate from,
+      LocalDate to, Format format) {
+    if (from != null && to != null && from.isAfter(to)) {
+      throw new IllegalArgumentException("From must not be after to");
+    }
+    long lower = from == null ? 0 : from.atStartOfDay(zone).toInstant().toEpochMilli();
+    long upper = to == null
+        ? Long.MAX_VALUE
+        : to.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    ReviewLogFilter filter = new ReviewLogFilter(userId, deckIds, lower, upper);
+
+    // Answers the common case before the response starts, writeTo has the final say
+    if (running.availablePermits() == 0) {
+      throw tooManyExports();
+    }
+    return new ReviewExport(filter, format);
+  }
+
+  /**
+   * A prepared export, written at most once.
+   */
+  public final class ReviewExport {
+
+    private final ReviewLogFilter filter;
+    private final Format format;
+
+    private ReviewExport(ReviewLogFilter filter, Format format) {
+      this.filter = filter;
+      this.format = format;
+    }
+
+    public Format getFormat() {
+      return format;
+    }
+
+    /**
+     * Takes an export slot for as long as the export is written.
+     *
+     * @throws ExportLimitException when the slots filled up since the export was prepared
+     */
+    public void writeTo(OutputStream output) throws IOException {
+      if (!running.tryAcquire()) {
+        throw tooManyExports();
+      }
+      long started = System.currentTimeMillis();
+      long written = 0;
+      try (Stream<ReviewLog> logs = reviewLogStore.stream(filter, Direction.ASC, 0,
+          config.getCursorBatchSize())) {
+        Writer writer = new BufferedWriter(
+            new OutputStreamWriter(output, StandardCharsets.UTF_8), WRITE_BUFFER_CHARS);
+        Iterator<ReviewLog> iterator = logs.iterator();
+        if (format == Format.CSV) {
+          writer.write(CSV_HEADER);
+          while (iterator.hasNext()) {
+            writeCsv(writer, iterator.next());
+            written++;
+          }
+          writer.flush();
+        } else {
+          JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+          generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+          // One object per line instead of Jackson's space between root values
+          generator.setRootValueSeparator(null);
+          while (iterator.hasNext()) {
+            writeJson(generator, iterator.next());
+            generator.writeRaw('\n');
+            written++;
+          }
+          generator.flush();
+        }
+      } finally {
+        running.release();
+        log.debug("Exported {} review logs in {} ms", written,
+            System.currentTimeMillis() - started);
+      }
+    }
+  }
+
+  private static ExportLimitException tooManyExports() {
+    return new ExportLimitException("Too many review exports running, retry later");
+  }
+
+  private static void writeCsv(Writer writer, ReviewLog entry) throws IOException {
+    writer.write(entry.getId());
+    writer.write(',');
+    writer.write(csvValue(entry.getUserId()));
+    writer.write(',');
+    writer.write(String.valueOf(entry.getCardId()));
+    writer.write(',');
+    writer.write(entry.getDeckId() == null ? "" : entry.getDeckId().toString());
+    writer.write(',');
+    writer.write(Integer.toString(entry.getGrade()));
+    writer.write(',');
+    writer.write(Instant.ofEpochMilli(entry.getReviewedAt()).toString());
+    writer.write(',');
+    writer.write(Double.toString(entry.getElapsedDays()));
+    writer.write(',');
+    writer.write(Double.toString(entry.getScheduledDays()));
+    writer.write(',');
+    writer.write(Double.toString(entry.getStability()));
+    writer.write(',');
+    writer.write(Double.toString(entry.getDifficulty()));
+    writer.write('\n');
+  }
+
+  private static void writeJson(JsonGenerator generator, ReviewLog entry) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("reviewId", entry.getId());
+    generator.writeStringField("userId", entry.getUserId());
+    generator.writeStringField("cardId", String.valueOf(entry.getCardId()));
+    generator.writeStringField("deckId",
+        entry.getDeckId() == null ? null : entry.getDeckId().toString());
+    generator.writeNumberField("grade", entry.getGrade());
+    generator.writeStringField("reviewedAt",
+        Instant.ofEpochMilli(entry.getReviewedAt()).toString());
+    generator.writeNumberField("elapsedDays", entry.getElapsedDays());
+    generator.writeNumberField("scheduledDays", entry.getScheduledDays());
+    generator.writeNumberField("stability", entry.getStability());
+    generator.writeNumberField("difficulty", entry.getDifficulty());
+    generator.writeEndObject();
+  }
+
+  // User ids are the only free text, quoted when they hold a separator
+  private static String csvValue(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+        && value.indexOf('\r') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+}
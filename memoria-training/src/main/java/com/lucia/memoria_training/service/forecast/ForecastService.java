@@ -0,0 +1,170 @@
+package com.lucia.memoria_training.service.forecast;
+
+import com.lucia.memoria_training.config.ForecastConfig;
+import com.lucia.memoria_training.config.StatsConfig;
+import com.lucia.memoria_training.dto.ForecastDTO;
+import com.lucia.memoria_training.dto.ForecastDayDTO;
+import com.lucia.memoria_training.model.CardState;
+import com.lucia.memoria_training.service.scheduler.SchedulerRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+/**
+ * Forecasts a user's daily review load with Monte-Carlo simulation: every run plays the user's
+ * cards forward under their scheduler, drawing each recall from the predicted recall chance,
+ * and the runs are summarized into percentile bands per day. Runs are spread over one pool
+ * shared by all forecasts, and a forecast stops starting runs once its time budget is spent.
+ */
+@Service
+@Slf4j
+public class ForecastService {
+
+  private final MongoTemplate mongoTemplate;
+  private final SchedulerRegistry schedulerRegistry;
+  private final ForecastConfig config;
+  private final ZoneId zone;
+  private final ForkJoinPool pool;
+
+  public ForecastService(MongoTemplate mongoTemplate, SchedulerRegistry schedulerRegistry,
+      ForecastConfig config, StatsConfig statsConfig) {
+    this.mongoTemplate = mongoTemplate;
+    this.schedulerRegistry = schedulerRegistry;
+    this.config = config;
+    this.zone = statsConfig.getZone();
+    this.pool = new ForkJoinPool(config.getThreads() > 0
+        ? config.getThreads()
+        : Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Daily review load for the next {@code days} days, today included.
+   *
+   * @param deckIds        decks to include, null or empty for all decks
+   * @param newCards       planned cards not studied yet, such as a deck about to be imported
+   * @param newCardsPerDay how many of the planned cards are studied each day
+   */
+  public ForecastDTO forecast(String userId, Collection<UUID> deckIds, Integer days,
+      Integer newCards, Integer newCardsPerDay) {
+    if (userId == null || userId.isBlank()) {
+      throw new IllegalArgumentException("User is required");
+    }
+    int horizon = days == null ? config.getDefaultDays() : days;
+    if (horizon < 1 || horizon > config.getMaxDays()) {
+      throw new IllegalArgumentException("Days must be between 1 and " + config.getMaxDays());
+    }
+    int planned = newCards == null ? 0 : newCards;
+    if (planned < 0 || planned > config.getMaxNewCards()) {
+      throw new IllegalArgumentException(
+          "New cards must be between 0 and " + config.getMaxNewCards());
+    }
+    int perDay = newCardsPerDay == null ? 0 : newCardsPerDay;
+    if (perDay < 0 || (planned > 0 && perDay == 0)) {
+      throw new IllegalArgumentException("New cards per day must be positive");
+    }
+
+    ForecastSimulation simulation = load(userId, deckIds);
+    long now = System.currentTimeMillis();
+    LocalDate today = LocalDate.now(zone);
+    long dayStart = today.atStartOfDay(zone).toInstant().toEpochMilli();
+    long deadline = now + config.getTimeBudget().toMillis();
+
+    int runs = config.getRuns();
+    int[][] counts = new int[runs][];
+    AtomicInteger nextRun = new AtomicInteger();
+    SplittableRandom random = new SplittableRandom();
+    List<Callable<Void>> workers = new ArrayList<>();
+    for (int i = 0; i < Math.min(pool.getParallelism(), runs); i++) {
+      SplittableRandom workerRandom = random.split();
+      workers.add(() -> {
+        int run;
+        // The first run ignores the budget, so there is always something to summarize
+        while ((run = nextRun.getAndIncrement()) < runs
+            && (run == 0 || System.currentTimeMillis() < deadline)) {
+          int[] runCounts = new int[horizon];
+          simulation.run(workerRandom, now, dayStart, runCounts, planned, perDay);
+          counts[run] = runCounts;
+        }
+        return null;
+      });
+    }
+    for (Future<Void> worker : pool.invokeAll(workers)) {
+      try {
+        worker.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Forecast interrupted", e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Forecast failed", e.getCause());
+      }
+    }
+
+    int[][] completed = Arrays.stream(counts).filter(Objects::nonNull)
+        .toArray(int[][]::new);
+    return new ForecastDTO(completed.length, completed.length == runs,
+        summarize(completed, today, horizon));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    pool.shutdownNow();
+  }
+
+  private ForecastSimulation load(String userId, Collection<UUID> deckIds) {
+    ForecastSimulation simulation = new ForecastSimulation(schedulerRegistry.schedulerFor(userId),
+        config.getSm2Retention(), config.getFirstReviewRecall());
+    Criteria criteria = Criteria.where("userId").is(userId).and("suspended").ne(true);
+    if (deckIds != null && !deckIds.isEmpty()) {
+      criteria = criteria.and("deckId").in(deckIds);
+    }
+    Query query = Query.query(criteria);
+    query.fields().include("stability", "difficulty", "lastReview", "due", "reps", "lapses");
+    try (Stream<CardState> states = mongoTemplate.stream(query, CardState.class)) {
+      states.forEach(state -> simulation.addCard(state.getStability(), state.getDifficulty(),
+          state.getLastReview(), state.getDue(), state.getReps(), state.getLapses()));
+    }
+    return simulation;
+  }
+
+  private static List<ForecastDayDTO> summarize(int[][] runs, LocalDate today, int horizon) {
+    List<ForecastDayDTO> days = new ArrayList<>(horizon);
+    int[] column = new int[runs.length];
+    for (int day = 0; day < horizon; day++) {
+      long total = 0;
+      for (int run = 0; run < runs.length; run++) {
+        column[run] = runs[run][day];
+        total += column[run];
+      }
+      Arrays.sort(column);
+      days.add(new ForecastDayDTO(today.plusDays(day),
+          runs.length == 0 ? 0 : total / (double) runs.length,
+          percentile(column, 0.1), percentile(column, 0.5), percentile(column, 0.9)));
+    }
+    return days;
+  }
+
+  private static int percentile(int[] sorted, double quantile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    return sorted[(int) Math.round(quantile * (sorted.length - 1))];
+  }
+}
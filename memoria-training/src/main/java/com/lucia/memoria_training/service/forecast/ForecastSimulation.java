@@ -0,0 +1,119 @@
+package com.lucia.memoria_training.service.forecast;
+
+import static com.lucia.memoria_training.service.scheduler.ReviewScheduler.AGAIN;
+import static com.lucia.memoria_training.service.scheduler.ReviewScheduler.DAY_MILLIS;
+import static com.lucia.memoria_training.service.scheduler.ReviewScheduler.GOOD;
+
+import com.lucia.memoria_training.service.scheduler.FsrsScheduler;
+import com.lucia.memoria_training.service.scheduler.MemoryState;
+import com.lucia.memoria_training.service.scheduler.ReviewScheduler;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The memory states of one user's cards in primitive arrays, and one simulated future of them
+ * per {@link #run} call. Cards are independent of each other, so a run follows each card review
+ * by review until it leaves the horizon instead of stepping through the days, and costs one
+ * iteration per simulated review. Recalls are graded good and failures again. Read only once
+ * built, any number of threads can run it at once.
+ */
+final class ForecastSimulation {
+
+  private final ReviewScheduler scheduler;
+  private final boolean fsrs;
+  private final double sm2Retention;
+  private final double firstReviewRecall;
+
+  private double[] stability = new double[64];
+  private double[] difficulty = new double[64];
+  private long[] lastReview = new long[64];
+  private long[] due = new long[64];
+  private int[] reps = new int[64];
+  private int[] lapses = new int[64];
+  private int cardCount;
+
+  ForecastSimulation(ReviewScheduler scheduler, double sm2Retention, double firstReviewRecall) {
+    this.scheduler = scheduler;
+    this.fsrs = scheduler instanceof FsrsScheduler;
+    this.sm2Retention = sm2Retention;
+    this.firstReviewRecall = firstReviewRecall;
+  }
+
+  void addCard(double cardStability, double cardDifficulty, long cardLastReview, long cardDue,
+      int cardReps, int cardLapses) {
+    if (cardCount == due.length) {
+      int capacity = cardCount * 2;
+      stability = Arrays.copyOf(stability, capacity);
+      difficulty = Arrays.copyOf(difficulty, capacity);
+      lastReview = Arrays.copyOf(lastReview, capacity);
+      due = Arrays.copyOf(due, capacity);
+      reps = Arrays.copyOf(reps, capacity);
+      lapses = Arrays.copyOf(lapses, capacity);
+    }
+    stability[cardCount] = cardStability;
+    difficulty[cardCount] = cardDifficulty;
+    lastReview[cardCount] = cardLastReview;
+    due[cardCount] = cardDue;
+    reps[cardCount] = cardReps;
+    lapses[cardCount] = cardLapses;
+    cardCount++;
+  }
+
+  int cardCount() {
+    return cardCount;
+  }
+
+  /**
+   * Adds one simulated future to {@code counts}, the reviews per day from the day starting at
+   * {@code dayStart}. Overdue cards are reviewed at {@code now}.
+   *
+   * @param newCards planned new cards, introduced {@code newCardsPerDay} a day from day 0
+   */
+  void run(SplittableRandom random, long now, long dayStart, int[] counts, int newCards,
+      int newCardsPerDay) {
+    long horizon = dayStart + counts.length * DAY_MILLIS;
+    MemoryState state = new MemoryState();
+    for (int card = 0; card < cardCount; card++) {
+      state.stability = stability[card];
+      state.difficulty = difficulty[card];
+      state.lastReview = lastReview[card];
+      state.due = due[card];
+      state.reps = reps[card];
+      state.lapses = lapses[card];
+      follow(state, Math.max(state.due, now), random, dayStart, horizon, counts);
+    }
+
+    for (int added = 0; newCardsPerDay > 0 && added < newCards; added++) {
+      int day = added / newCardsPerDay;
+      if (day >= counts.length) {
+        break;
+      }
+      state.clear();
+      long reviewedAt = Math.max(now, dayStart + day * DAY_MILLIS);
+      counts[day]++;
+      scheduler.review(state, random.nextDouble() < firstReviewRecall ? GOOD : AGAIN,
+          reviewedAt);
+      follow(state, state.due, random, dayStart, horizon, counts);
+    }
+  }
+
+  private void follow(MemoryState state, long reviewAt, SplittableRandom random, long dayStart,
+      long horizon, int[] counts) {
+    long at = reviewAt;
+    while (at < horizon) {
+      counts[(int) ((at - dayStart) / DAY_MILLIS)]++;
+      scheduler.review(state, random.nextDouble() < recallProbability(state, at) ? GOOD : AGAIN,
+          at);
+      // Every scheduler moves the card at least a day ahead, this only guards against a broken one
+      at = Math.max(state.due, at + DAY_MILLIS);
+    }
+  }
+
+  private double recallProbability(MemoryState state, long at) {
+    if (!fsrs || state.isNew()) {
+      return state.isNew() ? firstReviewRecall : sm2Retention;
+    }
+    double elapsedDays = Math.max(0, (at - state.lastReview) / (double) DAY_MILLIS);
+    return FsrsScheduler.retrievability(elapsedDays, state.stability);
+  }
+}
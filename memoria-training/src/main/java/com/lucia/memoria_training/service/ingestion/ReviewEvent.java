@@ -0,0 +1,16 @@
+package com.lucia.memoria_training.service.ingestion;
+
+import java.util.UUID;
+
+/**
+ * A review as written to the write-ahead log. {@code sequence} is assigned by the log and only
+ * grows within it, it orders the reviews and tracks what reached Mongo but is never stored with
+ * them: a fresh log directory numbers from 1 again.
+ */
+public record ReviewEvent(long sequence, UUID reviewId, String userId, UUID cardId,
+                          UUID deckId, int grade, long reviewedAt) {
+
+  ReviewEvent withSequence(long assigned) {
+    return new ReviewEvent(assigned, reviewId, userId, cardId, deckId, grade, reviewedAt);
+  }
+}
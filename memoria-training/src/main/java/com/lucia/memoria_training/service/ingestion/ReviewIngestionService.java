@@ -0,0 +1,320 @@
+package com.lucia.memoria_training.service.ingestion;
+
+import com.lucia.memoria_training.config.IngestionConfig;
+import com.lucia.memoria_training.dto.ReviewAcceptedDTO;
+import com.lucia.memoria_training.dto.ReviewRequestDTO;
+import com.lucia.memoria_training.exception.IngestionBackpressureException;
+import com.lucia.memoria_training.service.ReviewService;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Write-behind ingestion of reviews. A review is acknowledged once it is forced to the local
+ * write-ahead log; a writer thread groups concurrent appends into one fsync and a flusher
+ * thread applies the logged reviews to Mongo in bulk. Reviews still in the log after a crash
+ * are replayed on start, card states count the reviews they contain so nothing is applied
+ * twice. A review that fails for any reason but Mongo being unavailable is dead-lettered, so
+ * it cannot hold up the reviews behind it.
+ */
+@Service
+@Slf4j
+public class ReviewIngestionService {
+
+  private static final int MAX_GROUP_COMMIT = 1024;
+  private static final long MIN_RETRY_DELAY_MILLIS = 100;
+  private static final long MAX_RETRY_DELAY_MILLIS = 5_000;
+
+  private final ReviewService reviewService;
+  private final IngestionConfig config;
+  private final ReviewWal wal;
+  private final BlockingQueue<PendingAppend> appends = new LinkedBlockingQueue<>();
+  private final BlockingQueue<ReviewEvent> unflushed = new LinkedBlockingQueue<>();
+  // One permit per review that may be accepted before Mongo catches up
+  private final Semaphore backlog;
+  private final Thread writer;
+  private final Thread flusher;
+  // Signalled whenever flushedSequence advances
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final Condition flushed = flushLock.newCondition();
+  private volatile boolean running = true;
+  private volatile long flushedSequence;
+  private volatile long loggedSequence;
+  private long nextSequence;
+
+  public ReviewIngestionService(ReviewService reviewService, IngestionConfig config) {
+    this.reviewService = reviewService;
+    this.config = config;
+    try {
+      this.wal = new ReviewWal(Path.of(config.getDirectory()),
+          config.getSegmentSize().toBytes());
+      this.flushedSequence = wal.readCheckpoint();
+      List<ReviewEvent> replay = wal.recover(flushedSequence);
+      this.nextSequence = Math.max(flushedSequence, wal.getLastSequence()) + 1;
+      this.loggedSequence = nextSequence - 1;
+      wal.openForAppend(nextSequence);
+      unflushed.addAll(replay);
+      this.backlog = new Semaphore(config.getMaxPendingReviews() - replay.size());
+      if (!replay.isEmpty()) {
+        log.info("Replaying {} reviews from the write-ahead log", replay.size());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open the review write-ahead log", e);
+    }
+
+    this.writer = new Thread(this::writeLoop, "review-wal-writer");
+    this.flusher = new Thread(this::flushLoop, "review-flusher");
+    writer.setDaemon(true);
+    flusher.setDaemon(true);
+    writer.start();
+    flusher.start();
+  }
+
+  /**
+   * Accepts a review once it is durable in the local log. Waits up to
+   * {@code training.ingestion.backpressure-timeout} when the backlog is full.
+   */
+  public ReviewAcceptedDTO submit(String userId, ReviewRequestDTO request) {
+    ReviewService.validate(userId, request);
+    if (!running) {
+      throw new IngestionBackpressureException("Review ingestion is shutting down");
+    }
+    UUID reviewId = request.reviewId() != null ? request.reviewId() : UUID.randomUUID();
+    long reviewedAt = request.reviewedAt() != null
+        ? request.reviewedAt().toEpochMilli()
+        : System.currentTimeMillis();
+    ReviewEvent event = new ReviewEvent(0, reviewId, userId, request.cardId(),
+        request.deckId(), request.grade(), reviewedAt);
+
+    acquireBacklogPermit();
+    PendingAppend pending = new PendingAppend(event, new CompletableFuture<>());
+    appends.add(pending);
+    try {
+      long sequence = pending.result()
+          .get(config.getAppendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+      return new ReviewAcceptedDTO(reviewId, sequence);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while logging the review", e);
+    } catch (ExecutionException | TimeoutException e) {
+      // The review may still be logged, the client retries with the same review id
+      throw new IllegalStateException("Could not log the review", e);
+    }
+  }
+
+  public int getPendingReviews() {
+    return config.getMaxPendingReviews() - backlog.availablePermits();
+  }
+
+  public long getFlushedSequence() {
+    return flushedSequence;
+  }
+
+  /**
+   * Waits until every review logged so far is stored in Mongo.
+   *
+   * @return whether they were stored within the timeout
+   */
+  public boolean awaitFlushed(Duration timeout) {
+    long target = loggedSequence;
+    long remaining = timeout.toNanos();
+    flushLock.lock();
+    try {
+      while (flushedSequence < target) {
+        if (remaining <= 0) {
+          return false;
+        }
+        remaining = flushed.awaitNanos(remaining);
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  private void acquireBacklogPermit() {
+    try {
+      if (!backlog.tryAcquire(config.getBackpressureTimeout().toMillis(),
+          TimeUnit.MILLISECONDS)) {
+        throw new IngestionBackpressureException(
+            "Too many reviews waiting to be stored, retry later");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IngestionBackpressureException("Interrupted while waiting for the backlog");
+    }
+  }
+
+  private void writeLoop() {
+    List<PendingAppend> group = new ArrayList<>();
+    List<ReviewEvent> events = new ArrayList<>();
+    while (running || !appends.isEmpty()) {
+      try {
+        PendingAppend first = appends.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        group.add(first);
+        appends.drainTo(group, MAX_GROUP_COMMIT - 1);
+        for (PendingAppend pending : group) {
+          events.add(pending.event().withSequence(nextSequence++));
+        }
+        try {
+          wal.append(events);
+          loggedSequence = events.get(events.size() - 1).sequence();
+          unflushed.addAll(events);
+          for (int i = 0; i < group.size(); i++) {
+            group.get(i).result().complete(events.get(i).sequence());
+          }
+        } catch (IOException e) {
+          log.error("Could not append {} reviews to the write-ahead log", group.size(), e);
+          backlog.release(group.size());
+          group.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        group.clear();
+        events.clear();
+      }
+    }
+  }
+
+  private void flushLoop() {
+    List<ReviewEvent> batch = new ArrayList<>(config.getBatchSize());
+    long interval = config.getFlushInterval().toMillis();
+    while (running || writer.isAlive() || !unflushed.isEmpty()) {
+      try {
+        ReviewEvent first = unflushed.poll(interval, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = System.currentTimeMillis() + interval;
+        while (batch.size() < config.getBatchSize()) {
+          long remaining = deadline - System.currentTimeMillis();
+          ReviewEvent next = remaining > 0
+              ? unflushed.poll(remaining, TimeUnit.MILLISECONDS)
+              : unflushed.poll();
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        flush(batch);
+        batch.clear();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void flush(List<ReviewEvent> batch) throws InterruptedException {
+    apply(batch);
+
+    flushLock.lock();
+    try {
+      flushedSequence = batch.get(batch.size() - 1).sequence();
+      flushed.signalAll();
+    } finally {
+      flushLock.unlock();
+    }
+    backlog.release(batch.size());
+    try {
+      wal.checkpoint(flushedSequence);
+    } catch (IOException e) {
+      // Harmless, the reviews are replayed and skipped as already applied
+      log.warn("Could not checkpoint the write-ahead log at {}", flushedSequence, e);
+    }
+  }
+
+  // Retries while Mongo is unavailable, the backlog fills up meanwhile and pushes back. Any
+  // other failure is narrowed down by halves to the reviews causing it, which are dead-lettered.
+  private void apply(List<ReviewEvent> batch) throws InterruptedException {
+    long delay = MIN_RETRY_DELAY_MILLIS;
+    while (true) {
+      try {
+        reviewService.applyBatch(batch);
+        return;
+      } catch (RuntimeException e) {
+        if (!isTransient(e)) {
+          if (batch.size() == 1) {
+            deadLetter(batch.get(0), e);
+          } else {
+            apply(batch.subList(0, batch.size() / 2));
+            apply(batch.subList(batch.size() / 2, batch.size()));
+          }
+          return;
+        }
+        log.warn("Could not store {} reviews, retrying in {} ms: {}", batch.size(), delay,
+            e.getMessage());
+        Thread.sleep(delay);
+        delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+      }
+    }
+  }
+
+  private void deadLetter(ReviewEvent event, RuntimeException error)
+      throws InterruptedException {
+    log.error("Dead-lettering review {} of user {}", event.reviewId(), event.userId(), error);
+    long delay = MIN_RETRY_DELAY_MILLIS;
+    while (true) {
+      try {
+        reviewService.deadLetter(event, error);
+        return;
+      } catch (RuntimeException e) {
+        log.warn("Could not dead-letter review {}, retrying in {} ms: {}", event.reviewId(),
+            delay, e.getMessage());
+        Thread.sleep(delay);
+        delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+      }
+    }
+  }
+
+  private static boolean isTransient(RuntimeException e) {
+    return e instanceof TransientDataAccessException
+        || e instanceof RecoverableDataAccessException
+        || e instanceof DataAccessResourceFailureException;
+  }
+
+  @PreDestroy
+  public void shutdown() throws IOException, InterruptedException {
+    running = false;
+    writer.join(config.getAppendTimeout().toMillis());
+    flusher.join(10_000);
+    if (flusher.isAlive()) {
+      log.warn("{} reviews left in the write-ahead log, they are stored on the next start",
+          unflushed.size());
+      flusher.interrupt();
+    }
+    wal.close();
+  }
+
+  private record PendingAppend(ReviewEvent event, CompletableFuture<Long> result) {
+
+  }
+}
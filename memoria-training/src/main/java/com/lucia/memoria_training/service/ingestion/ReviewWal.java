@@ -0,0 +1,253 @@
+package com.lucia.memoria_training.service.ingestion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only log of accepted reviews, split into segment files named after the sequence of
+ * their first record. Every record is framed as length, CRC32 and payload, so a record torn by
+ * a crash is detected and dropped on recovery. A checkpoint file holds the last sequence that
+ * reached Mongo; segments entirely below it are deleted.
+ */
+@Slf4j
+final class ReviewWal implements Closeable {
+
+  private static final String SEGMENT_PREFIX = "reviews-";
+  private static final String SEGMENT_SUFFIX = ".wal";
+  private static final String CHECKPOINT = "checkpoint";
+  // sequence, reviewedAt, reviewId, cardId, deck flag, deckId, grade, user length
+  private static final int FIXED_PAYLOAD = 8 + 8 + 16 + 16 + 1 + 16 + 1 + 2;
+  private static final int FRAME_HEADER = 8;
+
+  private final Path directory;
+  private final long segmentBytes;
+  private final List<Segment> segments = new ArrayList<>();
+  private FileChannel channel;
+  // Set when a failed append could not be cut off, the next append starts a new segment
+  private boolean torn;
+  private long lastSequence;
+
+  ReviewWal(Path directory, long segmentBytes) throws IOException {
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    Files.createDirectories(directory);
+    try (Stream<Path> files = Files.list(directory)) {
+      files.map(Path::getFileName)
+          .map(Path::toString)
+          .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+          .map(name -> new Segment(Long.parseLong(
+              name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())),
+              directory.resolve(name)))
+          .sorted((a, b) -> Long.compare(a.firstSequence(), b.firstSequence()))
+          .forEach(segments::add);
+    }
+  }
+
+  /**
+   * Reads every intact record with a sequence above {@code afterSequence}. A torn record at the
+   * end of a segment is cut off so later appends start on a clean boundary.
+   */
+  List<ReviewEvent> recover(long afterSequence) throws IOException {
+    List<ReviewEvent> events = new ArrayList<>();
+    lastSequence = afterSequence;
+    for (Segment segment : segments) {
+      try (FileChannel file = FileChannel.open(segment.path(), StandardOpenOption.READ,
+          StandardOpenOption.WRITE)) {
+        ByteBuffer content = ByteBuffer.allocate((int) file.size());
+        while (content.hasRemaining() && file.read(content) >= 0) {
+          // read the whole segment
+        }
+        content.flip();
+        long validEnd = 0;
+        while (content.remaining() >= FRAME_HEADER) {
+          int length = content.getInt();
+          int crc = content.getInt();
+          if (length < FIXED_PAYLOAD || length > content.remaining()) {
+            break;
+          }
+          byte[] payload = new byte[length];
+          content.get(payload);
+          if (crc != crc(payload)) {
+            break;
+          }
+          ReviewEvent event = decode(ByteBuffer.wrap(payload));
+          lastSequence = Math.max(lastSequence, event.sequence());
+          if (event.sequence() > afterSequence) {
+            events.add(event);
+          }
+          validEnd = content.position();
+        }
+        if (validEnd < file.size()) {
+          log.warn("Dropping {} torn bytes at the end of {}", file.size() - validEnd,
+              segment.path().getFileName());
+          file.truncate(validEnd);
+        }
+      }
+    }
+    return events;
+  }
+
+  long getLastSequence() {
+    return lastSequence;
+  }
+
+  void openForAppend(long nextSequence) throws IOException {
+    rollTo(nextSequence);
+  }
+
+  /**
+   * Appends the events and forces them to disk before returning, one fsync for the whole group.
+   * A group that fails leaves nothing behind: its bytes are cut off again, or when even that
+   * fails the segment is abandoned, so no later group lands behind a torn frame that recovery
+   * would truncate along with everything after it.
+   */
+  void append(List<ReviewEvent> events) throws IOException {
+    if (torn || channel.size() >= segmentBytes) {
+      rollTo(events.get(0).sequence());
+      torn = false;
+    }
+    List<byte[]> payloads = new ArrayList<>(events.size());
+    int total = 0;
+    for (ReviewEvent event : events) {
+      byte[] payload = encode(event);
+      payloads.add(payload);
+      total += FRAME_HEADER + payload.length;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(total);
+    for (byte[] payload : payloads) {
+      buffer.putInt(payload.length);
+      buffer.putInt(crc(payload));
+      buffer.put(payload);
+    }
+    buffer.flip();
+    long start = channel.size();
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    } catch (IOException e) {
+      discardFrom(start, e);
+      throw e;
+    }
+    lastSequence = events.get(events.size() - 1).sequence();
+  }
+
+  private void discardFrom(long start, IOException cause) {
+    try {
+      channel.truncate(start);
+      channel.force(false);
+    } catch (IOException e) {
+      cause.addSuppressed(e);
+      torn = true;
+    }
+  }
+
+  long readCheckpoint() throws IOException {
+    Path checkpoint = directory.resolve(CHECKPOINT);
+    if (!Files.exists(checkpoint)) {
+      return 0;
+    }
+    return Long.parseLong(Files.readString(checkpoint, StandardCharsets.UTF_8).trim());
+  }
+
+  /**
+   * Records that every review up to {@code sequence} is in Mongo and deletes the segments that
+   * hold nothing newer. The segment being appended to is always kept.
+   */
+  void checkpoint(long sequence) throws IOException {
+    Path temp = directory.resolve(CHECKPOINT + ".tmp");
+    Files.writeString(temp, Long.toString(sequence), StandardCharsets.UTF_8);
+    Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+
+    synchronized (segments) {
+      while (segments.size() > 1 && segments.get(1).firstSequence() - 1 <= sequence) {
+        Files.deleteIfExists(segments.remove(0).path());
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  private void rollTo(long firstSequence) throws IOException {
+    if (channel != null) {
+      channel.close();
+    }
+    Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence,
+        SEGMENT_SUFFIX));
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+    synchronized (segments) {
+      if (segments.isEmpty() || !segments.get(segments.size() - 1).path().equals(path)) {
+        segments.add(new Segment(firstSequence, path));
+      }
+    }
+  }
+
+  private static byte[] encode(ReviewEvent event) {
+    byte[] user = event.userId().getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocate(FIXED_PAYLOAD + user.length);
+    buffer.putLong(event.sequence());
+    buffer.putLong(event.reviewedAt());
+    putUuid(buffer, event.reviewId());
+    putUuid(buffer, event.cardId());
+    buffer.put((byte) (event.deckId() == null ? 0 : 1));
+    putUuid(buffer, event.deckId() == null ? new UUID(0, 0) : event.deckId());
+    buffer.put((byte) event.grade());
+    buffer.putShort((short) user.length);
+    buffer.put(user);
+    return buffer.array();
+  }
+
+  private static ReviewEvent decode(ByteBuffer buffer) {
+    long sequence = buffer.getLong();
+    long reviewedAt = buffer.getLong();
+    UUID reviewId = getUuid(buffer);
+    UUID cardId = getUuid(buffer);
+    boolean hasDeck = buffer.get() == 1;
+    UUID deckId = getUuid(buffer);
+    int grade = buffer.get();
+    byte[] user = new byte[buffer.getShort() & 0xffff];
+    buffer.get(user);
+    return new ReviewEvent(sequence, reviewId, new String(user, StandardCharsets.UTF_8), cardId,
+        hasDeck ? deckId : null, grade, reviewedAt);
+  }
+
+  private static void putUuid(ByteBuffer buffer, UUID uuid) {
+    buffer.putLong(uuid.getMostSignificantBits());
+    buffer.putLong(uuid.getLeastSignificantBits());
+  }
+
+  private static UUID getUuid(ByteBuffer buffer) {
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+
+  private static int crc(byte[] payload) {
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    return (int) crc.getValue();
+  }
+
+  private record Segment(long firstSequence, Path path) {
+
+  }
+}
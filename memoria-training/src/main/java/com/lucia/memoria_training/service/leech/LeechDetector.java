@@ -0,0 +1,52 @@
+package com.lucia.memoria_training.service.leech;
+
+import com.lucia.memoria_training.config.LeechConfig;
+import com.lucia.memoria_training.model.CardState;
+import com.lucia.memoria_training.service.scheduler.MemoryState;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells leeches apart while reviews are applied. Each review only compares the lapse counts of
+ * its card before and after scheduling, so detection costs the same however many cards a user
+ * has and nothing ever scans for leeches.
+ */
+@Component
+public class LeechDetector {
+
+  private final LeechConfig config;
+
+  public LeechDetector(LeechConfig config) {
+    this.config = config;
+  }
+
+  /**
+   * Updates the consecutive lapses of a card just scheduled and suspends it once it crosses a
+   * threshold.
+   *
+   * @param previousLapses total lapses before the review
+   * @param wasNew         whether the card had never been reviewed, failing it is no lapse
+   * @return whether the card became a leech with this review
+   */
+  public boolean onReview(CardState cardState, MemoryState state, int previousLapses,
+      boolean wasNew) {
+    boolean lapsed = !wasNew && state.lapses > previousLapses;
+    int consecutive = lapsed ? cardState.getConsecutiveLapses() + 1 : 0;
+    cardState.setConsecutiveLapses(consecutive);
+    if (!config.isEnabled() || !lapsed || cardState.isSuspended()) {
+      return false;
+    }
+    boolean leech = reachedTotal(state.lapses, config.getLapseThreshold())
+        || (config.getConsecutiveLapseThreshold() > 0
+        && consecutive >= config.getConsecutiveLapseThreshold());
+    if (leech) {
+      cardState.setSuspended(true);
+    }
+    return leech;
+  }
+
+  // A card unsuspended by its user comes back every half threshold, not on its next lapse
+  private static boolean reachedTotal(int lapses, int threshold) {
+    return threshold > 0 && lapses >= threshold
+        && (lapses - threshold) % Math.max(1, threshold / 2) == 0;
+  }
+}
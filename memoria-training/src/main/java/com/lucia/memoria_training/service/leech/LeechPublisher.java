@@ -0,0 +1,116 @@
+package com.lucia.memoria_training.service.leech;
+
+import com.lucia.memoria_training.client.DataServiceClient;
+import com.lucia.memoria_training.config.LeechConfig;
+import com.lucia.memoria_training.dto.dataservice.LeechTagDTO;
+import com.lucia.memoria_training.model.LeechEvent;
+import com.lucia.memoria_training.repository.LeechEventRepository;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Sends leech events to memoria-data so it tags the cards. Unpublished events are read oldest
+ * first, posted as one batch and marked published once memoria-data accepted them. A failed
+ * batch is posted again later and every instance publishes, so a card may be tagged twice;
+ * memoria-data ignores a tag the card already has.
+ */
+@Service
+@Slf4j
+public class LeechPublisher {
+
+  private static final long CLEANUP_INTERVAL_MILLIS = 3_600_000;
+
+  private final LeechEventRepository leechEventRepository;
+  private final MongoTemplate mongoTemplate;
+  private final DataServiceClient dataServiceClient;
+  private final LeechConfig config;
+  private final ScheduledExecutorService poller;
+  private long backoffMillis;
+  private long nextAttemptAt;
+  private long lastCleanupAt;
+
+  public LeechPublisher(LeechEventRepository leechEventRepository, MongoTemplate mongoTemplate,
+      DataServiceClient dataServiceClient, LeechConfig config) {
+    this.leechEventRepository = leechEventRepository;
+    this.mongoTemplate = mongoTemplate;
+    this.dataServiceClient = dataServiceClient;
+    this.config = config;
+    this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "leech-publisher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (config.isEnabled()) {
+      long interval = config.getPublishInterval().toMillis();
+      poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void poll() {
+    long now = System.currentTimeMillis();
+    if (now < nextAttemptAt) {
+      return;
+    }
+    try {
+      int published;
+      do {
+        published = publishBatch();
+      } while (published == config.getPublishBatchSize());
+      backoffMillis = 0;
+    } catch (RuntimeException e) {
+      backoffMillis = backoffMillis == 0
+          ? config.getPublishInterval().toMillis()
+          : Math.min(backoffMillis * 2, config.getMaxBackoff().toMillis());
+      nextAttemptAt = System.currentTimeMillis() + backoffMillis;
+      log.warn("Publishing leeches to memoria-data failed, retrying in {} ms: {}",
+          backoffMillis, e.getMessage());
+    }
+    if (now - lastCleanupAt >= CLEANUP_INTERVAL_MILLIS) {
+      lastCleanupAt = now;
+      deletePublished();
+    }
+  }
+
+  private int publishBatch() {
+    List<LeechEvent> events = leechEventRepository.findUnpublished(
+        PageRequest.of(0, config.getPublishBatchSize()));
+    if (events.isEmpty()) {
+      return 0;
+    }
+    dataServiceClient.tagLeeches(events.stream()
+        .map(event -> new LeechTagDTO(event.getId(), event.getUserId(), event.getCardId(),
+            config.getTagName()))
+        .toList());
+    mongoTemplate.updateMulti(
+        Query.query(Criteria.where("_id").in(events.stream().map(LeechEvent::getId).toList())),
+        new Update().set("publishedAt", System.currentTimeMillis()), LeechEvent.class);
+    return events.size();
+  }
+
+  private void deletePublished() {
+    try {
+      long deleted = leechEventRepository.deletePublishedBefore(
+          System.currentTimeMillis() - config.getRetention().toMillis());
+      if (deleted > 0) {
+        log.debug("Deleted {} published leech events", deleted);
+      }
+    } catch (RuntimeException e) {
+      log.warn("Could not delete published leech events", e);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    poller.shutdownNow();
+  }
+}
@@ -0,0 +1,85 @@
+package com.lucia.memoria_training.service.leech;
+
+import com.lucia.memoria_training.dto.LeechDTO;
+import com.lucia.memoria_training.exception.NotFoundException;
+import com.lucia.memoria_training.model.CardState;
+import com.lucia.memoria_training.repository.CardStateRepository;
+import com.lucia.memoria_training.service.balance.DueLoadBalancer;
+import com.lucia.memoria_training.service.due.DueQueueService;
+import com.mongodb.client.result.UpdateResult;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+@Service
+public class LeechService {
+
+  // Review ingestion writing the same card over and over again is the only reason to retry
+  private static final int MAX_ATTEMPTS = 5;
+
+  private final CardStateRepository cardStateRepository;
+  private final MongoTemplate mongoTemplate;
+  private final DueQueueService dueQueueService;
+  private final DueLoadBalancer dueLoadBalancer;
+
+  public LeechService(CardStateRepository cardStateRepository, MongoTemplate mongoTemplate,
+      DueQueueService dueQueueService, DueLoadBalancer dueLoadBalancer) {
+    this.cardStateRepository = cardStateRepository;
+    this.mongoTemplate = mongoTemplate;
+    this.dueQueueService = dueQueueService;
+    this.dueLoadBalancer = dueLoadBalancer;
+  }
+
+  /**
+   * Suspended leeches of the user, most lapses first.
+   */
+  public List<LeechDTO> getLeeches(String userId) {
+    requireUser(userId);
+    return cardStateRepository.findSuspendedByUserId(userId).stream()
+        .sorted(Comparator.comparingInt(CardState::getLapses).reversed())
+        .map(state -> new LeechDTO(state.getCardId(), state.getDeckId(), state.getLapses(),
+            state.getConsecutiveLapses()))
+        .toList();
+  }
+
+  /**
+   * Puts a leech back into the due queue with its schedule unchanged. Its consecutive lapses
+   * start over, its total lapses make it a leech again after half the threshold more.
+   * The state is written like review ingestion writes it, only while its version is the one
+   * read, so neither side overwrites the other. A card that is not suspended is left as is.
+   */
+  public void unsuspend(String userId, UUID cardId) {
+    requireUser(userId);
+    String stateId = CardState.idOf(userId, cardId);
+    for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+      CardState state = cardStateRepository.findById(stateId)
+          .orElseThrow(() -> new NotFoundException("Card has not been reviewed"));
+      if (!state.isSuspended()) {
+        return;
+      }
+      // Only the suspension fields, the schedule stays the one the last review set
+      UpdateResult written = mongoTemplate.updateFirst(
+          CardState.unchanged(stateId, state.getVersion()),
+          new Update().set("suspended", false).set("consecutiveLapses", 0)
+              .set("updatedAt", System.currentTimeMillis())
+              .set("version", state.getVersion() + 1),
+          CardState.class);
+      if (written.getModifiedCount() == 1) {
+        dueLoadBalancer.add(userId, state.getDue());
+        dueQueueService.onReview(userId, cardId, state.getDeckId(), state.getDue());
+        return;
+      }
+    }
+    throw new OptimisticLockingFailureException("Card kept changing, try again");
+  }
+
+  private static void requireUser(String userId) {
+    if (userId == null || userId.isBlank()) {
+      throw new IllegalArgumentException("User is required");
+    }
+  }
+}
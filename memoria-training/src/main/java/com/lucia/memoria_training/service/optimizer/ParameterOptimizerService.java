@@ -0,0 +1,183 @@
+package com.lucia.memoria_training.service.optimizer;
+
+import com.lucia.memoria_training.config.OptimizerConfig;
+import com.lucia.memoria_training.config.SchedulerConfig;
+import com.lucia.memoria_training.helper.SchedulerAlgorithm;
+import com.lucia.memoria_training.model.ReviewLog;
+import com.lucia.memoria_training.model.SchedulerParameters;
+import com.lucia.memoria_training.repository.SchedulerParametersRepository;
+import com.lucia.memoria_training.service.archive.ReviewLogFilter;
+import com.lucia.memoria_training.service.archive.ReviewLogStore;
+import com.lucia.memoria_training.service.scheduler.FsrsOptimizer;
+import com.lucia.memoria_training.service.scheduler.ReviewHistory;
+import com.lucia.memoria_training.service.scheduler.SchedulerRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+/**
+ * Periodically fits FSRS weights to the review history of every user with enough new reviews
+ * since their last fit. Users are split across a fork/join pool of {@code parallelism} workers,
+ * each loading one user's newest reviews into primitive arrays and running gradient descent on
+ * them, so memory stays at {@code parallelism} histories of at most
+ * {@code maxReviewsPerUser} reviews. Weights are only kept when they predict the user's reviews
+ * better than the defaults.
+ */
+@Service
+@Slf4j
+public class ParameterOptimizerService {
+
+  private final ReviewLogStore reviewLogStore;
+  private final SchedulerParametersRepository parametersRepository;
+  private final SchedulerRegistry schedulerRegistry;
+  private final OptimizerConfig config;
+  private final FsrsOptimizer optimizer;
+  private final ScheduledExecutorService timer;
+
+  public ParameterOptimizerService(ReviewLogStore reviewLogStore,
+      SchedulerParametersRepository parametersRepository, SchedulerRegistry schedulerRegistry,
+      OptimizerConfig config, SchedulerConfig schedulerConfig) {
+    this.reviewLogStore = reviewLogStore;
+    this.parametersRepository = parametersRepository;
+    this.schedulerRegistry = schedulerRegistry;
+    this.config = config;
+    this.optimizer = new FsrsOptimizer(config.getIterations(), config.getLearningRate());
+    this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "parameter-optimizer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (config.isEnabled() && schedulerConfig.getAlgorithm() == SchedulerAlgorithm.FSRS) {
+      timer.scheduleWithFixedDelay(this::optimizeAll, config.getInitialDelay().toMillis(),
+          config.getInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Refits every user that is due for it and returns how many got new weights.
+   */
+  public int optimizeAll() {
+    long startedAt = System.currentTimeMillis();
+    AtomicInteger fitted = new AtomicInteger();
+    try {
+      List<String> userIds = reviewLogStore.findUserIds();
+      ForkJoinPool pool = new ForkJoinPool(config.getParallelism());
+      try {
+        pool.invoke(new OptimizeUsers(userIds, 0, userIds.size(), fitted));
+      } finally {
+        pool.shutdown();
+      }
+      log.info("Fitted scheduler parameters for {} of {} users in {} ms", fitted.get(),
+          userIds.size(), System.currentTimeMillis() - startedAt);
+    } catch (RuntimeException e) {
+      log.error("Scheduler parameter optimization failed", e);
+    }
+    return fitted.get();
+  }
+
+  /**
+   * Fits the user when they have enough reviews not yet used in a fit.
+   *
+   * @return whether new weights were stored
+   */
+  boolean optimizeUser(String userId) {
+    Optional<SchedulerParameters> previous = parametersRepository.findById(userId);
+    long after = previous.map(SchedulerParameters::getLastReviewedAt).orElse(-1L);
+    long required = previous.isPresent() ? config.getMinNewReviews() : config.getMinReviews();
+    if (reviewLogStore.count(userId, after, required) < required) {
+      return false;
+    }
+
+    long[] lastReviewedAt = new long[1];
+    ReviewHistory history = loadHistory(userId, lastReviewedAt);
+    double defaultLoss = FsrsOptimizer.logLoss(history, schedulerRegistry.getDefaultWeights());
+    if (Double.isNaN(defaultLoss)) {
+      return false;
+    }
+    double[] start = previous.map(SchedulerParameters::getWeights)
+        .orElse(schedulerRegistry.getDefaultWeights());
+    double[] weights = optimizer.fit(history, start, new Random(userId.hashCode()));
+    double loss = FsrsOptimizer.logLoss(history, weights);
+    if (!(loss < defaultLoss)) {
+      log.debug("Fitted weights of user {} do not beat the defaults ({} vs {})", userId, loss,
+          defaultLoss);
+      return false;
+    }
+
+    SchedulerParameters parameters = new SchedulerParameters(userId, weights,
+        history.reviewCount(), lastReviewedAt[0], loss, defaultLoss, System.currentTimeMillis());
+    parametersRepository.save(parameters);
+    schedulerRegistry.register(parameters);
+    return true;
+  }
+
+  // Streams the newest reviews only, so a user with a huge history stays within the budget
+  private ReviewHistory loadHistory(String userId, long[] lastReviewedAt) {
+    ReviewHistory.Builder builder = new ReviewHistory.Builder(
+        Math.min(config.getMaxReviewsPerUser(), 1 << 16));
+    try (Stream<ReviewLog> logs = reviewLogStore.stream(ReviewLogFilter.ofUser(userId),
+        Sort.Direction.DESC, config.getMaxReviewsPerUser(), 1000, "cardId", "grade",
+        "elapsedDays")) {
+      logs.forEach(entry -> {
+        if (builder.size() == 0) {
+          lastReviewedAt[0] = entry.getReviewedAt();
+        }
+        builder.add(entry.getCardId(), entry.getGrade(), entry.getElapsedDays());
+      });
+    }
+    return builder.build();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    timer.shutdownNow();
+  }
+
+  // Halves the user range until one user is left, idle workers steal the other halves
+  private final class OptimizeUsers extends RecursiveAction {
+
+    private final List<String> userIds;
+    private final int from;
+    private final int to;
+    private final AtomicInteger fitted;
+
+    private OptimizeUsers(List<String> userIds, int from, int to, AtomicInteger fitted) {
+      this.userIds = userIds;
+      this.from = from;
+      this.to = to;
+      this.fitted = fitted;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 1) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new OptimizeUsers(userIds, from, middle, fitted),
+            new OptimizeUsers(userIds, middle, to, fitted));
+        return;
+      }
+      if (to == from) {
+        return;
+      }
+      String userId = userIds.get(from);
+      try {
+        if (optimizeUser(userId)) {
+          fitted.incrementAndGet();
+        }
+      } catch (RuntimeException e) {
+        log.warn("Could not fit scheduler parameters of user {}", userId, e);
+      }
+    }
+  }
+}
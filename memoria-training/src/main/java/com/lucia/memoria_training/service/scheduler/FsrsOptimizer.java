@@ -0,0 +1,145 @@
+package com.lucia.memoria_training.service.scheduler;
+
+import static com.lucia.memoria_training.service.scheduler.FsrsScheduler.WEIGHT_COUNT;
+
+import java.util.Random;
+
+/**
+ * Fits FSRS weights to a review history by minimizing the log loss of the predicted recall
+ * probability against whether each review was recalled (graded above again). Uses Adam on a
+ * central difference gradient over mini-batches of cards and keeps each weight inside the range
+ * FSRS itself clips it to. Holds no state, one instance can fit many users at once.
+ */
+public final class FsrsOptimizer {
+
+  private static final double[] LOWER = {
+      0.1, 0.1, 0.1, 0.1, 1, 0.1, 0.1, 0, 0, 0, 0.01, 0.1, 0.01, 0.01, 0.01, 0, 1
+  };
+  private static final double[] UPPER = {
+      100, 100, 100, 100, 10, 5, 5, 0.75, 4.5, 0.8, 3.5, 5, 0.2, 0.9, 4, 1, 6
+  };
+  private static final double BETA1 = 0.9;
+  private static final double BETA2 = 0.999;
+  private static final double EPSILON = 1e-8;
+  private static final double STEP = 1e-4;
+  private static final double MIN_PROBABILITY = 1e-6;
+  private static final int BATCH_REVIEWS = 4096;
+
+  private final int iterations;
+  private final double learningRate;
+
+  public FsrsOptimizer(int iterations, double learningRate) {
+    this.iterations = iterations;
+    this.learningRate = learningRate;
+  }
+
+  /**
+   * Weights fitted to {@code history}, starting from {@code initialWeights}, which are left
+   * unchanged. Each step follows the gradient on a random batch of cards holding about
+   * {@value #BATCH_REVIEWS} reviews, so a step costs the same however long the history is. The
+   * starting weights are returned when the fit does not improve on them.
+   */
+  public double[] fit(ReviewHistory history, double[] initialWeights, Random random) {
+    double[] w = initialWeights.clone();
+    clip(w);
+    double[] gradient = new double[WEIGHT_COUNT];
+    double[] m = new double[WEIGHT_COUNT];
+    double[] v = new double[WEIGHT_COUNT];
+    int[] order = new int[history.cardCount()];
+    for (int card = 0; card < order.length; card++) {
+      order[card] = card;
+    }
+    int position = order.length;
+
+    for (int t = 1; t <= iterations && order.length > 0; t++) {
+      if (position == order.length) {
+        shuffle(order, random);
+        position = 0;
+      }
+      int batchStart = position;
+      int reviews = 0;
+      while (position < order.length && reviews < BATCH_REVIEWS) {
+        int card = order[position++];
+        reviews += history.start[card + 1] - history.start[card];
+      }
+      int batchLength = position - batchStart;
+
+      for (int i = 0; i < WEIGHT_COUNT; i++) {
+        double original = w[i];
+        double step = STEP * Math.max(1, Math.abs(original));
+        w[i] = original + step;
+        double above = logLoss(history, w, order, batchStart, batchLength);
+        w[i] = original - step;
+        double below = logLoss(history, w, order, batchStart, batchLength);
+        w[i] = original;
+        gradient[i] = Double.isNaN(above) || Double.isNaN(below)
+            ? 0
+            : (above - below) / (2 * step);
+      }
+      for (int i = 0; i < WEIGHT_COUNT; i++) {
+        m[i] = BETA1 * m[i] + (1 - BETA1) * gradient[i];
+        v[i] = BETA2 * v[i] + (1 - BETA2) * gradient[i] * gradient[i];
+        double mHat = m[i] / (1 - Math.pow(BETA1, t));
+        double vHat = v[i] / (1 - Math.pow(BETA2, t));
+        w[i] -= learningRate * mHat / (Math.sqrt(vHat) + EPSILON);
+      }
+      clip(w);
+    }
+
+    double[] start = initialWeights.clone();
+    clip(start);
+    return logLoss(history, w) < logLoss(history, start) ? w : start;
+  }
+
+  /**
+   * Mean log loss over every review that has a previous review of the same card, NaN when
+   * there is none.
+   */
+  public static double logLoss(ReviewHistory history, double[] w) {
+    return logLoss(history, w, null, 0, history.cardCount());
+  }
+
+  // The cards order[offset] to order[offset + length - 1], or cards offset onwards without order
+  private static double logLoss(ReviewHistory history, double[] w, int[] order, int offset,
+      int length) {
+    double total = 0;
+    int count = 0;
+    for (int k = offset; k < offset + length; k++) {
+      int card = order == null ? k : order[k];
+      int from = history.start[card];
+      int to = history.start[card + 1];
+      int firstGrade = history.grades[from];
+      double stability = FsrsScheduler.initialStability(w, firstGrade);
+      double difficulty = FsrsScheduler.initialDifficulty(w, firstGrade);
+
+      for (int i = from + 1; i < to; i++) {
+        int grade = history.grades[i];
+        double retrievability = FsrsScheduler.retrievability(history.elapsedDays[i], stability);
+        double p = Math.min(Math.max(retrievability, MIN_PROBABILITY), 1 - MIN_PROBABILITY);
+        total -= grade > ReviewScheduler.AGAIN ? Math.log(p) : Math.log(1 - p);
+        count++;
+
+        stability = grade == ReviewScheduler.AGAIN
+            ? FsrsScheduler.forgetStability(w, difficulty, stability, retrievability)
+            : FsrsScheduler.recallStability(w, difficulty, stability, retrievability, grade);
+        difficulty = FsrsScheduler.nextDifficulty(w, difficulty, grade);
+      }
+    }
+    return count == 0 ? Double.NaN : total / count;
+  }
+
+  private static void shuffle(int[] values, Random random) {
+    for (int i = values.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int swap = values[i];
+      values[i] = values[j];
+      values[j] = swap;
+    }
+  }
+
+  private static void clip(double[] w) {
+    for (int i = 0; i < WEIGHT_COUNT; i++) {
+      w[i] = Math.min(Math.max(w[i], LOWER[i]), UPPER[i]);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.lucia.memoria_training.service.scheduler;
+
+/**
+ * FSRS 4.5. Stability is the number of days after which recall probability falls to 90%,
+ * difficulty runs from 1 (easy) to 10 (hard). The next interval is the time until recall
+ * probability reaches the desired retention.
+ */
+public final class FsrsScheduler implements ReviewScheduler {
+
+  public static final int WEIGHT_COUNT = 17;
+
+  public static final double[] DEFAULT_WEIGHTS = {
+      0.4872, 1.4003, 3.7145, 13.8206, 5.1618, 1.2298, 0.8975, 0.031, 1.6474, 0.1367, 1.0461,
+      2.1072, 0.0793, 0.3246, 1.587, 0.2272, 2.8755
+  };
+
+  private static final double DECAY = -0.5;
+  private static final double FACTOR = 19.0 / 81.0;
+  private static final double MIN_STABILITY = 0.1;
+
+  private final double[] w;
+  private final int maximumIntervalDays;
+  // Interval in days per day of stability at the desired retention, 1.0 at 90%
+  private final double intervalPerStability;
+
+  public FsrsScheduler(double[] weights, double desiredRetention, int maximumIntervalDays) {
+    if (weights.length != WEIGHT_COUNT) {
+      throw new IllegalArgumentException(
+          "FSRS needs " + WEIGHT_COUNT + " weights, got " + weights.length);
+    }
+    if (desiredRetention <= 0 || desiredRetention >= 1) {
+      throw new IllegalArgumentException("Desired retention must be between 0 and 1");
+    }
+    this.w = weights.clone();
+    this.maximumIntervalDays = maximumIntervalDays;
+    this.intervalPerStability = (Math.pow(desiredRetention, 1 / DECAY) - 1) / FACTOR;
+  }
+
+  @Override
+  public void review(MemoryState state, int grade, long nowMillis) {
+    if (state.isNew()) {
+      state.stability = initialStability(w, grade);
+      state.difficulty = initialDifficulty(w, grade);
+    } else {
+      double elapsedDays = Math.max(0, (nowMillis - state.lastReview) / (double) DAY_MILLIS);
+      double retrievability = retrievability(elapsedDays, state.stability);
+      state.stability = grade == AGAIN
+          ? forgetStability(w, state.difficulty, state.stability, retrievability)
+          : recallStability(w, state.difficulty, state.stability, retrievability, grade);
+      state.difficulty = nextDifficulty(w, state.difficulty, grade);
+    }
+    if (grade == AGAIN) {
+      state.lapses++;
+    }
+    state.reps++;
+
+    double intervalDays = Math.round(state.stability * intervalPerStability);
+    intervalDays = Math.min(Math.max(intervalDays, 1), maximumIntervalDays);
+    state.lastReview = nowMillis;
+    state.due = nowMillis + (long) (intervalDays * DAY_MILLIS);
+  }
+
+  /**
+   * Probability of recalling a card with the given stability after {@code elapsedDays}.
+   */
+  public static double retrievability(double elapsedDays, double stability) {
+    return Math.pow(1 + FACTOR * elapsedDays / stability, DECAY);
+  }
+
+  static double initialStability(double[] w, int grade) {
+    return Math.max(w[grade - 1], MIN_STABILITY);
+  }
+
+  static double initialDifficulty(double[] w, int grade) {
+    return clampDifficulty(w[4] - (grade - 3) * w[5]);
+  }
+
+  static double nextDifficulty(double[] w, double difficulty, int grade) {
+    double next = difficulty - w[6] * (grade - 3);
+    // Mean reversion towards the difficulty of a card first graded good
+    return clampDifficulty(w[7] * initialDifficulty(w, GOOD) + (1 - w[7]) * next);
+  }
+
+  static double recallStability(double[] w, double difficulty, double stability,
+      double retrievability, int grade) {
+    double hardPenalty = grade == HARD ? w[15] : 1;
+    double easyBonus = grade == EASY ? w[16] : 1;
+    return stability * (1 + Math.exp(w[8])
+        * (11 - difficulty)
+        * Math.pow(stability, -w[9])
+        * (Math.exp((1 - retrievability) * w[10]) - 1)
+        * hardPenalty
+        * easyBonus);
+  }
+
+  static double forgetStability(double[] w, double difficulty, double stability,
+      double retrievability) {
+    double next = w[11]
+        * Math.pow(difficulty, -w[12])
+        * (Math.pow(stability + 1, w[13]) - 1)
+        * Math.exp((1 - retrievability) * w[14]);
+    return Math.max(MIN_STABILITY, Math.min(next, stability));
+  }
+
+  private static double clampDifficulty(double difficulty) {
+    return Math.min(Math.max(difficulty, 1), 10);
+  }
+}
@@ -0,0 +1,30 @@
+package com.lucia.memoria_training.service.scheduler;
+
+/**
+ * Scheduling state of one card, kept in primitive fields so the scheduling math never boxes.
+ * Under SM-2 {@code stability} holds the current interval in days and {@code difficulty} the
+ * ease factor; under FSRS they hold FSRS stability (days) and difficulty (1 to 10).
+ */
+public final class MemoryState {
+
+  public double stability;
+  public double difficulty;
+  // Epoch millis, 0 for a card that has never been reviewed
+  public long lastReview;
+  public long due;
+  public int reps;
+  public int lapses;
+
+  public boolean isNew() {
+    return lastReview == 0;
+  }
+
+  public void clear() {
+    stability = 0;
+    difficulty = 0;
+    lastReview = 0;
+    due = 0;
+    reps = 0;
+    lapses = 0;
+  }
+}
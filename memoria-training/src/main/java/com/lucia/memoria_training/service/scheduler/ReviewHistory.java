@@ -0,0 +1,125 @@
+package com.lucia.memoria_training.service.scheduler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Review history of one user grouped by card, oldest review first, in primitive arrays: the
+ * reviews of card {@code c} are {@code start[c]} to {@code start[c + 1] - 1}. About 9 bytes per
+ * review, against a few hundred for the review log documents it was read from.
+ */
+public final class ReviewHistory {
+
+  final int[] start;
+  final byte[] grades;
+  final float[] elapsedDays;
+
+  private ReviewHistory(int[] start, byte[] grades, float[] elapsedDays) {
+    this.start = start;
+    this.grades = grades;
+    this.elapsedDays = elapsedDays;
+  }
+
+  public int cardCount() {
+    return start.length - 1;
+  }
+
+  public int reviewCount() {
+    return grades.length;
+  }
+
+  /**
+   * Collects reviews newest first, the order they are read from Mongo when only the most recent
+   * ones fit in memory.
+   */
+  public static final class Builder {
+
+    private final Map<UUID, Integer> cardIndexes = new HashMap<>();
+    private int[] cards;
+    private byte[] grades;
+    private float[] elapsedDays;
+    private int size;
+
+    public Builder(int expectedReviews) {
+      int capacity = Math.max(16, expectedReviews);
+      cards = new int[capacity];
+      grades = new byte[capacity];
+      elapsedDays = new float[capacity];
+    }
+
+    public Builder add(UUID cardId, int grade, double elapsed) {
+      if (size == cards.length) {
+        int capacity = size * 2;
+        cards = Arrays.copyOf(cards, capacity);
+        grades = Arrays.copyOf(grades, capacity);
+        elapsedDays = Arrays.copyOf(elapsedDays, capacity);
+      }
+      Integer index = cardIndexes.get(cardId);
+      if (index == null) {
+        index = cardIndexes.size();
+        cardIndexes.put(cardId, index);
+      }
+      cards[size] = index;
+      grades[size] = (byte) grade;
+      elapsedDays[size] = (float) elapsed;
+      size++;
+      return this;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Groups the reviews by card with a counting sort, oldest first. A card whose oldest review
+     * kept is not its first review lost the start of its history to the memory limit and is
+     * left out, replaying it from a made-up first review would only add noise.
+     */
+    public ReviewHistory build() {
+      int cardCount = cardIndexes.size();
+      int[] counts = new int[cardCount];
+      boolean[] complete = new boolean[cardCount];
+      // Newest first, so the last review seen of a card is its oldest one
+      for (int i = 0; i < size; i++) {
+        counts[cards[i]]++;
+        complete[cards[i]] = elapsedDays[i] == 0;
+      }
+
+      int[] slot = new int[cardCount];
+      int kept = 0;
+      int keptCards = 0;
+      for (int card = 0; card < cardCount; card++) {
+        slot[card] = -1;
+        if (complete[card]) {
+          slot[card] = kept;
+          kept += counts[card];
+          keptCards++;
+        }
+      }
+
+      int[] start = new int[keptCards + 1];
+      byte[] sortedGrades = new byte[kept];
+      float[] sortedElapsed = new float[kept];
+      int next = 0;
+      for (int card = 0; card < cardCount; card++) {
+        if (slot[card] >= 0) {
+          start[next++] = slot[card];
+        }
+      }
+      start[keptCards] = kept;
+
+      // Walking backwards visits each card's reviews oldest first
+      for (int i = size - 1; i >= 0; i--) {
+        int position = slot[cards[i]];
+        if (position >= 0) {
+          sortedGrades[position] = grades[i];
+          sortedElapsed[position] = elapsedDays[i];
+          slot[cards[i]] = position + 1;
+        }
+      }
+      return new ReviewHistory(start, sortedGrades, sortedElapsed);
+    }
+  }
+}
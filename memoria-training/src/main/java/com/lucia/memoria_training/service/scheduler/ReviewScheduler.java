@@ -0,0 +1,25 @@
+package com.lucia.memoria_training.service.scheduler;
+
+/**
+ * Moves a card's memory state forward by one review. Implementations are stateless and thread
+ * safe, one instance serves every user.
+ */
+public interface ReviewScheduler {
+
+  int AGAIN = 1;
+  int HARD = 2;
+  int GOOD = 3;
+  int EASY = 4;
+
+  long DAY_MILLIS = 86_400_000L;
+
+  /**
+   * Applies a review graded {@link #AGAIN} to {@link #EASY} at {@code nowMillis} and sets the
+   * new due time.
+   */
+  void review(MemoryState state, int grade, long nowMillis);
+
+  static boolean isValidGrade(int grade) {
+    return grade >= AGAIN && grade <= EASY;
+  }
+}
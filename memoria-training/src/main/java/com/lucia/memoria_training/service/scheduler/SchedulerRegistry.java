@@ -0,0 +1,100 @@
+package com.lucia.memoria_training.service.scheduler;
+
+import com.lucia.memoria_training.config.OptimizerConfig;
+import com.lucia.memoria_training.config.SchedulerConfig;
+import com.lucia.memoria_training.helper.SchedulerAlgorithm;
+import com.lucia.memoria_training.model.SchedulerParameters;
+import com.lucia.memoria_training.repository.SchedulerParametersRepository;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Hands out the scheduler for a user: an FSRS scheduler with the user's fitted weights when the
+ * optimizer produced some, the configured default otherwise. Fitted weights are re-read from
+ * Mongo periodically, so new fits take effect without a restart, on every instance.
+ */
+@Service
+@Slf4j
+public class SchedulerRegistry {
+
+  // Covers fits saved while the previous refresh was reading
+  private static final long REFRESH_MARGIN_MILLIS = 60_000;
+
+  private final SchedulerParametersRepository parametersRepository;
+  private final SchedulerConfig config;
+  @Getter
+  private final ReviewScheduler defaultScheduler;
+  @Getter
+  private final double[] defaultWeights;
+  private final Map<String, ReviewScheduler> userSchedulers = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService refresher;
+  private volatile long refreshedUntil;
+
+  public SchedulerRegistry(SchedulerParametersRepository parametersRepository,
+      SchedulerConfig config, OptimizerConfig optimizerConfig) {
+    this.parametersRepository = parametersRepository;
+    this.config = config;
+    this.defaultWeights = config.getWeights().length == 0
+        ? FsrsScheduler.DEFAULT_WEIGHTS.clone()
+        : config.getWeights().clone();
+    this.defaultScheduler = config.getAlgorithm() == SchedulerAlgorithm.SM2
+        ? new Sm2Scheduler(config.getInitialEaseFactor(), config.getMaximumIntervalDays())
+        : new FsrsScheduler(defaultWeights, config.getDesiredRetention(),
+            config.getMaximumIntervalDays());
+    log.info("Scheduling reviews with {}", config.getAlgorithm());
+
+    this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "scheduler-refresher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    // Fitted weights only apply to FSRS
+    if (config.getAlgorithm() == SchedulerAlgorithm.FSRS) {
+      long interval = optimizerConfig.getRefreshInterval().toMillis();
+      refresher.scheduleWithFixedDelay(this::refresh, 0, interval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public ReviewScheduler schedulerFor(String userId) {
+    return userSchedulers.getOrDefault(userId, defaultScheduler);
+  }
+
+  /**
+   * Starts using fitted weights for the user right away, on this instance.
+   */
+  public void register(SchedulerParameters parameters) {
+    if (config.getAlgorithm() != SchedulerAlgorithm.FSRS) {
+      return;
+    }
+    try {
+      userSchedulers.put(parameters.getId(), new FsrsScheduler(parameters.getWeights(),
+          config.getDesiredRetention(), config.getMaximumIntervalDays()));
+    } catch (IllegalArgumentException e) {
+      log.warn("Ignoring scheduler parameters of user {}: {}", parameters.getId(),
+          e.getMessage());
+    }
+  }
+
+  private void refresh() {
+    try {
+      long startedAt = System.currentTimeMillis();
+      long since = refreshedUntil == 0 ? 0 : refreshedUntil - REFRESH_MARGIN_MILLIS;
+      parametersRepository.findAllByFittedAtGreaterThan(since).forEach(this::register);
+      refreshedUntil = startedAt;
+    } catch (RuntimeException e) {
+      log.warn("Could not refresh fitted scheduler parameters", e);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    refresher.shutdownNow();
+  }
+}
@@ -0,0 +1,51 @@
+package com.lucia.memoria_training.service.scheduler;
+
+/**
+ * SuperMemo 2. Grades map to SM-2 quality as again 1, hard 3, good 4, easy 5, so anything but
+ * again counts as a successful recall.
+ */
+public final class Sm2Scheduler implements ReviewScheduler {
+
+  private static final double MIN_EASE_FACTOR = 1.3;
+
+  private final double initialEaseFactor;
+  private final int maximumIntervalDays;
+
+  public Sm2Scheduler(double initialEaseFactor, int maximumIntervalDays) {
+    this.initialEaseFactor = initialEaseFactor;
+    this.maximumIntervalDays = maximumIntervalDays;
+  }
+
+  @Override
+  public void review(MemoryState state, int grade, long nowMillis) {
+    if (state.isNew()) {
+      state.difficulty = initialEaseFactor;
+    }
+    int quality = grade == AGAIN ? 1 : grade + 1;
+
+    double intervalDays;
+    if (quality < 3) {
+      state.lapses++;
+      state.reps = 0;
+      intervalDays = 1;
+    } else {
+      if (state.reps == 0) {
+        intervalDays = 1;
+      } else if (state.reps == 1) {
+        intervalDays = 6;
+      } else {
+        intervalDays = Math.round(state.stability * state.difficulty);
+      }
+      state.reps++;
+    }
+
+    int missing = 5 - quality;
+    state.difficulty = Math.max(MIN_EASE_FACTOR,
+        state.difficulty + 0.1 - missing * (0.08 + missing * 0.02));
+
+    intervalDays = Math.min(intervalDays, maximumIntervalDays);
+    state.stability = intervalDays;
+    state.lastReview = nowMillis;
+    state.due = nowMillis + (long) (intervalDays * DAY_MILLIS);
+  }
+}
@@ -0,0 +1,54 @@
+package com.lucia.memoria_training.service.session;
+
+import com.lucia.memoria_training.dto.SessionCardDTO;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The loading of one chunk, run by whichever gets to it first: a prefetch thread or the request
+ * that needs the chunk. A request never waits behind prefetches queued on the shared pool, and
+ * its timeout only counts the time the load has actually been running.
+ */
+final class ChunkLoad {
+
+  private final Supplier<List<SessionCardDTO>> render;
+  private final CompletableFuture<List<SessionCardDTO>> result = new CompletableFuture<>();
+  // 0 until a thread claims the load
+  private final AtomicLong startedAt = new AtomicLong();
+
+  ChunkLoad(Supplier<List<SessionCardDTO>> render) {
+    this.render = render;
+  }
+
+  // Does nothing when the load already ran or is running on another thread
+  void run() {
+    if (!startedAt.compareAndSet(0, System.currentTimeMillis())) {
+      return;
+    }
+    try {
+      result.complete(render.get());
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Runs the load on the calling thread unless another thread started it, in which case it
+   * waits for it until {@code timeoutMillis} after it started.
+   */
+  List<SessionCardDTO> await(long timeoutMillis)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    run();
+    long remaining = startedAt.get() + timeoutMillis - System.currentTimeMillis();
+    return result.get(Math.max(0, remaining), TimeUnit.MILLISECONDS);
+  }
+
+  CompletableFuture<List<SessionCardDTO>> getResult() {
+    return result;
+  }
+}
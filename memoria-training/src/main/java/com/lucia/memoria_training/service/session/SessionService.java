@@ -0,0 +1,278 @@
+package com.lucia.memoria_training.service.session;
+
+import com.lucia.memoria_training.client.DataServiceClient;
+import com.lucia.memoria_training.config.DataServiceConfig;
+import com.lucia.memoria_training.config.SessionConfig;
+import com.lucia.memoria_training.dto.DueCardDTO;
+import com.lucia.memoria_training.dto.SessionCardDTO;
+import com.lucia.memoria_training.dto.SessionChunkDTO;
+import com.lucia.memoria_training.dto.SessionRequestDTO;
+import com.lucia.memoria_training.dto.dataservice.CardContentDTO;
+import com.lucia.memoria_training.dto.dataservice.CardContentDTO.CardFieldDTO;
+import com.lucia.memoria_training.exception.DataServiceException;
+import com.lucia.memoria_training.exception.NotFoundException;
+import com.lucia.memoria_training.service.due.DueQueueService;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Builds study sessions from the due index and loads their card content from memoria-data in
+ * chunks, one batch request per chunk. Serving a chunk starts loading the next one in the
+ * background, so by the time the learner reaches it the content is usually already here.
+ * A session over decks includes their subdecks and new cards, up to a limit per deck, spread
+ * among the reviews. Sessions are dropped after being idle for a while, and the least
+ * recently used ones once a user or the instance holds too many.
+ */
+@Service
+@Slf4j
+public class SessionService {
+
+  private final DueQueueService dueQueueService;
+  private final DataServiceClient dataServiceClient;
+  private final MongoTemplate mongoTemplate;
+  private final SessionConfig config;
+  private final long loadTimeoutMillis;
+  private final Map<UUID, StudySession> sessions = new ConcurrentHashMap<>();
+  private final ExecutorService prefetcher;
+  private final ScheduledExecutorService sweeper;
+
+  public SessionService(DueQueueService dueQueueService, DataServiceClient dataServiceClient,
+      MongoTemplate mongoTemplate, SessionConfig config, DataServiceConfig dataServiceConfig) {
+    this.dueQueueService = dueQueueService;
+    this.dataServiceClient = dataServiceClient;
+    this.mongoTemplate = mongoTemplate;
+    this.config = config;
+    // Enough for every batch request of a chunk to run into its read timeout
+    this.loadTimeoutMillis = (dataServiceConfig.getConnectTimeout().toMillis()
+        + dataServiceConfig.getReadTimeout().toMillis())
+        * Math.max(1, (config.getChunkSize() + dataServiceConfig.getBatchSize() - 1)
+        / dataServiceConfig.getBatchSize());
+
+    AtomicInteger threadCount = new AtomicInteger();
+    this.prefetcher = Executors.newFixedThreadPool(config.getPrefetchThreads(), runnable -> {
+      Thread thread = new Thread(runnable, "session-prefetch-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "session-sweeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    sweeper.scheduleWithFixedDelay(this::removeIdleSessions, 1, 1, TimeUnit.MINUTES);
+  }
+
+  /**
+   * Starts a session over the cards due now and returns its first chunk.
+   */
+  public SessionChunkDTO createSession(String userId, SessionRequestDTO request) {
+    Integer requested = request != null ? request.limit() : null;
+    int limit = requested == null ? config.getMaxCards() : requested;
+    if (limit < 1 || limit > config.getMaxCards()) {
+      throw new IllegalArgumentException(
+          "A session can contain between 1 and " + config.getMaxCards() + " cards");
+    }
+    List<UUID> deckIds = request != null ? request.deckIds() : null;
+    List<DueCardDTO> dueCards;
+    if (deckIds == null || deckIds.isEmpty() || Boolean.FALSE.equals(request.subdecks())) {
+      dueCards = dueQueueService.getDueCards(userId, deckIds, limit);
+    } else {
+      dueCards = subtreeCards(userId, deckIds, limit,
+          perDeckLimit(request.newCardsPerDeck(), config.getNewCardsPerDeck(), "New"),
+          perDeckLimit(request.reviewsPerDeck(), config.getReviewsPerDeck(), "Review"));
+    }
+
+    StudySession session = new StudySession(UUID.randomUUID(), userId, dueCards,
+        config.getChunkSize());
+    sessions.put(session.getSessionId(), session);
+    evictSessions(userId);
+    return chunk(session, 0);
+  }
+
+  // Reviews come from the due index, merged across the decks of the subtrees. New cards have no
+  // state and so no place in the index, they are picked from the subtree streams of memoria-data
+  private List<DueCardDTO> subtreeCards(String userId, List<UUID> rootIds, int limit,
+      int newPerDeck, int reviewsPerDeck) {
+    SubtreeCardCollector collector = new SubtreeCardCollector(mongoTemplate, userId, newPerDeck,
+        limit, config.getNewCardBatchSize());
+    for (UUID rootId : new LinkedHashSet<>(rootIds)) {
+      dataServiceClient.streamSubtreeCards(userId, rootId, collector);
+    }
+    collector.flush();
+
+    List<DueCardDTO> reviews = collector.getDecks().isEmpty() || reviewsPerDeck == 0
+        ? List.of()
+        : dueQueueService.getDueCards(userId, collector.getDecks(), limit, reviewsPerDeck);
+    // Reviews are overdue, new cards only fill what is left of the session
+    List<DueCardDTO> newCards = collector.roundRobinNewCards().stream()
+        .limit(limit - reviews.size())
+        .map(card -> new DueCardDTO(card.getValue(), card.getKey(), null))
+        .toList();
+    return interleave(reviews, newCards);
+  }
+
+  // Spreads the new cards evenly through the reviews, which keep their due order
+  private static List<DueCardDTO> interleave(List<DueCardDTO> reviews, List<DueCardDTO> newCards) {
+    int total = reviews.size() + newCards.size();
+    List<DueCardDTO> cards = new ArrayList<>(total);
+    int review = 0;
+    int added = 0;
+    for (int i = 0; i < total; i++) {
+      boolean takeNew = added < newCards.size() && (review >= reviews.size()
+          || (2L * added + 1) * total <= (2L * i + 1) * newCards.size());
+      cards.add(takeNew ? newCards.get(added++) : reviews.get(review++));
+    }
+    return cards;
+  }
+
+  private int perDeckLimit(Integer requested, int configured, String kind) {
+    int perDeck = requested == null ? configured : requested;
+    if (perDeck < 0 || perDeck > config.getMaxCards()) {
+      throw new IllegalArgumentException(
+          kind + " cards per deck must be between 0 and " + config.getMaxCards());
+    }
+    return perDeck;
+  }
+
+  /**
+   * The chunk of the session that holds the card at {@code offset}.
+   */
+  public SessionChunkDTO getChunk(String userId, UUID sessionId, int offset) {
+    StudySession session = sessions.get(sessionId);
+    if (session == null || !session.getUserId().equals(userId)) {
+      throw new NotFoundException("Session not found");
+    }
+    if (offset < 0 || (offset >= session.getCards().size() && offset > 0)) {
+      throw new IllegalArgumentException(
+          "Offset must be between 0 and " + Math.max(0, session.getCards().size() - 1));
+    }
+    return chunk(session, offset / session.getChunkSize());
+  }
+
+  private SessionChunkDTO chunk(StudySession session, int index) {
+    session.touch();
+    List<SessionCardDTO> cards = session.getCards().isEmpty()
+        ? List.of()
+        : await(loadOf(session, index));
+    if (index + 1 < session.chunkCount()) {
+      ChunkLoad next = loadOf(session, index + 1);
+      prefetcher.execute(next::run);
+    }
+    session.releaseChunksBefore(index);
+    return new SessionChunkDTO(session.getSessionId(), index * session.getChunkSize(),
+        session.getCards().size(), cards);
+  }
+
+  private ChunkLoad loadOf(StudySession session, int index) {
+    boolean[] created = new boolean[1];
+    ChunkLoad load = session.getChunks().computeIfAbsent(index, i -> {
+      created[0] = true;
+      return new ChunkLoad(() -> render(session.cardsOf(i)));
+    });
+    if (created[0]) {
+      // A failed load is forgotten, so asking for the chunk again retries it
+      load.getResult().whenComplete((cards, error) -> {
+        if (error != null) {
+          session.getChunks().remove(index, load);
+        }
+      });
+    }
+    return load;
+  }
+
+  private List<SessionCardDTO> await(ChunkLoad load) {
+    try {
+      return load.await(loadTimeoutMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DataServiceException("Interrupted while loading cards", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof DataServiceException dataServiceException) {
+        throw dataServiceException;
+      }
+      throw new DataServiceException("Could not load cards", e.getCause());
+    } catch (TimeoutException e) {
+      throw new DataServiceException("Timed out loading cards", e);
+    }
+  }
+
+  private List<SessionCardDTO> render(List<DueCardDTO> dueCards) {
+    Map<UUID, CardContentDTO> contents = dataServiceClient.getCards(
+            dueCards.stream().map(DueCardDTO::cardId).toList())
+        .stream()
+        .collect(Collectors.toMap(CardContentDTO::cardId, Function.identity(), (a, b) -> a));
+    // Cards deleted in memoria-data since they were scheduled are dropped
+    return dueCards.stream()
+        .filter(dueCard -> contents.containsKey(dueCard.cardId()))
+        .map(dueCard -> {
+          CardContentDTO content = contents.get(dueCard.cardId());
+          return new SessionCardDTO(dueCard.cardId(), content.deckId(), dueCard.due(),
+              joinRole(content, "FRONT"), joinRole(content, "BACK"),
+              joinRole(content, "AUXILIARY"));
+        })
+        .toList();
+  }
+
+  private static String joinRole(CardContentDTO content, String role) {
+    if (content.fieldDTOList() == null) {
+      return null;
+    }
+    String joined = content.fieldDTOList().stream()
+        .filter(field -> field.fieldTemplate() != null
+            && role.equals(field.fieldTemplate().fieldRole()))
+        .map(CardFieldDTO::content)
+        .filter(Objects::nonNull)
+        .filter(text -> !text.isBlank())
+        .collect(Collectors.joining("\n"));
+    return joined.isEmpty() ? null : joined;
+  }
+
+  // The user's least recently used sessions go first, then the instance's
+  private void evictSessions(String userId) {
+    List<StudySession> own = sessions.values().stream()
+        .filter(session -> session.getUserId().equals(userId))
+        .sorted(Comparator.comparingLong(StudySession::getLastAccess))
+        .toList();
+    own.stream()
+        .limit(Math.max(0, own.size() - config.getMaxSessionsPerUser()))
+        .forEach(session -> sessions.remove(session.getSessionId()));
+    int excess = sessions.size() - config.getMaxSessions();
+    if (excess > 0) {
+      sessions.values().stream()
+          .sorted(Comparator.comparingLong(StudySession::getLastAccess))
+          .limit(excess)
+          .toList()
+          .forEach(session -> sessions.remove(session.getSessionId()));
+    }
+  }
+
+  private void removeIdleSessions() {
+    long idleBefore = System.currentTimeMillis() - config.getIdleTimeout().toMillis();
+    sessions.values().removeIf(session -> session.getLastAccess() < idleBefore);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    sweeper.shutdownNow();
+    prefetcher.shutdownNow();
+  }
+}
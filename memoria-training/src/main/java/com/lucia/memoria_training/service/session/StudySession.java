@@ -0,0 +1,48 @@
+package com.lucia.memoria_training.service.session;
+
+import com.lucia.memoria_training.dto.DueCardDTO;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+
+/**
+ * The cards of one study session, split into chunks whose rendered content is loaded on demand
+ * and kept until the session moves two chunks past them.
+ */
+@Getter
+final class StudySession {
+
+  private final UUID sessionId;
+  private final String userId;
+  private final List<DueCardDTO> cards;
+  private final int chunkSize;
+  private final Map<Integer, ChunkLoad> chunks = new ConcurrentHashMap<>();
+  private volatile long lastAccess = System.currentTimeMillis();
+
+  StudySession(UUID sessionId, String userId, List<DueCardDTO> cards, int chunkSize) {
+    this.sessionId = sessionId;
+    this.userId = userId;
+    this.cards = List.copyOf(cards);
+    this.chunkSize = chunkSize;
+  }
+
+  int chunkCount() {
+    return (cards.size() + chunkSize - 1) / chunkSize;
+  }
+
+  List<DueCardDTO> cardsOf(int chunk) {
+    int from = chunk * chunkSize;
+    return cards.subList(from, Math.min(from + chunkSize, cards.size()));
+  }
+
+  void touch() {
+    lastAccess = System.currentTimeMillis();
+  }
+
+  // Keeps the chunk before the current one so stepping back does not reload it
+  void releaseChunksBefore(int chunk) {
+    chunks.keySet().removeIf(index -> index < chunk - 1);
+  }
+}
@@ -0,0 +1,123 @@
+package com.lucia.memoria_training.service.session;
+
+import com.lucia.memoria_training.model.CardState;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Takes the cards of deck subtrees as memoria-data streams them: records which decks the
+ * subtrees hold and keeps, per deck, the first cards that have no card state yet as new cards.
+ * Candidates are checked against the card states one batch at a time and cards of a deck whose
+ * quota is filled are passed over unchecked, so only the picked cards and one batch are held
+ * however large the subtree. Not thread safe.
+ */
+final class SubtreeCardCollector implements BiConsumer<UUID, UUID> {
+
+  private final MongoTemplate mongoTemplate;
+  private final String userId;
+  private final int newPerDeck;
+  private final int newLimit;
+  private final int batchSize;
+
+  private final Set<UUID> decks = new LinkedHashSet<>();
+  private final Map<UUID, List<UUID>> newCards = new LinkedHashMap<>();
+  private final List<UUID> pendingDecks = new ArrayList<>();
+  private final List<UUID> pendingCards = new ArrayList<>();
+  private UUID currentDeck;
+  // Set while passing over a deck an earlier, overlapping subtree already delivered
+  private boolean skippingDeck;
+  private int newCount;
+
+  SubtreeCardCollector(MongoTemplate mongoTemplate, String userId, int newPerDeck, int newLimit,
+      int batchSize) {
+    this.mongoTemplate = mongoTemplate;
+    this.userId = userId;
+    this.newPerDeck = newPerDeck;
+    this.newLimit = newLimit;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public void accept(UUID deckId, UUID cardId) {
+    // A deck's cards arrive together, a deck seen before came with another subtree
+    if (!deckId.equals(currentDeck)) {
+      currentDeck = deckId;
+      skippingDeck = !decks.add(deckId);
+    }
+    if (skippingDeck || newCount >= newLimit || picked(deckId) >= newPerDeck) {
+      return;
+    }
+    pendingDecks.add(deckId);
+    pendingCards.add(cardId);
+    if (pendingCards.size() >= batchSize) {
+      flush();
+    }
+  }
+
+  /**
+   * Checks the candidates still waiting. Call once the last subtree is streamed.
+   */
+  void flush() {
+    if (pendingCards.isEmpty()) {
+      return;
+    }
+    List<String> stateIds = pendingCards.stream()
+        .map(cardId -> CardState.idOf(userId, cardId))
+        .toList();
+    Query query = Query.query(Criteria.where("_id").in(stateIds));
+    query.fields().include("_id");
+    Set<String> scheduled = new HashSet<>();
+    mongoTemplate.find(query, CardState.class).forEach(state -> scheduled.add(state.getId()));
+
+    for (int i = 0; i < pendingCards.size() && newCount < newLimit; i++) {
+      UUID deckId = pendingDecks.get(i);
+      if (!scheduled.contains(stateIds.get(i)) && picked(deckId) < newPerDeck) {
+        newCards.computeIfAbsent(deckId, id -> new ArrayList<>()).add(pendingCards.get(i));
+        newCount++;
+      }
+    }
+    pendingDecks.clear();
+    pendingCards.clear();
+  }
+
+  /**
+   * Decks of the subtrees that hold any card, in the order memoria-data sent them.
+   */
+  Set<UUID> getDecks() {
+    return decks;
+  }
+
+  /**
+   * The new cards picked, taking one from each deck in turn so no deck crowds out the others.
+   */
+  List<Map.Entry<UUID, UUID>> roundRobinNewCards() {
+    List<Map.Entry<UUID, UUID>> cards = new ArrayList<>(newCount);
+    Map<UUID, Integer> next = new HashMap<>();
+    while (cards.size() < newCount) {
+      for (Map.Entry<UUID, List<UUID>> deck : newCards.entrySet()) {
+        int index = next.getOrDefault(deck.getKey(), 0);
+        if (index < deck.getValue().size()) {
+          cards.add(Map.entry(deck.getKey(), deck.getValue().get(index)));
+          next.put(deck.getKey(), index + 1);
+        }
+      }
+    }
+    return cards;
+  }
+
+  private int picked(UUID deckId) {
+    List<UUID> cards = newCards.get(deckId);
+    return cards == null ? 0 : cards.size();
+  }
+}
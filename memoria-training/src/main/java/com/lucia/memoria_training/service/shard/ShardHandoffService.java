@@ -0,0 +1,111 @@
+package com.lucia.memoria_training.service.shard;
+
+import com.lucia.memoria_training.config.ShardConfig;
+import com.lucia.memoria_training.dto.ShardAssignmentDTO;
+import com.lucia.memoria_training.exception.HandoffNotReadyException;
+import com.lucia.memoria_training.service.balance.DueLoadBalancer;
+import com.lucia.memoria_training.service.due.DueCountPushService;
+import com.lucia.memoria_training.service.due.DueQueueService;
+import com.lucia.memoria_training.service.ingestion.ReviewIngestionService;
+import jakarta.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * This instance's side of the gateway's two-phase handoff. Release runs on every instance
+ * first: reviews already accepted are stored, then the state of users that moved away is
+ * snapshotted and dropped. An instance whose reviews are not stored in time refuses and keeps
+ * its users, the gateway then acquires nowhere. Acquire follows once all releases are done: state loaded for new
+ * users while their previous owner still took reviews is dropped, and the due indexes of
+ * recently active new users are loaded from Mongo in the background. Both phases do nothing
+ * when repeated for the same ring version.
+ */
+@Service
+@Slf4j
+public class ShardHandoffService {
+
+  private final ShardOwnership ownership;
+  private final ReviewIngestionService reviewIngestionService;
+  private final DueQueueService dueQueueService;
+  private final DueLoadBalancer dueLoadBalancer;
+  private final DueCountPushService dueCountPushService;
+  private final ShardConfig config;
+  private final ExecutorService warmer;
+  private String acquiredVersion;
+
+  public ShardHandoffService(ShardOwnership ownership,
+      ReviewIngestionService reviewIngestionService, DueQueueService dueQueueService,
+      DueLoadBalancer dueLoadBalancer, DueCountPushService dueCountPushService,
+      ShardConfig config) {
+    this.ownership = ownership;
+    this.reviewIngestionService = reviewIngestionService;
+    this.dueQueueService = dueQueueService;
+    this.dueLoadBalancer = dueLoadBalancer;
+    this.dueCountPushService = dueCountPushService;
+    this.config = config;
+    this.warmer = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "shard-warm-up");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public synchronized void release(ShardAssignmentDTO assignment) {
+    if (ownership.isCurrent(assignment.version())) {
+      return;
+    }
+    // The new owner reads these reviews from Mongo, they must be there before it loads
+    if (!reviewIngestionService.awaitFlushed(config.getFlushTimeout())) {
+      throw new HandoffNotReadyException("Reviews still waiting to be stored after "
+          + config.getFlushTimeout() + ", not releasing shard assignment "
+          + assignment.version());
+    }
+    ownership.assign(assignment);
+    int evicted = dueQueueService.evictIf(userId -> !ownership.owns(userId));
+    dueLoadBalancer.discardIf(userId -> !ownership.owns(userId));
+    dueCountPushService.closeIf(userId -> !ownership.owns(userId));
+    log.info("Released {} users for shard assignment {}", evicted, assignment.version());
+  }
+
+  public synchronized void acquire(ShardAssignmentDTO assignment) {
+    if (!ownership.isCurrent(assignment.version())) {
+      throw new IllegalArgumentException(
+          "Shard assignment " + assignment.version() + " was not released here");
+    }
+    if (assignment.version().equals(acquiredVersion)) {
+      return;
+    }
+    acquiredVersion = assignment.version();
+    int discarded = dueQueueService.discardIf(ownership::gained);
+    dueLoadBalancer.discardIf(ownership::gained);
+    long since = System.currentTimeMillis() - config.getWarmUpWindow().toMillis();
+    warmer.execute(() -> {
+      try {
+        int loaded = dueQueueService.warmUp(ownership::gained, since);
+        log.info("Warmed {} due indexes for shard assignment {}", loaded, assignment.version());
+      } catch (RuntimeException e) {
+        log.warn("Warming due indexes for shard assignment {} failed", assignment.version(), e);
+      }
+    });
+    log.debug("Discarded {} due indexes loaded before the handoff", discarded);
+  }
+
+  /**
+   * Drops the in-memory state of users changed through another instance, it is loaded again
+   * from Mongo on their next request.
+   */
+  public void invalidate(Collection<String> userIds) {
+    for (String userId : userIds) {
+      dueQueueService.invalidate(userId);
+      dueLoadBalancer.discardIf(userId::equals);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    warmer.shutdownNow();
+  }
+}
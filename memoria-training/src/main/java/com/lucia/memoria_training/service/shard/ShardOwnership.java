@@ -0,0 +1,73 @@
+package com.lucia.memoria_training.service.shard;
+
+import com.lucia.memoria_training.dto.ShardAssignmentDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Which users this instance owns under the gateway's current ring. Until the gateway sends a
+ * ring the instance runs alone and owns every user.
+ */
+@Component
+public class ShardOwnership {
+
+  private volatile Assignment current;
+  private volatile Assignment previous;
+
+  public boolean owns(String userId) {
+    Assignment assignment = current;
+    return assignment == null || assignment.owns(userId);
+  }
+
+  /**
+   * Instance owning the user, null when it is this one.
+   */
+  public String ownerOf(String userId) {
+    Assignment assignment = current;
+    if (assignment == null) {
+      return null;
+    }
+    String owner = assignment.ring().instanceFor(userId);
+    return owner.equals(assignment.self()) ? null : owner;
+  }
+
+  public String getVersion() {
+    Assignment assignment = current;
+    return assignment == null ? null : assignment.version();
+  }
+
+  boolean isCurrent(String version) {
+    Assignment assignment = current;
+    return assignment != null && assignment.version().equals(version);
+  }
+
+  /**
+   * Whether the user came to this instance with the current ring. Under the first ring every
+   * user it owns counts as gained: the instance ran without a ring before, so nothing it loaded
+   * then can be trusted over what the previous owners wrote.
+   */
+  boolean gained(String userId) {
+    Assignment now = current;
+    if (now == null || !now.owns(userId)) {
+      return false;
+    }
+    Assignment before = previous;
+    return before == null || !before.owns(userId);
+  }
+
+  void assign(ShardAssignmentDTO assignment) {
+    if (assignment.version() == null || assignment.self() == null) {
+      throw new IllegalArgumentException("Version and self are required");
+    }
+    Assignment next = new Assignment(assignment.version(), assignment.self(),
+        new ShardRing(assignment.instances(), assignment.virtualNodes()));
+    previous = current;
+    current = next;
+  }
+
+  private record Assignment(String version, String self, ShardRing ring) {
+
+    boolean owns(String userId) {
+      return ring.instanceFor(userId).equals(self);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.lucia.memoria_training.service.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The gateway's consistent hash ring, rebuilt from the instance list it sends so every
+ * instance can tell which instance owns a user. Positions must be placed exactly as the
+ * gateway places them, ShardRingTest and the gateway's ConsistentHashRingTest pin both to the
+ * same assignments.
+ */
+final class ShardRing {
+
+  private static final int OWNER_BITS = 20;
+
+  private final List<String> instances;
+  private final long[] positions;
+  private final int[] owners;
+
+  ShardRing(List<String> instances, int virtualNodes) {
+    if (instances == null || instances.isEmpty()) {
+      throw new IllegalArgumentException("At least one instance is required");
+    }
+    if (virtualNodes < 1) {
+      throw new IllegalArgumentException("Virtual nodes must be positive");
+    }
+    this.instances = instances.stream().distinct().sorted().toList();
+    int size = this.instances.size() * virtualNodes;
+    long[] nodes = new long[size];
+    for (int instance = 0; instance < this.instances.size(); instance++) {
+      for (int node = 0; node < virtualNodes; node++) {
+        nodes[instance * virtualNodes + node] =
+            positionOf(this.instances.get(instance) + "#" + node) << OWNER_BITS | instance;
+      }
+    }
+    Arrays.sort(nodes);
+    this.positions = new long[size];
+    this.owners = new int[size];
+    for (int i = 0; i < size; i++) {
+      positions[i] = nodes[i] >>> OWNER_BITS;
+      owners[i] = (int) (nodes[i] & ((1L << OWNER_BITS) - 1));
+    }
+  }
+
+  String instanceFor(String key) {
+    long position = positionOf(key == null ? "" : key);
+    int index = Arrays.binarySearch(positions, position);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    while (index > 0 && index < positions.length && positions[index - 1] == position) {
+      index--;
+    }
+    return instances.get(owners[index == positions.length ? 0 : index]);
+  }
+
+  // First four bytes of the MD5 digest, unsigned
+  static long positionOf(String key) {
+    try {
+      byte[] digest = MessageDigest.getInstance("MD5")
+          .digest(key.getBytes(StandardCharsets.UTF_8));
+      return ((digest[0] & 0xffL) << 24) | ((digest[1] & 0xffL) << 16)
+          | ((digest[2] & 0xffL) << 8) | (digest[3] & 0xffL);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 is not available", e);
+    }
+  }
+}
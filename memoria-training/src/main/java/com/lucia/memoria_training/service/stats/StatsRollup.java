@@ -0,0 +1,148 @@
+package com.lucia.memoria_training.service.stats;
+
+import com.lucia.memoria_training.model.DailyStats;
+import com.lucia.memoria_training.model.DeckMaturity;
+import com.lucia.memoria_training.service.scheduler.ReviewScheduler;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Counts reviews into daily and maturity rollups. Review ingestion fills one per batch and
+ * adds it to the stored rollups, the rebuild job fills one per user from the raw logs and
+ * replaces them, so both count exactly the same way.
+ */
+public final class StatsRollup {
+
+  public static final int NONE = -1;
+  public static final int YOUNG = 0;
+  public static final int MATURE = 1;
+
+  // Upper bounds in days of the interval buckets, the last bucket is open
+  private static final double[] INTERVAL_BUCKETS = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512};
+
+  private final ZoneId zone;
+  private final long matureIntervalMillis;
+  private final Map<String, DailyStats> daily = new LinkedHashMap<>();
+  private final Map<String, DeckMaturity> maturity = new LinkedHashMap<>();
+
+  public StatsRollup(ZoneId zone, int matureIntervalDays) {
+    this.zone = zone;
+    this.matureIntervalMillis = matureIntervalDays * ReviewScheduler.DAY_MILLIS;
+  }
+
+  /**
+   * Counts one review on its day, for the deck and for the totals.
+   *
+   * @param elapsedDays days since the previous review of the card, ignored for a first review
+   */
+  public void addReview(String userId, UUID deckId, int grade, long reviewedAt,
+      double elapsedDays, boolean firstReview) {
+    long day = Instant.ofEpochMilli(reviewedAt).atZone(zone).toLocalDate().toEpochDay();
+    count(daily(userId, null, day), grade, elapsedDays, firstReview);
+    if (deckId != null) {
+      count(daily(userId, deckId, day), grade, elapsedDays, firstReview);
+    }
+  }
+
+  /**
+   * Moves a card between maturity groups and decks, {@link #NONE} standing for a card that was
+   * not counted before.
+   */
+  public void moveCard(String userId, UUID fromDeck, int fromMaturity, UUID toDeck,
+      int toMaturity) {
+    if (Objects.equals(fromDeck, toDeck) && fromMaturity == toMaturity) {
+      return;
+    }
+    adjust(userId, fromDeck, fromMaturity, -1);
+    adjust(userId, toDeck, toMaturity, 1);
+  }
+
+  public int maturityOf(long lastReview, long due) {
+    if (lastReview == 0) {
+      return NONE;
+    }
+    return due - lastReview >= matureIntervalMillis ? MATURE : YOUNG;
+  }
+
+  public Collection<DailyStats> getDaily() {
+    return daily.values();
+  }
+
+  public Collection<DeckMaturity> getMaturity() {
+    return maturity.values();
+  }
+
+  public boolean isEmpty() {
+    return daily.isEmpty() && maturity.isEmpty();
+  }
+
+  /**
+   * Bucket key of a review interval, bucket {@code i} covering the days from
+   * {@link #bucketStart(int)} up to the start of bucket {@code i + 1}.
+   */
+  public static String bucketOf(double elapsedDays) {
+    int bucket = 0;
+    while (bucket < INTERVAL_BUCKETS.length && elapsedDays >= INTERVAL_BUCKETS[bucket]) {
+      bucket++;
+    }
+    return Integer.toString(bucket);
+  }
+
+  public static int bucketCount() {
+    return INTERVAL_BUCKETS.length + 1;
+  }
+
+  public static double bucketStart(int bucket) {
+    return bucket == 0 ? 0 : INTERVAL_BUCKETS[bucket - 1];
+  }
+
+  // Null for the open last bucket
+  public static Double bucketEnd(int bucket) {
+    return bucket < INTERVAL_BUCKETS.length ? INTERVAL_BUCKETS[bucket] : null;
+  }
+
+  private DailyStats daily(String userId, UUID deckId, long day) {
+    return daily.computeIfAbsent(DailyStats.idOf(userId, deckId, day),
+        id -> new DailyStats(userId, deckId, day));
+  }
+
+  private static void count(DailyStats stats, int grade, double elapsedDays,
+      boolean firstReview) {
+    stats.setReviews(stats.getReviews() + 1);
+    switch (grade) {
+      case ReviewScheduler.AGAIN -> stats.setAgain(stats.getAgain() + 1);
+      case ReviewScheduler.HARD -> stats.setHard(stats.getHard() + 1);
+      case ReviewScheduler.GOOD -> stats.setGood(stats.getGood() + 1);
+      default -> stats.setEasy(stats.getEasy() + 1);
+    }
+    if (firstReview) {
+      stats.setNewCards(stats.getNewCards() + 1);
+      return;
+    }
+    String bucket = bucketOf(elapsedDays);
+    stats.getReviewsByInterval().merge(bucket, 1L, Long::sum);
+    if (grade == ReviewScheduler.AGAIN) {
+      stats.setLapses(stats.getLapses() + 1);
+    } else {
+      stats.getRecalledByInterval().merge(bucket, 1L, Long::sum);
+    }
+  }
+
+  private void adjust(String userId, UUID deckId, int group, int delta) {
+    if (deckId == null || group == NONE) {
+      return;
+    }
+    DeckMaturity counts = maturity.computeIfAbsent(DeckMaturity.idOf(userId, deckId),
+        id -> new DeckMaturity(userId, deckId));
+    if (group == MATURE) {
+      counts.setMature(counts.getMature() + delta);
+    } else {
+      counts.setYoung(counts.getYoung() + delta);
+    }
+  }
+}
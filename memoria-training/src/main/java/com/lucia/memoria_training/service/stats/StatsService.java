@@ -0,0 +1,333 @@
+package com.lucia.memoria_training.service.stats;
+
+import com.lucia.memoria_training.config.StatsConfig;
+import com.lucia.memoria_training.dto.DailyStatsDTO;
+import com.lucia.memoria_training.dto.DeckMaturityDTO;
+import com.lucia.memoria_training.dto.RetentionPointDTO;
+import com.lucia.memoria_training.model.CardState;
+import com.lucia.memoria_training.model.DailyStats;
+import com.lucia.memoria_training.model.DeckMaturity;
+import com.lucia.memoria_training.model.ReviewLog;
+import com.lucia.memoria_training.model.StatsGeneration;
+import com.lucia.memoria_training.repository.DailyStatsRepository;
+import com.lucia.memoria_training.repository.DeckMaturityRepository;
+import com.lucia.memoria_training.repository.StatsGenerationRepository;
+import com.lucia.memoria_training.service.archive.ReviewLogFilter;
+import com.lucia.memoria_training.service.archive.ReviewLogStore;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the statistics rollups and answers statistics from them alone. Review ingestion adds
+ * each batch with {@code $inc} upserts; a rebuild recomputes a user's rollups from the review
+ * logs and card states, for after the counting rules change. Rebuilds run in the background,
+ * write a new {@link StatsGeneration} and switch the user over to it in one write.
+ */
+@Service
+@Slf4j
+public class StatsService {
+
+  private final MongoTemplate mongoTemplate;
+  private final DailyStatsRepository dailyStatsRepository;
+  private final DeckMaturityRepository deckMaturityRepository;
+  private final StatsGenerationRepository statsGenerationRepository;
+  private final ReviewLogStore reviewLogStore;
+  private final StatsConfig config;
+  private final ExecutorService rebuilder;
+  private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+  public StatsService(MongoTemplate mongoTemplate, DailyStatsRepository dailyStatsRepository,
+      DeckMaturityRepository deckMaturityRepository,
+      StatsGenerationRepository statsGenerationRepository, ReviewLogStore reviewLogStore,
+      StatsConfig config) {
+    this.mongoTemplate = mongoTemplate;
+    this.dailyStatsRepository = dailyStatsRepository;
+    this.deckMaturityRepository = deckMaturityRepository;
+    this.statsGenerationRepository = statsGenerationRepository;
+    this.reviewLogStore = reviewLogStore;
+    this.config = config;
+    this.rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "stats-rebuild");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (config.isRebuildOnStartup()) {
+      rebuildAll();
+    }
+  }
+
+  public StatsRollup newRollup() {
+    return new StatsRollup(config.getZone(), config.getMatureIntervalDays());
+  }
+
+  /**
+   * Adds the counts of a review batch to the current generation of the stored rollups. A
+   * failure is thrown, the batch is retried and adds the counts of its reviews again from their
+   * logs, see ReviewService.applyBatch.
+   */
+  public void apply(StatsRollup rollup) {
+    if (rollup.isEmpty()) {
+      return;
+    }
+    Set<String> userIds = new HashSet<>();
+    rollup.getDaily().forEach(stats -> userIds.add(stats.getUserId()));
+    rollup.getMaturity().forEach(counts -> userIds.add(counts.getUserId()));
+    Map<String, Long> generations = new HashMap<>();
+    statsGenerationRepository.findAllById(userIds)
+        .forEach(current -> generations.put(current.getUserId(), current.getGeneration()));
+
+    BulkOperations writes = mongoTemplate.bulkOps(BulkMode.UNORDERED, DailyStats.class);
+    rollup.getDaily().forEach(stats -> {
+      long generation = generations.getOrDefault(stats.getUserId(), 0L);
+      writes.upsert(byId(DailyStats.idOf(stats.getUserId(), generation, stats.getDeckId(),
+          stats.getDay())), increments(stats, generation));
+    });
+    writes.execute();
+
+    List<DeckMaturity> moved = rollup.getMaturity().stream()
+        .filter(counts -> counts.getYoung() != 0 || counts.getMature() != 0)
+        .toList();
+    if (!moved.isEmpty()) {
+      BulkOperations maturityWrites = mongoTemplate.bulkOps(BulkMode.UNORDERED,
+          DeckMaturity.class);
+      moved.forEach(counts -> {
+        long generation = generations.getOrDefault(counts.getUserId(), 0L);
+        maturityWrites.upsert(byId(DeckMaturity.idOf(counts.getUserId(), generation,
+            counts.getDeckId())), new Update()
+            .setOnInsert("userId", counts.getUserId())
+            .setOnInsert("deckId", counts.getDeckId())
+            .setOnInsert("generation", generation)
+            .inc("young", counts.getYoung())
+            .inc("mature", counts.getMature()));
+      });
+      maturityWrites.execute();
+    }
+  }
+
+  public List<DailyStatsDTO> getDailyStats(String userId, UUID deckId, LocalDate from,
+      LocalDate to) {
+    return findRange(userId, deckId, from, to).stream()
+        .map(stats -> new DailyStatsDTO(LocalDate.ofEpochDay(stats.getDay()), stats.getReviews(),
+            stats.getAgain(), stats.getHard(), stats.getGood(), stats.getEasy(),
+            stats.getNewCards(), stats.getLapses()))
+        .toList();
+  }
+
+  /**
+   * Retention by the interval cards were reviewed at, over the reviews made in the range.
+   */
+  public List<RetentionPointDTO> getRetention(String userId, UUID deckId, LocalDate from,
+      LocalDate to) {
+    long[] reviews = new long[StatsRollup.bucketCount()];
+    long[] recalled = new long[StatsRollup.bucketCount()];
+    for (DailyStats stats : findRange(userId, deckId, from, to)) {
+      addBuckets(stats.getReviewsByInterval(), reviews);
+      addBuckets(stats.getRecalledByInterval(), recalled);
+    }
+    List<RetentionPointDTO> points = new ArrayList<>(reviews.length);
+    for (int bucket = 0; bucket < reviews.length; bucket++) {
+      points.add(new RetentionPointDTO(StatsRollup.bucketStart(bucket),
+          StatsRollup.bucketEnd(bucket), reviews[bucket], recalled[bucket],
+          reviews[bucket] == 0 ? null : recalled[bucket] / (double) reviews[bucket]));
+    }
+    return points;
+  }
+
+  public List<DeckMaturityDTO> getMaturity(String userId) {
+    requireUser(userId);
+    return deckMaturityRepository.findAllByUserIdAndGenerationIn(userId,
+            StatsGeneration.matching(currentGeneration(userId))).stream()
+        .filter(counts -> counts.getYoung() > 0 || counts.getMature() > 0)
+        .map(counts -> new DeckMaturityDTO(counts.getDeckId(), counts.getYoung(),
+            counts.getMature()))
+        .toList();
+  }
+
+  /**
+   * Rebuilds the user's rollups in the background.
+   */
+  public void rebuildUserInBackground(String userId) {
+    requireUser(userId);
+    rebuilder.execute(() -> {
+      try {
+        rebuildUser(userId);
+      } catch (RuntimeException e) {
+        log.warn("Could not rebuild statistics of user {}", userId, e);
+      }
+    });
+  }
+
+  /**
+   * Recomputes the user's rollups from their review logs, archived ones included, and card
+   * states into the next generation, switches the user over to it and drops the old one.
+   * Readers see either the old or the new rollups, never a mix. Reviews applied while it runs
+   * may be counted twice or not at all, so it is meant for quiet periods. Only called from the
+   * single rebuild thread, so two rebuilds of a user never overlap.
+   */
+  void rebuildUser(String userId) {
+    long next = currentGeneration(userId) + 1;
+    StatsRollup rollup = newRollup();
+
+    try (Stream<ReviewLog> logs = reviewLogStore.stream(ReviewLogFilter.ofUser(userId),
+        Sort.Direction.ASC, 0, 1000, "deckId", "grade", "elapsedDays")) {
+      logs.forEach(entry -> rollup.addReview(userId, entry.getDeckId(), entry.getGrade(),
+          entry.getReviewedAt(), entry.getElapsedDays(), entry.getElapsedDays() == 0));
+    }
+
+    Query stateQuery = Query.query(Criteria.where("userId").is(userId));
+    stateQuery.fields().include("deckId", "lastReview", "due");
+    try (Stream<CardState> states = mongoTemplate.stream(stateQuery, CardState.class)) {
+      states.forEach(state -> rollup.moveCard(userId, null, StatsRollup.NONE,
+          state.getDeckId(), rollup.maturityOf(state.getLastReview(), state.getDue())));
+    }
+
+    rollup.getDaily().forEach(stats -> {
+      stats.setId(DailyStats.idOf(userId, next, stats.getDeckId(), stats.getDay()));
+      stats.setGeneration(next);
+    });
+    rollup.getMaturity().forEach(counts -> {
+      counts.setId(DeckMaturity.idOf(userId, next, counts.getDeckId()));
+      counts.setGeneration(next);
+    });
+    // Left over by a rebuild that failed before switching
+    dailyStatsRepository.deleteAllByUserIdAndGeneration(userId, next);
+    deckMaturityRepository.deleteAllByUserIdAndGeneration(userId, next);
+    dailyStatsRepository.saveAll(rollup.getDaily());
+    deckMaturityRepository.saveAll(rollup.getMaturity());
+
+    statsGenerationRepository.save(new StatsGeneration(userId, next));
+    // Also drops counts a batch added to the old generation after the switch
+    dailyStatsRepository.deleteAllByUserIdAndGenerationNot(userId, next);
+    deckMaturityRepository.deleteAllByUserIdAndGenerationNot(userId, next);
+  }
+
+  /**
+   * Rebuilds every user's rollups in the background, unless a rebuild is already running.
+   *
+   * @return whether a rebuild was started
+   */
+  public boolean rebuildAll() {
+    if (!rebuilding.compareAndSet(false, true)) {
+      return false;
+    }
+    rebuilder.execute(() -> {
+      long startedAt = System.currentTimeMillis();
+      int rebuilt = 0;
+      try {
+        List<String> userIds = reviewLogStore.findUserIds();
+        for (String userId : userIds) {
+          try {
+            rebuildUser(userId);
+            rebuilt++;
+          } catch (RuntimeException e) {
+            log.warn("Could not rebuild statistics of user {}", userId, e);
+          }
+        }
+        log.info("Rebuilt statistics of {} users in {} ms", rebuilt,
+            System.currentTimeMillis() - startedAt);
+      } catch (RuntimeException e) {
+        log.error("Statistics rebuild failed", e);
+      } finally {
+        rebuilding.set(false);
+      }
+    });
+    return true;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    rebuilder.shutdownNow();
+  }
+
+  // A missing end is today, a missing start a year before the end
+  private List<DailyStats> findRange(String userId, UUID deckId, LocalDate fromDate,
+      LocalDate toDate) {
+    requireUser(userId);
+    LocalDate to = toDate == null ? LocalDate.now(config.getZone()) : toDate;
+    LocalDate from = fromDate == null ? to.minusYears(1).plusDays(1) : fromDate;
+    if (from.isAfter(to)) {
+      throw new IllegalArgumentException("From must not be after to");
+    }
+    if (ChronoUnit.DAYS.between(from, to) >= config.getMaxRangeDays()) {
+      throw new IllegalArgumentException(
+          "A range can cover at most " + config.getMaxRangeDays() + " days");
+    }
+    return dailyStatsRepository.findRange(userId, deckId,
+        StatsGeneration.matching(currentGeneration(userId)), from.toEpochDay(), to.toEpochDay());
+  }
+
+  private long currentGeneration(String userId) {
+    return statsGenerationRepository.findById(userId)
+        .map(StatsGeneration::getGeneration)
+        .orElse(0L);
+  }
+
+  private static Update increments(DailyStats stats, long generation) {
+    Update update = new Update()
+        .setOnInsert("userId", stats.getUserId())
+        .setOnInsert("deckId", stats.getDeckId())
+        .setOnInsert("generation", generation)
+        .setOnInsert("day", stats.getDay())
+        .inc("reviews", stats.getReviews());
+    incIfPositive(update, "again", stats.getAgain());
+    incIfPositive(update, "hard", stats.getHard());
+    incIfPositive(update, "good", stats.getGood());
+    incIfPositive(update, "easy", stats.getEasy());
+    incIfPositive(update, "newCards", stats.getNewCards());
+    incIfPositive(update, "lapses", stats.getLapses());
+    stats.getReviewsByInterval()
+        .forEach((bucket, count) -> update.inc("reviewsByInterval." + bucket, count));
+    stats.getRecalledByInterval()
+        .forEach((bucket, count) -> update.inc("recalledByInterval." + bucket, count));
+    return update;
+  }
+
+  private static void incIfPositive(Update update, String field, long count) {
+    if (count > 0) {
+      update.inc(field, count);
+    }
+  }
+
+  private static void addBuckets(Map<String, Long> counts, long[] totals) {
+    if (counts == null) {
+      return;
+    }
+    counts.forEach((bucket, count) -> {
+      int index = Integer.parseInt(bucket);
+      if (index >= 0 && index < totals.length) {
+        totals[index] += count;
+      }
+    });
+  }
+
+  private static void requireUser(String userId) {
+    if (userId == null || userId.isBlank()) {
+      throw new IllegalArgumentException("User is required");
+    }
+  }
+
+  private static Query byId(String id) {
+    return Query.query(Criteria.where("_id").is(id));
+  }
+}
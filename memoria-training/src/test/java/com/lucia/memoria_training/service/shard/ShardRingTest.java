@@ -0,0 +1,50 @@
+package com.lucia.memoria_training.service.shard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pins the ring to fixed assignments. The gateway's ConsistentHashRingTest checks the ring it
+ * routes by against the same table, a change here must be made there too or the gateway and
+ * the instances disagree on who owns a user.
+ */
+class ShardRingTest {
+
+  private static final List<String> INSTANCES = List.of("http://training-b:8083",
+      "http://training-a:8083", "http://training-c:8083");
+
+  @Test
+  void positionsAreTheFirstFourBytesOfTheMd5() {
+    assertEquals(3558706393L, ShardRing.positionOf(""));
+    assertEquals(1669653170L, ShardRing.positionOf("alice"));
+    assertEquals(3604443219L, ShardRing.positionOf("user-1"));
+    assertEquals(82390526L, ShardRing.positionOf("7c9e6679-7425-40de-944b-e07fc1f90ae7"));
+  }
+
+  @Test
+  void assignsUsersToThePinnedInstances() {
+    ShardRing ring = new ShardRing(INSTANCES, 160);
+
+    assertEquals("http://training-b:8083", ring.instanceFor(null));
+    assertEquals("http://training-c:8083", ring.instanceFor("alice"));
+    assertEquals("http://training-c:8083", ring.instanceFor("bob"));
+    assertEquals("http://training-a:8083", ring.instanceFor("user-1"));
+    assertEquals("http://training-c:8083", ring.instanceFor("user-2"));
+    assertEquals("http://training-b:8083", ring.instanceFor("user-42"));
+    assertEquals("http://training-b:8083",
+        ring.instanceFor("7c9e6679-7425-40de-944b-e07fc1f90ae7"));
+  }
+
+  @Test
+  void doesNotDependOnTheInstanceOrder() {
+    ShardRing listed = new ShardRing(INSTANCES, 160);
+    ShardRing reordered = new ShardRing(List.of("http://training-c:8083",
+        "http://training-a:8083", "http://training-b:8083"), 160);
+
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(listed.instanceFor("user-" + i), reordered.instanceFor("user-" + i));
+    }
+  }
+}